@@ -21,4 +21,92 @@ api.interceptors.request.use(async (config) => {
   return config
 })
 
+const pendingIdempotencyKeys = new Map()
+
+/**
+ * Posts a payload with an Idempotency-Key header, so that retrying after a timeout or a network error cannot create the
+ * resource twice: the server answers the retry with the response of the first attempt if it went through.
+ *
+ * The same key is sent again for as long as the same payload is posted to the same path without success, and dropped once
+ * it succeeds, so that posting the same payload again later creates a new resource.
+ */
+export async function postOnce(path, payload) {
+  const attempt = `${path} ${JSON.stringify(payload)}`
+  if (!pendingIdempotencyKeys.has(attempt)) {
+    pendingIdempotencyKeys.set(attempt, crypto.randomUUID())
+  }
+  const response = await api.post(path, payload, {
+    headers: { 'Idempotency-Key': pendingIdempotencyKeys.get(attempt) },
+  })
+  pendingIdempotencyKeys.delete(attempt)
+  return response
+}
+
+/**
+ * Opens a server-sent event stream and calls onEvent(name, data) for every event received, until the signal is aborted.
+ *
+ * EventSource cannot send the Authorization header, so the stream is read with fetch instead. The stream is opened again
+ * whenever the server closes it, with a fresh token.
+ *
+ * Returns { opened }, a promise that resolves once the response headers of the first connection have arrived, so that
+ * callers can wait for it before fetching the state the events apply to. It also resolves if that first attempt fails or
+ * the signal is aborted, so that callers are never left waiting on a stream that cannot be opened.
+ */
+export function streamEvents(path, onEvent, signal) {
+  let resolveOpened
+  const opened = new Promise((resolve) => {
+    resolveOpened = resolve
+  })
+  signal.addEventListener('abort', () => resolveOpened(), { once: true })
+  readEvents(path, onEvent, signal, resolveOpened)
+  return { opened }
+}
+
+async function readEvents(path, onEvent, signal, onOpened) {
+  while (!signal.aborted) {
+    try {
+      await keycloak.updateToken(30)
+      const response = await fetch(`/api${path}`, {
+        headers: {
+          Accept: 'text/event-stream, application/json',
+          Authorization: `Bearer ${keycloak.token}`,
+        },
+        signal,
+      })
+      if (!response.ok) {
+        throw new Error(`Event stream ${path} failed with status ${response.status}`)
+      }
+      onOpened()
+
+      const reader = response.body.pipeThrough(new TextDecoderStream()).getReader()
+      let buffer = ''
+      for (;;) {
+        const { value, done } = await reader.read()
+        if (done) break
+        buffer += value
+        const events = buffer.split('\n\n')
+        buffer = events.pop()
+        events.forEach((event) => dispatchEvent(event, onEvent))
+      }
+    } catch (err) {
+      onOpened()
+      if (signal.aborted) return
+      console.error('Event stream interrupted, reconnecting:', err)
+      await new Promise((resolve) => setTimeout(resolve, 5000))
+    }
+  }
+}
+
+function dispatchEvent(event, onEvent) {
+  let name = 'message'
+  const data = []
+  event.split('\n').forEach((line) => {
+    if (line.startsWith('event:')) name = line.slice(6).trim()
+    else if (line.startsWith('data:')) data.push(line.slice(5))
+  })
+  if (data.length > 0) {
+    onEvent(name, JSON.parse(data.join('\n')))
+  }
+}
+
 export default api
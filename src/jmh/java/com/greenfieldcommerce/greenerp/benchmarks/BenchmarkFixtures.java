@@ -0,0 +1,69 @@
+package com.greenfieldcommerce.greenerp.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.InvoiceExtraAmountLine;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+
+/**
+ * Builds the detached entities the benchmarks work on, with realistic amounts and no persistence context.
+ */
+final class BenchmarkFixtures
+{
+	static final Currency USD = Currency.getInstance("USD");
+	static final ZonedDateTime PERIOD_START = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	static final ZonedDateTime PERIOD_END = PERIOD_START.plusMonths(1).minusSeconds(1);
+
+	private BenchmarkFixtures()
+	{
+	}
+
+	static Client client()
+	{
+		return Client.create("Client", "client@greenfieldcommerce.com", USD, 30);
+	}
+
+	static ContractorRate rate(final Client client, final int contractor)
+	{
+		return ContractorRate.create(Contractor.create(String.format("contractor%s@greenfieldcommerce.com", contractor), "Contractor " + contractor), client,
+			new BigDecimal("412.50"), new BigDecimal("720.00"), new BigDecimal("17.5"), USD, PERIOD_START.minusYears(1), PERIOD_START.plusYears(1));
+	}
+
+	/**
+	 * Creates an invoice of the given rate with {@code extraLines} extra amount lines of varying amounts.
+	 */
+	static ContractorInvoice invoice(final ContractorRate rate, final int extraLines)
+	{
+		final ContractorInvoice invoice = ContractorInvoice.create(rate, PERIOD_START, PERIOD_END, new BigDecimal("21.5"));
+		for (int line = 0; line < extraLines; line++)
+			invoice.getExtraAmountLines().add(InvoiceExtraAmountLine.create(invoice, BigDecimal.valueOf(1000 + line * 37L, 2), "Extra " + line));
+		return invoice;
+	}
+
+	static List<ContractorInvoice> invoices(final Client client, final int count, final int extraLines)
+	{
+		final List<ContractorInvoice> invoices = new ArrayList<>(count);
+		for (int contractor = 0; contractor < count; contractor++)
+			invoices.add(invoice(rate(client, contractor), extraLines));
+		return invoices;
+	}
+
+	/**
+	 * An object mapper configured as the one Spring Boot builds for the REST API.
+	 */
+	static ObjectMapper objectMapper()
+	{
+		return JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+	}
+}
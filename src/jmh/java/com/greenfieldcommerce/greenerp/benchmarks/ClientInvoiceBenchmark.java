@@ -0,0 +1,52 @@
+package com.greenfieldcommerce.greenerp.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateTable;
+
+/**
+ * Measures {@link ClientInvoice#create}, which sums the totals of the contractor invoices it bills.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientInvoiceBenchmark
+{
+	@Param({ "1", "10", "100", "1000" })
+	private int contractorInvoices;
+
+	private Client client;
+	private List<ContractorInvoice> invoices;
+
+	@Setup
+	public void setup()
+	{
+		client = BenchmarkFixtures.client();
+		invoices = BenchmarkFixtures.invoices(client, contractorInvoices, 0);
+	}
+
+	@Benchmark
+	public ClientInvoice create()
+	{
+		return ClientInvoice.create(client, invoices, ExchangeRateTable.of(List.of()));
+	}
+}
@@ -0,0 +1,48 @@
+package com.greenfieldcommerce.greenerp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.money.Money;
+
+/**
+ * Measures the full recomputation of a contractor invoice total, {@link ContractorInvoice#calculateTotalInvoiceAmount()},
+ * which walks every extra amount line of the invoice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractorInvoiceTotalBenchmark
+{
+	@Param({ "0", "10", "100", "500" })
+	private int extraLines;
+
+	private ContractorInvoice invoice;
+
+	@Setup
+	public void setup()
+	{
+		invoice = BenchmarkFixtures.invoice(BenchmarkFixtures.rate(BenchmarkFixtures.client(), 0), extraLines);
+	}
+
+	@Benchmark
+	public Money calculateTotalInvoiceAmount()
+	{
+		return invoice.calculateTotalInvoiceAmount();
+	}
+}
@@ -0,0 +1,55 @@
+package com.greenfieldcommerce.greenerp.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+
+/**
+ * Measures {@link ContractorRate#create}, dominated by the {@code BigDecimal} divisions computing the gross rate and
+ * the margin, for a rate with few decimals and one with many.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractorRateBenchmark
+{
+	@Param({ "412.50", "412.123456789" })
+	private String rate;
+
+	private BigDecimal rateAmount;
+	private Contractor contractor;
+	private Client client;
+
+	@Setup
+	public void setup()
+	{
+		rateAmount = new BigDecimal(rate);
+		contractor = Contractor.create("contractor@greenfieldcommerce.com", "Contractor");
+		client = BenchmarkFixtures.client();
+	}
+
+	@Benchmark
+	public ContractorRate create()
+	{
+		return ContractorRate.create(contractor, client, rateAmount, new BigDecimal("720.00"), new BigDecimal("17.5"), BenchmarkFixtures.USD,
+			BenchmarkFixtures.PERIOD_START, BenchmarkFixtures.PERIOD_END);
+	}
+}
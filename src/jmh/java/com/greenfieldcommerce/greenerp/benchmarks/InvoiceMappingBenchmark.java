@@ -0,0 +1,109 @@
+package com.greenfieldcommerce.greenerp.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+import com.greenfieldcommerce.greenerp.clients.invoices.mappers.ClientInvoiceToRecordMapper;
+import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
+import com.greenfieldcommerce.greenerp.clients.mappers.ClientToRecordMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.mappers.ContractorInvoiceToRecordMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.mappers.InvoiceExtraAmountLineRecordMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateTable;
+
+/**
+ * Measures the mapping of invoices into the records returned by the REST API, and their serialization to JSON,
+ * separately and end to end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceMappingBenchmark
+{
+	private static final int EXTRA_LINES_PER_CONTRACTOR_INVOICE = 5;
+
+	@Param({ "0", "10", "100" })
+	private int extraLines;
+
+	@Param({ "10", "100" })
+	private int contractorInvoices;
+
+	private ContractorInvoiceToRecordMapper contractorInvoiceMapper;
+	private ClientInvoiceToRecordMapper clientInvoiceMapper;
+	private ObjectMapper objectMapper;
+
+	private ContractorInvoice contractorInvoice;
+	private ContractorInvoiceRecord contractorInvoiceRecord;
+	private ClientInvoice clientInvoice;
+	private ClientInvoiceRecord clientInvoiceRecord;
+
+	@Setup
+	public void setup()
+	{
+		contractorInvoiceMapper = new ContractorInvoiceToRecordMapper(new InvoiceExtraAmountLineRecordMapper());
+		clientInvoiceMapper = new ClientInvoiceToRecordMapper(new ClientToRecordMapper(), contractorInvoiceMapper);
+		objectMapper = BenchmarkFixtures.objectMapper();
+
+		final Client client = BenchmarkFixtures.client();
+		contractorInvoice = BenchmarkFixtures.invoice(BenchmarkFixtures.rate(client, 0), extraLines);
+		contractorInvoiceRecord = contractorInvoiceMapper.map(contractorInvoice);
+		clientInvoice = ClientInvoice.create(client, BenchmarkFixtures.invoices(client, contractorInvoices, EXTRA_LINES_PER_CONTRACTOR_INVOICE), ExchangeRateTable.of(List.of()));
+		clientInvoiceRecord = clientInvoiceMapper.map(clientInvoice);
+	}
+
+	@Benchmark
+	public ContractorInvoiceRecord mapContractorInvoice()
+	{
+		return contractorInvoiceMapper.map(contractorInvoice);
+	}
+
+	@Benchmark
+	public String serializeContractorInvoice() throws JsonProcessingException
+	{
+		return objectMapper.writeValueAsString(contractorInvoiceRecord);
+	}
+
+	@Benchmark
+	public String mapAndSerializeContractorInvoice() throws JsonProcessingException
+	{
+		return objectMapper.writeValueAsString(contractorInvoiceMapper.map(contractorInvoice));
+	}
+
+	@Benchmark
+	public ClientInvoiceRecord mapClientInvoice()
+	{
+		return clientInvoiceMapper.map(clientInvoice);
+	}
+
+	@Benchmark
+	public String serializeClientInvoice() throws JsonProcessingException
+	{
+		return objectMapper.writeValueAsString(clientInvoiceRecord);
+	}
+
+	@Benchmark
+	public String mapAndSerializeClientInvoice() throws JsonProcessingException
+	{
+		return objectMapper.writeValueAsString(clientInvoiceMapper.map(clientInvoice));
+	}
+}
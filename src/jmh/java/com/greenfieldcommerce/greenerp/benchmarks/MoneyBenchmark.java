@@ -0,0 +1,98 @@
+package com.greenfieldcommerce.greenerp.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.greenfieldcommerce.greenerp.money.Money;
+import com.greenfieldcommerce.greenerp.money.MoneyTotal;
+
+/**
+ * Compares summing invoice totals and computing worked days amounts with {@link BigDecimal}, as it used to be done,
+ * and with {@link Money} and {@link MoneyTotal}. Run with {@code -prof gc} to compare allocations as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark
+{
+	private static final BigDecimal NUMBER_OF_WORKED_DAYS = new BigDecimal("21.5");
+
+	@Param({ "100", "1000", "10000" })
+	private int amounts;
+
+	private BigDecimal[] decimals;
+	private Money[] monies;
+
+	@Setup
+	public void setup()
+	{
+		decimals = new BigDecimal[amounts];
+		monies = new Money[amounts];
+		for (int i = 0; i < amounts; i++)
+		{
+			decimals[i] = BigDecimal.valueOf(100_000 + i * 37L, 2);
+			monies[i] = Money.of(decimals[i], BenchmarkFixtures.USD);
+		}
+	}
+
+	@Benchmark
+	public BigDecimal sumBigDecimals()
+	{
+		BigDecimal total = BigDecimal.ZERO;
+		for (final BigDecimal amount : decimals)
+			total = total.add(amount);
+		return total;
+	}
+
+	@Benchmark
+	public Money sumMonies()
+	{
+		final MoneyTotal total = new MoneyTotal(BenchmarkFixtures.USD);
+		for (final Money amount : monies)
+			total.add(amount);
+		return total.toMoney();
+	}
+
+	@Benchmark
+	public BigDecimal sumBigDecimalsIntoMoney()
+	{
+		final MoneyTotal total = new MoneyTotal(BenchmarkFixtures.USD);
+		for (final BigDecimal amount : decimals)
+			total.add(amount);
+		return total.toMoney().toBigDecimal();
+	}
+
+	@Benchmark
+	public BigDecimal workedDaysAmountsWithBigDecimal()
+	{
+		BigDecimal total = BigDecimal.ZERO;
+		for (final BigDecimal rate : decimals)
+			total = total.add(NUMBER_OF_WORKED_DAYS.multiply(rate).setScale(2, RoundingMode.HALF_UP));
+		return total;
+	}
+
+	@Benchmark
+	public Money workedDaysAmountsWithMoney()
+	{
+		final MoneyTotal total = new MoneyTotal(BenchmarkFixtures.USD);
+		for (final BigDecimal rate : decimals)
+			total.add(Money.of(NUMBER_OF_WORKED_DAYS.multiply(rate), BenchmarkFixtures.USD));
+		return total.toMoney();
+	}
+}
@@ -0,0 +1,46 @@
+package com.greenfieldcommerce.greenerp.analytics.controllers;
+
+import java.time.YearMonth;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportFilterRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportRecord;
+import com.greenfieldcommerce.greenerp.analytics.services.MarginAnalyticsService;
+import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
+
+@RestController
+@RequestMapping(value = "/analytics/margins", produces = MediaType.APPLICATION_JSON_VALUE)
+public class MarginAnalyticsController
+{
+	private final MarginAnalyticsService marginAnalyticsService;
+
+	public MarginAnalyticsController(final MarginAnalyticsService marginAnalyticsService)
+	{
+		this.marginAnalyticsService = marginAnalyticsService;
+	}
+
+	@GetMapping
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public MarginReportRecord findMonthlyMargins(@RequestParam(name = "from") YearMonth from, @RequestParam(name = "to") YearMonth to,
+		@RequestParam(name = "clientId", required = false) Long clientId, @RequestParam(name = "contractorId", required = false) Long contractorId)
+	{
+		return marginAnalyticsService.findMonthlyMargins(new MarginReportFilterRecord(from, to, clientId, contractorId));
+	}
+
+	@PostMapping("/rebuild")
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void rebuildMonthlyMargins()
+	{
+		marginAnalyticsService.rebuild();
+	}
+}
@@ -0,0 +1,152 @@
+package com.greenfieldcommerce.greenerp.analytics.entities;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+
+/**
+ * What the contractor invoices of a contractor, billed to a client, starting in a month, amount to: the revenue at
+ * the external rate, the cost at the gross rate, and the revenue of those already billed. Extra amounts are passed
+ * through, counted both as revenue and as cost.
+ * <p>
+ * Summaries are derived from the invoices, and refreshed whenever one of them is created, changed or billed, so they
+ * can be read without touching the invoices.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "UniqueMonthlyMarginSummary", columnNames = { "monthStart", "clientId", "contractorId", "currency" }),
+	indexes = @Index(name = "IdxMonthlyMarginSummaryContractor", columnList = "contractorId, monthStart"))
+public class MonthlyMarginSummary
+{
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	@Column(nullable = false)
+	private Long clientId;
+
+	@Column(nullable = false)
+	private Long contractorId;
+
+	/**
+	 * First day of the month the summarized invoices start in.
+	 */
+	@Column(nullable = false)
+	private LocalDate monthStart;
+
+	@Column(nullable = false)
+	private Currency currency;
+
+	@Column(nullable = false)
+	private int invoiceCount;
+
+	@Column(nullable = false)
+	private int billedInvoiceCount;
+
+	@Column(nullable = false)
+	private BigDecimal workedDays;
+
+	@Column(nullable = false)
+	private BigDecimal revenue;
+
+	@Column(nullable = false)
+	private BigDecimal cost;
+
+	@Column(nullable = false)
+	private BigDecimal billedRevenue;
+
+	@Version
+	private Long version;
+
+	protected MonthlyMarginSummary()
+	{
+	}
+
+	private MonthlyMarginSummary(final Long clientId, final Long contractorId, final LocalDate monthStart, final Currency currency)
+	{
+		this.clientId = clientId;
+		this.contractorId = contractorId;
+		this.monthStart = monthStart;
+		this.currency = currency;
+	}
+
+	public static MonthlyMarginSummary create(final Long clientId, final Long contractorId, final LocalDate monthStart, final Currency currency)
+	{
+		return new MonthlyMarginSummary(clientId, contractorId, monthStart, currency);
+	}
+
+	public void setFigures(final int invoiceCount, final int billedInvoiceCount, final BigDecimal workedDays, final BigDecimal revenue, final BigDecimal cost,
+		final BigDecimal billedRevenue)
+	{
+		this.invoiceCount = invoiceCount;
+		this.billedInvoiceCount = billedInvoiceCount;
+		this.workedDays = workedDays;
+		this.revenue = revenue;
+		this.cost = cost;
+		this.billedRevenue = billedRevenue;
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public Long getClientId()
+	{
+		return clientId;
+	}
+
+	public Long getContractorId()
+	{
+		return contractorId;
+	}
+
+	public LocalDate getMonthStart()
+	{
+		return monthStart;
+	}
+
+	public Currency getCurrency()
+	{
+		return currency;
+	}
+
+	public int getInvoiceCount()
+	{
+		return invoiceCount;
+	}
+
+	public int getBilledInvoiceCount()
+	{
+		return billedInvoiceCount;
+	}
+
+	public BigDecimal getWorkedDays()
+	{
+		return workedDays;
+	}
+
+	public BigDecimal getRevenue()
+	{
+		return revenue;
+	}
+
+	public BigDecimal getCost()
+	{
+		return cost;
+	}
+
+	public BigDecimal getBilledRevenue()
+	{
+		return billedRevenue;
+	}
+}
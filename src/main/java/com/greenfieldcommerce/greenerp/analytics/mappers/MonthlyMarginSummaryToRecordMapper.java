@@ -0,0 +1,30 @@
+package com.greenfieldcommerce.greenerp.analytics.mappers;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.YearMonth;
+
+import org.springframework.stereotype.Component;
+
+import com.greenfieldcommerce.greenerp.analytics.entities.MonthlyMarginSummary;
+import com.greenfieldcommerce.greenerp.analytics.records.MonthlyMarginRecord;
+import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.money.Money;
+
+@Component
+public class MonthlyMarginSummaryToRecordMapper implements Mapper<MonthlyMarginSummary, MonthlyMarginRecord>
+{
+	private static final int PERCENTAGE_SCALE = 2;
+
+	@Override
+	public MonthlyMarginRecord map(final MonthlyMarginSummary summary)
+	{
+		final BigDecimal margin = summary.getRevenue().subtract(summary.getCost());
+		final BigDecimal marginPercentage = summary.getRevenue().signum() == 0 ? null
+			: margin.divide(summary.getRevenue(), MathContext.DECIMAL64).movePointRight(2).setScale(PERCENTAGE_SCALE, Money.ROUNDING);
+
+		return new MonthlyMarginRecord(YearMonth.from(summary.getMonthStart()), summary.getClientId(), summary.getContractorId(), summary.getCurrency(),
+			summary.getInvoiceCount(), summary.getBilledInvoiceCount(), summary.getWorkedDays(), summary.getRevenue(), summary.getCost(), margin, marginPercentage,
+			summary.getBilledRevenue());
+	}
+}
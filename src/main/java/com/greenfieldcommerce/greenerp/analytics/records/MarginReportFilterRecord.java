@@ -0,0 +1,11 @@
+package com.greenfieldcommerce.greenerp.analytics.records;
+
+import java.time.YearMonth;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Selects the monthly margins to report, from {@code from} to {@code to}, both inclusive; a {@code null} client or
+ * contractor matches all of them.
+ */
+public record MarginReportFilterRecord(YearMonth from, YearMonth to, @Nullable Long clientId, @Nullable Long contractorId) { }
@@ -0,0 +1,7 @@
+package com.greenfieldcommerce.greenerp.analytics.records;
+
+import java.util.List;
+
+public record MarginReportRecord(List<MonthlyMarginRecord> margins, List<MarginTotalRecord> totals)
+{
+}
@@ -0,0 +1,9 @@
+package com.greenfieldcommerce.greenerp.analytics.records;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Revenue, cost and margin of several months, clients or contractors, summed within a single currency.
+ */
+public record MarginTotalRecord(Currency currency, BigDecimal revenue, BigDecimal cost, BigDecimal margin) { }
@@ -0,0 +1,14 @@
+package com.greenfieldcommerce.greenerp.analytics.records;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Currency;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Revenue, cost and margin of the invoices of a contractor, billed to a client, starting in a month.
+ * {@code marginPercentage} is the margin as a percentage of the revenue, {@code null} when there is no revenue.
+ */
+public record MonthlyMarginRecord(YearMonth month, Long clientId, Long contractorId, Currency currency, int invoiceCount, int billedInvoiceCount,
+	BigDecimal workedDays, BigDecimal revenue, BigDecimal cost, BigDecimal margin, @Nullable BigDecimal marginPercentage, BigDecimal billedRevenue) { }
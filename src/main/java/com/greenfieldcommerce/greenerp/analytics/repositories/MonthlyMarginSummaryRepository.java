@@ -0,0 +1,22 @@
+package com.greenfieldcommerce.greenerp.analytics.repositories;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.greenfieldcommerce.greenerp.analytics.entities.MonthlyMarginSummary;
+
+@Repository
+public interface MonthlyMarginSummaryRepository extends ListCrudRepository<MonthlyMarginSummary, Long>
+{
+	@Query("SELECT s FROM #{#entityName} s WHERE s.monthStart BETWEEN :from AND :to "
+		+ "AND (:clientId IS NULL OR s.clientId = :clientId) AND (:contractorId IS NULL OR s.contractorId = :contractorId) "
+		+ "ORDER BY s.monthStart, s.clientId, s.contractorId, s.currency")
+	List<MonthlyMarginSummary> findMatching(LocalDate from, LocalDate to, Long clientId, Long contractorId);
+
+	List<MonthlyMarginSummary> findByContractorIdInAndMonthStartBetween(Collection<Long> contractorIds, LocalDate from, LocalDate to);
+}
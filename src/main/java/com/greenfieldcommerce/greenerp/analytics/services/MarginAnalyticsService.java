@@ -0,0 +1,14 @@
+package com.greenfieldcommerce.greenerp.analytics.services;
+
+import java.util.Collection;
+
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportFilterRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+
+public interface MarginAnalyticsService
+{
+	MarginReportRecord findMonthlyMargins(MarginReportFilterRecord filter);
+	void refresh(Collection<ContractorInvoiceRecord> invoices);
+	int rebuild();
+}
@@ -0,0 +1,310 @@
+package com.greenfieldcommerce.greenerp.analytics.services;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.greenfieldcommerce.greenerp.analytics.entities.MonthlyMarginSummary;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportFilterRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginTotalRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MonthlyMarginRecord;
+import com.greenfieldcommerce.greenerp.analytics.repositories.MonthlyMarginSummaryRepository;
+import com.greenfieldcommerce.greenerp.archive.repositories.ArchivedContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceMarginRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.exceptions.InvalidDateRangeException;
+import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.money.MoneyTotal;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Implementation of {@link MarginAnalyticsService} reading margins from {@link MonthlyMarginSummary} rows, one per
+ * client, contractor, month and currency, so reports over years read a few rows per contractor and month instead of
+ * every contractor invoice and rate.
+ * <p>
+ * Rather than applying the difference each change makes, the summaries of a contractor and month are recomputed from
+ * the invoices of that contractor starting in that month, which are only a handful, whenever one of them is
+ * created, changed or billed. Refreshing is thus idempotent, and runs in a transaction of its own once the change
+ * committed, so that writers of the same summaries never fail each other's invoice writes: a refresh losing a race
+ * on a summary, on its version or its natural key, reads the committed invoices again and retries, up to
+ * {@code greenerp.analytics.refresh-attempts} times, after which the failure is logged and the summaries are left to
+ * the next refresh or rebuild. Invoices are archived a whole contractor and month at a time, so refreshing never
+ * needs the archive; only rebuilding reads it.
+ */
+@Service
+public class MarginAnalyticsServiceImpl implements MarginAnalyticsService
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(MarginAnalyticsServiceImpl.class);
+
+	/**
+	 * The invoices of a contractor starting in a month, whose summaries are refreshed together.
+	 */
+	private record Slice(Long contractorId, YearMonth month) { }
+
+	/**
+	 * The natural key of a summary.
+	 */
+	private record SummaryKey(Long clientId, Long contractorId, YearMonth month, Currency currency) { }
+
+	private final MonthlyMarginSummaryRepository monthlyMarginSummaryRepository;
+	private final ContractorInvoiceRepository contractorInvoiceRepository;
+	private final ArchivedContractorInvoiceRepository archivedContractorInvoiceRepository;
+	private final Mapper<MonthlyMarginSummary, MonthlyMarginRecord> monthlyMarginSummaryToRecordMapper;
+	private final TransactionTemplate refreshTransaction;
+	private final int refreshAttempts;
+
+	public MarginAnalyticsServiceImpl(final MonthlyMarginSummaryRepository monthlyMarginSummaryRepository, final ContractorInvoiceRepository contractorInvoiceRepository,
+		final ArchivedContractorInvoiceRepository archivedContractorInvoiceRepository, final Mapper<MonthlyMarginSummary, MonthlyMarginRecord> monthlyMarginSummaryToRecordMapper,
+		final PlatformTransactionManager transactionManager, @Value("${greenerp.analytics.refresh-attempts:3}") final int refreshAttempts)
+	{
+		this.monthlyMarginSummaryRepository = monthlyMarginSummaryRepository;
+		this.contractorInvoiceRepository = contractorInvoiceRepository;
+		this.archivedContractorInvoiceRepository = archivedContractorInvoiceRepository;
+		this.monthlyMarginSummaryToRecordMapper = monthlyMarginSummaryToRecordMapper;
+		this.refreshTransaction = new TransactionTemplate(transactionManager);
+		this.refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.refreshAttempts = refreshAttempts;
+	}
+
+	/**
+	 * Reports the monthly margins matching the filter, ordered by month, client and contractor, along with their
+	 * totals per currency.
+	 *
+	 * @throws InvalidDateRangeException if the range ends before it starts
+	 */
+	@Override
+	public MarginReportRecord findMonthlyMargins(final MarginReportFilterRecord filter)
+	{
+		if (filter.to().isBefore(filter.from()))
+			throw new InvalidDateRangeException("INVALID_DATE_RANGE", String.format("The range from %s to %s ends before it starts", filter.from(), filter.to()));
+
+		final List<MonthlyMarginRecord> margins = monthlyMarginSummaryRepository.findMatching(filter.from().atDay(1), filter.to().atDay(1), filter.clientId(), filter.contractorId())
+			.stream().map(monthlyMarginSummaryToRecordMapper::map).toList();
+
+		final Map<Currency, MoneyTotal[]> totals = new TreeMap<>(Comparator.comparing(Currency::getCurrencyCode));
+		for (final MonthlyMarginRecord margin : margins)
+		{
+			final MoneyTotal[] total = totals.computeIfAbsent(margin.currency(), currency -> new MoneyTotal[] { new MoneyTotal(currency), new MoneyTotal(currency) });
+			total[0].add(margin.revenue());
+			total[1].add(margin.cost());
+		}
+		return new MarginReportRecord(margins, totals.entrySet().stream().map(entry -> {
+			final BigDecimal revenue = entry.getValue()[0].toMoney().toBigDecimal();
+			final BigDecimal cost = entry.getValue()[1].toMoney().toBigDecimal();
+			return new MarginTotalRecord(entry.getKey(), revenue, cost, revenue.subtract(cost));
+		}).toList());
+	}
+
+	/**
+	 * Recomputes the summaries of the contractors and months of the given invoices once the current transaction
+	 * committed, or right away outside of a transaction. Nothing is refreshed if the transaction rolls back, and a
+	 * refresh that keeps failing is logged rather than thrown, as the invoices are already committed by then.
+	 *
+	 * @param invoices the invoices that were created, changed or billed
+	 */
+	@Override
+	public void refresh(final Collection<ContractorInvoiceRecord> invoices)
+	{
+		final Set<Slice> slices = invoices.stream().map(invoice -> new Slice(invoice.contractorId(), YearMonth.from(invoice.startDate()))).collect(Collectors.toSet());
+		if (slices.isEmpty())
+			return;
+
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+			{
+				@Override
+				public void afterCommit()
+				{
+					refreshWithRetries(slices);
+				}
+			});
+		else
+			refreshWithRetries(slices);
+	}
+
+	/**
+	 * Refreshes the summaries of the given slices in a new transaction, again as long as it loses a race with another
+	 * refresh of the same summaries and attempts are left.
+	 */
+	private void refreshWithRetries(final Set<Slice> slices)
+	{
+		for (int attempt = 1; ; attempt++)
+		{
+			try
+			{
+				refreshTransaction.executeWithoutResult(status -> refreshNow(slices));
+				return;
+			} catch (ConcurrencyFailureException | DataIntegrityViolationException e)
+			{
+				if (attempt >= refreshAttempts)
+				{
+					LOGGER.warn("Could not refresh the margin summaries of {} after {} attempts, they will be brought up to date by the next refresh or rebuild", slices, attempt, e);
+					return;
+				}
+				LOGGER.debug("Refreshing the margin summaries of {} raced with another refresh, retrying", slices, e);
+			} catch (RuntimeException e)
+			{
+				LOGGER.error("Could not refresh the margin summaries of {}, they will be brought up to date by the next refresh or rebuild", slices, e);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the summaries of the given slices from the invoices as they stand in the current transaction. Takes
+	 * two queries, however many slices are given, plus the writes of the summaries that changed.
+	 */
+	private void refreshNow(final Set<Slice> slices)
+	{
+		final Set<Long> contractorIds = slices.stream().map(Slice::contractorId).collect(Collectors.toSet());
+		final YearMonth first = slices.stream().map(Slice::month).min(Comparator.naturalOrder()).orElseThrow();
+		final YearMonth last = slices.stream().map(Slice::month).max(Comparator.naturalOrder()).orElseThrow();
+
+		// A day of slack on both ends keeps in range the invoices whose start date is read back at another offset
+		final ZonedDateTime from = first.atDay(1).atStartOfDay(ZoneId.systemDefault()).minusDays(1);
+		final ZonedDateTime to = last.plusMonths(1).atDay(1).atStartOfDay(ZoneId.systemDefault()).plusDays(1);
+		final List<InvoiceMarginRecord> margins = contractorInvoiceRepository.findMarginsByContractorIdInAndStartDateBetween(contractorIds, from, to).stream()
+			.filter(margin -> slices.contains(new Slice(margin.contractorId(), YearMonth.from(margin.startDate()))))
+			.toList();
+
+		final List<MonthlyMarginSummary> summaries = monthlyMarginSummaryRepository.findByContractorIdInAndMonthStartBetween(contractorIds, first.atDay(1), last.atDay(1)).stream()
+			.filter(summary -> slices.contains(new Slice(summary.getContractorId(), YearMonth.from(summary.getMonthStart()))))
+			.toList();
+
+		reconcile(summaries, summarize(margins));
+	}
+
+	/**
+	 * Recomputes every summary from every contractor invoice, archived ones included, for invoices written before summaries were kept, or
+	 * changed straight in the database.
+	 *
+	 * @return the number of summaries
+	 */
+	@Override
+	@Transactional
+	public int rebuild()
+	{
+		final Map<SummaryKey, Figures> figures = summarize(Stream.concat(contractorInvoiceRepository.findAllMargins().stream(),
+			archivedContractorInvoiceRepository.findAllMargins().stream()).toList());
+		final int size = figures.size();
+		reconcile(monthlyMarginSummaryRepository.findAll(), figures);
+		return size;
+	}
+
+	/**
+	 * Brings the stored summaries in line with the figures computed for them: summaries are updated in place, as
+	 * replacing them would insert the new rows before deleting the old ones, created where missing, and deleted when
+	 * nothing is left to summarize.
+	 */
+	private void reconcile(final List<MonthlyMarginSummary> summaries, final Map<SummaryKey, Figures> figures)
+	{
+		final List<MonthlyMarginSummary> stale = new ArrayList<>();
+		for (final MonthlyMarginSummary summary : summaries)
+		{
+			final Figures summaryFigures = figures.remove(keyOf(summary));
+			if (summaryFigures == null)
+				stale.add(summary);
+			else
+				summaryFigures.applyTo(summary);
+		}
+
+		final List<MonthlyMarginSummary> created = new ArrayList<>();
+		figures.forEach((key, summaryFigures) ->
+			created.add(summaryFigures.applyTo(MonthlyMarginSummary.create(key.clientId(), key.contractorId(), key.month().atDay(1), key.currency()))));
+
+		monthlyMarginSummaryRepository.deleteAll(stale);
+		monthlyMarginSummaryRepository.saveAll(created);
+	}
+
+	private static Map<SummaryKey, Figures> summarize(final Collection<InvoiceMarginRecord> margins)
+	{
+		final Map<SummaryKey, Figures> figures = new HashMap<>();
+		for (final InvoiceMarginRecord margin : margins)
+			figures.computeIfAbsent(keyOf(margin), key -> new Figures(key.currency())).add(margin);
+		return figures;
+	}
+
+	private static SummaryKey keyOf(final InvoiceMarginRecord margin)
+	{
+		return new SummaryKey(margin.clientId(), margin.contractorId(), YearMonth.from(margin.startDate()), margin.currency());
+	}
+
+	private static SummaryKey keyOf(final MonthlyMarginSummary summary)
+	{
+		return new SummaryKey(summary.getClientId(), summary.getContractorId(), YearMonth.from(summary.getMonthStart()), summary.getCurrency());
+	}
+
+	/**
+	 * The figures of a summary, accumulated invoice by invoice. Worked days amounts are rounded once per invoice, as
+	 * they are on the invoice itself.
+	 */
+	private static final class Figures
+	{
+		private final MoneyTotal revenue;
+		private final MoneyTotal cost;
+		private final MoneyTotal billedRevenue;
+		private int invoiceCount;
+		private int billedInvoiceCount;
+		private BigDecimal workedDays = BigDecimal.ZERO;
+
+		private Figures(final Currency currency)
+		{
+			this.revenue = new MoneyTotal(currency);
+			this.cost = new MoneyTotal(currency);
+			this.billedRevenue = new MoneyTotal(currency);
+		}
+
+		private void add(final InvoiceMarginRecord margin)
+		{
+			final Currency currency = margin.currency();
+			final MoneyTotal invoiceRevenue = new MoneyTotal(currency)
+				.add(ContractorInvoice.calculateWorkedDaysAmount(margin.numberOfWorkedDays(), margin.externalRate(), currency))
+				.add(margin.extraAmountsTotal());
+
+			invoiceCount++;
+			workedDays = workedDays.add(margin.numberOfWorkedDays());
+			revenue.add(invoiceRevenue.toMoney());
+			cost.add(ContractorInvoice.calculateWorkedDaysAmount(margin.numberOfWorkedDays(), margin.grossRate(), currency)).add(margin.extraAmountsTotal());
+			if (margin.clientInvoiceId() != null)
+			{
+				billedInvoiceCount++;
+				billedRevenue.add(invoiceRevenue.toMoney());
+			}
+		}
+
+		private MonthlyMarginSummary applyTo(final MonthlyMarginSummary summary)
+		{
+			summary.setFigures(invoiceCount, billedInvoiceCount, workedDays, revenue.toMoney().toBigDecimal(), cost.toMoney().toBigDecimal(),
+				billedRevenue.toMoney().toBigDecimal());
+			return summary;
+		}
+	}
+}
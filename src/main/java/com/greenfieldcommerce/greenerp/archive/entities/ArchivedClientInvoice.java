@@ -0,0 +1,121 @@
+package com.greenfieldcommerce.greenerp.archive.entities;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+
+import org.springframework.data.domain.Persistable;
+
+import com.greenfieldcommerce.greenerp.archive.services.ArchivedDocumentCodec;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+/**
+ * A closed client invoice moved out of {@code client_invoice}, keeping the id it had there, once every contractor
+ * invoice it bills has been archived.
+ * <p>
+ * The invoice, as last returned by the API, is kept as a compressed document; only what it is looked up and sorted
+ * by is kept in columns.
+ */
+@Entity
+@Table(indexes = @Index(name = "IdxArchivedClientInvoiceKeyset", columnList = "clientId, dueDate, id"))
+public class ArchivedClientInvoice implements Persistable<Long>
+{
+	@Id
+	private Long id;
+
+	@Column(nullable = false)
+	private Long clientId;
+
+	@Column(nullable = false)
+	private ZonedDateTime invoiceDate;
+
+	@Column(nullable = false)
+	private ZonedDateTime dueDate;
+
+	private Currency currency;
+
+	private BigDecimal total;
+
+	@Column(nullable = false)
+	private ZonedDateTime archivedAt;
+
+	@Column(nullable = false, length = ArchivedDocumentCodec.MAXIMUM_LENGTH)
+	private byte[] document;
+
+	@Transient
+	private boolean created = true;
+
+	protected ArchivedClientInvoice()
+	{
+	}
+
+	private ArchivedClientInvoice(final ClientInvoice invoice, final byte[] document, final ZonedDateTime archivedAt)
+	{
+		this.id = invoice.getId();
+		this.clientId = invoice.getClient().getId();
+		this.invoiceDate = invoice.getInvoiceDate();
+		this.dueDate = invoice.getDueDate();
+		this.currency = invoice.getCurrency();
+		this.total = invoice.getTotal();
+		this.archivedAt = archivedAt;
+		this.document = document;
+	}
+
+	public static ArchivedClientInvoice create(final ClientInvoice invoice, final byte[] document, final ZonedDateTime archivedAt)
+	{
+		return new ArchivedClientInvoice(invoice, document, archivedAt);
+	}
+
+	@PostLoad
+	@PostPersist
+	void markStored()
+	{
+		this.created = false;
+	}
+
+	@Override
+	public Long getId()
+	{
+		return id;
+	}
+
+	@Override
+	public boolean isNew()
+	{
+		return created;
+	}
+
+	public Long getClientId()
+	{
+		return clientId;
+	}
+
+	public ZonedDateTime getInvoiceDate()
+	{
+		return invoiceDate;
+	}
+
+	public ZonedDateTime getDueDate()
+	{
+		return dueDate;
+	}
+
+	public ZonedDateTime getArchivedAt()
+	{
+		return archivedAt;
+	}
+
+	public byte[] getDocument()
+	{
+		return document;
+	}
+}
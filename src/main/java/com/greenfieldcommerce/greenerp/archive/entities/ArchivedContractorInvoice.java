@@ -0,0 +1,159 @@
+package com.greenfieldcommerce.greenerp.archive.entities;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+
+import org.springframework.data.domain.Persistable;
+
+import com.greenfieldcommerce.greenerp.archive.services.ArchivedDocumentCodec;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+/**
+ * A closed contractor invoice moved out of {@code contractor_invoice}, keeping the id it had there.
+ * <p>
+ * The invoice, as last returned by the API, is kept as a compressed document. Only what it is looked up, sorted and
+ * exported by is kept in columns, along with the figures its margins are computed from, rates included, so the
+ * archive reads neither the invoice tables nor the rates it was billed at.
+ */
+@Entity
+@Table(indexes = { @Index(name = "IdxArchivedContractorInvoiceKeyset", columnList = "contractorId, startDate, id"),
+	@Index(name = "IdxArchivedContractorInvoiceClientInvoice", columnList = "clientInvoiceId") })
+public class ArchivedContractorInvoice implements Persistable<Long>
+{
+	@Id
+	private Long id;
+
+	@Column(nullable = false)
+	private Long contractorId;
+
+	private Long clientId;
+
+	private Long clientInvoiceId;
+
+	@Column(nullable = false)
+	private ZonedDateTime startDate;
+
+	@Column(nullable = false)
+	private ZonedDateTime endDate;
+
+	@Column(nullable = false)
+	private Currency currency;
+
+	@Column(nullable = false)
+	private BigDecimal numberOfWorkedDays;
+
+	@Column(nullable = false)
+	private BigDecimal extraAmountsTotal;
+
+	@Column(nullable = false)
+	private BigDecimal externalRate;
+
+	@Column(nullable = false)
+	private BigDecimal grossRate;
+
+	private BigDecimal total;
+
+	@Column(nullable = false)
+	private ZonedDateTime archivedAt;
+
+	@Column(nullable = false, length = ArchivedDocumentCodec.MAXIMUM_LENGTH)
+	private byte[] document;
+
+	/**
+	 * The id is the one the invoice had in the hot table, so saving a new archive entry must insert it straight away
+	 * rather than look it up first.
+	 */
+	@Transient
+	private boolean created = true;
+
+	protected ArchivedContractorInvoice()
+	{
+	}
+
+	private ArchivedContractorInvoice(final ContractorInvoice invoice, final byte[] document, final ZonedDateTime archivedAt)
+	{
+		this.id = invoice.getId();
+		this.contractorId = invoice.getContractor().getId();
+		this.clientId = invoice.getClient() == null ? null : invoice.getClient().getId();
+		this.clientInvoiceId = invoice.getClientInvoice() == null ? null : invoice.getClientInvoice().getId();
+		this.startDate = invoice.getStartDate();
+		this.endDate = invoice.getEndDate();
+		this.currency = invoice.getCurrency();
+		this.numberOfWorkedDays = invoice.getNumberOfWorkedDays();
+		this.extraAmountsTotal = invoice.getExtraAmountsTotal();
+		this.externalRate = invoice.getRate().getExternalRate();
+		this.grossRate = invoice.getRate().getGrossRate();
+		this.total = invoice.getTotal();
+		this.archivedAt = archivedAt;
+		this.document = document;
+	}
+
+	public static ArchivedContractorInvoice create(final ContractorInvoice invoice, final byte[] document, final ZonedDateTime archivedAt)
+	{
+		return new ArchivedContractorInvoice(invoice, document, archivedAt);
+	}
+
+	@PostLoad
+	@PostPersist
+	void markStored()
+	{
+		this.created = false;
+	}
+
+	@Override
+	public Long getId()
+	{
+		return id;
+	}
+
+	@Override
+	public boolean isNew()
+	{
+		return created;
+	}
+
+	public Long getContractorId()
+	{
+		return contractorId;
+	}
+
+	public Long getClientId()
+	{
+		return clientId;
+	}
+
+	public Long getClientInvoiceId()
+	{
+		return clientInvoiceId;
+	}
+
+	public ZonedDateTime getStartDate()
+	{
+		return startDate;
+	}
+
+	public ZonedDateTime getEndDate()
+	{
+		return endDate;
+	}
+
+	public ZonedDateTime getArchivedAt()
+	{
+		return archivedAt;
+	}
+
+	public byte[] getDocument()
+	{
+		return document;
+	}
+}
@@ -0,0 +1,3 @@
+package com.greenfieldcommerce.greenerp.archive.records;
+
+public record InvoiceArchiveRecord(int contractorInvoices, int clientInvoices) { }
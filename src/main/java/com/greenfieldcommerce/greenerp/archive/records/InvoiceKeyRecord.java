@@ -0,0 +1,5 @@
+package com.greenfieldcommerce.greenerp.archive.records;
+
+import java.time.ZonedDateTime;
+
+public record InvoiceKeyRecord(Long id, ZonedDateTime date, boolean archived) { }
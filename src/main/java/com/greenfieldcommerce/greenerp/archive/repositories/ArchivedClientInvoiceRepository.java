@@ -0,0 +1,9 @@
+package com.greenfieldcommerce.greenerp.archive.repositories;
+
+import org.springframework.data.repository.ListCrudRepository;
+
+import com.greenfieldcommerce.greenerp.archive.entities.ArchivedClientInvoice;
+
+public interface ArchivedClientInvoiceRepository extends ListCrudRepository<ArchivedClientInvoice, Long>
+{
+}
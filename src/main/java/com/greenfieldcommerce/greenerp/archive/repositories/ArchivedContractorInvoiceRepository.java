@@ -0,0 +1,32 @@
+package com.greenfieldcommerce.greenerp.archive.repositories;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+
+import com.greenfieldcommerce.greenerp.archive.entities.ArchivedContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceMarginRecord;
+
+public interface ArchivedContractorInvoiceRepository extends ListCrudRepository<ArchivedContractorInvoice, Long>
+{
+	Optional<ArchivedContractorInvoice> findByContractorIdAndId(Long contractorId, Long id);
+
+	List<ArchivedContractorInvoice> findByClientInvoiceIdIn(Collection<Long> clientInvoiceIds);
+
+	/**
+	 * Tells whether an archived invoice of the contractor covers {@code date}, or starts in the month between
+	 * {@code monthStart} and {@code monthEnd}. As no invoice covers more than a month, only those starting on or after
+	 * {@code earliestStartDate} are searched.
+	 */
+	@Query("SELECT COUNT(a) > 0 FROM #{#entityName} a WHERE a.contractorId = :contractorId AND a.startDate >= :earliestStartDate AND a.startDate < :monthEnd "
+		+ "AND ((a.startDate <= :date AND a.endDate >= :date) OR a.startDate >= :monthStart)")
+	boolean existsForADateOrMonth(Long contractorId, ZonedDateTime date, ZonedDateTime earliestStartDate, ZonedDateTime monthStart, ZonedDateTime monthEnd);
+
+	@Query("SELECT new com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceMarginRecord(a.clientId, a.contractorId, a.startDate, a.currency, "
+		+ "a.numberOfWorkedDays, a.extraAmountsTotal, a.externalRate, a.grossRate, a.clientInvoiceId) FROM #{#entityName} a")
+	List<InvoiceMarginRecord> findAllMargins();
+}
@@ -0,0 +1,186 @@
+package com.greenfieldcommerce.greenerp.archive.repositories;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.greenfieldcommerce.greenerp.archive.records.InvoiceKeyRecord;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+
+/**
+ * Lists the invoices of a contractor or a client across the invoice tables and the archive, as if they were one table.
+ * <p>
+ * Each page or keyset slice is read with a single {@code UNION ALL} query over both tables, ordered as requested, which
+ * returns the keys of its rows only: the rows themselves are then read by ID from the table each key came from. Pages
+ * can be sorted by any column both tables hold; archived invoices all sort as {@code CLOSED}.
+ */
+@Repository
+public class InvoiceListingRepository
+{
+	private static final String ID_PROPERTY = "id";
+
+	/**
+	 * An invoice table and its archive, the column their invoices belong to a contractor or a client by, the date
+	 * their keyset slices are ordered by, and the columns of the properties they can be sorted by.
+	 */
+	private record Listing(Class<?> type, String table, String archiveTable, String ownerColumn, String dateProperty, Map<String, String> columns,
+		int closedStatus)
+	{
+		private String column(final String property)
+		{
+			final String column = columns.get(property);
+			if (column == null)
+				throw new PropertyReferenceException(property, TypeInformation.of(type), List.of());
+			return column;
+		}
+
+		private String archivedColumn(final String property)
+		{
+			return "status".equals(property) ? String.valueOf(closedStatus) : "a." + column(property);
+		}
+	}
+
+	private static final Listing CONTRACTOR_INVOICES = new Listing(ContractorInvoice.class, "contractor_invoice", "archived_contractor_invoice",
+		"contractor_id", "startDate", Map.of(ID_PROPERTY, "id", "startDate", "start_date", "endDate", "end_date", "numberOfWorkedDays", "number_of_worked_days",
+		"extraAmountsTotal", "extra_amounts_total", "total", "total", "currency", "currency", "status", "status"), ContractorInvoice.InvoiceStatus.CLOSED.ordinal());
+
+	private static final Listing CLIENT_INVOICES = new Listing(ClientInvoice.class, "client_invoice", "archived_client_invoice", "client_id", "dueDate",
+		Map.of(ID_PROPERTY, "id", "invoiceDate", "invoice_date", "dueDate", "due_date", "total", "total", "currency", "currency", "status", "status"),
+		ClientInvoice.ClientInvoiceStatus.CLOSED.ordinal());
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public InvoiceListingRepository(final JdbcTemplate jdbcTemplate)
+	{
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public long countContractorInvoices(final Long contractorId)
+	{
+		return count(CONTRACTOR_INVOICES, contractorId);
+	}
+
+	public List<InvoiceKeyRecord> findContractorInvoiceKeys(final Long contractorId, final Pageable pageable)
+	{
+		return findKeys(CONTRACTOR_INVOICES, contractorId, pageable);
+	}
+
+	public List<InvoiceKeyRecord> scrollContractorInvoiceKeys(final Long contractorId, final KeysetScrollPosition position, final int limit)
+	{
+		return scrollKeys(CONTRACTOR_INVOICES, contractorId, position, limit);
+	}
+
+	public long countClientInvoices(final Long clientId)
+	{
+		return count(CLIENT_INVOICES, clientId);
+	}
+
+	public List<InvoiceKeyRecord> findClientInvoiceKeys(final Long clientId, final Pageable pageable)
+	{
+		return findKeys(CLIENT_INVOICES, clientId, pageable);
+	}
+
+	public List<InvoiceKeyRecord> scrollClientInvoiceKeys(final Long clientId, final KeysetScrollPosition position, final int limit)
+	{
+		return scrollKeys(CLIENT_INVOICES, clientId, position, limit);
+	}
+
+	private long count(final Listing listing, final Long ownerId)
+	{
+		final String sql = "SELECT (SELECT COUNT(*) FROM " + listing.table() + " WHERE " + listing.ownerColumn() + " = ?) + (SELECT COUNT(*) FROM "
+			+ listing.archiveTable() + " WHERE " + listing.ownerColumn() + " = ?)";
+		final Long count = jdbcTemplate.queryForObject(sql, Long.class, ownerId, ownerId);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * Reads the keys of a page, in the order requested, the ID breaking ties in the direction of the last order.
+	 *
+	 * @throws PropertyReferenceException if the page is sorted by a property that is not a column of both tables
+	 */
+	private List<InvoiceKeyRecord> findKeys(final Listing listing, final Long ownerId, final Pageable pageable)
+	{
+		final String dateColumn = listing.column(listing.dateProperty());
+		final StringBuilder current = new StringBuilder("SELECT i.id, i." + dateColumn + " AS d, FALSE AS archived");
+		final StringBuilder archived = new StringBuilder("SELECT a.id, a." + dateColumn + ", TRUE");
+		final List<String> orders = new ArrayList<>();
+		Sort.Direction tieBreak = Sort.Direction.ASC;
+		for (final Sort.Order order : pageable.getSort())
+		{
+			final String alias = "s" + orders.size();
+			current.append(", i.").append(listing.column(order.getProperty())).append(" AS ").append(alias);
+			archived.append(", ").append(listing.archivedColumn(order.getProperty()));
+			orders.add(alias + " " + order.getDirection());
+			tieBreak = order.getDirection();
+		}
+		orders.add("id " + tieBreak);
+
+		final StringBuilder sql = new StringBuilder("SELECT id, d, archived FROM (")
+			.append(current).append(" FROM ").append(listing.table()).append(" i WHERE i.").append(listing.ownerColumn()).append(" = ? UNION ALL ")
+			.append(archived).append(" FROM ").append(listing.archiveTable()).append(" a WHERE a.").append(listing.ownerColumn()).append(" = ?")
+			.append(") u ORDER BY ").append(String.join(", ", orders));
+		if (pageable.isUnpaged())
+			return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> toKey(resultSet), ownerId, ownerId);
+
+		sql.append(" LIMIT ? OFFSET ?");
+		return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> toKey(resultSet), ownerId, ownerId, pageable.getPageSize(), pageable.getOffset());
+	}
+
+	/**
+	 * Reads the keys of up to {@code limit} rows following a keyset position, latest first. Each table is sought from
+	 * the position on its own index and cut to {@code limit} rows before both are merged.
+	 */
+	private List<InvoiceKeyRecord> scrollKeys(final Listing listing, final Long ownerId, final KeysetScrollPosition position, final int limit)
+	{
+		final String dateColumn = listing.column(listing.dateProperty());
+		final boolean seek = !position.isInitial();
+		final String sql = "SELECT id, d, archived FROM ("
+			+ branch("SELECT i.id, i." + dateColumn + " AS d, FALSE AS archived FROM " + listing.table() + " i", "i", listing.ownerColumn(), dateColumn, seek)
+			+ " UNION ALL "
+			+ branch("SELECT a.id, a." + dateColumn + ", TRUE FROM " + listing.archiveTable() + " a", "a", listing.ownerColumn(), dateColumn, seek)
+			+ ") u ORDER BY d DESC, id DESC LIMIT ?";
+
+		final List<Object> parameters = new ArrayList<>();
+		for (int table = 0; table < 2; table++)
+		{
+			parameters.add(ownerId);
+			if (seek)
+			{
+				final OffsetDateTime date = ((ZonedDateTime) position.getKeys().get(listing.dateProperty())).toOffsetDateTime();
+				parameters.add(date);
+				parameters.add(date);
+				parameters.add(position.getKeys().get(ID_PROPERTY));
+			}
+			parameters.add(limit);
+		}
+		parameters.add(limit);
+		return jdbcTemplate.query(sql, (resultSet, rowNum) -> toKey(resultSet), parameters.toArray());
+	}
+
+	private static String branch(final String select, final String alias, final String ownerColumn, final String dateColumn, final boolean seek)
+	{
+		final String date = alias + "." + dateColumn;
+		final String id = alias + ".id";
+		return "(" + select + " WHERE " + alias + "." + ownerColumn + " = ?"
+			+ (seek ? " AND (" + date + " < ? OR (" + date + " = ? AND " + id + " < ?))" : "")
+			+ " ORDER BY " + date + " DESC, " + id + " DESC LIMIT ?)";
+	}
+
+	private static InvoiceKeyRecord toKey(final ResultSet resultSet) throws SQLException
+	{
+		return new InvoiceKeyRecord(resultSet.getLong("id"), resultSet.getObject("d", OffsetDateTime.class).toZonedDateTime(), resultSet.getBoolean("archived"));
+	}
+}
@@ -0,0 +1,61 @@
+package com.greenfieldcommerce.greenerp.archive.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Turns the records of archived invoices into the gzipped JSON documents they are stored as, and back.
+ * <p>
+ * Records are written with the application's {@link ObjectMapper}, so a document holds the invoice exactly as the
+ * API returned it, and reads back into the same record whatever the columns of the invoice tables become.
+ */
+@Component
+public class ArchivedDocumentCodec
+{
+	/**
+	 * Largest document stored, in bytes. Only bounds the column on databases that need one; PostgreSQL stores
+	 * documents as {@code bytea}.
+	 */
+	public static final int MAXIMUM_LENGTH = 1_000_000;
+
+	private final ObjectMapper objectMapper;
+
+	public ArchivedDocumentCodec(final ObjectMapper objectMapper)
+	{
+		this.objectMapper = objectMapper;
+	}
+
+	public byte[] encode(final Object record)
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final OutputStream gzip = new GZIPOutputStream(bytes))
+		{
+			objectMapper.writeValue(gzip, record);
+		} catch (IOException e)
+		{
+			throw new UncheckedIOException("Could not encode " + record, e);
+		}
+		return bytes.toByteArray();
+	}
+
+	public <T> T decode(final byte[] document, final Class<T> recordClass)
+	{
+		try (final InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(document)))
+		{
+			return objectMapper.readValue(gzip, recordClass);
+		} catch (IOException e)
+		{
+			throw new UncheckedIOException("Could not decode an archived " + recordClass.getSimpleName(), e);
+		}
+	}
+}
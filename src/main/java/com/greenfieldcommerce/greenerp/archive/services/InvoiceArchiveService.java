@@ -0,0 +1,28 @@
+package com.greenfieldcommerce.greenerp.archive.services;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
+
+public interface InvoiceArchiveService
+{
+	Optional<ContractorInvoiceRecord> findContractorInvoice(Long contractorId, Long invoiceId);
+	boolean isArchivedPeriod(Long contractorId, ZonedDateTime date);
+	Page<ContractorInvoiceRecord> findContractorInvoices(Long contractorId, Pageable pageable);
+	CursorPageRecord<ContractorInvoiceRecord> scrollContractorInvoices(Long contractorId, KeysetScrollPosition position, int size);
+	Map<Long, List<ContractorInvoiceRecord>> findContractorInvoicesByClientInvoiceIds(Collection<Long> clientInvoiceIds);
+	Optional<ClientInvoiceRecord> findClientInvoice(Long id);
+	Page<ClientInvoiceRecord> findClientInvoices(Long clientId, Pageable pageable);
+	CursorPageRecord<ClientInvoiceRecord> scrollClientInvoices(Long clientId, KeysetScrollPosition position, int size);
+	List<ClientInvoiceRecord> withArchivedContractorInvoices(List<ClientInvoiceRecord> invoices);
+}
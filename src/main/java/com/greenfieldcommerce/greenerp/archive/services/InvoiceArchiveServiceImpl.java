@@ -0,0 +1,240 @@
+package com.greenfieldcommerce.greenerp.archive.services;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import com.greenfieldcommerce.greenerp.archive.entities.ArchivedClientInvoice;
+import com.greenfieldcommerce.greenerp.archive.entities.ArchivedContractorInvoice;
+import com.greenfieldcommerce.greenerp.archive.records.InvoiceKeyRecord;
+import com.greenfieldcommerce.greenerp.archive.repositories.ArchivedClientInvoiceRepository;
+import com.greenfieldcommerce.greenerp.archive.repositories.ArchivedContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.archive.repositories.InvoiceListingRepository;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
+import com.greenfieldcommerce.greenerp.clients.invoices.repository.ClientInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
+import com.greenfieldcommerce.greenerp.services.KeysetCursor;
+
+/**
+ * Implementation of {@link InvoiceArchiveService} reading the invoices moved to the archive by {@link InvoiceArchiver}.
+ * <p>
+ * Invoices are read back from their documents, as they were when archived. Listings cover the invoice tables and the
+ * archive alike: the keys of a page or slice are read from both with a single query by {@link InvoiceListingRepository},
+ * and its invoices are then read by ID, with one query per table they came from.
+ */
+@Service
+public class InvoiceArchiveServiceImpl implements InvoiceArchiveService
+{
+	private final ArchivedContractorInvoiceRepository archivedContractorInvoiceRepository;
+	private final ArchivedClientInvoiceRepository archivedClientInvoiceRepository;
+	private final ArchivedDocumentCodec archivedDocumentCodec;
+	private final InvoiceListingRepository invoiceListingRepository;
+	private final ContractorInvoiceRepository contractorInvoiceRepository;
+	private final ClientInvoiceRepository clientInvoiceRepository;
+	private final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper;
+	private final Mapper<ClientInvoice, ClientInvoiceRecord> clientInvoiceToRecordMapper;
+
+	public InvoiceArchiveServiceImpl(final ArchivedContractorInvoiceRepository archivedContractorInvoiceRepository,
+		final ArchivedClientInvoiceRepository archivedClientInvoiceRepository, final ArchivedDocumentCodec archivedDocumentCodec,
+		final InvoiceListingRepository invoiceListingRepository, final ContractorInvoiceRepository contractorInvoiceRepository,
+		final ClientInvoiceRepository clientInvoiceRepository, final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper,
+		final Mapper<ClientInvoice, ClientInvoiceRecord> clientInvoiceToRecordMapper)
+	{
+		this.archivedContractorInvoiceRepository = archivedContractorInvoiceRepository;
+		this.archivedClientInvoiceRepository = archivedClientInvoiceRepository;
+		this.archivedDocumentCodec = archivedDocumentCodec;
+		this.invoiceListingRepository = invoiceListingRepository;
+		this.contractorInvoiceRepository = contractorInvoiceRepository;
+		this.clientInvoiceRepository = clientInvoiceRepository;
+		this.contractorInvoiceToRecordMapper = contractorInvoiceToRecordMapper;
+		this.clientInvoiceToRecordMapper = clientInvoiceToRecordMapper;
+	}
+
+	@Override
+	public Optional<ContractorInvoiceRecord> findContractorInvoice(final Long contractorId, final Long invoiceId)
+	{
+		return archivedContractorInvoiceRepository.findByContractorIdAndId(contractorId, invoiceId).map(this::toRecord);
+	}
+
+	/**
+	 * Tells whether an invoice of the contractor starting on {@code date} would clash with the archive: either an
+	 * archived invoice covers that date, or one starts in the same month, whose invoices were archived together.
+	 *
+	 * @param contractorId the ID of the contractor
+	 * @param date         the start date of the invoice
+	 * @return {@code true} if the period was archived
+	 */
+	@Override
+	public boolean isArchivedPeriod(final Long contractorId, final ZonedDateTime date)
+	{
+		final YearMonth month = YearMonth.from(date.withZoneSameInstant(ZoneId.systemDefault()));
+		return archivedContractorInvoiceRepository.existsForADateOrMonth(contractorId, date, date.minus(ContractorInvoice.MAXIMUM_PERIOD),
+			month.atDay(1).atStartOfDay(ZoneId.systemDefault()), month.plusMonths(1).atDay(1).atStartOfDay(ZoneId.systemDefault()));
+	}
+
+	/**
+	 * Retrieves a page of a contractor's invoices, archived or not, in the order requested.
+	 *
+	 * @param contractorId the ID of the contractor
+	 * @param pageable     the page requested, sorted by columns of the invoices themselves
+	 * @return the page, counted across both tables unless it is the last one
+	 */
+	@Override
+	public Page<ContractorInvoiceRecord> findContractorInvoices(final Long contractorId, final Pageable pageable)
+	{
+		return PageableExecutionUtils.getPage(contractorInvoicesOf(invoiceListingRepository.findContractorInvoiceKeys(contractorId, pageable)), pageable,
+			() -> invoiceListingRepository.countContractorInvoices(contractorId));
+	}
+
+	/**
+	 * Retrieves the slice of a contractor's invoices, archived or not, following a keyset position, latest first.
+	 *
+	 * @param contractorId the ID of the contractor
+	 * @param position     the position decoded from the continuation token
+	 * @param size         the maximum number of invoices in the slice
+	 * @return the slice, with the token of the following one
+	 */
+	@Override
+	public CursorPageRecord<ContractorInvoiceRecord> scrollContractorInvoices(final Long contractorId, final KeysetScrollPosition position, final int size)
+	{
+		return slice(invoiceListingRepository.scrollContractorInvoiceKeys(contractorId, position, size + 1), size, this::contractorInvoicesOf);
+	}
+
+	/**
+	 * Reads the archived contractor invoices billed by the given client invoices, with a single query.
+	 *
+	 * @param clientInvoiceIds the IDs of the client invoices
+	 * @return the archived contractor invoices, by client invoice ID; client invoices without any are left out
+	 */
+	@Override
+	public Map<Long, List<ContractorInvoiceRecord>> findContractorInvoicesByClientInvoiceIds(final Collection<Long> clientInvoiceIds)
+	{
+		if (clientInvoiceIds.isEmpty())
+			return Map.of();
+
+		return archivedContractorInvoiceRepository.findByClientInvoiceIdIn(clientInvoiceIds).stream()
+			.collect(Collectors.groupingBy(ArchivedContractorInvoice::getClientInvoiceId, Collectors.mapping(this::toRecord, Collectors.toList())));
+	}
+
+	@Override
+	public Optional<ClientInvoiceRecord> findClientInvoice(final Long id)
+	{
+		return archivedClientInvoiceRepository.findById(id).map(invoice -> archivedDocumentCodec.decode(invoice.getDocument(), ClientInvoiceRecord.class));
+	}
+
+	/**
+	 * Retrieves a page of a client's invoices, archived or not, in the order requested.
+	 *
+	 * @param clientId the ID of the client
+	 * @param pageable the page requested, sorted by columns of the invoices themselves
+	 * @return the page, counted across both tables unless it is the last one
+	 */
+	@Override
+	public Page<ClientInvoiceRecord> findClientInvoices(final Long clientId, final Pageable pageable)
+	{
+		return PageableExecutionUtils.getPage(clientInvoicesOf(invoiceListingRepository.findClientInvoiceKeys(clientId, pageable)), pageable,
+			() -> invoiceListingRepository.countClientInvoices(clientId));
+	}
+
+	/**
+	 * Retrieves the slice of a client's invoices, archived or not, following a keyset position, latest due first.
+	 *
+	 * @param clientId the ID of the client
+	 * @param position the position decoded from the continuation token
+	 * @param size     the maximum number of invoices in the slice
+	 * @return the slice, with the token of the following one
+	 */
+	@Override
+	public CursorPageRecord<ClientInvoiceRecord> scrollClientInvoices(final Long clientId, final KeysetScrollPosition position, final int size)
+	{
+		return slice(invoiceListingRepository.scrollClientInvoiceKeys(clientId, position, size + 1), size, this::clientInvoicesOf);
+	}
+
+	/**
+	 * Adds to the closed invoices among the given ones, read from {@code client_invoice}, the contractor invoices they
+	 * bill that were archived already, with a single query. Only closed invoices bill archived contractor invoices, so
+	 * the archive is not read when none is closed.
+	 *
+	 * @param invoices the records of client invoices read from {@code client_invoice}
+	 * @return the records, completed with archived contractor invoices
+	 */
+	@Override
+	public List<ClientInvoiceRecord> withArchivedContractorInvoices(final List<ClientInvoiceRecord> invoices)
+	{
+		final List<Long> closedIds = invoices.stream().filter(invoice -> ClientInvoice.ClientInvoiceStatus.CLOSED.name().equals(invoice.status()))
+			.map(ClientInvoiceRecord::id).toList();
+		if (closedIds.isEmpty())
+			return invoices;
+
+		final Map<Long, List<ContractorInvoiceRecord>> archived = findContractorInvoicesByClientInvoiceIds(closedIds);
+		return invoices.stream().map(invoice -> !archived.containsKey(invoice.id()) ? invoice
+			: new ClientInvoiceRecord(invoice.id(), invoice.client(), invoice.currency(), invoice.invoiceDate(), invoice.dueDate(), invoice.total(), invoice.status(),
+				Stream.concat(invoice.contractorInvoices().stream(), archived.get(invoice.id()).stream()).toList())).toList();
+	}
+
+	private List<ContractorInvoiceRecord> contractorInvoicesOf(final List<InvoiceKeyRecord> keys)
+	{
+		final Map<Long, ContractorInvoiceRecord> current = read(keys, false, contractorInvoiceRepository::findByIdIn, ContractorInvoice::getId,
+			contractorInvoiceToRecordMapper::map);
+		final Map<Long, ContractorInvoiceRecord> archived = read(keys, true, archivedContractorInvoiceRepository::findAllById, ArchivedContractorInvoice::getId,
+			this::toRecord);
+		return inOrder(keys, current, archived);
+	}
+
+	private List<ClientInvoiceRecord> clientInvoicesOf(final List<InvoiceKeyRecord> keys)
+	{
+		final Map<Long, ClientInvoiceRecord> current = read(keys, false, clientInvoiceRepository::findAllById, ClientInvoice::getId, clientInvoiceToRecordMapper::map);
+		final Map<Long, ClientInvoiceRecord> archived = read(keys, true, archivedClientInvoiceRepository::findAllById, ArchivedClientInvoice::getId,
+			invoice -> archivedDocumentCodec.decode(invoice.getDocument(), ClientInvoiceRecord.class));
+		return withArchivedContractorInvoices(inOrder(keys, current, archived));
+	}
+
+	/**
+	 * Reads by ID the invoices of one table among the given keys, skipping the query when there is none.
+	 */
+	private static <E, R> Map<Long, R> read(final List<InvoiceKeyRecord> keys, final boolean archived, final Function<List<Long>, List<E>> reader,
+		final Function<E, Long> id, final Function<E, R> mapper)
+	{
+		final List<Long> ids = keys.stream().filter(key -> key.archived() == archived).map(InvoiceKeyRecord::id).toList();
+		return ids.isEmpty() ? Map.of() : reader.apply(ids).stream().collect(Collectors.toMap(id, mapper));
+	}
+
+	/**
+	 * Lays out the invoices read in the order of their keys, leaving out those moved between both reads.
+	 */
+	private static <R> List<R> inOrder(final List<InvoiceKeyRecord> keys, final Map<Long, R> current, final Map<Long, R> archived)
+	{
+		return keys.stream().map(key -> (key.archived() ? archived : current).get(key.id())).filter(Objects::nonNull).toList();
+	}
+
+	private static <R> CursorPageRecord<R> slice(final List<InvoiceKeyRecord> keys, final int size, final Function<List<InvoiceKeyRecord>, List<R>> reader)
+	{
+		final List<InvoiceKeyRecord> content = keys.subList(0, Math.min(size, keys.size()));
+		final String nextCursor = keys.size() > size ? KeysetCursor.encode(content.getLast().date(), content.getLast().id()) : null;
+		return new CursorPageRecord<>(reader.apply(content), nextCursor);
+	}
+
+	private ContractorInvoiceRecord toRecord(final ArchivedContractorInvoice invoice)
+	{
+		return archivedDocumentCodec.decode(invoice.getDocument(), ContractorInvoiceRecord.class);
+	}
+}
@@ -0,0 +1,237 @@
+package com.greenfieldcommerce.greenerp.archive.services;
+
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.greenfieldcommerce.greenerp.archive.entities.ArchivedClientInvoice;
+import com.greenfieldcommerce.greenerp.archive.entities.ArchivedContractorInvoice;
+import com.greenfieldcommerce.greenerp.archive.records.InvoiceArchiveRecord;
+import com.greenfieldcommerce.greenerp.archive.repositories.ArchivedClientInvoiceRepository;
+import com.greenfieldcommerce.greenerp.archive.repositories.ArchivedContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
+import com.greenfieldcommerce.greenerp.clients.invoices.repository.ClientInvoiceRepository;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.InvoiceExtraAmountLineRepository;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.services.TimeService;
+
+/**
+ * Moves closed invoices out of the invoice tables into the archive, so those tables and their indexes only hold the
+ * invoices still being worked on.
+ * <p>
+ * Contractor invoices are moved once closed and started before the month {@code greenerp.invoice-archive.minimum-age}
+ * ago (a year by default), along with their extra amount lines, but only when every invoice the contractor has in the
+ * same month is moved with them: the margin summaries of a contractor and month are recomputed from the invoice
+ * tables alone, which must then hold all of them or none. Client invoices are moved once closed, dated before the
+ * same month, and left without contractor invoices in the invoice tables.
+ * <p>
+ * Invoices are moved in chunks of {@code greenerp.invoice-archive.chunk-size}, each in its own transaction, reading
+ * on past the invoices that must stay, every night by default ({@code greenerp.invoice-archive.schedule}). The
+ * contractors and clients whose invoices were moved get the month moved before as their {@code archivedThrough}
+ * bound, in the same transaction, so their listings read the archive from then on and the others never do.
+ * <p>
+ * On PostgreSQL, every chunk first takes a transaction-level advisory lock, so that the chunks of the instances
+ * scheduling the run never overlap, and an instance finding the lock taken leaves the run to the one holding it.
+ */
+@Component
+public class InvoiceArchiver
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(InvoiceArchiver.class);
+	private static final String POSTGRESQL = "PostgreSQL";
+	private static final long ADVISORY_LOCK_KEY = InvoiceArchiver.class.getName().hashCode();
+
+	/**
+	 * The invoices of a contractor starting in a month, which are archived together.
+	 */
+	private record Slice(Long contractorId, YearMonth month)
+	{
+		private static Slice of(final Long contractorId, final ZonedDateTime startDate)
+		{
+			return new Slice(contractorId, YearMonth.from(startDate.withZoneSameInstant(ZoneId.systemDefault())));
+		}
+	}
+
+	/**
+	 * What a chunk did: the last id it read, from which the next chunk reads on, and the number of invoices moved.
+	 */
+	private record Chunk(Long lastId, int archived) { }
+
+	private final ContractorInvoiceRepository contractorInvoiceRepository;
+	private final InvoiceExtraAmountLineRepository invoiceExtraAmountLineRepository;
+	private final ClientInvoiceRepository clientInvoiceRepository;
+	private final ContractorRepository contractorRepository;
+	private final ClientRepository clientRepository;
+	private final ArchivedContractorInvoiceRepository archivedContractorInvoiceRepository;
+	private final ArchivedClientInvoiceRepository archivedClientInvoiceRepository;
+	private final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper;
+	private final Mapper<ClientInvoice, ClientInvoiceRecord> clientInvoiceToRecordMapper;
+	private final ArchivedDocumentCodec archivedDocumentCodec;
+	private final InvoiceArchiveService invoiceArchiveService;
+	private final TransactionTemplate transactionTemplate;
+	private final JdbcTemplate jdbcTemplate;
+	private final Period minimumAge;
+	private final int chunkSize;
+
+	public InvoiceArchiver(final ContractorInvoiceRepository contractorInvoiceRepository, final InvoiceExtraAmountLineRepository invoiceExtraAmountLineRepository,
+		final ClientInvoiceRepository clientInvoiceRepository, final ContractorRepository contractorRepository, final ClientRepository clientRepository,
+		final ArchivedContractorInvoiceRepository archivedContractorInvoiceRepository, final ArchivedClientInvoiceRepository archivedClientInvoiceRepository, final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper,
+		final Mapper<ClientInvoice, ClientInvoiceRecord> clientInvoiceToRecordMapper, final ArchivedDocumentCodec archivedDocumentCodec,
+		final InvoiceArchiveService invoiceArchiveService, final PlatformTransactionManager transactionManager, final JdbcTemplate jdbcTemplate,
+		@Value("${greenerp.invoice-archive.minimum-age:P1Y}") final Period minimumAge, @Value("${greenerp.invoice-archive.chunk-size:500}") final int chunkSize)
+	{
+		this.contractorInvoiceRepository = contractorInvoiceRepository;
+		this.invoiceExtraAmountLineRepository = invoiceExtraAmountLineRepository;
+		this.clientInvoiceRepository = clientInvoiceRepository;
+		this.contractorRepository = contractorRepository;
+		this.clientRepository = clientRepository;
+		this.archivedContractorInvoiceRepository = archivedContractorInvoiceRepository;
+		this.archivedClientInvoiceRepository = archivedClientInvoiceRepository;
+		this.contractorInvoiceToRecordMapper = contractorInvoiceToRecordMapper;
+		this.clientInvoiceToRecordMapper = clientInvoiceToRecordMapper;
+		this.archivedDocumentCodec = archivedDocumentCodec;
+		this.invoiceArchiveService = invoiceArchiveService;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.jdbcTemplate = jdbcTemplate;
+		this.minimumAge = minimumAge;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Moves every closed invoice old enough to the archive, contractor invoices first, so that the client invoices
+	 * billing them can follow in the same run. The run stops when another instance holds the lock.
+	 *
+	 * @return the number of contractor and client invoices moved
+	 */
+	@Scheduled(cron = "${greenerp.invoice-archive.schedule:0 30 3 * * *}")
+	public InvoiceArchiveRecord archive()
+	{
+		final ZonedDateTime before = monthStart(TimeService.now().minus(minimumAge));
+		final boolean locking = POSTGRESQL.equals(jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+
+		int contractorInvoices = 0;
+		int clientInvoices = 0;
+		try
+		{
+			Long lastId = 0L;
+			for (Chunk chunk; (chunk = archiveContractorInvoicesAfter(lastId, before, locking)) != null; lastId = chunk.lastId())
+				contractorInvoices += chunk.archived();
+
+			lastId = 0L;
+			for (Chunk chunk; (chunk = archiveClientInvoicesAfter(lastId, before, locking)) != null; lastId = chunk.lastId())
+				clientInvoices += chunk.archived();
+		}
+		catch (final CannotAcquireLockException e)
+		{
+			LOGGER.info("Stopped archiving invoices, another instance is archiving them: {}", e.getMessage());
+		}
+
+		LOGGER.info("Archived {} contractor invoices and {} client invoices from before {}", contractorInvoices, clientInvoices, before);
+		return new InvoiceArchiveRecord(contractorInvoices, clientInvoices);
+	}
+
+	/**
+	 * Moves the next chunk of closed contractor invoices that started before {@code before}, skipping those sharing
+	 * their contractor and month with an invoice that is not closed.
+	 *
+	 * @return what the chunk did, or {@code null} when no invoice was left to read
+	 */
+	private Chunk archiveContractorInvoicesAfter(final Long lastId, final ZonedDateTime before, final boolean locking)
+	{
+		return transactionTemplate.execute(status -> {
+			lock(locking);
+			final List<ContractorInvoice> candidates = contractorInvoiceRepository.findByStatusAndStartDateBeforeAndIdGreaterThanOrderById(
+				ContractorInvoice.InvoiceStatus.CLOSED, before, lastId, Limit.of(chunkSize));
+			if (candidates.isEmpty())
+				return null;
+
+			final Set<Long> contractorIds = candidates.stream().map(invoice -> invoice.getContractor().getId()).collect(Collectors.toSet());
+			final ZonedDateTime from = monthStart(candidates.stream().map(ContractorInvoice::getStartDate).min(Comparator.naturalOrder()).orElseThrow());
+			final Set<Slice> kept = contractorInvoiceRepository.findPeriodsByContractorIdInAndStartDateBetweenAndStatusNot(contractorIds, from, before,
+					ContractorInvoice.InvoiceStatus.CLOSED).stream()
+				.map(period -> Slice.of(period.contractorId(), period.startDate())).collect(Collectors.toSet());
+
+			final ZonedDateTime archivedAt = TimeService.now();
+			final List<ContractorInvoice> archived = candidates.stream().filter(invoice -> !kept.contains(Slice.of(invoice.getContractor().getId(), invoice.getStartDate()))).toList();
+			if (!archived.isEmpty())
+			{
+				archivedContractorInvoiceRepository.saveAll(archived.stream()
+					.map(invoice -> ArchivedContractorInvoice.create(invoice, archivedDocumentCodec.encode(contractorInvoiceToRecordMapper.map(invoice)), archivedAt)).toList());
+				final List<Long> ids = archived.stream().map(ContractorInvoice::getId).toList();
+				invoiceExtraAmountLineRepository.deleteByInvoiceIdIn(ids);
+				contractorInvoiceRepository.deleteByIdIn(ids);
+				contractorRepository.raiseArchivedThrough(archived.stream().map(invoice -> invoice.getContractor().getId()).collect(Collectors.toSet()), before);
+			}
+			return new Chunk(candidates.getLast().getId(), archived.size());
+		});
+	}
+
+	/**
+	 * Moves the next chunk of closed client invoices dated before {@code before} whose contractor invoices have all
+	 * been archived. Their documents list those contractor invoices, as read from the archive.
+	 *
+	 * @return what the chunk did, or {@code null} when no invoice was left to read
+	 */
+	private Chunk archiveClientInvoicesAfter(final Long lastId, final ZonedDateTime before, final boolean locking)
+	{
+		return transactionTemplate.execute(status -> {
+			lock(locking);
+			final List<ClientInvoice> archived = clientInvoiceRepository.findArchivable(ClientInvoice.ClientInvoiceStatus.CLOSED, before, lastId, Limit.of(chunkSize));
+			if (archived.isEmpty())
+				return null;
+
+			final Map<Long, List<ContractorInvoiceRecord>> contractorInvoices = invoiceArchiveService.findContractorInvoicesByClientInvoiceIds(
+				archived.stream().map(ClientInvoice::getId).toList());
+
+			final ZonedDateTime archivedAt = TimeService.now();
+			archivedClientInvoiceRepository.saveAll(archived.stream().map(invoice -> {
+				final ClientInvoiceRecord record = clientInvoiceToRecordMapper.map(invoice);
+				final ClientInvoiceRecord document = new ClientInvoiceRecord(record.id(), record.client(), record.currency(), record.invoiceDate(), record.dueDate(),
+					record.total(), record.status(), contractorInvoices.getOrDefault(invoice.getId(), List.of()));
+				return ArchivedClientInvoice.create(invoice, archivedDocumentCodec.encode(document), archivedAt);
+			}).toList());
+			clientInvoiceRepository.deleteAll(archived);
+			clientRepository.raiseArchivedThrough(archived.stream().map(invoice -> invoice.getClient().getId()).collect(Collectors.toSet()), before);
+			return new Chunk(archived.getLast().getId(), archived.size());
+		});
+	}
+
+	/**
+	 * Takes the advisory lock of the archive for the current transaction, without waiting for it.
+	 *
+	 * @throws CannotAcquireLockException if another transaction holds the lock
+	 */
+	private void lock(final boolean locking)
+	{
+		if (locking && !Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY)))
+			throw new CannotAcquireLockException("The invoice archive lock " + ADVISORY_LOCK_KEY + " is held by another transaction");
+	}
+
+	private static ZonedDateTime monthStart(final ZonedDateTime date)
+	{
+		return YearMonth.from(date.withZoneSameInstant(ZoneId.systemDefault())).atDay(1).atStartOfDay(ZoneId.systemDefault());
+	}
+}
@@ -0,0 +1,32 @@
+package com.greenfieldcommerce.greenerp.clients.controllers;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import com.greenfieldcommerce.greenerp.clients.records.ClientRecord;
+import com.greenfieldcommerce.greenerp.clients.services.ClientService;
+import com.greenfieldcommerce.greenerp.controllers.GraphQlPageRequests;
+import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
+
+@Controller
+public class ClientGraphQlController
+{
+	private final ClientService clientService;
+
+	public ClientGraphQlController(final ClientService clientService)
+	{
+		this.clientService = clientService;
+	}
+
+	@QueryMapping
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public List<ClientRecord> clients(@Argument("page") final int page, @Argument("size") final int size)
+	{
+		return clientService.findAll(GraphQlPageRequests.of(page, size, Sort.by("name")));
+	}
+}
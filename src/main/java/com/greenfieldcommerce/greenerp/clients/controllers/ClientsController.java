@@ -3,16 +3,23 @@ package com.greenfieldcommerce.greenerp.clients.controllers;
 import java.time.ZonedDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.greenfieldcommerce.greenerp.clients.records.ClientCollectionRecord;
 import com.greenfieldcommerce.greenerp.clients.records.ClientRecord;
 import com.greenfieldcommerce.greenerp.clients.services.ClientService;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceCollectionRecord;
@@ -36,9 +43,21 @@ public class ClientsController
 
 	@GetMapping
 	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
-	public ClientCollectionRecord getAllClients()
+	public Page<ClientRecord> findClients(@RequestParam(name = "search", required = false) String search,
+		@PageableDefault(size = 20, sort = "name", direction = Sort.Direction.ASC) Pageable pageable)
 	{
-		return new ClientCollectionRecord(clientService.findAll());
+		return clientService.search(search, pageable);
+	}
+
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public ResponseEntity<StreamingResponseBody> exportClients()
+	{
+		final ContentDisposition disposition = ContentDisposition.attachment().filename("clients.ndjson").build();
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_NDJSON)
+			.header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+			.body(clientService::exportAll);
 	}
 
 	@GetMapping(value = "/{clientId}")
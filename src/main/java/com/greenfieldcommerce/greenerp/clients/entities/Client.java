@@ -1,5 +1,6 @@
 package com.greenfieldcommerce.greenerp.clients.entities;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Currency;
 import java.util.List;
@@ -39,12 +40,21 @@ public class Client
 	@Version
 	private Long version;
 
+	/**
+	 * Bound below which the client has invoices in the archive, {@code null} while none was archived. Only set by the
+	 * archive, so that saving the client never writes back a stale bound.
+	 */
+	@Column(insertable = false, updatable = false)
+	private ZonedDateTime archivedThrough;
+
 	protected Client() {}
 
 	private Client(final String name, final String email, final Currency invoiceCurrency, final Integer invoiceDueDateGap)
 	{
 		this.name = name;
 		this.email = email;
+		this.invoiceCurrency = invoiceCurrency;
+		this.invoiceDueDateGap = invoiceDueDateGap;
 	}
 
 	public static Client create(final String name, final String email, final Currency invoiceCurrency, final Integer invoiceDueDateGap)
@@ -116,4 +126,9 @@ public class Client
 	{
 		return invoices;
 	}
+
+	public ZonedDateTime getArchivedThrough()
+	{
+		return archivedThrough;
+	}
 }
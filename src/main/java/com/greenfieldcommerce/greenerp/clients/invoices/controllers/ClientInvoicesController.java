@@ -14,11 +14,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
 import com.greenfieldcommerce.greenerp.clients.invoices.records.CreateClientInvoiceRecord;
 import com.greenfieldcommerce.greenerp.clients.invoices.services.ClientInvoiceService;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
 import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
 
 import jakarta.validation.Valid;
@@ -46,6 +48,19 @@ public class ClientInvoicesController
 		return clientInvoiceService.findClientInvoicesForClient(clientId, pageable);
 	}
 
+	@GetMapping(value = "/scroll")
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public CursorPageRecord<ClientInvoiceRecord> scrollInvoicesForClient(
+		@PathVariable("clientId")
+		Long clientId,
+		@RequestParam(name = "cursor", required = false)
+		String cursor,
+		@RequestParam(name = "size", defaultValue = "12")
+		int size)
+	{
+		return clientInvoiceService.scrollClientInvoicesForClient(clientId, cursor, size);
+	}
+
 	@GetMapping(value = "/{invoiceId}")
 	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
 	public ClientInvoiceRecord getClientInvoice(
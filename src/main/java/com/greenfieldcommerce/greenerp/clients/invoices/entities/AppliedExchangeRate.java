@@ -0,0 +1,89 @@
+package com.greenfieldcommerce.greenerp.clients.invoices.entities;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+/**
+ * Audit record of the conversion of a contractor invoice total to the currency of the client invoice billing it:
+ * the exchange rate applied, as it was at the time, and both amounts.
+ */
+@Embeddable
+public class AppliedExchangeRate
+{
+	@Column(nullable = false)
+	private Long contractorInvoiceId;
+
+	@Column(nullable = false)
+	private Long exchangeRateId;
+
+	@Column(nullable = false)
+	private Currency sourceCurrency;
+
+	@Column(nullable = false)
+	private LocalDate effectiveDate;
+
+	@Column(nullable = false, precision = ExchangeRate.RATE_PRECISION, scale = ExchangeRate.RATE_SCALE)
+	private BigDecimal rate;
+
+	@Column(nullable = false)
+	private BigDecimal sourceTotal;
+
+	@Column(nullable = false)
+	private BigDecimal convertedTotal;
+
+	protected AppliedExchangeRate()
+	{
+	}
+
+	AppliedExchangeRate(final Long contractorInvoiceId, final ExchangeRate exchangeRate, final BigDecimal sourceTotal, final BigDecimal convertedTotal)
+	{
+		this.contractorInvoiceId = contractorInvoiceId;
+		this.exchangeRateId = exchangeRate.getId();
+		this.sourceCurrency = exchangeRate.getSourceCurrency();
+		this.effectiveDate = exchangeRate.getEffectiveDate();
+		this.rate = exchangeRate.getRate();
+		this.sourceTotal = sourceTotal;
+		this.convertedTotal = convertedTotal;
+	}
+
+	public Long getContractorInvoiceId()
+	{
+		return contractorInvoiceId;
+	}
+
+	public Long getExchangeRateId()
+	{
+		return exchangeRateId;
+	}
+
+	public Currency getSourceCurrency()
+	{
+		return sourceCurrency;
+	}
+
+	public LocalDate getEffectiveDate()
+	{
+		return effectiveDate;
+	}
+
+	public BigDecimal getRate()
+	{
+		return rate;
+	}
+
+	public BigDecimal getSourceTotal()
+	{
+		return sourceTotal;
+	}
+
+	public BigDecimal getConvertedTotal()
+	{
+		return convertedTotal;
+	}
+}
@@ -8,19 +8,28 @@ import java.util.List;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.exceptions.MissingExchangeRateException;
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateLookup;
+import com.greenfieldcommerce.greenerp.money.Money;
+import com.greenfieldcommerce.greenerp.money.MoneyTotal;
 
-import jakarta.persistence.CascadeType;
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 
 @Entity
+@Table(indexes = @Index(name = "IdxClientInvoiceKeyset", columnList = "clientId, dueDate, id"))
 public class ClientInvoice
 {
 	@Id
@@ -46,9 +55,13 @@ public class ClientInvoice
 	@Column(nullable = false)
 	private ClientInvoiceStatus status;
 
-	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST, mappedBy = "clientInvoice")
+	@OneToMany(fetch = FetchType.LAZY, mappedBy = "clientInvoice")
 	private final List<ContractorInvoice> contractorInvoices = new ArrayList<>();
 
+	@ElementCollection(fetch = FetchType.LAZY)
+	@CollectionTable(name = "ClientInvoiceAppliedExchangeRate", joinColumns = @JoinColumn(name = "clientInvoiceId"))
+	private final List<AppliedExchangeRate> appliedExchangeRates = new ArrayList<>();
+
 	protected ClientInvoice()
 	{
 	}
@@ -64,25 +77,44 @@ public class ClientInvoice
 		this.status = ClientInvoiceStatus.OPEN;
 	}
 
-	public static ClientInvoice create(Client client, List<ContractorInvoice> contractorInvoices)
+	/**
+	 * Creates a client invoice billing the given contractor invoices, in the invoice currency of the client.
+	 * <p>
+	 * The totals of contractor invoices in another currency are converted with the exchange rate in effect on the
+	 * invoice date, rounded to the minor units of the invoice currency, and the rates applied are recorded with the
+	 * invoice. Totals are summed in minor units, in a single pass.
+	 *
+	 * @throws MissingExchangeRateException if no exchange rate is in effect for the currency of a contractor invoice
+	 */
+	public static ClientInvoice create(Client client, List<ContractorInvoice> contractorInvoices, ExchangeRateLookup exchangeRates)
 	{
 		final ZonedDateTime invoiceDate = ZonedDateTime.now();
 		final ZonedDateTime dueDate = invoiceDate.plusDays(client.getInvoiceDueDateGap());
 		final ClientInvoice clientInvoice = new ClientInvoice(client, client.getInvoiceCurrency(), invoiceDate, dueDate);
-		contractorInvoices.forEach(clientInvoice::addContractorInvoice);
+		final MoneyTotal total = new MoneyTotal(clientInvoice.currency);
+		for (final ContractorInvoice contractorInvoice : contractorInvoices)
+		{
+			clientInvoice.contractorInvoices.add(contractorInvoice);
+			if (clientInvoice.currency.equals(contractorInvoice.getCurrency()))
+				total.add(contractorInvoice.getTotal());
+			else
+				total.add(clientInvoice.convert(contractorInvoice, exchangeRates.find(contractorInvoice.getCurrency(), clientInvoice.currency, invoiceDate.toLocalDate())));
+		}
+		clientInvoice.total = total.toMoney().toBigDecimal();
 
 		return clientInvoice;
 	}
 
-	public void bill()
+	private Money convert(final ContractorInvoice contractorInvoice, final ExchangeRate exchangeRate)
 	{
-		this.status = ClientInvoiceStatus.BILLED;
+		final Money converted = Money.of(contractorInvoice.getTotal().multiply(exchangeRate.getRate()), currency);
+		appliedExchangeRates.add(new AppliedExchangeRate(contractorInvoice.getId(), exchangeRate, contractorInvoice.getTotal(), converted.toBigDecimal()));
+		return converted;
 	}
 
-	private void addContractorInvoice(ContractorInvoice contractorInvoice)
+	public void bill()
 	{
-		contractorInvoices.add(contractorInvoice);
-		total = total.add(contractorInvoice.getTotal());
+		this.status = ClientInvoiceStatus.BILLED;
 	}
 
 	public Long getId()
@@ -125,6 +157,11 @@ public class ClientInvoice
 		return contractorInvoices;
 	}
 
+	public List<AppliedExchangeRate> getAppliedExchangeRates()
+	{
+		return appliedExchangeRates;
+	}
+
 	public enum ClientInvoiceStatus
 	{
 		OPEN, GENERATED, BILLED, CLOSED
@@ -1,7 +1,14 @@
 package com.greenfieldcommerce.greenerp.clients.invoices.repository;
 
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,4 +19,13 @@ import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
 public interface ClientInvoiceRepository extends ListCrudRepository<ClientInvoice, Long>
 {
 	Page<ClientInvoice> findByClient(Client client, Pageable pageable);
+	Window<ClientInvoice> findByClientOrderByDueDateDescIdDesc(Client client, ScrollPosition position, Limit limit);
+
+	/**
+	 * Reads the next invoices in {@code status} dated before {@code invoiceDate}, by id, that no longer bill any
+	 * contractor invoice of {@code contractor_invoice}, for the archive to move.
+	 */
+	@Query("SELECT c FROM #{#entityName} c WHERE c.status = :status AND c.invoiceDate < :invoiceDate AND c.id > :id "
+		+ "AND NOT EXISTS (SELECT i FROM ContractorInvoice i WHERE i.clientInvoice = c) ORDER BY c.id")
+	List<ClientInvoice> findArchivable(ClientInvoice.ClientInvoiceStatus status, ZonedDateTime invoiceDate, Long id, Limit limit);
 }
@@ -8,11 +8,13 @@ import org.springframework.data.domain.Pageable;
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
 import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
 import com.greenfieldcommerce.greenerp.services.EntityService;
 
 public interface ClientInvoiceService extends EntityService<ClientInvoice, Long>
 {
 	Page<ClientInvoiceRecord> findClientInvoicesForClient(Long clientId, Pageable pageable);
+	CursorPageRecord<ClientInvoiceRecord> scrollClientInvoicesForClient(Long clientId, String cursor, int size);
 	ClientInvoiceRecord findById(Long id);
 	ClientInvoiceRecord create(Long clientId, List<Long> contractorInvoiceIds);
 }
@@ -2,10 +2,15 @@ package com.greenfieldcommerce.greenerp.clients.invoices.services;
 
 import java.util.List;
 
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
+import com.greenfieldcommerce.greenerp.archive.services.InvoiceArchiveService;
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
 import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
@@ -13,51 +18,157 @@ import com.greenfieldcommerce.greenerp.clients.invoices.repository.ClientInvoice
 import com.greenfieldcommerce.greenerp.clients.services.ClientService;
 import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
 import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceService;
+import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
+import com.greenfieldcommerce.greenerp.exceptions.InvalidCursorException;
+import com.greenfieldcommerce.greenerp.exceptions.MissingExchangeRateException;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateService;
 import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
 import com.greenfieldcommerce.greenerp.services.BaseEntityService;
+import com.greenfieldcommerce.greenerp.services.KeysetCursor;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.transaction.Transactional;
+
+/**
+ * Implementation of {@link ClientInvoiceService} for billing contractor invoices to clients.
+ * <p>
+ * The latency of client invoice creation is recorded in the {@value #OPERATION_TIMER} timer, tagged by {@code operation}.
+ * <p>
+ * Client invoices moved to the archive are still read by ID, and listed along with those of {@code client_invoice}
+ * once the client has any, which its {@code archivedThrough} bound tells without a query. Closed client invoices still
+ * in {@code client_invoice} list the contractor invoices they bill that were archived already.
+ */
 @Service
 public class ClientInvoiceServiceImpl extends BaseEntityService<ClientInvoice, Long> implements ClientInvoiceService
 {
 
+	public static final String OPERATION_TIMER = "greenerp.client.invoice.operation";
+
+	private static final int MAX_SCROLL_SIZE = 100;
+	private static final String SCROLL_DATE_PROPERTY = "dueDate";
+
 	private final ClientInvoiceRepository clientInvoiceRepository;
 	private final ClientService clientService;
 	private final Mapper<ClientInvoice, ClientInvoiceRecord> clientInvoiceToRecordMapper;
 	private final ContractorInvoiceService contractorInvoiceService;
+	private final ExchangeRateService exchangeRateService;
+	private final InvoiceArchiveService invoiceArchiveService;
 
 	public ClientInvoiceServiceImpl(final ClientInvoiceRepository clientInvoiceRepository,
 		final ClientService clientService, final Mapper<ClientInvoice, ClientInvoiceRecord> clientInvoiceToRecordMapper,
-		final ContractorInvoiceService contractorInvoiceService)
+		final ContractorInvoiceService contractorInvoiceService, final ExchangeRateService exchangeRateService,
+		final InvoiceArchiveService invoiceArchiveService)
 	{
 		super(clientInvoiceRepository, ClientInvoice.class);
 		this.clientInvoiceRepository = clientInvoiceRepository;
 		this.clientService = clientService;
 		this.clientInvoiceToRecordMapper = clientInvoiceToRecordMapper;
 		this.contractorInvoiceService = contractorInvoiceService;
+		this.exchangeRateService = exchangeRateService;
+		this.invoiceArchiveService = invoiceArchiveService;
 	}
 
+	/**
+	 * Retrieves a client invoice by ID, from the archive if it is no longer in {@code client_invoice}.
+	 *
+	 * @param id the ID of the client invoice
+	 * @return the {@code ClientInvoiceRecord} of the invoice
+	 * @throws EntityNotFoundException if no client invoice with the given ID exists
+	 */
 	@Override
 	public ClientInvoiceRecord findById(final Long id)
 	{
-		return clientInvoiceToRecordMapper.map(findEntityById(id));
+		return clientInvoiceRepository.findById(id).map(invoice -> withArchivedContractorInvoices(List.of(clientInvoiceToRecordMapper.map(invoice))).getFirst())
+			.or(() -> invoiceArchiveService.findClientInvoice(id))
+			.orElseThrow(() -> new EntityNotFoundException("ENTITY_NOT_FOUND", String.format("%s with id '%s' not found", ClientInvoice.class, id)));
 	}
 
+	/**
+	 * Retrieves a page of a client's invoices, archived ones included, in the order requested.
+	 *
+	 * @param clientId the ID of the client whose invoices are to be retrieved
+	 * @param pageable the page requested
+	 * @return a page of {@code ClientInvoiceRecord}
+	 * @throws EntityNotFoundException if the client with the given ID is not found
+	 */
 	@Override
 	public Page<ClientInvoiceRecord> findClientInvoicesForClient(final Long clientId, final Pageable pageable)
 	{
 		final Client client = clientService.findEntityById(clientId);
-		return clientInvoiceRepository.findByClient(client, pageable).map(clientInvoiceToRecordMapper::map);
+		if (client.getArchivedThrough() != null)
+			return invoiceArchiveService.findClientInvoices(clientId, pageable);
+
+		final Page<ClientInvoiceRecord> invoices = clientInvoiceRepository.findByClient(client, pageable).map(clientInvoiceToRecordMapper::map);
+		return new PageImpl<>(withArchivedContractorInvoices(invoices.getContent()), pageable, invoices.getTotalElements());
+	}
+
+	/**
+	 * Retrieves the next slice of a client's invoices, latest due first, using keyset pagination.
+	 * <p>
+	 * Each slice is read by seeking past the (dueDate, id) of the previous one, so reading deep slices costs the
+	 * same as reading the first one and no count query is issued. The archived invoices of the client, if any, are
+	 * sought from the same position in the same query.
+	 *
+	 * @param clientId the ID of the client whose invoices are to be retrieved
+	 * @param cursor   the continuation token returned with the previous slice, or {@code null} for the first slice
+	 * @param size     the maximum number of invoices in the slice, capped to {@value #MAX_SCROLL_SIZE}
+	 * @return a {@code CursorPageRecord} of {@code ClientInvoiceRecord} with the token of the following slice
+	 * @throws EntityNotFoundException if the client with the given ID is not found
+	 * @throws InvalidCursorException if the cursor is not a valid continuation token
+	 */
+	@Override
+	public CursorPageRecord<ClientInvoiceRecord> scrollClientInvoicesForClient(final Long clientId, final String cursor, final int size)
+	{
+		final Client client = clientService.findEntityById(clientId);
+		final KeysetScrollPosition position = KeysetCursor.decode(cursor, SCROLL_DATE_PROPERTY);
+		if (client.getArchivedThrough() != null)
+			return invoiceArchiveService.scrollClientInvoices(clientId, position, Math.clamp(size, 1, MAX_SCROLL_SIZE));
+
+		final Window<ClientInvoice> window = clientInvoiceRepository.findByClientOrderByDueDateDescIdDesc(client, position,
+			Limit.of(Math.clamp(size, 1, MAX_SCROLL_SIZE)));
+		final CursorPageRecord<ClientInvoiceRecord> page = KeysetCursor.toRecord(window, SCROLL_DATE_PROPERTY, clientInvoiceToRecordMapper::map);
+		return new CursorPageRecord<>(withArchivedContractorInvoices(page.content()), page.nextCursor());
 	}
 
+	/**
+	 * Creates a client invoice billing the given contractor invoices.
+	 * <p>
+	 * The contractor invoices are loaded with a single query and linked to the new client invoice with a
+	 * single bulk update, so the number of statements does not grow with the number of contractor invoices.
+	 * Contractor invoices in another currency than the client's are converted with exchange rates held in memory
+	 * by the {@link ExchangeRateService}, and the rates applied are inserted with the client invoice, in JDBC batches.
+	 *
+	 * @param clientId             the ID of the client being billed
+	 * @param contractorInvoiceIds the IDs of the contractor invoices to bill
+	 * @return a {@code ClientInvoiceRecord} representing the created client invoice
+	 * @throws EntityNotFoundException if the client is not found, or if any contractor invoice does not exist or belongs to another client
+	 * @throws MissingExchangeRateException if no exchange rate is in effect for the currency of a contractor invoice
+	 */
 	@Override
+	@Transactional
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "create" }, histogram = true)
 	public ClientInvoiceRecord create(final Long clientId, final List<Long> contractorInvoiceIds)
 	{
-		Client client = clientService.findEntityById(clientId);
-		List<ContractorInvoice> contractorInvoices = contractorInvoiceIds.stream()
-			.map(contractorInvoiceService::findEntityById).toList();
+		final Client client = clientService.findEntityById(clientId);
+		final List<ContractorInvoice> contractorInvoices = contractorInvoiceService.findEntitiesForClient(clientId, contractorInvoiceIds);
 
-		ClientInvoice invoice = ClientInvoice.create(client, contractorInvoices);
+		final ClientInvoice invoice = clientInvoiceRepository.save(ClientInvoice.create(client, contractorInvoices, exchangeRateService));
+		contractorInvoiceService.assignToClientInvoice(invoice, contractorInvoices);
 
-		return clientInvoiceToRecordMapper.map(clientInvoiceRepository.save(invoice));
+		return clientInvoiceToRecordMapper.map(invoice);
+	}
+
+	/**
+	 * Adds to the closed invoices among the given ones the contractor invoices they bill that were archived already.
+	 * Only closed invoices bill archived contractor invoices, so the archive is not read when none is closed.
+	 *
+	 * @param invoices the records of client invoices read from {@code client_invoice}
+	 * @return the records, completed with archived contractor invoices
+	 */
+	private List<ClientInvoiceRecord> withArchivedContractorInvoices(final List<ClientInvoiceRecord> invoices)
+	{
+		return invoices.stream().anyMatch(invoice -> ClientInvoice.ClientInvoiceStatus.CLOSED.name().equals(invoice.status()))
+			? invoiceArchiveService.withArchivedContractorInvoices(invoices) : invoices;
 	}
 }
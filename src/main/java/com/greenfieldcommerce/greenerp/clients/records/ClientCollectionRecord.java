@@ -1,7 +0,0 @@
-package com.greenfieldcommerce.greenerp.clients.records;
-
-import java.util.List;
-
-public record ClientCollectionRecord(List<ClientRecord> clients)
-{
-}
@@ -1,11 +1,39 @@
 package com.greenfieldcommerce.greenerp.clients.repositories;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.ListPagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface ClientRepository extends ListCrudRepository<Client, Long>
+public interface ClientRepository extends ListCrudRepository<Client, Long>, ListPagingAndSortingRepository<Client, Long>
 {
+	Page<Client> findByNameStartingWithIgnoreCaseOrEmailStartingWithIgnoreCase(String namePrefix, String emailPrefix, Pageable pageable);
+
+	List<Client> findAllBy(Pageable pageable);
+
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	Stream<Client> streamAllByOrderByIdAsc();
+
+	/**
+	 * Records that the clients have invoices in the archive below {@code archivedThrough}, unless a later bound was
+	 * recorded already.
+	 */
+	@Modifying
+	@Query("UPDATE #{#entityName} c SET c.archivedThrough = :archivedThrough WHERE c.id IN :ids AND (c.archivedThrough IS NULL OR c.archivedThrough < :archivedThrough)")
+	int raiseArchivedThrough(Collection<Long> ids, ZonedDateTime archivedThrough);
 }
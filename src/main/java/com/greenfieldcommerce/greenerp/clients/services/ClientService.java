@@ -1,7 +1,13 @@
 package com.greenfieldcommerce.greenerp.clients.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.clients.records.ClientRecord;
 import com.greenfieldcommerce.greenerp.clients.records.CreateClientRecord;
@@ -10,7 +16,10 @@ import com.greenfieldcommerce.greenerp.services.EntityService;
 
 public interface ClientService extends EntityService<Client, Long>
 {
-	List<ClientRecord> findAll();
+	List<ClientRecord> findAll(Pageable pageable);
+	Page<ClientRecord> search(String prefix, Pageable pageable);
+	void exportAll(OutputStream outputStream) throws IOException;
 	ClientRecord createClient(CreateClientRecord clientData);
 	ClientRecord findById(Long id);
+	List<ClientRecord> findByIds(Collection<Long> ids);
 }
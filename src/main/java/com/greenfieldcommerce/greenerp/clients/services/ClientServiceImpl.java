@@ -1,8 +1,20 @@
 package com.greenfieldcommerce.greenerp.clients.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.clients.records.ClientRecord;
@@ -10,24 +22,78 @@ import com.greenfieldcommerce.greenerp.clients.records.CreateClientRecord;
 import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
 import com.greenfieldcommerce.greenerp.mappers.Mapper;
 import com.greenfieldcommerce.greenerp.services.BaseEntityService;
+import com.greenfieldcommerce.greenerp.services.NdjsonWriter;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
 
 @Service
 public class ClientServiceImpl extends BaseEntityService<Client, Long> implements ClientService
 {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClientServiceImpl.class);
+
 	private final ClientRepository repository;
 	private final Mapper<Client, ClientRecord> clientToRecordMapper;
+	private final EntityManager entityManager;
+	private final ObjectMapper objectMapper;
 
-	public ClientServiceImpl(final ClientRepository repository, final Mapper<Client, ClientRecord> clientToRecordMapper)
+	public ClientServiceImpl(final ClientRepository repository, final Mapper<Client, ClientRecord> clientToRecordMapper, final EntityManager entityManager,
+		final ObjectMapper objectMapper)
 	{
 		super(repository, Client.class);
 		this.repository = repository;
 		this.clientToRecordMapper = clientToRecordMapper;
+		this.entityManager = entityManager;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Retrieves a page of clients with a single query, without counting the clients.
+	 *
+	 * @param pageable the pagination information (i.e., page number, size, and sorting)
+	 * @return a list of {@code ClientRecord} objects representing the clients of the page
+	 */
+	@Override
+	public List<ClientRecord> findAll(final Pageable pageable)
+	{
+		return repository.findAllBy(pageable).stream().map(clientToRecordMapper::map).toList();
 	}
 
+	/**
+	 * Retrieves a page of clients, optionally only those whose name or email starts with a prefix, ignoring case.
+	 *
+	 * @param prefix   the prefix of the name or email to look for, or {@code null} or blank for every client
+	 * @param pageable the pagination information (i.e., page number, size, and sorting)
+	 * @return a {@code Page} of {@code ClientRecord}
+	 */
 	@Override
-	public List<ClientRecord> findAll()
+	public Page<ClientRecord> search(@Nullable final String prefix, final Pageable pageable)
 	{
-		return repository.findAll().stream().map(clientToRecordMapper::map).toList();
+		final Page<Client> clients = StringUtils.hasText(prefix)
+			? repository.findByNameStartingWithIgnoreCaseOrEmailStartingWithIgnoreCase(prefix.trim(), prefix.trim(), pageable)
+			: repository.findAll(pageable);
+		return clients.map(clientToRecordMapper::map);
+	}
+
+	/**
+	 * Writes every client, by ascending ID, as newline-delimited JSON, reading them with a forward-only cursor so the
+	 * export runs in constant memory.
+	 *
+	 * @param outputStream the output to write to
+	 * @throws IOException if the output cannot be written to
+	 */
+	@Override
+	@Transactional
+	public void exportAll(final OutputStream outputStream) throws IOException
+	{
+		try (final Stream<Client> clients = repository.streamAllByOrderByIdAsc())
+		{
+			final long exported = NdjsonWriter.write(clients.map(client -> {
+				entityManager.detach(client);
+				return clientToRecordMapper.map(client);
+			}), objectMapper, outputStream);
+			LOGGER.info("Exported {} clients", exported);
+		}
 	}
 
 	@Override
@@ -44,4 +110,10 @@ public class ClientServiceImpl extends BaseEntityService<Client, Long> implement
 	{
 		return clientToRecordMapper.map(findEntityById(id));
 	}
+
+	@Override
+	public List<ClientRecord> findByIds(final Collection<Long> ids)
+	{
+		return findEntitiesByIds(ids).stream().map(clientToRecordMapper::map).toList();
+	}
 }
@@ -0,0 +1,161 @@
+package com.greenfieldcommerce.greenerp.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Hands out at most as many connections at a time as it has permits, normally the size of the underlying pool.
+ * <p>
+ * On virtual threads, nothing bounds how many requests run at once: thousands of them would otherwise contend for the
+ * pool and fail once its connection timeout expires. Threads over the limit wait for a permit instead, in arrival
+ * order, which parks a virtual thread at no cost, and only then borrow a connection, which the pool can always hand
+ * out at once. A thread still waiting after the admission timeout gets the same
+ * {@link SQLTransientConnectionException} the pool would have thrown. A permit is given back when its connection is
+ * closed.
+ */
+public class AdmissionControlledDataSource extends DelegatingDataSource
+{
+	public static final String QUEUED_METRIC_NAME = "greenerp.jdbc.admission.queued";
+	public static final String WAIT_METRIC_NAME = "greenerp.jdbc.admission.wait";
+	public static final String REJECTED_METRIC_NAME = "greenerp.jdbc.admission.rejected";
+
+	private final Semaphore permits;
+	private final Duration timeout;
+	private Timer waitTimer;
+	private Counter rejectedCounter;
+
+	public AdmissionControlledDataSource(final DataSource targetDataSource, final int permits, final Duration timeout)
+	{
+		super(targetDataSource);
+		this.permits = new Semaphore(permits, true);
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Publishes the number of waiting threads, their wait time, and the number of them that timed out.
+	 *
+	 * @param meterRegistry the registry to publish the meters to
+	 */
+	public void bindTo(final MeterRegistry meterRegistry)
+	{
+		Gauge.builder(QUEUED_METRIC_NAME, permits, Semaphore::getQueueLength).description("Threads waiting to borrow a JDBC connection").register(meterRegistry);
+		waitTimer = Timer.builder(WAIT_METRIC_NAME).description("Time threads waited to borrow a JDBC connection").publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+		rejectedCounter = Counter.builder(REJECTED_METRIC_NAME).description("Threads that could not borrow a JDBC connection within the admission timeout")
+			.register(meterRegistry);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		acquire();
+		return admitted(() -> obtainTargetDataSource().getConnection());
+	}
+
+	@Override
+	public Connection getConnection(final String username, final String password) throws SQLException
+	{
+		acquire();
+		return admitted(() -> obtainTargetDataSource().getConnection(username, password));
+	}
+
+	/**
+	 * Tells how many connections can still be borrowed without waiting.
+	 *
+	 * @return the number of free permits
+	 */
+	public int availablePermits()
+	{
+		return permits.availablePermits();
+	}
+
+	private void acquire() throws SQLException
+	{
+		final long start = System.nanoTime();
+		boolean acquired = false;
+		try
+		{
+			acquired = permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		} finally
+		{
+			if (waitTimer != null)
+				waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+
+		if (!acquired)
+		{
+			if (rejectedCounter != null)
+				rejectedCounter.increment();
+			throw new SQLTransientConnectionException(String.format("Connection is not available, request timed out after %sms", timeout.toMillis()));
+		}
+	}
+
+	private Connection admitted(final ConnectionSupplier supplier) throws SQLException
+	{
+		final Connection connection;
+		try
+		{
+			connection = supplier.get();
+		} catch (SQLException | RuntimeException e)
+		{
+			permits.release();
+			throw e;
+		}
+
+		final AtomicBoolean released = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[] { ConnectionProxy.class }, (proxy, method, args) -> {
+			switch (method.getName())
+			{
+				case "getTargetConnection":
+					return connection;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "close":
+					try
+					{
+						connection.close();
+					} finally
+					{
+						if (released.compareAndSet(false, true))
+							permits.release();
+					}
+					return null;
+				default:
+					try
+					{
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e)
+					{
+						throw e.getCause();
+					}
+			}
+		});
+	}
+
+	@FunctionalInterface
+	private interface ConnectionSupplier
+	{
+		Connection get() throws SQLException;
+	}
+}
@@ -0,0 +1,68 @@
+package com.greenfieldcommerce.greenerp.config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Backs the prefix search of the contractor and client directories with indexes.
+ * <p>
+ * The searches match {@code upper(name)} and {@code upper(email)} with {@code LIKE 'PREFIX%'}, which plain indexes on
+ * the columns cannot serve. On PostgreSQL, GIN trigram indexes on both expressions are added to {@code contractor} and
+ * {@code client} once Hibernate has created or updated the schema; unlike {@code text_pattern_ops} B-tree indexes,
+ * they are also used by generic plans of prepared statements, where the pattern is a parameter. On any other database,
+ * or when the {@code pg_trgm} extension cannot be created, searches fall back to scanning the tables.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class DirectorySearchIndexes
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySearchIndexes.class);
+	private static final List<String> TABLES = List.of("contractor", "client");
+	private static final List<String> COLUMNS = List.of("name", "email");
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public DirectorySearchIndexes(final JdbcTemplate jdbcTemplate)
+	{
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Installs the trigram indexes when running on PostgreSQL, unless they already exist.
+	 */
+	@PostConstruct
+	public void install()
+	{
+		final String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+		if (!"PostgreSQL".equals(product))
+		{
+			LOGGER.info("Directory searches are not backed by trigram indexes on {}", product);
+			return;
+		}
+
+		try
+		{
+			jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+			for (final String table : TABLES)
+				for (final String column : COLUMNS)
+					jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + indexName(table, column) + " ON " + table + " USING gin (upper(" + column + ") gin_trgm_ops)");
+		} catch (DataAccessException e)
+		{
+			LOGGER.warn("Could not install the directory search indexes, searches will scan the contractor and client tables", e);
+		}
+	}
+
+	static String indexName(final String table, final String column)
+	{
+		return "idx_" + table + "_" + column + "_trgm";
+	}
+}
@@ -0,0 +1,67 @@
+package com.greenfieldcommerce.greenerp.config;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bounds JDBC concurrency when {@code spring.threads.virtual.enabled} runs requests, {@code @Async} work, AMQP
+ * listeners and scheduled tasks on virtual threads.
+ * <p>
+ * The data source is wrapped in an {@link AdmissionControlledDataSource} with as many permits as the Hikari pool has
+ * connections, and an admission timeout matching the pool's connection timeout. Both can be overridden with
+ * {@code greenerp.jdbc.admission.permits} and {@code greenerp.jdbc.admission.timeout}.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig
+{
+	private static final int DEFAULT_PERMITS = 10;
+	private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+	@Bean
+	public static BeanPostProcessor admissionControlledDataSourcePostProcessor(final Environment environment)
+	{
+		return new BeanPostProcessor()
+		{
+			@Override
+			public Object postProcessAfterInitialization(final Object bean, final String beanName)
+			{
+				if (!(bean instanceof DataSource dataSource) || bean instanceof AdmissionControlledDataSource)
+					return bean;
+
+				final HikariDataSource pool = bean instanceof HikariDataSource hikari ? hikari : null;
+				final int permits = environment.getProperty("greenerp.jdbc.admission.permits", Integer.class, pool == null ? DEFAULT_PERMITS : pool.getMaximumPoolSize());
+				final Duration timeout = environment.getProperty("greenerp.jdbc.admission.timeout", Duration.class,
+					pool == null ? DEFAULT_TIMEOUT : Duration.ofMillis(pool.getConnectionTimeout()));
+				return new AdmissionControlledDataSource(dataSource, permits, timeout);
+			}
+		};
+	}
+
+	@Bean
+	public MeterBinder jdbcAdmissionMetrics(final DataSource dataSource)
+	{
+		return meterRegistry -> {
+			try
+			{
+				dataSource.unwrap(AdmissionControlledDataSource.class).bindTo(meterRegistry);
+			} catch (SQLException e)
+			{
+				throw new IllegalStateException("The data source is not admission controlled", e);
+			}
+		};
+	}
+}
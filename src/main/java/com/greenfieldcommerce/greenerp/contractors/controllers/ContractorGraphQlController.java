@@ -0,0 +1,47 @@
+package com.greenfieldcommerce.greenerp.contractors.controllers;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import com.greenfieldcommerce.greenerp.controllers.GraphQlPageRequests;
+import com.greenfieldcommerce.greenerp.contractors.records.ContractorRecord;
+import com.greenfieldcommerce.greenerp.contractors.services.ContractorService;
+import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
+
+/**
+ * GraphQL entry points for contractors.
+ * <p>
+ * Contractors are returned without their rates and invoices, which are resolved for every requested contractor at
+ * once by {@link com.greenfieldcommerce.greenerp.contractors.rates.controllers.ContractorRateGraphQlController} and
+ * {@link com.greenfieldcommerce.greenerp.contractors.invoices.controllers.ContractorInvoiceGraphQlController}. They are listed
+ * by name a page at a time, like the REST directory.
+ */
+@Controller
+public class ContractorGraphQlController
+{
+	private final ContractorService contractorService;
+
+	public ContractorGraphQlController(final ContractorService contractorService)
+	{
+		this.contractorService = contractorService;
+	}
+
+	@QueryMapping
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_OR_OWN_CONTRACTOR)
+	public ContractorRecord contractorById(@Argument("id") final Long contractorId)
+	{
+		return contractorService.findSummaryById(contractorId);
+	}
+
+	@QueryMapping
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public List<ContractorRecord> contractors(@Argument("page") final int page, @Argument("size") final int size)
+	{
+		return contractorService.findSummaries(GraphQlPageRequests.of(page, size, Sort.by("name")));
+	}
+}
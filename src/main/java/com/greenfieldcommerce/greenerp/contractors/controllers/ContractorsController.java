@@ -2,6 +2,12 @@ package com.greenfieldcommerce.greenerp.contractors.controllers;
 
 import java.net.URI;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,10 +17,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import com.greenfieldcommerce.greenerp.contractors.records.ContractorCollectionRecord;
 import com.greenfieldcommerce.greenerp.contractors.records.ContractorRecord;
 import com.greenfieldcommerce.greenerp.contractors.records.CreateContractorRecord;
 import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
@@ -35,9 +42,21 @@ public class ContractorsController
 
 	@GetMapping
 	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
-	public ContractorCollectionRecord getAllContractors()
+	public Page<ContractorRecord> findContractors(@RequestParam(name = "search", required = false) String search,
+		@PageableDefault(size = 20, sort = "name", direction = Sort.Direction.ASC) Pageable pageable)
 	{
-		return new ContractorCollectionRecord(contractorService.findAll());
+		return contractorService.search(search, pageable);
+	}
+
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public ResponseEntity<StreamingResponseBody> exportContractors()
+	{
+		final ContentDisposition disposition = ContentDisposition.attachment().filename("contractors.ndjson").build();
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_NDJSON)
+			.header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+			.body(contractorService::exportAll);
 	}
 
 	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -1,10 +1,12 @@
 package com.greenfieldcommerce.greenerp.contractors.entities;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.hibernate.annotations.BatchSize;
 
 import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
 import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
@@ -34,6 +36,7 @@ public class Contractor
 	private String name;
 
 	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE, mappedBy = "contractor")
+	@BatchSize(size = 100)
 	private final List<ContractorRate> rates = new ArrayList<>();
 
 	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE, mappedBy = "contractor")
@@ -42,6 +45,13 @@ public class Contractor
 	@Version
 	private Long version;
 
+	/**
+	 * Bound below which the contractor has invoices in the archive, {@code null} while none was archived. Only set by
+	 * the archive, so that saving the contractor never writes back a stale bound.
+	 */
+	@Column(insertable = false, updatable = false)
+	private ZonedDateTime archivedThrough;
+
 	protected Contractor() {}
 
 	private Contractor(final String email, final String name)
@@ -109,4 +119,9 @@ public class Contractor
 	{
 		this.version = version;
 	}
+
+	public ZonedDateTime getArchivedThrough()
+	{
+		return archivedThrough;
+	}
 }
@@ -0,0 +1,43 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import java.util.List;
+
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.Chunk;
+
+import com.greenfieldcommerce.greenerp.analytics.services.MarginAnalyticsService;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceMessagingService;
+import com.greenfieldcommerce.greenerp.mappers.Mapper;
+
+/**
+ * Announces the invoices written by a chunk within the chunk transaction, and has their margin summaries refreshed
+ * once it commits.
+ * <p>
+ * Messages go through the outbox, so a chunk that is rolled back publishes nothing, and consumers never hear
+ * about invoices that do not exist. The summaries of the whole chunk are refreshed together, with a couple of
+ * queries.
+ */
+public class ContractorInvoiceCreatedMessagesPublisher implements ItemWriteListener<ContractorInvoice>
+{
+	private final ContractorInvoiceMessagingService contractorInvoiceMessagingService;
+	private final MarginAnalyticsService marginAnalyticsService;
+	private final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper;
+
+	public ContractorInvoiceCreatedMessagesPublisher(final ContractorInvoiceMessagingService contractorInvoiceMessagingService, final MarginAnalyticsService marginAnalyticsService,
+		final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper)
+	{
+		this.contractorInvoiceMessagingService = contractorInvoiceMessagingService;
+		this.marginAnalyticsService = marginAnalyticsService;
+		this.contractorInvoiceToRecordMapper = contractorInvoiceToRecordMapper;
+	}
+
+	@Override
+	public void afterWrite(final Chunk<? extends ContractorInvoice> items)
+	{
+		final List<ContractorInvoiceRecord> records = items.getItems().stream().map(contractorInvoiceToRecordMapper::map).toList();
+		marginAnalyticsService.refresh(records);
+		contractorInvoiceMessagingService.sendContractorInvoiceCreatedMessages(records);
+	}
+}
@@ -0,0 +1,131 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import java.time.ZonedDateTime;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.database.JpaItemWriter;
+import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.greenfieldcommerce.greenerp.analytics.services.MarginAnalyticsService;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.BatchContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceMessagingService;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceService;
+import com.greenfieldcommerce.greenerp.exceptions.BusinessException;
+import com.greenfieldcommerce.greenerp.mappers.Mapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Month-end job that creates contractor invoices in bulk from a CSV file.
+ * <p>
+ * The file, given by the {@value #INPUT_FILE_PARAMETER} job parameter, has a header line followed by one
+ * {@code contractorId,clientId,startDate,endDate,numberOfWorkedDays} line per invoice, with ISO-8601 dates.
+ * Its lines are split into ranges processed in parallel, each range in chunks: every chunk is inserted with
+ * JDBC batches, along with the outbox entries announcing its invoices and their margin summaries. Inputs that cannot be
+ * invoiced (unknown contractor or client, no active rate, invoice already present) are skipped and logged.
+ * <p>
+ * Progress is saved per range, so launching the job again with the same parameters after a failure resumes
+ * it where it stopped.
+ */
+@Configuration
+public class ContractorInvoiceGenerationJobConfig
+{
+	public static final String JOB_NAME = "contractorInvoiceGenerationJob";
+	public static final String INPUT_FILE_PARAMETER = "input.file";
+
+	private static final String[] INPUT_COLUMNS = { "contractorId", "clientId", "startDate", "endDate", "numberOfWorkedDays" };
+
+	@Bean
+	public Job contractorInvoiceGenerationJob(final JobRepository jobRepository, final Step contractorInvoiceGenerationManagerStep)
+	{
+		return new JobBuilder(JOB_NAME, jobRepository).start(contractorInvoiceGenerationManagerStep).build();
+	}
+
+	@Bean
+	public Step contractorInvoiceGenerationManagerStep(final JobRepository jobRepository, final ContractorInvoiceInputPartitioner contractorInvoiceInputPartitioner,
+		final Step contractorInvoiceGenerationStep, @Value("${greenerp.batch.contractor-invoice-generation.grid-size:4}") final int gridSize)
+	{
+		final SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("contractor-invoice-generation-");
+		taskExecutor.setConcurrencyLimit(gridSize);
+
+		return new StepBuilder("contractorInvoiceGenerationManagerStep", jobRepository)
+			.partitioner(contractorInvoiceGenerationStep.getName(), contractorInvoiceInputPartitioner)
+			.step(contractorInvoiceGenerationStep)
+			.gridSize(gridSize)
+			.taskExecutor(taskExecutor)
+			.build();
+	}
+
+	@Bean
+	public Step contractorInvoiceGenerationStep(final JobRepository jobRepository, final PlatformTransactionManager transactionManager,
+		final FlatFileItemReader<BatchContractorInvoiceRecord> contractorInvoiceInputReader, final ContractorInvoiceService contractorInvoiceService,
+		final EntityManagerFactory entityManagerFactory, final ContractorInvoiceMessagingService contractorInvoiceMessagingService, final MarginAnalyticsService marginAnalyticsService,
+		final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper,
+		@Value("${greenerp.batch.contractor-invoice-generation.chunk-size:100}") final int chunkSize,
+		@Value("${greenerp.batch.contractor-invoice-generation.skip-limit:1000}") final int skipLimit)
+	{
+		final JpaItemWriter<ContractorInvoice> writer = new JpaItemWriterBuilder<ContractorInvoice>().entityManagerFactory(entityManagerFactory).usePersist(true).build();
+
+		return new StepBuilder("contractorInvoiceGenerationStep", jobRepository)
+			.<BatchContractorInvoiceRecord, ContractorInvoice>chunk(chunkSize, transactionManager)
+			.reader(contractorInvoiceInputReader)
+			.processor(contractorInvoiceService::prepare)
+			.writer(writer)
+			.listener(new ContractorInvoiceCreatedMessagesPublisher(contractorInvoiceMessagingService, marginAnalyticsService, contractorInvoiceToRecordMapper))
+			.faultTolerant()
+			.skip(BusinessException.class)
+			.skip(ConstraintViolationException.class)
+			.skip(FlatFileParseException.class)
+			.skipLimit(skipLimit)
+			.listener(new ContractorInvoiceGenerationSkipListener())
+			.build();
+	}
+
+	@Bean
+	@JobScope
+	public ContractorInvoiceInputPartitioner contractorInvoiceInputPartitioner(@Value("#{jobParameters['" + INPUT_FILE_PARAMETER + "']}") final String inputFile)
+	{
+		return new ContractorInvoiceInputPartitioner(new FileSystemResource(inputFile));
+	}
+
+	@Bean
+	@StepScope
+	public FlatFileItemReader<BatchContractorInvoiceRecord> contractorInvoiceInputReader(@Value("#{jobParameters['" + INPUT_FILE_PARAMETER + "']}") final String inputFile,
+		@Value("#{stepExecutionContext['" + ContractorInvoiceInputPartitioner.START_ITEM + "']}") final int startItem,
+		@Value("#{stepExecutionContext['" + ContractorInvoiceInputPartitioner.END_ITEM + "']}") final int endItem)
+	{
+		return new FlatFileItemReaderBuilder<BatchContractorInvoiceRecord>()
+			.name("contractorInvoiceInputReader")
+			.resource(new FileSystemResource(inputFile))
+			.linesToSkip(1)
+			.currentItemCount(startItem)
+			.maxItemCount(endItem)
+			.delimited()
+			.names(INPUT_COLUMNS)
+			.fieldSetMapper(fieldSet -> new BatchContractorInvoiceRecord(
+				fieldSet.readLong("contractorId"),
+				fieldSet.readLong("clientId"),
+				ZonedDateTime.parse(fieldSet.readString("startDate")),
+				ZonedDateTime.parse(fieldSet.readString("endDate")),
+				fieldSet.readBigDecimal("numberOfWorkedDays")))
+			.build();
+	}
+}
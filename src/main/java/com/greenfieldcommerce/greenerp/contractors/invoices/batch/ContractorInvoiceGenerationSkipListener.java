@@ -0,0 +1,34 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.SkipListener;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.BatchContractorInvoiceRecord;
+
+/**
+ * Logs every input the contractor invoice generation job had to skip, along with the reason.
+ */
+public class ContractorInvoiceGenerationSkipListener implements SkipListener<BatchContractorInvoiceRecord, ContractorInvoice>
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContractorInvoiceGenerationSkipListener.class);
+
+	@Override
+	public void onSkipInRead(final Throwable t)
+	{
+		LOGGER.warn("Skipping unreadable contractor invoice input: {}", t.getMessage());
+	}
+
+	@Override
+	public void onSkipInProcess(final BatchContractorInvoiceRecord item, final Throwable t)
+	{
+		LOGGER.warn("Skipping invoice for contractor {} and client {} starting {}: {}", item.contractorId(), item.clientId(), item.startDate(), t.getMessage());
+	}
+
+	@Override
+	public void onSkipInWrite(final ContractorInvoice item, final Throwable t)
+	{
+		LOGGER.warn("Skipping invoice for contractor {} starting {}: {}", item.getContractor().getId(), item.getStartDate(), t.getMessage());
+	}
+}
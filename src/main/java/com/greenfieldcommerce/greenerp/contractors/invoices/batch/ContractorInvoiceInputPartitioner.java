@@ -0,0 +1,61 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.Resource;
+
+/**
+ * Splits a contractor invoice input file into contiguous ranges of lines, one per partition.
+ * <p>
+ * Each partition receives the index of its first item and the index right after its last one, under
+ * {@link #START_ITEM} and {@link #END_ITEM}. The header line is not counted as an item.
+ */
+public class ContractorInvoiceInputPartitioner implements Partitioner
+{
+	public static final String START_ITEM = "startItem";
+	public static final String END_ITEM = "endItem";
+
+	private final Resource input;
+
+	public ContractorInvoiceInputPartitioner(final Resource input)
+	{
+		this.input = input;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(final int gridSize)
+	{
+		final int items = countItems();
+		final int partitionSize = Math.max(1, (items + gridSize - 1) / gridSize);
+		final Map<String, ExecutionContext> partitions = new HashMap<>();
+
+		for (int start = 0; start < items; start += partitionSize)
+		{
+			final ExecutionContext context = new ExecutionContext();
+			context.putInt(START_ITEM, start);
+			context.putInt(END_ITEM, Math.min(start + partitionSize, items));
+			partitions.put("partition" + partitions.size(), context);
+		}
+		return partitions;
+	}
+
+	private int countItems()
+	{
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input.getInputStream(), StandardCharsets.UTF_8)))
+		{
+			return (int) Math.max(0, reader.lines().count() - 1);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(String.format("Could not read contractor invoice input %s", input.getDescription()), e);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoicePartitions;
+
+/**
+ * Maintenance job converting {@code contractor_invoice} into a table partitioned by month, see
+ * {@link ContractorInvoicePartitions}. The table is locked for the whole conversion, so the job is meant to be run
+ * during a maintenance window, with {@code greenerp.contractor-invoices.partitioning.enabled} set to {@code true}.
+ * <p>
+ * The conversion is refused while foreign keys reference the table, unless the {@value #DROP_FOREIGN_KEYS_PARAMETER}
+ * job parameter is {@code true}, in which case they are dropped.
+ */
+@Configuration
+public class ContractorInvoicePartitioningJobConfig
+{
+	public static final String JOB_NAME = "contractorInvoicePartitioningJob";
+	public static final String DROP_FOREIGN_KEYS_PARAMETER = "dropForeignKeys";
+
+	@Bean
+	public Job contractorInvoicePartitioningJob(final JobRepository jobRepository, final Step contractorInvoicePartitioningStep)
+	{
+		return new JobBuilder(JOB_NAME, jobRepository).incrementer(new RunIdIncrementer()).start(contractorInvoicePartitioningStep).build();
+	}
+
+	/**
+	 * The conversion manages its own transaction, so the step runs without one.
+	 */
+	@Bean
+	public Step contractorInvoicePartitioningStep(final JobRepository jobRepository, final ContractorInvoicePartitions contractorInvoicePartitions)
+	{
+		final PlatformTransactionManager noTransaction = new ResourcelessTransactionManager();
+		return new StepBuilder("contractorInvoicePartitioningStep", jobRepository)
+			.tasklet((contribution, chunkContext) -> {
+				final boolean dropForeignKeys = Boolean.parseBoolean(contribution.getStepExecution().getJobParameters().getString(DROP_FOREIGN_KEYS_PARAMETER, "false"));
+				contribution.incrementWriteCount(contractorInvoicePartitions.partition(dropForeignKeys));
+				return RepeatStatus.FINISHED;
+			}, noTransaction)
+			.build();
+	}
+}
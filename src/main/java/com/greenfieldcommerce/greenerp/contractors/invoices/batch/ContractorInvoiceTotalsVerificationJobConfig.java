@@ -0,0 +1,84 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.database.JpaCursorItemReader;
+import org.springframework.batch.item.database.builder.JpaCursorItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceTotalDriftRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceTotalsRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Offline job checking the contractor invoice totals, which are maintained by delta, against a full recomputation.
+ * <p>
+ * Every invoice is read along with the sum of its extra amount lines, aggregated by the database, and its totals are
+ * recomputed from scratch. Drifted invoices are logged and counted in {@code greenerp.invoices.total.drift}; they are
+ * also corrected when the {@value #REPAIR_PARAMETER} job parameter is {@code true}. Those that changed in the
+ * meantime are left as they are, and counted in {@code greenerp.invoices.total.drift.uncorrected}.
+ */
+@Configuration
+public class ContractorInvoiceTotalsVerificationJobConfig
+{
+	public static final String JOB_NAME = "contractorInvoiceTotalsVerificationJob";
+	public static final String REPAIR_PARAMETER = "repair";
+
+	private static final String TOTALS_QUERY = "SELECT new " + InvoiceTotalsRecord.class.getName()
+		+ "(i.id, i.numberOfWorkedDays, r.rate, i.currency, i.extraAmountsTotal, i.total, SUM(l.amount)) "
+		+ "FROM ContractorInvoice i JOIN i.rate r LEFT JOIN i.extraAmountLines l "
+		+ "GROUP BY i.id, i.numberOfWorkedDays, r.rate, i.currency, i.extraAmountsTotal, i.total ORDER BY i.id";
+
+	@Bean
+	public Job contractorInvoiceTotalsVerificationJob(final JobRepository jobRepository, final Step contractorInvoiceTotalsVerificationStep)
+	{
+		return new JobBuilder(JOB_NAME, jobRepository).incrementer(new RunIdIncrementer()).start(contractorInvoiceTotalsVerificationStep).build();
+	}
+
+	@Bean
+	public Step contractorInvoiceTotalsVerificationStep(final JobRepository jobRepository, final PlatformTransactionManager transactionManager,
+		final JpaCursorItemReader<InvoiceTotalsRecord> invoiceTotalsReader, final InvoiceTotalDriftWriter invoiceTotalDriftWriter,
+		@Value("${greenerp.batch.contractor-invoice-totals-verification.chunk-size:500}") final int chunkSize)
+	{
+		return new StepBuilder("contractorInvoiceTotalsVerificationStep", jobRepository)
+			.<InvoiceTotalsRecord, InvoiceTotalDriftRecord>chunk(chunkSize, transactionManager)
+			.reader(invoiceTotalsReader)
+			.processor(new InvoiceTotalsVerifier())
+			.writer(invoiceTotalDriftWriter)
+			.build();
+	}
+
+	@Bean
+	@StepScope
+	public JpaCursorItemReader<InvoiceTotalsRecord> invoiceTotalsReader(final EntityManagerFactory entityManagerFactory)
+	{
+		return new JpaCursorItemReaderBuilder<InvoiceTotalsRecord>()
+			.name("invoiceTotalsReader")
+			.entityManagerFactory(entityManagerFactory)
+			.queryString(TOTALS_QUERY)
+			.build();
+	}
+
+	@Bean
+	@StepScope
+	public InvoiceTotalDriftWriter invoiceTotalDriftWriter(final ContractorInvoiceRepository contractorInvoiceRepository, final MeterRegistry meterRegistry,
+		@Value("#{jobParameters['" + REPAIR_PARAMETER + "'] ?: 'false'}") final String repair)
+	{
+		final Counter drifted = Counter.builder("greenerp.invoices.total.drift").description("Number of contractor invoices found with drifted totals").register(meterRegistry);
+		final Counter uncorrected = Counter.builder("greenerp.invoices.total.drift.uncorrected")
+			.description("Number of drifted contractor invoices left uncorrected because their totals changed meanwhile").register(meterRegistry);
+		return new InvoiceTotalDriftWriter(contractorInvoiceRepository, drifted, uncorrected, Boolean.parseBoolean(repair));
+	}
+}
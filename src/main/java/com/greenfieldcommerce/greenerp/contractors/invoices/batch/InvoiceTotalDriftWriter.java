@@ -0,0 +1,54 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceTotalDriftRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Reports every invoice whose stored totals drifted from the recomputed ones and, when asked to, corrects them.
+ * <p>
+ * A correction only applies if the stored totals are still the ones that were verified, so an invoice changed
+ * while the job runs is left alone and reported again on the next run if it is still off. Such invoices are logged and
+ * counted apart, so that they are not taken for corrected ones.
+ */
+public class InvoiceTotalDriftWriter implements ItemWriter<InvoiceTotalDriftRecord>
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(InvoiceTotalDriftWriter.class);
+
+	private final ContractorInvoiceRepository contractorInvoiceRepository;
+	private final Counter drifted;
+	private final Counter uncorrected;
+	private final boolean repair;
+
+	public InvoiceTotalDriftWriter(final ContractorInvoiceRepository contractorInvoiceRepository, final Counter drifted, final Counter uncorrected, final boolean repair)
+	{
+		this.contractorInvoiceRepository = contractorInvoiceRepository;
+		this.drifted = drifted;
+		this.uncorrected = uncorrected;
+		this.repair = repair;
+	}
+
+	@Override
+	public void write(final Chunk<? extends InvoiceTotalDriftRecord> chunk)
+	{
+		for (final InvoiceTotalDriftRecord drift : chunk)
+		{
+			drifted.increment();
+			LOGGER.warn("Invoice {} totals drifted: stored extra amounts {} and total {}, expected {} and {}", drift.invoiceId(),
+				drift.storedExtraAmountsTotal(), drift.storedTotal(), drift.expectedExtraAmountsTotal(), drift.expectedTotal());
+
+			if (repair && contractorInvoiceRepository.correctTotals(drift.invoiceId(), drift.storedExtraAmountsTotal(), drift.storedTotal(),
+				drift.expectedExtraAmountsTotal(), drift.expectedTotal()) == 0)
+			{
+				uncorrected.increment();
+				LOGGER.warn("Invoice {} totals were not corrected, they changed since they were verified", drift.invoiceId());
+			}
+		}
+	}
+}
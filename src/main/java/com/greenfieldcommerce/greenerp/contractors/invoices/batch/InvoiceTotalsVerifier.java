@@ -0,0 +1,28 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import java.math.BigDecimal;
+
+import org.springframework.batch.item.ItemProcessor;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceTotalDriftRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceTotalsRecord;
+
+/**
+ * Recomputes the totals of an invoice from its worked days, rate and extra amount lines, and compares them with
+ * the stored ones. Invoices whose totals match are filtered out, so only drifted invoices reach the writer.
+ */
+public class InvoiceTotalsVerifier implements ItemProcessor<InvoiceTotalsRecord, InvoiceTotalDriftRecord>
+{
+	@Override
+	public InvoiceTotalDriftRecord process(final InvoiceTotalsRecord item)
+	{
+		final BigDecimal expectedExtraAmountsTotal = item.linesTotal() == null ? BigDecimal.ZERO : item.linesTotal();
+		final BigDecimal expectedTotal = ContractorInvoice.calculateWorkedDaysAmount(item.numberOfWorkedDays(), item.rate(), item.currency()).toBigDecimal().add(expectedExtraAmountsTotal);
+
+		if (item.extraAmountsTotal() != null && expectedExtraAmountsTotal.compareTo(item.extraAmountsTotal()) == 0 && expectedTotal.compareTo(item.total()) == 0)
+			return null;
+
+		return new InvoiceTotalDriftRecord(item.invoiceId(), item.extraAmountsTotal(), item.total(), expectedExtraAmountsTotal, expectedTotal);
+	}
+}
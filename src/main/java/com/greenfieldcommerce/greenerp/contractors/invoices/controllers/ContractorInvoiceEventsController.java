@@ -0,0 +1,42 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.controllers;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceEventService;
+import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
+
+/**
+ * Streams changes to contractor invoices as server-sent events, named {@code created}, {@code patched} or
+ * {@code billed}.
+ * <p>
+ * The mappings do not declare what they produce, so that errors raised before the stream opens are still rendered as
+ * JSON to clients accepting both {@code text/event-stream} and {@code application/json}.
+ */
+@RestController
+public class ContractorInvoiceEventsController
+{
+	private final ContractorInvoiceEventService contractorInvoiceEventService;
+
+	public ContractorInvoiceEventsController(final ContractorInvoiceEventService contractorInvoiceEventService)
+	{
+		this.contractorInvoiceEventService = contractorInvoiceEventService;
+	}
+
+	@GetMapping("/contractors/{contractorId}/invoices/events")
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_OR_OWN_CONTRACTOR)
+	public SseEmitter streamContractorInvoiceEvents(@PathVariable("contractorId") Long contractorId)
+	{
+		return contractorInvoiceEventService.subscribeToContractor(contractorId);
+	}
+
+	@GetMapping("/clients/{clientId}/contractor-invoices/events")
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public SseEmitter streamClientContractorInvoiceEvents(@PathVariable("clientId") Long clientId)
+	{
+		return contractorInvoiceEventService.subscribeToClient(clientId);
+	}
+}
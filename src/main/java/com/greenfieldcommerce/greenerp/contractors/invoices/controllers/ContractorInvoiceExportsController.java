@@ -0,0 +1,46 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.controllers;
+
+import java.time.ZonedDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportFilterRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceExportService;
+import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
+
+@RestController
+@RequestMapping("/contractors/invoices/export")
+public class ContractorInvoiceExportsController
+{
+	private final ContractorInvoiceExportService contractorInvoiceExportService;
+
+	public ContractorInvoiceExportsController(final ContractorInvoiceExportService contractorInvoiceExportService)
+	{
+		this.contractorInvoiceExportService = contractorInvoiceExportService;
+	}
+
+	@GetMapping
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public ResponseEntity<StreamingResponseBody> exportInvoices(@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+		@RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+		@RequestParam(name = "status", required = false) ContractorInvoice.InvoiceStatus status, @RequestParam(name = "clientId", required = false) Long clientId,
+		@RequestParam(name = "format", defaultValue = "CSV") ContractorInvoiceExportService.Format format)
+	{
+		final ContractorInvoiceExportFilterRecord filter = new ContractorInvoiceExportFilterRecord(from, to, status, clientId);
+		final ContentDisposition disposition = ContentDisposition.attachment().filename("contractor-invoices." + format.getFileExtension()).build();
+		return ResponseEntity.ok()
+			.contentType(format.getMediaType())
+			.header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+			.body(outputStream -> contractorInvoiceExportService.export(filter, format, outputStream));
+	}
+}
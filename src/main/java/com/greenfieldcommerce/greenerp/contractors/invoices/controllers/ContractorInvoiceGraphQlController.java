@@ -0,0 +1,49 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.controllers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.stereotype.Controller;
+
+import com.greenfieldcommerce.greenerp.clients.records.ClientRecord;
+import com.greenfieldcommerce.greenerp.clients.services.ClientService;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceService;
+import com.greenfieldcommerce.greenerp.contractors.records.ContractorRecord;
+
+/**
+ * Resolves the invoices of contractors returned by the GraphQL API, and the clients they are billed to, with a single
+ * query per field for all the contractors of a request.
+ */
+@Controller
+public class ContractorInvoiceGraphQlController
+{
+	private final ContractorInvoiceService contractorInvoiceService;
+	private final ClientService clientService;
+
+	public ContractorInvoiceGraphQlController(final ContractorInvoiceService contractorInvoiceService, final ClientService clientService)
+	{
+		this.contractorInvoiceService = contractorInvoiceService;
+		this.clientService = clientService;
+	}
+
+	@BatchMapping(typeName = "ContractorRecord")
+	public Map<ContractorRecord, ContractorInvoiceRecord> latestInvoice(final List<ContractorRecord> contractors)
+	{
+		final Map<Long, ContractorInvoiceRecord> invoices = contractorInvoiceService.findLatestForContractors(contractors.stream().map(ContractorRecord::id).toList());
+		return contractors.stream().filter(contractor -> invoices.containsKey(contractor.id()))
+			.collect(Collectors.toMap(Function.identity(), contractor -> invoices.get(contractor.id())));
+	}
+
+	@BatchMapping(typeName = "Invoice")
+	public Map<ContractorInvoiceRecord, ClientRecord> client(final List<ContractorInvoiceRecord> invoices)
+	{
+		final Map<Long, ClientRecord> clients = clientService.findByIds(invoices.stream().map(ContractorInvoiceRecord::clientId).distinct().toList()).stream()
+			.collect(Collectors.toMap(ClientRecord::id, Function.identity()));
+		return invoices.stream().filter(invoice -> clients.containsKey(invoice.clientId()))
+			.collect(Collectors.toMap(Function.identity(), invoice -> clients.get(invoice.clientId())));
+	}
+}
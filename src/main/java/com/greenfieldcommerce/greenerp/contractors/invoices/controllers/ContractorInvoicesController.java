@@ -15,11 +15,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.CreateContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
 import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
 import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceService;
 
@@ -44,6 +46,14 @@ public class ContractorInvoicesController
 		return contractorInvoiceService.findByContractor(contractorId, pageable);
 	}
 
+	@GetMapping("/scroll")
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_OR_OWN_CONTRACTOR)
+	public CursorPageRecord<ContractorInvoiceRecord> scrollInvoices(@PathVariable("contractorId") Long contractorId,
+		@RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "12") int size)
+	{
+		return contractorInvoiceService.scrollByContractor(contractorId, cursor, size);
+	}
+
 	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
 	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_OR_OWN_CONTRACTOR)
 	public ResponseEntity<ContractorInvoiceRecord> createInvoice(@PathVariable("contractorId") Long contractorId, @Valid @RequestBody CreateContractorInvoiceRecord record)
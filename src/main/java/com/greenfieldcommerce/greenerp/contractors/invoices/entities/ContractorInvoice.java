@@ -1,19 +1,23 @@
 package com.greenfieldcommerce.greenerp.contractors.invoices.entities;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalTime;
+import java.time.Period;
 import java.time.ZonedDateTime;
 import java.time.temporal.TemporalAdjusters;
 import java.util.Currency;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.BatchSize;
+
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
 import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
 import com.greenfieldcommerce.greenerp.exceptions.IllegalInvoiceModificationException;
+import com.greenfieldcommerce.greenerp.money.Money;
+import com.greenfieldcommerce.greenerp.money.MoneyTotal;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -23,17 +27,46 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(uniqueConstraints = @UniqueConstraint(name = "UniqueInvoiceForContractorPerMonth", columnNames = { "contractorId", "startDate", "endDate" }))
+@Table(uniqueConstraints = @UniqueConstraint(name = "UniqueInvoiceForContractorPerMonth", columnNames = { "contractorId", "startDate", "endDate" }),
+	indexes = { @Index(name = "IdxContractorInvoiceKeyset", columnList = "contractorId, startDate, id"),
+		@Index(name = "IdxContractorInvoiceClientStatus", columnList = "clientId, status, startDate") })
+@NamedEntityGraph(name = ContractorInvoice.WITH_PARTIES_GRAPH, attributeNodes = {
+	@NamedAttributeNode("rate"), @NamedAttributeNode("contractor"), @NamedAttributeNode("client"), @NamedAttributeNode("clientInvoice")
+})
+@NamedEntityGraph(name = ContractorInvoice.WITH_PARTIES_AND_LINES_GRAPH, attributeNodes = {
+	@NamedAttributeNode("rate"), @NamedAttributeNode("contractor"), @NamedAttributeNode("client"), @NamedAttributeNode("clientInvoice"), @NamedAttributeNode("extraAmountLines")
+})
 public class ContractorInvoice
 {
+	/**
+	 * Fetch plan joining every to-one association of the invoice. Meant for paginated reads, where the
+	 * extra amount lines are left to the batch fetch of the collection instead of being joined.
+	 */
+	public static final String WITH_PARTIES_GRAPH = "ContractorInvoice.withParties";
+
+	/**
+	 * Fetch plan joining every to-one association of the invoice plus its extra amount lines.
+	 * Meant for unpaginated reads that map the whole invoice into a record.
+	 */
+	public static final String WITH_PARTIES_AND_LINES_GRAPH = "ContractorInvoice.withPartiesAndLines";
+
+	/**
+	 * Longest period an invoice may cover. Lookups by date rely on it to bound the start date from below, so that
+	 * only the partitions of the last months are searched.
+	 */
+	public static final Period MAXIMUM_PERIOD = Period.ofMonths(1);
+
 	@Id
 	@GeneratedValue
 	private Long id;
@@ -55,6 +88,7 @@ public class ContractorInvoice
 	private Client client;
 
 	@OneToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE}, mappedBy = "invoice")
+	@BatchSize(size = 100)
 	private Set<InvoiceExtraAmountLine> extraAmountLines;
 
 	@Column(nullable = false)
@@ -69,6 +103,17 @@ public class ContractorInvoice
 	@Column(nullable = false)
 	private BigDecimal numberOfWorkedDays;
 
+	/**
+	 * Sum of the amounts of the extra amount lines, kept up to date by delta so the lines never need to be loaded
+	 * to compute the total.
+	 * <p>
+	 * Nullable in the schema so invoices stored before the column existed are told apart, until
+	 * {@link com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceExtraAmountsBackfill}
+	 * sums their lines into it; the updates of the totals sum the lines themselves while it is unset.
+	 */
+	@Column
+	private BigDecimal extraAmountsTotal;
+
 	@Column(nullable = false)
 	private BigDecimal total;
 
@@ -94,7 +139,8 @@ public class ContractorInvoice
 
 		this.numberOfWorkedDays = numberOfWorkedDays;
 
-		this.total = calculateTotalInvoiceAmount();
+		this.extraAmountsTotal = BigDecimal.ZERO;
+		this.total = calculateWorkedDaysAmount(numberOfWorkedDays, rate.getRate(), currency).toBigDecimal();
 	}
 
 	public static ContractorInvoice create(@NotNull ContractorRate rate, @NotNull BigDecimal numberOfWorkedDays)
@@ -111,10 +157,25 @@ public class ContractorInvoice
 		return new ContractorInvoice(rate, startDate, endDate, numberOfWorkedDays);
 	}
 
-	public BigDecimal calculateTotalInvoiceAmount()
+	/**
+	 * Amount billed for the worked days alone, as added to the extra amounts to make up the invoice total. The exact
+	 * product of the days and the rate is rounded once, to the minor units of the currency.
+	 */
+	public static Money calculateWorkedDaysAmount(final BigDecimal numberOfWorkedDays, final BigDecimal rate, final Currency currency)
 	{
-		final BigDecimal extraAmount = this.getExtraAmountLines().stream().map(InvoiceExtraAmountLine::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-		return this.numberOfWorkedDays.multiply(this.rate.getRate()).add(extraAmount).setScale(2, RoundingMode.HALF_UP);
+		return Money.of(numberOfWorkedDays.multiply(rate), currency);
+	}
+
+	/**
+	 * Recomputes the total from scratch, walking every extra amount line. The stored total is maintained by delta
+	 * instead, so this is only meant to check it.
+	 */
+	public Money calculateTotalInvoiceAmount()
+	{
+		final MoneyTotal total = new MoneyTotal(currency).add(calculateWorkedDaysAmount(this.numberOfWorkedDays, this.rate.getRate(), currency));
+		for (final InvoiceExtraAmountLine line : this.getExtraAmountLines())
+			total.add(line.getAmount());
+		return total.toMoney();
 	}
 
 	public Long getId()
@@ -147,6 +208,11 @@ public class ContractorInvoice
 		return total;
 	}
 
+	public BigDecimal getExtraAmountsTotal()
+	{
+		return extraAmountsTotal;
+	}
+
 	public Currency getCurrency()
 	{
 		return currency;
@@ -157,18 +223,9 @@ public class ContractorInvoice
 		return rate;
 	}
 
-	public void setNumberOfWorkedDays(final BigDecimal numberOfWorkedDays)
+	public void checkNumberOfWorkedDaysCanChange()
 	{
 		if (!isOpen()) throw new IllegalInvoiceModificationException("NOT_OPEN_INVOICE_MODIFICATION", "Cannot change number of worked days after invoice has been billed");
-
-		this.numberOfWorkedDays = numberOfWorkedDays;
-		this.total = calculateTotalInvoiceAmount();
-	}
-
-	public void addExtraAmountLine(final InvoiceExtraAmountLine extraAmountLine)
-	{
-		this.extraAmountLines.add(extraAmountLine);
-		this.total = calculateTotalInvoiceAmount();
 	}
 
 	public boolean isOpen()
@@ -201,6 +258,11 @@ public class ContractorInvoice
 		return client;
 	}
 
+	public ClientInvoice getClientInvoice()
+	{
+		return clientInvoice;
+	}
+
 	public enum InvoiceStatus
 	{
 		OPEN, BILLED, CLOSED
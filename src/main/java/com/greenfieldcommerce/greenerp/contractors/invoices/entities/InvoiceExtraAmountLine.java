@@ -3,7 +3,9 @@ package com.greenfieldcommerce.greenerp.contractors.invoices.entities;
 import java.math.BigDecimal;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
@@ -16,8 +18,13 @@ public class InvoiceExtraAmountLine
 	@GeneratedValue
 	private Long id;
 
+	/**
+	 * Not backed by a foreign key: once {@code contractor_invoice} is partitioned, it has no unique key on its id alone
+	 * for one to reference, and the schema update would fail to add it back on every start. Lines are only created
+	 * while the totals of their invoice are updated in the same transaction, and removed along with the invoice.
+	 */
 	@ManyToOne
-	@JoinColumn(name = "contractorInvoiceId", nullable = false)
+	@JoinColumn(name = "contractorInvoiceId", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
 	private ContractorInvoice invoice;
 
 	@Column(nullable = false)
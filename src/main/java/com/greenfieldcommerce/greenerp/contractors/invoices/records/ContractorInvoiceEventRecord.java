@@ -0,0 +1,17 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.records;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * A change to a contractor invoice, carrying the invoice as it stands after the change, and the client invoice
+ * billing it once it is billed.
+ */
+public record ContractorInvoiceEventRecord(Type type, ContractorInvoiceRecord invoice, @Nullable Long clientInvoiceId)
+{
+	public enum Type
+	{
+		CREATED,
+		PATCHED,
+		BILLED
+	}
+}
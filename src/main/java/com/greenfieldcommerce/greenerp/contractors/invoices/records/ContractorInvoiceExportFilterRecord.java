@@ -0,0 +1,11 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.records;
+
+import java.time.ZonedDateTime;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+
+/**
+ * Selects the contractor invoices to export. Invoices are matched on their start date, {@code from} inclusive and
+ * {@code to} exclusive; every {@code null} criterion matches all invoices.
+ */
+public record ContractorInvoiceExportFilterRecord(ZonedDateTime from, ZonedDateTime to, ContractorInvoice.InvoiceStatus status, Long clientId) { }
@@ -0,0 +1,11 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.records;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+
+/**
+ * A flat row of a contractor invoice export, read straight from the database without loading any entity.
+ */
+public record ContractorInvoiceExportRecord(Long invoiceId, Long contractorId, String contractorName, Long clientId, String clientName, ZonedDateTime startDate,
+	ZonedDateTime endDate, BigDecimal numberOfWorkedDays, BigDecimal extraAmountsTotal, BigDecimal total, Currency currency, String status) { }
@@ -0,0 +1,14 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.records;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * What the margin of a contractor invoice is computed from: its worked days and extra amounts, and the external and
+ * gross rates of the contractor rate it was created with. {@code clientInvoiceId} is {@code null} until it is billed.
+ */
+public record InvoiceMarginRecord(Long clientId, Long contractorId, ZonedDateTime startDate, Currency currency, BigDecimal numberOfWorkedDays,
+	BigDecimal extraAmountsTotal, BigDecimal externalRate, BigDecimal grossRate, @Nullable Long clientInvoiceId) { }
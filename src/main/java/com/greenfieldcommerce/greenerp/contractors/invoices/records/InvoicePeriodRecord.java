@@ -0,0 +1,5 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.records;
+
+import java.time.ZonedDateTime;
+
+public record InvoicePeriodRecord(Long contractorId, ZonedDateTime startDate) { }
@@ -0,0 +1,5 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.records;
+
+import java.math.BigDecimal;
+
+public record InvoiceTotalDriftRecord(Long invoiceId, BigDecimal storedExtraAmountsTotal, BigDecimal storedTotal, BigDecimal expectedExtraAmountsTotal, BigDecimal expectedTotal) { }
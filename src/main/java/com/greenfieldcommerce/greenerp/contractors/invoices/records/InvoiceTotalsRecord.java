@@ -0,0 +1,10 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.records;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * The stored totals of a contractor invoice, along with what they are computed from. {@code linesTotal} is the sum
+ * of the extra amount lines as read from the lines themselves, {@code null} when the invoice has none.
+ */
+public record InvoiceTotalsRecord(Long invoiceId, BigDecimal numberOfWorkedDays, BigDecimal rate, Currency currency, BigDecimal extraAmountsTotal, BigDecimal total, BigDecimal linesTotal) { }
@@ -0,0 +1,115 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportFilterRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportRecord;
+
+/**
+ * Reads contractor invoices for exports through a forward-only JDBC cursor.
+ * <p>
+ * Rows are fetched from the database {@code fetchSize} at a time and handed over one by one, without building any
+ * entity or collecting them in memory, so the heap used by an export does not grow with the number of invoices. On
+ * PostgreSQL the driver only honours the fetch size when auto-commit is off: callers must run inside a transaction,
+ * whose connection is shared with the persistence context.
+ * <p>
+ * Archived invoices are exported along with the others, through a {@code UNION ALL} branch over
+ * {@code archived_contractor_invoice} in the same query. That branch is left out for statuses other than
+ * {@code CLOSED}, and guarded by an uncorrelated {@code EXISTS} over the {@code archived_through} bounds of the
+ * contractors, which the database evaluates once: the archive is not scanned unless it holds invoices starting
+ * after {@code from}.
+ */
+@Repository
+public class ContractorInvoiceExportRepository
+{
+	private static final String EXPORT_QUERY = "SELECT i.id, i.contractor_id, c.name AS contractor_name, i.client_id, cl.name AS client_name, i.start_date, i.end_date, "
+		+ "i.number_of_worked_days, i.extra_amounts_total, i.total, i.currency, i.status "
+		+ "FROM contractor_invoice i JOIN contractor c ON c.id = i.contractor_id LEFT JOIN client cl ON cl.id = i.client_id";
+
+	private static final String ARCHIVE_EXPORT_QUERY = "SELECT i.id, i.contractor_id, c.name AS contractor_name, i.client_id, cl.name AS client_name, i.start_date, i.end_date, "
+		+ "i.number_of_worked_days, i.extra_amounts_total, i.total, i.currency, " + ContractorInvoice.InvoiceStatus.CLOSED.ordinal() + " AS status "
+		+ "FROM archived_contractor_invoice i JOIN contractor c ON c.id = i.contractor_id LEFT JOIN client cl ON cl.id = i.client_id";
+
+	private static final ContractorInvoice.InvoiceStatus[] STATUSES = ContractorInvoice.InvoiceStatus.values();
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public ContractorInvoiceExportRepository(final DataSource dataSource, @Value("${greenerp.export.contractor-invoices.fetch-size:500}") final int fetchSize)
+	{
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(fetchSize);
+	}
+
+	/**
+	 * Streams every contractor invoice matching the filter, archived ones included, in ascending id order. The stream
+	 * holds the cursor open and must be closed.
+	 *
+	 * @param filter the criteria the invoices must match
+	 * @return the invoices, each read as it is pulled from the stream
+	 */
+	public Stream<ContractorInvoiceExportRecord> streamMatching(final ContractorInvoiceExportFilterRecord filter)
+	{
+		final List<Object> parameters = new ArrayList<>();
+		final StringBuilder sql = where(new StringBuilder(EXPORT_QUERY).append(" WHERE 1 = 1"), filter, true, parameters);
+		if (filter.status() == null || filter.status() == ContractorInvoice.InvoiceStatus.CLOSED)
+		{
+			sql.append(" UNION ALL ").append(ARCHIVE_EXPORT_QUERY).append(" WHERE EXISTS (SELECT 1 FROM contractor WHERE archived_through IS NOT NULL");
+			if (filter.from() != null)
+			{
+				sql.append(" AND archived_through > ?");
+				parameters.add(filter.from().toOffsetDateTime());
+			}
+			where(sql.append(")"), filter, false, parameters);
+		}
+		sql.append(" ORDER BY id");
+
+		return jdbcTemplate.queryForStream(sql.toString(), (resultSet, rowNum) -> toRecord(resultSet), parameters.toArray());
+	}
+
+	private static StringBuilder where(final StringBuilder sql, final ContractorInvoiceExportFilterRecord filter, final boolean byStatus, final List<Object> parameters)
+	{
+		if (filter.from() != null)
+		{
+			sql.append(" AND i.start_date >= ?");
+			parameters.add(filter.from().toOffsetDateTime());
+		}
+		if (filter.to() != null)
+		{
+			sql.append(" AND i.start_date < ?");
+			parameters.add(filter.to().toOffsetDateTime());
+		}
+		if (byStatus && filter.status() != null)
+		{
+			sql.append(" AND i.status = ?");
+			parameters.add(filter.status().ordinal());
+		}
+		if (filter.clientId() != null)
+		{
+			sql.append(" AND i.client_id = ?");
+			parameters.add(filter.clientId());
+		}
+		return sql;
+	}
+
+	private static ContractorInvoiceExportRecord toRecord(final ResultSet resultSet) throws SQLException
+	{
+		return new ContractorInvoiceExportRecord(resultSet.getLong("id"), resultSet.getLong("contractor_id"), resultSet.getString("contractor_name"),
+			resultSet.getObject("client_id", Long.class), resultSet.getString("client_name"),
+			resultSet.getObject("start_date", OffsetDateTime.class).toZonedDateTime(), resultSet.getObject("end_date", OffsetDateTime.class).toZonedDateTime(),
+			resultSet.getBigDecimal("number_of_worked_days"), resultSet.getBigDecimal("extra_amounts_total"), resultSet.getBigDecimal("total"),
+			Currency.getInstance(resultSet.getString("currency")), STATUSES[resultSet.getInt("status")].name());
+	}
+}
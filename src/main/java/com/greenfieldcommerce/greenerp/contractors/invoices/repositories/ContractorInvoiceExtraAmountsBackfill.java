@@ -0,0 +1,41 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Sets the extra amounts total of the invoices stored before the column existed, which the schema update leaves
+ * empty, to the sum of their extra amount lines.
+ * <p>
+ * Runs once Hibernate has updated the schema, before the application serves requests, so no manual repair is
+ * needed after upgrading. Once every invoice has a total, it only looks for empty ones.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ContractorInvoiceExtraAmountsBackfill
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContractorInvoiceExtraAmountsBackfill.class);
+
+	private final ContractorInvoiceRepository contractorInvoiceRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	public ContractorInvoiceExtraAmountsBackfill(final ContractorInvoiceRepository contractorInvoiceRepository, final PlatformTransactionManager transactionManager)
+	{
+		this.contractorInvoiceRepository = contractorInvoiceRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@PostConstruct
+	public void backfill()
+	{
+		final Integer backfilled = transactionTemplate.execute(status -> contractorInvoiceRepository.backfillExtraAmountsTotals());
+		if (backfilled != null && backfilled > 0)
+			LOGGER.info("Set the extra amounts total of {} contractor invoices from their extra amount lines", backfilled);
+	}
+}
@@ -0,0 +1,20 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import java.util.Optional;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+
+/**
+ * Inserts contractor invoices relying on the {@code UniqueInvoiceForContractorPerMonth} constraint, instead of
+ * looking for an existing invoice first.
+ */
+public interface ContractorInvoiceInsertRepository
+{
+	/**
+	 * Inserts a new invoice with a single statement, unless the contractor already has one for the same period.
+	 *
+	 * @param invoice the transient invoice to insert
+	 * @return the inserted invoice, with its ID assigned, or an empty {@code Optional} if the period is already invoiced
+	 */
+	Optional<ContractorInvoice> insertIfAbsent(ContractorInvoice invoice);
+}
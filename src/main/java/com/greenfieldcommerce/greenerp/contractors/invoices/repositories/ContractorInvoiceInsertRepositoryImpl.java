@@ -0,0 +1,90 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.persister.entity.EntityPersister;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+
+/**
+ * Native implementation of {@link ContractorInvoiceInsertRepository}.
+ * <p>
+ * The ID is drawn from the generator Hibernate uses for the entity, so it never clashes with invoices persisted
+ * through the {@code EntityManager}. On PostgreSQL, a conflicting period is skipped with {@code ON CONFLICT DO NOTHING},
+ * leaving the transaction usable. Other databases, such as the H2 database used by the tests, run a plain insert
+ * whose unique constraint violation marks the transaction for rollback.
+ */
+class ContractorInvoiceInsertRepositoryImpl implements ContractorInvoiceInsertRepository
+{
+	static final String UNIQUE_CONSTRAINT_NAME = "UniqueInvoiceForContractorPerMonth";
+	private static final String INSERT = "INSERT INTO contractor_invoice "
+		+ "(id, rate_id, contractor_id, client_id, currency, start_date, end_date, number_of_worked_days, extra_amounts_total, total, status) "
+		+ "VALUES (:id, :rateId, :contractorId, :clientId, :currency, :startDate, :endDate, :numberOfWorkedDays, :extraAmountsTotal, :total, :status)";
+	private static final String INSERT_ON_CONFLICT_DO_NOTHING = INSERT + " ON CONFLICT (contractor_id, start_date, end_date) DO NOTHING RETURNING id";
+
+	private final EntityManager entityManager;
+
+	ContractorInvoiceInsertRepositoryImpl(final EntityManager entityManager)
+	{
+		this.entityManager = entityManager;
+	}
+
+	@Override
+	public Optional<ContractorInvoice> insertIfAbsent(final ContractorInvoice invoice)
+	{
+		final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+		final EntityPersister persister = session.getEntityPersister(null, invoice);
+		final Object id = ((BeforeExecutionGenerator) persister.getGenerator()).generate(session, invoice, null, EventType.INSERT);
+
+		final boolean inserted = session.getJdbcServices().getDialect() instanceof PostgreSQLDialect
+			? !bind(entityManager.createNativeQuery(INSERT_ON_CONFLICT_DO_NOTHING), id, invoice).getResultList().isEmpty()
+			: insertOrDetectConflict(bind(entityManager.createNativeQuery(INSERT), id, invoice));
+		if (!inserted)
+			return Optional.empty();
+
+		persister.setIdentifier(invoice, id, session);
+		return Optional.of(invoice);
+	}
+
+	private static boolean insertOrDetectConflict(final Query insert)
+	{
+		try
+		{
+			return insert.executeUpdate() == 1;
+		} catch (PersistenceException e)
+		{
+			for (Throwable cause = e; cause != null; cause = cause.getCause())
+			{
+				if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+					&& violation.getConstraintName().toUpperCase(Locale.ROOT).contains(UNIQUE_CONSTRAINT_NAME.toUpperCase(Locale.ROOT)))
+					return false;
+			}
+			throw e;
+		}
+	}
+
+	private static Query bind(final Query insert, final Object id, final ContractorInvoice invoice)
+	{
+		return insert.setParameter("id", id)
+			.setParameter("rateId", invoice.getRate().getId())
+			.setParameter("contractorId", invoice.getContractor().getId())
+			.setParameter("clientId", invoice.getClient().getId())
+			.setParameter("currency", invoice.getCurrency().getCurrencyCode())
+			.setParameter("startDate", invoice.getStartDate())
+			.setParameter("endDate", invoice.getEndDate())
+			.setParameter("numberOfWorkedDays", invoice.getNumberOfWorkedDays())
+			.setParameter("extraAmountsTotal", invoice.getExtraAmountsTotal())
+			.setParameter("total", invoice.getTotal())
+			.setParameter("status", invoice.getStatus().ordinal());
+	}
+}
@@ -0,0 +1,217 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Partitions {@code contractor_invoice} by month of {@code start_date}, so that lookups bounded by date only search
+ * the partitions of the months they cover, and the indexes of the current month stay as small as the month itself.
+ * <p>
+ * Partitioning is opted into with {@code greenerp.contractor-invoices.partitioning.enabled}, off by default, and only
+ * applies to PostgreSQL. The plain {@code contractor_invoice} created by Hibernate is never converted on its own: the
+ * conversion rewrites the whole table under an exclusive lock, so it is run on purpose, by
+ * {@link com.greenfieldcommerce.greenerp.contractors.invoices.batch.ContractorInvoicePartitioningJobConfig the
+ * partitioning job}, during a maintenance window. It replaces the table by one partitioned by range, with one
+ * partition per month from the first invoiced month, and a default partition for anything outside them. Rows are
+ * copied over, and the primary key, which must include the partition key, becomes {@code (id, start_date)}.
+ * <p>
+ * Once the table is partitioned, the partitions of the next
+ * {@code greenerp.contractor-invoices.partitioning.months-ahead} months are created every day, ahead of the invoices
+ * stored in them.
+ * <p>
+ * Month boundaries are taken in the time zone of the JVM, the one invoice periods start in.
+ */
+@Component
+public class ContractorInvoicePartitions
+{
+	static final String TABLE = "contractor_invoice";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContractorInvoicePartitions.class);
+	private static final String UNPARTITIONED_TABLE = TABLE + "_unpartitioned";
+	private static final String POSTGRESQL = "PostgreSQL";
+	private static final String DEFAULT_PARTITION = TABLE + "_default";
+	private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final boolean enabled;
+	private final int monthsAhead;
+
+	public ContractorInvoicePartitions(final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate,
+		@Value("${greenerp.contractor-invoices.partitioning.enabled:false}") final boolean enabled,
+		@Value("${greenerp.contractor-invoices.partitioning.months-ahead:3}") final int monthsAhead)
+	{
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.enabled = enabled;
+		this.monthsAhead = monthsAhead;
+	}
+
+	/**
+	 * Partitions the table, unless it already is, and creates the partitions of the coming months.
+	 * <p>
+	 * The whole conversion runs in a single transaction holding an exclusive lock on the table, so it either
+	 * completes or leaves the plain table as it was. Whether the table is already partitioned is checked once the
+	 * lock is held, so that concurrent conversions run one after the other, the later ones finding nothing to do.
+	 * <p>
+	 * Foreign keys referencing the table cannot survive the conversion, as no unique key of a partitioned table can be
+	 * made of the id alone. The conversion is refused while there are any, unless {@code dropForeignKeys} is set, in
+	 * which case each of them is dropped, and logged, before the table is replaced. Any other object depending on the
+	 * table, such as a view, makes the conversion fail.
+	 *
+	 * @param dropForeignKeys whether to drop the foreign keys referencing the table
+	 * @return the number of invoices moved to the partitioned table, {@code 0} if it already was partitioned
+	 * @throws IllegalStateException if partitioning is disabled, the database is not PostgreSQL, or foreign keys
+	 *                               reference the table and {@code dropForeignKeys} is not set
+	 */
+	public int partition(final boolean dropForeignKeys)
+	{
+		if (!enabled)
+			throw new IllegalStateException("Partitioning of " + TABLE + " is disabled, set greenerp.contractor-invoices.partitioning.enabled to true first");
+		final String product = databaseProductName();
+		if (!POSTGRESQL.equals(product))
+			throw new IllegalStateException(TABLE + " can only be partitioned on PostgreSQL, not on " + product);
+
+		final Integer moved = transactionTemplate.execute(status -> {
+			jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+			if (isPartitioned())
+			{
+				LOGGER.info("{} is already partitioned", TABLE);
+				return 0;
+			}
+			dropInboundForeignKeys(dropForeignKeys);
+			return convert();
+		});
+		createUpcomingPartitions();
+		return moved == null ? 0 : moved;
+	}
+
+	/**
+	 * Creates the partitions of the current month and of the next ones, unless they already exist. A partition that
+	 * cannot be created, because the default partition already holds rows of its month, is reported and skipped;
+	 * those rows stay in the default partition.
+	 */
+	@Scheduled(cron = "${greenerp.contractor-invoices.partitioning.schedule:0 0 3 * * *}")
+	public void createUpcomingPartitions()
+	{
+		if (!enabled || !POSTGRESQL.equals(databaseProductName()) || !isPartitioned())
+			return;
+
+		final YearMonth current = YearMonth.now();
+		for (int month = 0; month <= monthsAhead; month++)
+		{
+			try
+			{
+				jdbcTemplate.execute(partitionDefinition(current.plusMonths(month), ZoneId.systemDefault()));
+			} catch (DataAccessException e)
+			{
+				LOGGER.warn("Could not create the {} partition of {}", current.plusMonths(month), TABLE, e);
+			}
+		}
+	}
+
+	private String databaseProductName()
+	{
+		return jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+	}
+
+	private boolean isPartitioned()
+	{
+		final Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass(?)", Integer.class, TABLE);
+		return count != null && count > 0;
+	}
+
+	/**
+	 * Drops the foreign keys of other tables referencing the plain table, one by one, if allowed to, or refuses to go
+	 * on while there are any.
+	 */
+	private void dropInboundForeignKeys(final boolean dropForeignKeys)
+	{
+		final List<Map<String, Object>> inboundKeys = jdbcTemplate.queryForList(
+			"SELECT conrelid::regclass::text AS referencing, conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint WHERE confrelid = to_regclass(?) AND contype = 'f'",
+			TABLE);
+		if (inboundKeys.isEmpty())
+			return;
+		if (!dropForeignKeys)
+			throw new IllegalStateException(String.format("Foreign keys reference %s and would not survive its partitioning: %s. Run the partitioning again allowing them to be dropped",
+				TABLE, inboundKeys.stream().map(key -> key.get("referencing") + "." + key.get("conname")).toList()));
+
+		for (final Map<String, Object> key : inboundKeys)
+		{
+			LOGGER.warn("Dropping foreign key {} of {} ({}) to partition {}", key.get("conname"), key.get("referencing"), key.get("definition"), TABLE);
+			jdbcTemplate.execute("ALTER TABLE " + key.get("referencing") + " DROP CONSTRAINT \"" + key.get("conname") + "\"");
+		}
+	}
+
+	/**
+	 * Moves the rows of the plain table into a partitioned one of the same shape, with a partition for every month from
+	 * the first invoiced one to the last one, or to the last month created ahead. The constraints and indexes of the
+	 * plain table are recreated on the partitioned one once it is dropped, so that they keep their names. The plain
+	 * table is dropped without cascading, so that nothing depending on it goes away unnoticed.
+	 */
+	private int convert()
+	{
+		LOGGER.info("Partitioning {} by month of start date", TABLE);
+		final List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList(
+			"SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'f'", TABLE);
+		final List<String> indexes = jdbcTemplate.queryForList(
+			"SELECT pg_get_indexdef(i.indexrelid) FROM pg_index i WHERE i.indrelid = to_regclass(?) AND NOT i.indisunique", String.class, TABLE);
+		final List<YearMonth> bounds = jdbcTemplate.query("SELECT MIN(start_date), MAX(start_date) FROM " + TABLE,
+			(resultSet, row) -> List.of(monthOf(resultSet.getObject(1, OffsetDateTime.class)), monthOf(resultSet.getObject(2, OffsetDateTime.class)))).getFirst();
+		final YearMonth last = bounds.get(1).isAfter(YearMonth.now().plusMonths(monthsAhead)) ? bounds.get(1) : YearMonth.now().plusMonths(monthsAhead);
+
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + UNPARTITIONED_TABLE);
+		jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + UNPARTITIONED_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (start_date)");
+		jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+		for (YearMonth month = bounds.getFirst(); !month.isAfter(last); month = month.plusMonths(1))
+			jdbcTemplate.execute(partitionDefinition(month, ZoneId.systemDefault()));
+
+		final int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + UNPARTITIONED_TABLE);
+		jdbcTemplate.execute("DROP TABLE " + UNPARTITIONED_TABLE);
+
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (id, start_date)");
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + ContractorInvoiceInsertRepositoryImpl.UNIQUE_CONSTRAINT_NAME + " UNIQUE (contractor_id, start_date, end_date)");
+		for (final Map<String, Object> foreignKey : foreignKeys)
+			jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + foreignKey.get("conname") + " " + foreignKey.get("definition"));
+		for (final String index : indexes)
+			jdbcTemplate.execute(index.replace(UNPARTITIONED_TABLE, TABLE));
+		LOGGER.info("Partitioned {}, moved {} invoices", TABLE, moved);
+		return moved;
+	}
+
+	private static YearMonth monthOf(final OffsetDateTime startDate)
+	{
+		return startDate == null ? YearMonth.now() : YearMonth.from(startDate.atZoneSameInstant(ZoneId.systemDefault()));
+	}
+
+	/**
+	 * Builds the statement creating the partition of a month, covering its start dates from the first day of the
+	 * month, inclusive, to the first day of the next one, exclusive.
+	 */
+	static String partitionDefinition(final YearMonth month, final ZoneId zone)
+	{
+		final OffsetDateTime from = month.atDay(1).atStartOfDay(zone).toOffsetDateTime();
+		final OffsetDateTime to = month.plusMonths(1).atDay(1).atStartOfDay(zone).toOffsetDateTime();
+		return String.format(Locale.ROOT, "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')", partitionName(month), TABLE, from, to);
+	}
+
+	static String partitionName(final YearMonth month)
+	{
+		return TABLE + "_" + month.format(PARTITION_SUFFIX);
+	}
+}
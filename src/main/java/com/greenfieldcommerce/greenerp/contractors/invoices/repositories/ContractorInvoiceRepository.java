@@ -1,24 +1,135 @@
 package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
 
+import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
 import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceMarginRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoicePeriodRecord;
 
-public interface ContractorInvoiceRepository extends ListCrudRepository<ContractorInvoice, Long>
+public interface ContractorInvoiceRepository extends ListCrudRepository<ContractorInvoice, Long>, ContractorInvoiceInsertRepository
 {
-	@Query("SELECT i FROM #{#entityName} i WHERE i.contractor = :contractor and i.startDate <= :date AND i.endDate >= :date")
-	Optional<ContractorInvoice> findContractorInvoiceForADate(Contractor contractor, ZonedDateTime date);
+	default Optional<ContractorInvoice> findContractorInvoiceForADate(Contractor contractor, ZonedDateTime date)
+	{
+		return findContractorInvoiceForADate(contractor, date, date.minus(ContractorInvoice.MAXIMUM_PERIOD));
+	}
+
+	default boolean existsContractorInvoiceForADate(Contractor contractor, ZonedDateTime date)
+	{
+		return existsContractorInvoiceForADate(contractor, date, date.minus(ContractorInvoice.MAXIMUM_PERIOD));
+	}
+
+	/**
+	 * As no invoice covers more than {@link ContractorInvoice#MAXIMUM_PERIOD}, an invoice covering {@code date} starts
+	 * on or after {@code earliestStartDate}; bounding the start date on both ends lets the partitions of older months
+	 * be pruned.
+	 */
+	@Query("SELECT i FROM #{#entityName} i WHERE i.contractor = :contractor AND i.startDate >= :earliestStartDate AND i.startDate <= :date AND i.endDate >= :date")
+	Optional<ContractorInvoice> findContractorInvoiceForADate(Contractor contractor, ZonedDateTime date, ZonedDateTime earliestStartDate);
+
+	@Query("SELECT COUNT(i) > 0 FROM #{#entityName} i WHERE i.contractor = :contractor AND i.startDate >= :earliestStartDate AND i.startDate <= :date AND i.endDate >= :date")
+	boolean existsContractorInvoiceForADate(Contractor contractor, ZonedDateTime date, ZonedDateTime earliestStartDate);
+
+	@EntityGraph(ContractorInvoice.WITH_PARTIES_GRAPH)
 	Page<ContractorInvoice> findByContractor(Contractor contractor, Pageable pageable);
+
+	@EntityGraph(ContractorInvoice.WITH_PARTIES_GRAPH)
+	Window<ContractorInvoice> findByContractorOrderByStartDateDescIdDesc(Contractor contractor, ScrollPosition position, Limit limit);
+
+	@EntityGraph(ContractorInvoice.WITH_PARTIES_AND_LINES_GRAPH)
 	Optional<ContractorInvoice> findByContractorAndId(Contractor contractor, Long id);
+
+	@EntityGraph(ContractorInvoice.WITH_PARTIES_GRAPH)
+	Optional<ContractorInvoice> findHeaderByContractorAndId(Contractor contractor, Long id);
+
+	@EntityGraph(ContractorInvoice.WITH_PARTIES_AND_LINES_GRAPH)
 	List<ContractorInvoice> findByClientAndStartDateBeforeAndStatus(Client client, ZonedDateTime startDate, ContractorInvoice.InvoiceStatus status);
 
+	@EntityGraph(ContractorInvoice.WITH_PARTIES_AND_LINES_GRAPH)
+	List<ContractorInvoice> findByIdIn(Collection<Long> ids);
+
+	@EntityGraph(ContractorInvoice.WITH_PARTIES_AND_LINES_GRAPH)
+	@Query("SELECT i FROM #{#entityName} i WHERE i.contractor.id IN :contractorIds "
+		+ "AND i.startDate = (SELECT MAX(l.startDate) FROM #{#entityName} l WHERE l.contractor = i.contractor)")
+	List<ContractorInvoice> findLatestByContractorIdIn(Collection<Long> contractorIds);
+
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE #{#entityName} i SET i.clientInvoice = :clientInvoice WHERE i.id IN :ids")
+	int assignClientInvoice(ClientInvoice clientInvoice, Collection<Long> ids);
+
+	/**
+	 * Adds the change of an extra amount line to the totals of its invoice, the line having been saved already. An
+	 * invoice whose extra amounts total was never set gets the sum of its lines instead.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE #{#entityName} i SET i.extraAmountsTotal = COALESCE(i.extraAmountsTotal + :delta, (SELECT COALESCE(SUM(l.amount), 0) FROM InvoiceExtraAmountLine l WHERE l.invoice.id = i.id)), "
+		+ "i.total = i.total + :delta WHERE i.id = :id")
+	int addToExtraAmountsTotal(Long id, BigDecimal delta);
+
+	/**
+	 * Sets the worked days of an invoice and recomputes its total, from the sum of its lines when its extra amounts
+	 * total was never set.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE #{#entityName} i SET i.numberOfWorkedDays = :numberOfWorkedDays, "
+		+ "i.extraAmountsTotal = COALESCE(i.extraAmountsTotal, (SELECT COALESCE(SUM(l.amount), 0) FROM InvoiceExtraAmountLine l WHERE l.invoice.id = i.id)), "
+		+ "i.total = :workedDaysAmount + COALESCE(i.extraAmountsTotal, (SELECT COALESCE(SUM(l.amount), 0) FROM InvoiceExtraAmountLine l WHERE l.invoice.id = i.id)) WHERE i.id = :id")
+	int updateNumberOfWorkedDays(Long id, BigDecimal numberOfWorkedDays, BigDecimal workedDaysAmount);
+
+	@Modifying
+	@Query("UPDATE #{#entityName} i SET i.extraAmountsTotal = (SELECT COALESCE(SUM(l.amount), 0) FROM InvoiceExtraAmountLine l WHERE l.invoice.id = i.id) WHERE i.extraAmountsTotal IS NULL")
+	int backfillExtraAmountsTotals();
+
+	/**
+	 * Corrects the totals of an invoice, if they are still the stored ones, a {@code NULL} extra amounts total left by
+	 * an older instance included.
+	 *
+	 * @return the number of invoices corrected, {@code 0} if the stored totals changed in the meantime
+	 */
+	@Modifying
+	@Query("UPDATE #{#entityName} i SET i.extraAmountsTotal = :extraAmountsTotal, i.total = :total WHERE i.id = :id "
+		+ "AND (i.extraAmountsTotal = :storedExtraAmountsTotal OR (i.extraAmountsTotal IS NULL AND :storedExtraAmountsTotal IS NULL)) AND i.total = :storedTotal")
+	int correctTotals(Long id, BigDecimal storedExtraAmountsTotal, BigDecimal storedTotal, BigDecimal extraAmountsTotal, BigDecimal total);
+
+	@Query("SELECT new com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceMarginRecord(r.client.id, i.contractor.id, i.startDate, i.currency, "
+		+ "i.numberOfWorkedDays, i.extraAmountsTotal, r.externalRate, r.grossRate, i.clientInvoice.id) "
+		+ "FROM #{#entityName} i JOIN i.rate r WHERE i.contractor.id IN :contractorIds AND i.startDate >= :from AND i.startDate < :to")
+	List<InvoiceMarginRecord> findMarginsByContractorIdInAndStartDateBetween(Collection<Long> contractorIds, ZonedDateTime from, ZonedDateTime to);
+
+	@Query("SELECT new com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceMarginRecord(r.client.id, i.contractor.id, i.startDate, i.currency, "
+		+ "i.numberOfWorkedDays, i.extraAmountsTotal, r.externalRate, r.grossRate, i.clientInvoice.id) "
+		+ "FROM #{#entityName} i JOIN i.rate r")
+	List<InvoiceMarginRecord> findAllMargins();
+
+	/**
+	 * Reads the next invoices in {@code status} starting before {@code startDate}, by id, for the archive to move.
+	 * Extra amount lines are left to the batch fetch of the collection, as joining them would page in memory.
+	 */
+	@EntityGraph(ContractorInvoice.WITH_PARTIES_GRAPH)
+	List<ContractorInvoice> findByStatusAndStartDateBeforeAndIdGreaterThanOrderById(ContractorInvoice.InvoiceStatus status, ZonedDateTime startDate, Long id, Limit limit);
+
+	@Query("SELECT new com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoicePeriodRecord(i.contractor.id, i.startDate) "
+		+ "FROM #{#entityName} i WHERE i.contractor.id IN :contractorIds AND i.startDate >= :from AND i.startDate < :to AND i.status <> :status")
+	List<InvoicePeriodRecord> findPeriodsByContractorIdInAndStartDateBetweenAndStatusNot(Collection<Long> contractorIds, ZonedDateTime from, ZonedDateTime to,
+		ContractorInvoice.InvoiceStatus status);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("DELETE FROM #{#entityName} i WHERE i.id IN :ids")
+	int deleteByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,24 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.InvoiceExtraAmountLine;
+
+import jakarta.persistence.LockModeType;
+
+public interface InvoiceExtraAmountLineRepository extends ListCrudRepository<InvoiceExtraAmountLine, Long>
+{
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<InvoiceExtraAmountLine> findByIdAndInvoice(Long id, ContractorInvoice invoice);
+
+	@Modifying(flushAutomatically = true)
+	@Query("DELETE FROM #{#entityName} l WHERE l.invoice.id IN :invoiceIds")
+	int deleteByInvoiceIdIn(Collection<Long> invoiceIds);
+}
@@ -0,0 +1,35 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.services;
+
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceEventRecord;
+
+/**
+ * Feeds the invoice event streams opened on this instance from the
+ * {@value ContractorInvoiceMessagingServiceImpl#CONTRACTOR_INVOICE_EVENTS_EXCHANGE} exchange.
+ * <p>
+ * Every instance binds its own exclusive, auto-deleted queue to the exchange, so every instance receives every event
+ * whichever instance made the change, and no events pile up for instances that are gone.
+ */
+@Component
+public class ContractorInvoiceEventListener
+{
+	private final ContractorInvoiceEventService contractorInvoiceEventService;
+
+	public ContractorInvoiceEventListener(final ContractorInvoiceEventService contractorInvoiceEventService)
+	{
+		this.contractorInvoiceEventService = contractorInvoiceEventService;
+	}
+
+	@RabbitListener(bindings = @QueueBinding(value = @Queue(exclusive = "true", autoDelete = "true"),
+		exchange = @Exchange(value = ContractorInvoiceMessagingServiceImpl.CONTRACTOR_INVOICE_EVENTS_EXCHANGE, type = ExchangeTypes.TOPIC), key = "#"))
+	public void onEvent(final ContractorInvoiceEventRecord event)
+	{
+		contractorInvoiceEventService.publish(event);
+	}
+}
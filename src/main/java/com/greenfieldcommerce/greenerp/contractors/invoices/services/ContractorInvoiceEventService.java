@@ -0,0 +1,12 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.services;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceEventRecord;
+
+public interface ContractorInvoiceEventService
+{
+	SseEmitter subscribeToContractor(Long contractorId);
+	SseEmitter subscribeToClient(Long clientId);
+	void publish(ContractorInvoiceEventRecord event);
+}
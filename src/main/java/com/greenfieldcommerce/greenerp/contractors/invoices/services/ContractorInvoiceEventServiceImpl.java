@@ -0,0 +1,149 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.greenfieldcommerce.greenerp.clients.services.ClientService;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceEventRecord;
+import com.greenfieldcommerce.greenerp.contractors.services.ContractorService;
+import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Implementation of {@link ContractorInvoiceEventService} keeping the invoice event streams opened on this instance.
+ * <p>
+ * Streams are held by contractor and by client, and each event is only sent to the streams of the contractor and
+ * the client of its invoice. A stream is dropped as soon as it completes, times out after
+ * {@code greenerp.invoice-events.timeout} or cannot be written to, so the browser reconnects. A comment is sent to
+ * every stream every {@code greenerp.invoice-events.heartbeat} so that proxies do not close idle streams.
+ * <p>
+ * The number of open streams is published in the {@value #STREAMS_METRIC_NAME} gauge.
+ */
+@Service
+public class ContractorInvoiceEventServiceImpl implements ContractorInvoiceEventService
+{
+	public static final String STREAMS_METRIC_NAME = "greenerp.contractor.invoice.event.streams";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContractorInvoiceEventServiceImpl.class);
+	private static final Supplier<SseEmitter.SseEventBuilder> HEARTBEAT = () -> SseEmitter.event().comment("heartbeat");
+
+	private final ContractorService contractorService;
+	private final ClientService clientService;
+	private final long timeout;
+
+	private final Map<Long, Set<SseEmitter>> contractorStreams = new ConcurrentHashMap<>();
+	private final Map<Long, Set<SseEmitter>> clientStreams = new ConcurrentHashMap<>();
+
+	public ContractorInvoiceEventServiceImpl(final ContractorService contractorService, final ClientService clientService, final MeterRegistry meterRegistry,
+		@Value("${greenerp.invoice-events.timeout:PT30M}") final Duration timeout)
+	{
+		this.contractorService = contractorService;
+		this.clientService = clientService;
+		this.timeout = timeout.toMillis();
+		Gauge.builder(STREAMS_METRIC_NAME, this, ContractorInvoiceEventServiceImpl::countStreams).description("Open contractor invoice event streams").register(meterRegistry);
+	}
+
+	/**
+	 * Opens a stream of the changes to the invoices of a contractor.
+	 *
+	 * @param contractorId the ID of the contractor
+	 * @return the emitter of the stream
+	 * @throws EntityNotFoundException if the contractor with the given ID is not found
+	 */
+	@Override
+	public SseEmitter subscribeToContractor(final Long contractorId)
+	{
+		contractorService.findEntityById(contractorId);
+		return subscribe(contractorStreams, contractorId);
+	}
+
+	/**
+	 * Opens a stream of the changes to the contractor invoices billed to a client.
+	 *
+	 * @param clientId the ID of the client
+	 * @return the emitter of the stream
+	 * @throws EntityNotFoundException if the client with the given ID is not found
+	 */
+	@Override
+	public SseEmitter subscribeToClient(final Long clientId)
+	{
+		clientService.findEntityById(clientId);
+		return subscribe(clientStreams, clientId);
+	}
+
+	/**
+	 * Sends an event, named after its type, to the streams of the contractor and the client of its invoice.
+	 *
+	 * @param event the event to send
+	 */
+	@Override
+	public void publish(final ContractorInvoiceEventRecord event)
+	{
+		final String name = event.type().name().toLowerCase();
+		send(contractorStreams, event.invoice().contractorId(), () -> SseEmitter.event().name(name).data(event));
+		send(clientStreams, event.invoice().clientId(), () -> SseEmitter.event().name(name).data(event));
+	}
+
+	@Scheduled(fixedDelayString = "${greenerp.invoice-events.heartbeat:PT15S}")
+	public void heartbeat()
+	{
+		contractorStreams.keySet().forEach(contractorId -> send(contractorStreams, contractorId, HEARTBEAT));
+		clientStreams.keySet().forEach(clientId -> send(clientStreams, clientId, HEARTBEAT));
+	}
+
+	private SseEmitter subscribe(final Map<Long, Set<SseEmitter>> streams, final Long key)
+	{
+		final SseEmitter emitter = new SseEmitter(timeout);
+		emitter.onCompletion(() -> remove(streams, key, emitter));
+		emitter.onTimeout(emitter::complete);
+		emitter.onError(error -> remove(streams, key, emitter));
+		streams.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+		return emitter;
+	}
+
+	private void send(final Map<Long, Set<SseEmitter>> streams, final Long key, final Supplier<SseEmitter.SseEventBuilder> event)
+	{
+		final Set<SseEmitter> emitters = streams.get(key);
+		if (emitters == null)
+			return;
+
+		for (final SseEmitter emitter : emitters)
+		{
+			try
+			{
+				emitter.send(event.get());
+			} catch (IOException | IllegalStateException e)
+			{
+				LOGGER.debug("Dropping invoice event stream {}: {}", key, e.getMessage());
+				remove(streams, key, emitter);
+				emitter.completeWithError(e);
+			}
+		}
+	}
+
+	private void remove(final Map<Long, Set<SseEmitter>> streams, final Long key, final SseEmitter emitter)
+	{
+		streams.computeIfPresent(key, (k, emitters) -> {
+			emitters.remove(emitter);
+			return emitters.isEmpty() ? null : emitters;
+		});
+	}
+
+	private int countStreams()
+	{
+		return contractorStreams.values().stream().mapToInt(Set::size).sum() + clientStreams.values().stream().mapToInt(Set::size).sum();
+	}
+}
@@ -0,0 +1,38 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.MediaType;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportFilterRecord;
+
+public interface ContractorInvoiceExportService
+{
+	void export(ContractorInvoiceExportFilterRecord filter, Format format, OutputStream outputStream) throws IOException;
+
+	enum Format
+	{
+		CSV(MediaType.parseMediaType("text/csv"), "csv"),
+		NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+		private final MediaType mediaType;
+		private final String fileExtension;
+
+		Format(final MediaType mediaType, final String fileExtension)
+		{
+			this.mediaType = mediaType;
+			this.fileExtension = fileExtension;
+		}
+
+		public MediaType getMediaType()
+		{
+			return mediaType;
+		}
+
+		public String getFileExtension()
+		{
+			return fileExtension;
+		}
+	}
+}
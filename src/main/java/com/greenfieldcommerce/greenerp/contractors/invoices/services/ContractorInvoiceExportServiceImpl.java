@@ -0,0 +1,108 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportFilterRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceExportRepository;
+import com.greenfieldcommerce.greenerp.services.NdjsonWriter;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Writes contractor invoice exports as CSV or newline-delimited JSON.
+ * <p>
+ * Each invoice is written as soon as its row is read from the database cursor, and the output is only buffered up
+ * to a fixed size, so exports of any length run in constant memory. The transaction keeps the cursor open for as
+ * long as the export is being written.
+ * <p>
+ * CSV text values that a spreadsheet would read as a formula, those starting with {@code =}, {@code +}, {@code -},
+ * {@code @}, a tab or a carriage return, are prefixed with a single quote and quoted, so opening an export never
+ * evaluates a contractor or client name.
+ */
+@Service
+public class ContractorInvoiceExportServiceImpl implements ContractorInvoiceExportService
+{
+	static final String CSV_HEADER = "invoiceId,contractorId,contractorName,clientId,clientName,startDate,endDate,numberOfWorkedDays,extraAmountsTotal,total,currency,status";
+
+	private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContractorInvoiceExportServiceImpl.class);
+
+	private final ContractorInvoiceExportRepository contractorInvoiceExportRepository;
+	private final ObjectMapper objectMapper;
+
+	public ContractorInvoiceExportServiceImpl(final ContractorInvoiceExportRepository contractorInvoiceExportRepository, final ObjectMapper objectMapper)
+	{
+		this.contractorInvoiceExportRepository = contractorInvoiceExportRepository;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	@Transactional
+	public void export(final ContractorInvoiceExportFilterRecord filter, final Format format, final OutputStream outputStream) throws IOException
+	{
+		try (final Stream<ContractorInvoiceExportRecord> records = contractorInvoiceExportRepository.streamMatching(filter))
+		{
+			final long exported = format == Format.CSV ? writeCsv(records, outputStream) : NdjsonWriter.write(records, objectMapper, outputStream);
+			LOGGER.info("Exported {} contractor invoices as {} for {}", exported, format, filter);
+		}
+	}
+
+	private static long writeCsv(final Stream<ContractorInvoiceExportRecord> records, final OutputStream outputStream) throws IOException
+	{
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		writer.write(CSV_HEADER + "\n");
+		long written = 0;
+		for (final Iterator<ContractorInvoiceExportRecord> iterator = records.iterator(); iterator.hasNext(); written++)
+		{
+			writer.write(toCsv(iterator.next()));
+			writer.write('\n');
+		}
+		writer.flush();
+		return written;
+	}
+
+	private static String toCsv(final ContractorInvoiceExportRecord record)
+	{
+		return String.join(",", String.valueOf(record.invoiceId()), String.valueOf(record.contractorId()), csvText(record.contractorName()),
+			record.clientId() == null ? "" : String.valueOf(record.clientId()), csvText(record.clientName()), csvDate(record.startDate()), csvDate(record.endDate()),
+			csvAmount(record.numberOfWorkedDays()), csvAmount(record.extraAmountsTotal()), csvAmount(record.total()), record.currency().getCurrencyCode(), record.status());
+	}
+
+	private static String csvText(final String value)
+	{
+		if (value == null)
+			return "";
+		if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0)
+			return "\"'" + value.replace("\"", "\"\"") + '"';
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+			return value;
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static String csvDate(final ZonedDateTime value)
+	{
+		return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(value);
+	}
+
+	private static String csvAmount(final BigDecimal value)
+	{
+		return value.toPlainString();
+	}
+}
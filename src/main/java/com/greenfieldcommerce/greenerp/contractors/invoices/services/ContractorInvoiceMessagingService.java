@@ -1,8 +1,13 @@
 package com.greenfieldcommerce.greenerp.contractors.invoices.services;
 
+import java.util.List;
+
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
 
 public interface ContractorInvoiceMessagingService
 {
 	void sendContractorInvoiceCreatedMessage(ContractorInvoiceRecord contractorInvoiceRecord);
+	void sendContractorInvoiceCreatedMessages(List<ContractorInvoiceRecord> contractorInvoiceRecords);
+	void sendContractorInvoicePatchedMessage(ContractorInvoiceRecord contractorInvoiceRecord);
+	void sendContractorInvoicesBilledMessages(Long clientInvoiceId, List<ContractorInvoiceRecord> contractorInvoiceRecords);
 }
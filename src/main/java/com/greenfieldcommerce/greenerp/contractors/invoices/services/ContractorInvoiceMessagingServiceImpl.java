@@ -1,28 +1,75 @@
 package com.greenfieldcommerce.greenerp.contractors.invoices.services;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceEventRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.messaging.services.OutboxService;
+
+import jakarta.annotation.Nullable;
 
+/**
+ * Announces contractor invoice events through the outbox, so that they are only published once the transaction
+ * that created the invoice has committed, and without the caller waiting for the broker.
+ * <p>
+ * Besides the created message, every creation, change and billing of an invoice is published as a
+ * {@link ContractorInvoiceEventRecord} to the {@value #CONTRACTOR_INVOICE_EVENTS_EXCHANGE} topic exchange, with a
+ * {@code <type>.<contractorId>} routing key, from which the invoice event streams are fed.
+ */
 @Service
 public class ContractorInvoiceMessagingServiceImpl implements ContractorInvoiceMessagingService
 {
+	public static final String CONTRACTOR_INVOICE_EVENTS_EXCHANGE = "contractor-invoice-events";
+
 	private static final Logger LOGGER = LoggerFactory.getLogger(ContractorInvoiceMessagingServiceImpl.class);
+	private static final String CONTRACTOR_INVOICE_CREATED_EXCHANGE = "contractor-invoice-created";
 
-	private final RabbitTemplate rabbitTemplate;
+	private final OutboxService outboxService;
 
-	public ContractorInvoiceMessagingServiceImpl(final RabbitTemplate rabbitTemplate)
+	public ContractorInvoiceMessagingServiceImpl(final OutboxService outboxService)
 	{
-		this.rabbitTemplate = rabbitTemplate;
+		this.outboxService = outboxService;
 	}
 
 	@Override
 	public void sendContractorInvoiceCreatedMessage(final ContractorInvoiceRecord contractorInvoiceRecord)
 	{
-		LOGGER.info("Sending contractor invoice created message for contractor {}", contractorInvoiceRecord.contractorId());
-		rabbitTemplate.convertAndSend("contractor-invoice-created", "contractor-invoice-created." + contractorInvoiceRecord.contractorId(), contractorInvoiceRecord);
+		LOGGER.info("Queueing contractor invoice created message for contractor {}", contractorInvoiceRecord.contractorId());
+		queueCreated(contractorInvoiceRecord);
+	}
+
+	@Override
+	public void sendContractorInvoiceCreatedMessages(final List<ContractorInvoiceRecord> contractorInvoiceRecords)
+	{
+		LOGGER.info("Queueing {} contractor invoice created messages", contractorInvoiceRecords.size());
+		contractorInvoiceRecords.forEach(this::queueCreated);
+	}
+
+	@Override
+	public void sendContractorInvoicePatchedMessage(final ContractorInvoiceRecord contractorInvoiceRecord)
+	{
+		queueEvent(ContractorInvoiceEventRecord.Type.PATCHED, contractorInvoiceRecord, null);
+	}
+
+	@Override
+	public void sendContractorInvoicesBilledMessages(final Long clientInvoiceId, final List<ContractorInvoiceRecord> contractorInvoiceRecords)
+	{
+		LOGGER.info("Queueing {} contractor invoice billed messages for client invoice {}", contractorInvoiceRecords.size(), clientInvoiceId);
+		contractorInvoiceRecords.forEach(record -> queueEvent(ContractorInvoiceEventRecord.Type.BILLED, record, clientInvoiceId));
+	}
+
+	private void queueCreated(final ContractorInvoiceRecord record)
+	{
+		outboxService.enqueue(CONTRACTOR_INVOICE_CREATED_EXCHANGE, CONTRACTOR_INVOICE_CREATED_EXCHANGE + "." + record.contractorId(), record);
+		queueEvent(ContractorInvoiceEventRecord.Type.CREATED, record, null);
+	}
+
+	private void queueEvent(final ContractorInvoiceEventRecord.Type type, final ContractorInvoiceRecord record, @Nullable final Long clientInvoiceId)
+	{
+		outboxService.enqueue(CONTRACTOR_INVOICE_EVENTS_EXCHANGE, type.name().toLowerCase() + "." + record.contractorId(), new ContractorInvoiceEventRecord(type, record, clientInvoiceId));
 	}
 }
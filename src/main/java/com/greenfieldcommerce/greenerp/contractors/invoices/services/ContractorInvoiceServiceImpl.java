@@ -2,14 +2,25 @@ package com.greenfieldcommerce.greenerp.contractors.invoices.services;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
+import com.greenfieldcommerce.greenerp.analytics.services.MarginAnalyticsService;
+import com.greenfieldcommerce.greenerp.archive.services.InvoiceArchiveService;
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
 import com.greenfieldcommerce.greenerp.clients.services.ClientService;
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
 import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
@@ -19,15 +30,25 @@ import com.greenfieldcommerce.greenerp.contractors.invoices.records.CreateInvoic
 import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
 import com.greenfieldcommerce.greenerp.exceptions.DuplicateContractorInvoiceException;
 import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
+import com.greenfieldcommerce.greenerp.exceptions.IllegalInvoiceModificationException;
+import com.greenfieldcommerce.greenerp.exceptions.InvalidCursorException;
+import com.greenfieldcommerce.greenerp.exceptions.InvalidDateRangeException;
 import com.greenfieldcommerce.greenerp.exceptions.NoActiveContractorRateException;
 import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.money.Money;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.InvoiceExtraAmountLineRepository;
 import com.greenfieldcommerce.greenerp.contractors.rates.services.ContractorRateService;
 import com.greenfieldcommerce.greenerp.contractors.services.ContractorService;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
+import com.greenfieldcommerce.greenerp.services.KeysetCursor;
 import com.greenfieldcommerce.greenerp.services.TimeService;
 import com.greenfieldcommerce.greenerp.services.BaseEntityService;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.transaction.Transactional;
+
 /**
  * Implementation of {@link ContractorInvoiceService} for managing contractor invoices.
  * <p>
@@ -40,37 +61,55 @@ import com.greenfieldcommerce.greenerp.services.BaseEntityService;
  * <li>Validation to prevent duplicate invoices for the same period</li>
  * <li>Calculation of invoice amounts based on current contractor rates</li>
  * </ul>
+ * Invoices moved to the archive are still read by ID, after the invoices of {@code contractor_invoice} have been
+ * looked up, and listed along with them, but can no longer be changed. Listings only read the archive for the
+ * contractors it holds invoices of, which the {@code archivedThrough} bound of the contractor tells without a query.
+ * The latency of every write operation is recorded in the {@value #OPERATION_TIMER} timer, tagged by {@code operation}.
  */
 @Service
 public class ContractorInvoiceServiceImpl extends BaseEntityService<ContractorInvoice, Long> implements ContractorInvoiceService
 {
 
+	public static final String OPERATION_TIMER = "greenerp.contractor.invoice.operation";
+
+	private static final int MAX_SCROLL_SIZE = 100;
+	private static final String SCROLL_DATE_PROPERTY = "startDate";
+
 	private final ContractorInvoiceRepository contractorInvoiceRepository;
+	private final InvoiceExtraAmountLineRepository invoiceExtraAmountLineRepository;
 	private final ContractorRateService contractorRateService;
 	private final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper;
 	private final ContractorService contractorService;
 	private final ClientService clientService;
 	private final ContractorInvoiceMessagingService contractorInvoiceMessagingService;
+	private final MarginAnalyticsService marginAnalyticsService;
+	private final InvoiceArchiveService invoiceArchiveService;
 
 	public ContractorInvoiceServiceImpl(
 		final ContractorInvoiceRepository contractorInvoiceRepository,
+		final InvoiceExtraAmountLineRepository invoiceExtraAmountLineRepository,
 		final ContractorRateService contractorRateService,
 		final Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper,
 		final ContractorService contractorService,
 		final ClientService clientService,
-		final ContractorInvoiceMessagingService contractorInvoiceMessagingService)
+		final ContractorInvoiceMessagingService contractorInvoiceMessagingService,
+		final MarginAnalyticsService marginAnalyticsService,
+		final InvoiceArchiveService invoiceArchiveService)
 	{
 		super(contractorInvoiceRepository, ContractorInvoice.class);
 		this.contractorInvoiceRepository = contractorInvoiceRepository;
+		this.invoiceExtraAmountLineRepository = invoiceExtraAmountLineRepository;
 		this.contractorRateService = contractorRateService;
 		this.contractorInvoiceToRecordMapper = contractorInvoiceToRecordMapper;
 		this.contractorService = contractorService;
 		this.clientService = clientService;
 		this.contractorInvoiceMessagingService = contractorInvoiceMessagingService;
+		this.marginAnalyticsService = marginAnalyticsService;
+		this.invoiceArchiveService = invoiceArchiveService;
 	}
 
 	/**
-	 * Retrieves a paginated list of invoices for a specific contractor.
+	 * Retrieves a paginated list of invoices for a specific contractor, archived ones included, in the order requested.
 	 *
 	 * @param contractorId	  the ID of the contractor whose invoices are to be retrieved
 	 * @param pageable        the pagination information (i.e., page number, size, and sorting)
@@ -81,9 +120,39 @@ public class ContractorInvoiceServiceImpl extends BaseEntityService<ContractorIn
 	public Page<ContractorInvoiceRecord> findByContractor(final Long contractorId, final Pageable pageable)
 	{
 		final Contractor contractor = contractorService.findEntityById(contractorId);
+		if (contractor.getArchivedThrough() != null)
+			return invoiceArchiveService.findContractorInvoices(contractorId, pageable);
+
 		return contractorInvoiceRepository.findByContractor(contractor, pageable).map(contractorInvoiceToRecordMapper::map);
 	}
 
+	/**
+	 * Retrieves the next slice of a contractor's invoices, newest first, using keyset pagination.
+	 * <p>
+	 * Each slice is read by seeking past the (startDate, id) of the previous one, so reading deep slices costs the
+	 * same as reading the first one and no count query is issued. The archived invoices of the contractor, if any, are
+	 * sought from the same position in the same query.
+	 *
+	 * @param contractorId the ID of the contractor whose invoices are to be retrieved
+	 * @param cursor       the continuation token returned with the previous slice, or {@code null} for the first slice
+	 * @param size         the maximum number of invoices in the slice, capped to {@value #MAX_SCROLL_SIZE}
+	 * @return a {@code CursorPageRecord} of {@code ContractorInvoiceRecord} with the token of the following slice
+	 * @throws EntityNotFoundException if the contractor with the given ID is not found
+	 * @throws InvalidCursorException if the cursor is not a valid continuation token
+	 */
+	@Override
+	public CursorPageRecord<ContractorInvoiceRecord> scrollByContractor(final Long contractorId, final String cursor, final int size)
+	{
+		final Contractor contractor = contractorService.findEntityById(contractorId);
+		final KeysetScrollPosition position = KeysetCursor.decode(cursor, SCROLL_DATE_PROPERTY);
+		if (contractor.getArchivedThrough() != null)
+			return invoiceArchiveService.scrollContractorInvoices(contractorId, position, Math.clamp(size, 1, MAX_SCROLL_SIZE));
+
+		final Window<ContractorInvoice> window = contractorInvoiceRepository.findByContractorOrderByStartDateDescIdDesc(contractor, position,
+			Limit.of(Math.clamp(size, 1, MAX_SCROLL_SIZE)));
+		return KeysetCursor.toRecord(window, SCROLL_DATE_PROPERTY, contractorInvoiceToRecordMapper::map);
+	}
+
 	@Override
 	public List<ContractorInvoiceRecord> findOpenForClientBeforeDate(final Long clientId, final ZonedDateTime limiterDate)
 	{
@@ -95,9 +164,10 @@ public class ContractorInvoiceServiceImpl extends BaseEntityService<ContractorIn
 
 	/**
 	 * Creates a new contractor invoice for the current period.
-	 * This method validates that no invoice already exists for the contractor in the current period
-	 * before creating a new one. The invoice amount is calculated based on the contractor's current
-	 * rate and the number of worked days, plus any additional amount.
+	 * The invoice amount is calculated based on the contractor's current rate and the number of worked days,
+	 * plus any additional amount. The invoice is inserted with a single statement that relies on the unique
+	 * constraint on the contractor and period, so concurrent creates cannot both succeed and no lookup of an
+	 * existing invoice is needed first. The created message is queued in the same transaction as the invoice.
 	 *
 	 * @param contractorId       the ID of the contractor for whom to create the invoice
 	 * @param numberOfWorkedDays the number of days worked by the contractor
@@ -107,42 +177,75 @@ public class ContractorInvoiceServiceImpl extends BaseEntityService<ContractorIn
 	 * @throws NoActiveContractorRateException     if the contractor has no active rate
 	 */
 	@Override
+	@Transactional
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "create" }, histogram = true)
 	public ContractorInvoiceRecord create(final Long contractorId, final BigDecimal numberOfWorkedDays)
 	{
 		final Contractor contractor = contractorService.findEntityById(contractorId);
-		final Optional<ContractorInvoice> currentInvoiceOpt = contractorInvoiceRepository.findContractorInvoiceForADate(contractor, TimeService.now());
-
-		if (currentInvoiceOpt.isPresent())
-			throw new DuplicateContractorInvoiceException("DUPLICATE_INVOICE", String.format("Invoice for %s already exists in the current period", contractor.getName()));
-
 		final ContractorRate currentRateForContractor = contractorRateService.findCurrentRateForContractor(contractor);
-		final ContractorInvoice invoice = ContractorInvoice.create(currentRateForContractor, numberOfWorkedDays);
+		final ContractorInvoice invoice = contractorInvoiceRepository.insertIfAbsent(ContractorInvoice.create(currentRateForContractor, numberOfWorkedDays))
+			.orElseThrow(() -> new DuplicateContractorInvoiceException("DUPLICATE_INVOICE", String.format("Invoice for %s already exists in the current period", contractor.getName())));
 
-		final ContractorInvoiceRecord createdInvoiceRecord = contractorInvoiceToRecordMapper.map(contractorInvoiceRepository.save(invoice));
-		contractorInvoiceMessagingService.sendContractorInvoiceCreatedMessage(createdInvoiceRecord);
+		final ContractorInvoiceRecord createdInvoiceRecord = contractorInvoiceToRecordMapper.map(invoice);
+		announceCreated(createdInvoiceRecord);
 		return createdInvoiceRecord;
 	}
 
+	/**
+	 * Creates a contractor invoice for an arbitrary period, billed to a specific client.
+	 *
+	 * @param record the record containing the contractor, client, period and number of worked days
+	 * @return a {@code ContractorInvoiceRecord} representing the created invoice
+	 * @throws EntityNotFoundException             if the contractor or the client is not found
+	 * @throws InvalidDateRangeException           if the period ends before it starts, or is longer than {@link ContractorInvoice#MAXIMUM_PERIOD}
+	 * @throws DuplicateContractorInvoiceException if an invoice already exists for the contractor in the given period
+	 * @throws IllegalInvoiceModificationException if the period, or the month it starts in, was archived for the contractor
+	 * @throws NoActiveContractorRateException     if the contractor has no rate for the client in the given period
+	 */
 	@Override
+	@Transactional
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "create-for-period" }, histogram = true)
 	public ContractorInvoiceRecord create(final BatchContractorInvoiceRecord record)
 	{
+		final ContractorInvoiceRecord createdInvoiceRecord = contractorInvoiceToRecordMapper.map(contractorInvoiceRepository.save(prepare(record)));
+		announceCreated(createdInvoiceRecord);
+		return createdInvoiceRecord;
+	}
+
+	/**
+	 * Validates a batch record and builds the matching contractor invoice, without persisting it.
+	 * <p>
+	 * Used by bulk writers, which persist and announce many invoices at once instead of one by one.
+	 *
+	 * @param record the record containing the contractor, client, period and number of worked days
+	 * @return a new, transient {@code ContractorInvoice}
+	 * @throws EntityNotFoundException             if the contractor or the client is not found
+	 * @throws InvalidDateRangeException           if the period ends before it starts, or is longer than {@link ContractorInvoice#MAXIMUM_PERIOD}
+	 * @throws DuplicateContractorInvoiceException if an invoice already exists for the contractor in the given period
+	 * @throws IllegalInvoiceModificationException if the period, or the month it starts in, was archived for the contractor
+	 * @throws NoActiveContractorRateException     if the contractor has no rate for the client in the given period
+	 */
+	@Override
+	public ContractorInvoice prepare(final BatchContractorInvoiceRecord record)
+	{
+		if (!record.endDate().isAfter(record.startDate()) || record.endDate().isAfter(record.startDate().plus(ContractorInvoice.MAXIMUM_PERIOD)))
+			throw new InvalidDateRangeException("INVALID_INVOICE_PERIOD", String.format("An invoice must end after it starts, and cover %s at most", ContractorInvoice.MAXIMUM_PERIOD));
+
 		final Contractor contractor = contractorService.findEntityById(record.contractorId());
 		final Client client = clientService.findEntityById(record.clientId());
-		final Optional<ContractorInvoice> overlappingInvoice = contractorInvoiceRepository.findContractorInvoiceForADate(contractor, record.startDate());
 
-		if (overlappingInvoice.isPresent())
+		if (contractorInvoiceRepository.existsContractorInvoiceForADate(contractor, record.startDate()))
 			throw new DuplicateContractorInvoiceException("DUPLICATE_INVOICE", String.format("Invoice for %s already exists in the current period", contractor.getName()));
+		if (invoiceArchiveService.isArchivedPeriod(record.contractorId(), record.startDate()))
+			throw new IllegalInvoiceModificationException("ARCHIVED_PERIOD", String.format("Invoices of %s starting on %s were archived", contractor.getName(), record.startDate()));
 
 		final ContractorRate rate = contractorRateService.findRateForContractorActiveOnAPeriod(contractor, client, record.startDate(), record.endDate());
-		final ContractorInvoice invoice = ContractorInvoice.create(rate, record.startDate(), record.endDate(), record.numberOfWorkedDays());
-
-		final ContractorInvoiceRecord createdInvoiceRecord = contractorInvoiceToRecordMapper.map(contractorInvoiceRepository.save(invoice));
-		contractorInvoiceMessagingService.sendContractorInvoiceCreatedMessage(createdInvoiceRecord);
-		return createdInvoiceRecord;
+		return ContractorInvoice.create(rate, record.startDate(), record.endDate(), record.numberOfWorkedDays());
 	}
 
 	/**
-	 * Retrieves a specific invoice for a contractor by contractor ID and invoice ID.
+	 * Retrieves a specific invoice for a contractor by contractor ID and invoice ID, from the archive if it is no
+	 * longer in {@code contractor_invoice}.
 	 *
 	 * @param contractorId the ID of the contractor
 	 * @param invoiceId    the ID of the invoice to retrieve
@@ -152,76 +255,99 @@ public class ContractorInvoiceServiceImpl extends BaseEntityService<ContractorIn
 	@Override
 	public ContractorInvoiceRecord findByContractorAndId(final Long contractorId, final Long invoiceId)
 	{
-		final ContractorInvoice invoice = internalFindByContractorAndId(contractorId, invoiceId);
-		return contractorInvoiceToRecordMapper.map(invoice);
+		final Contractor contractor = contractorService.findEntityById(contractorId);
+		return contractorInvoiceRepository.findByContractorAndId(contractor, invoiceId).map(contractorInvoiceToRecordMapper::map)
+			.or(() -> invoiceArchiveService.findContractorInvoice(contractorId, invoiceId))
+			.orElseThrow(() -> new EntityNotFoundException("INVOICE_NOT_FOUND", String.format("No invoice with id %s for contractor %s was found", invoiceId, contractorId)));
 	}
 
 	/**
 	 * Adds an extra amount line to an existing contractor invoice and persists the change.
-	 * <p>The provided {@code extraAmountLineRecord} is converted to an {@code InvoiceExtraAmountLine}
-	 * associated with the invoice identified by {@code invoiceId}. The invoice is saved and mapped to a
-	 * {@code ContractorInvoiceRecord} which is returned.
+	 * <p>
+	 * The line is inserted on its own and its amount is added to the invoice totals with a single atomic update,
+	 * so neither the other lines of the invoice are loaded nor concurrent changes to the totals are lost. The amount
+	 * is rounded to the minor units of the invoice currency first, as the totals are. No foreign key ties the line to
+	 * the invoice, so the line is rolled back if the invoice is gone by the time its totals are updated.
 	 *
 	 * @param contractorId          the id of the contractor to which the invoice belongs
 	 * @param invoiceId             the id of the invoice to update
 	 * @param extraAmountLineRecord record containing the extra amount and description
 	 * @return the updated {@code ContractorInvoiceRecord}
-	 * @throws EntityNotFoundException if the invoice with the given id does not exist
+	 * @throws EntityNotFoundException              if the invoice with the given id does not exist
+	 * @throws IllegalInvoiceModificationException if the invoice was archived
 	 */
 	@Override
+	@Transactional
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "add-extra-line" }, histogram = true)
 	public ContractorInvoiceRecord addExtraAmountLineToInvoice(final Long contractorId, final Long invoiceId, final CreateInvoiceExtraAmountLineRecord extraAmountLineRecord)
 	{
-		final ContractorInvoice invoice = internalFindByContractorAndId(contractorId, invoiceId);
-		final InvoiceExtraAmountLine extraAmountLine = InvoiceExtraAmountLine.create(invoice, extraAmountLineRecord.amount(), extraAmountLineRecord.description());
-		invoice.addExtraAmountLine(extraAmountLine);
+		final ContractorInvoice invoice = internalFindHeaderByContractorAndId(contractorId, invoiceId);
+		final BigDecimal amount = Money.of(extraAmountLineRecord.amount(), invoice.getCurrency()).toBigDecimal();
+		invoiceExtraAmountLineRepository.save(InvoiceExtraAmountLine.create(invoice, amount, extraAmountLineRecord.description()));
+		if (contractorInvoiceRepository.addToExtraAmountsTotal(invoiceId, amount) == 0)
+			throw new EntityNotFoundException("INVOICE_NOT_FOUND", String.format("No invoice with id %s for contractor %s was found", invoiceId, contractorId));
 
-		return contractorInvoiceToRecordMapper.map(contractorInvoiceRepository.save(invoice));
+		return reloadAndAnnounce(invoice);
 	}
 
 	/**
-	 * Updates the number of worked days and extra amount for the current invoice for a contractor.
-	 * This will recalculate the invoice total.
+	 * Updates the number of worked days for an invoice of a contractor.
+	 * <p>
+	 * The total is recomputed in the database from the new worked days amount and the stored extra amounts total,
+	 * without loading the extra amount lines.
 	 *
 	 * @param contractorId       the ID of the contractor
 	 * @param invoiceId          the ID of the invoice to update
 	 * @param numberOfWorkedDays the updated number of days worked
 	 * @return a {@code ContractorInvoiceRecord} representing the updated invoice
-	 * @throws EntityNotFoundException if the contractor is not found or the invoice does not exist
+	 * @throws EntityNotFoundException              if the contractor is not found or the invoice does not exist
+	 * @throws IllegalInvoiceModificationException if the invoice is no longer open or was archived
 	 */
 	@Override
+	@Transactional
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "patch" }, histogram = true)
 	public ContractorInvoiceRecord patchInvoice(final Long contractorId, final Long invoiceId, final BigDecimal numberOfWorkedDays)
 	{
-		final ContractorInvoice invoice = internalFindByContractorAndId(contractorId, invoiceId);
-		invoice.setNumberOfWorkedDays(numberOfWorkedDays);
-		return contractorInvoiceToRecordMapper.map(contractorInvoiceRepository.save(invoice));
+		final ContractorInvoice invoice = internalFindHeaderByContractorAndId(contractorId, invoiceId);
+		invoice.checkNumberOfWorkedDaysCanChange();
+
+		final BigDecimal workedDaysAmount = ContractorInvoice.calculateWorkedDaysAmount(numberOfWorkedDays, invoice.getRate().getRate(), invoice.getCurrency()).toBigDecimal();
+		contractorInvoiceRepository.updateNumberOfWorkedDays(invoiceId, numberOfWorkedDays, workedDaysAmount);
+
+		return reloadAndAnnounce(invoice);
 	}
 
 	/**
 	 * Updates an existing extra amount line on a contractor invoice.
 	 * <p>
-	 * This method locates the specified extra amount line within the invoice and updates its amount
-	 * and description based on the provided record. After updating the line, the total invoice amount
-	 * is recalculated and the changes are persisted.
+	 * Only the line being updated is loaded, and locked so concurrent updates of the same line apply one after
+	 * the other. The difference between its new and previous amount, rounded to the minor units of the invoice
+	 * currency, is then added to the invoice totals with a single atomic update.
 	 *
 	 * @param contractorId          the ID of the contractor who owns the invoice
 	 * @param invoiceId             the ID of the invoice containing the extra amount line
 	 * @param extraLineId           the ID of the extra amount line to update
 	 * @param extraAmountLineRecord record containing the updated extra amount and description
 	 * @return a {@code ContractorInvoiceRecord} representing the updated invoice
-	 * @throws EntityNotFoundException if the contractor, invoice, or extra amount line with the given ID is not found
+	 * @throws EntityNotFoundException              if the contractor, invoice, or extra amount line with the given ID is not found
+	 * @throws IllegalInvoiceModificationException if the invoice was archived
 	 */
 	@Override
+	@Transactional
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "patch-extra-line" }, histogram = true)
 	public ContractorInvoiceRecord patchExtraAmountLine(final Long contractorId, final Long invoiceId, final Long extraLineId, final CreateInvoiceExtraAmountLineRecord extraAmountLineRecord)
 	{
-		final ContractorInvoice invoice = internalFindByContractorAndId(contractorId, invoiceId);
-		final InvoiceExtraAmountLine extraAmountLine = invoice.getExtraAmountLines().stream().filter(extraLine -> extraLine.getId().equals(extraLineId)).findFirst()
+		final ContractorInvoice invoice = internalFindHeaderByContractorAndId(contractorId, invoiceId);
+		final InvoiceExtraAmountLine extraAmountLine = invoiceExtraAmountLineRepository.findByIdAndInvoice(extraLineId, invoice)
 			.orElseThrow(() -> new EntityNotFoundException("EXTRA_AMOUNT_LINE_NOT_FOUND", String.format("No extra amount line with id %s found for invoice %s of contractor %s", extraLineId, invoiceId, contractorId)));
 
-		extraAmountLine.setAmount(extraAmountLineRecord.amount());
+		final BigDecimal amount = Money.of(extraAmountLineRecord.amount(), invoice.getCurrency()).toBigDecimal();
+		final BigDecimal delta = Money.of(amount.subtract(extraAmountLine.getAmount()), invoice.getCurrency()).toBigDecimal();
+		extraAmountLine.setAmount(amount);
 		extraAmountLine.setDescription(extraAmountLineRecord.description());
+		contractorInvoiceRepository.addToExtraAmountsTotal(invoiceId, delta);
 
-		invoice.calculateTotalInvoiceAmount();
-		return contractorInvoiceToRecordMapper.map(contractorInvoiceRepository.save(invoice));
+		return reloadAndAnnounce(invoice);
 	}
 
 	/**
@@ -238,6 +364,62 @@ public class ContractorInvoiceServiceImpl extends BaseEntityService<ContractorIn
 		return contractorInvoiceToRecordMapper.map(currentInvoice);
 	}
 
+	/**
+	 * Finds the latest invoice, by start date, of many contractors with a single query.
+	 *
+	 * @param contractorIds the IDs of the contractors
+	 * @return the latest {@code ContractorInvoiceRecord} of each contractor, by contractor ID; contractors without invoices are left out
+	 */
+	@Override
+	public Map<Long, ContractorInvoiceRecord> findLatestForContractors(final Collection<Long> contractorIds)
+	{
+		return contractorInvoiceRepository.findLatestByContractorIdIn(contractorIds).stream().map(contractorInvoiceToRecordMapper::map)
+			.collect(Collectors.toMap(ContractorInvoiceRecord::contractorId, Function.identity(),
+				(first, second) -> first.invoiceId() > second.invoiceId() ? first : second));
+	}
+
+	/**
+	 * Loads every contractor invoice in {@code invoiceIds} with a single query, making sure all of them
+	 * exist and are billed to the given client.
+	 * <p>
+	 * All offending ids are reported together in one exception, rather than failing on the first one.
+	 *
+	 * @param clientId   the ID of the client the invoices must be billed to
+	 * @param invoiceIds the IDs of the contractor invoices to load
+	 * @return the {@code ContractorInvoice} entities, in the order of {@code invoiceIds}
+	 * @throws EntityNotFoundException if any of the invoices does not exist or is billed to a different client
+	 */
+	@Override
+	public List<ContractorInvoice> findEntitiesForClient(final Long clientId, final Collection<Long> invoiceIds)
+	{
+		final Set<Long> requestedIds = new LinkedHashSet<>(invoiceIds);
+		final Map<Long, ContractorInvoice> invoicesById = contractorInvoiceRepository.findByIdIn(requestedIds).stream()
+			.filter(invoice -> invoice.getClient() != null && clientId.equals(invoice.getClient().getId()))
+			.collect(Collectors.toMap(ContractorInvoice::getId, Function.identity()));
+
+		final List<Long> notFound = requestedIds.stream().filter(id -> !invoicesById.containsKey(id)).toList();
+		if (!notFound.isEmpty())
+			throw new EntityNotFoundException("CONTRACTOR_INVOICES_NOT_FOUND", String.format("Contractor invoices %s were not found for client %s", notFound, clientId));
+
+		return requestedIds.stream().map(invoicesById::get).toList();
+	}
+
+	/**
+	 * Links every contractor invoice to the given client invoice with a single bulk update, refreshes their margin
+	 * summaries, and announces that they were billed.
+	 *
+	 * @param clientInvoice      the persisted client invoice that bills the contractor invoices
+	 * @param contractorInvoices the contractor invoices being billed, as loaded by {@link #findEntitiesForClient}
+	 */
+	@Override
+	public void assignToClientInvoice(final ClientInvoice clientInvoice, final List<ContractorInvoice> contractorInvoices)
+	{
+		contractorInvoiceRepository.assignClientInvoice(clientInvoice, contractorInvoices.stream().map(ContractorInvoice::getId).toList());
+		final List<ContractorInvoiceRecord> records = contractorInvoices.stream().map(contractorInvoiceToRecordMapper::map).toList();
+		marginAnalyticsService.refresh(records);
+		contractorInvoiceMessagingService.sendContractorInvoicesBilledMessages(clientInvoice.getId(), records);
+	}
+
 	/**
 	 * Internal helper method to find the current invoice for a contractor.
 	 * <p>
@@ -257,20 +439,58 @@ public class ContractorInvoiceServiceImpl extends BaseEntityService<ContractorIn
 
 
 	/**
-	 * Internal helper method to find a specific invoice for a contractor.
-	 * <p>
-	 * This method retrieves the contractor entity and searches for an invoice
-	 * with the specified ID that belongs to that contractor.
+	 * Internal helper method to find a specific invoice for a contractor, without its extra amount lines, in order to
+	 * change it. The archive is only looked up once the invoice is not found, to tell archived invoices apart.
 	 *
 	 * @param contractorId the ID of the contractor
 	 * @param invoiceId    the ID of the invoice to find
 	 * @return the {@code ContractorInvoice} entity matching the given contractor and invoice ID
-	 * @throws EntityNotFoundException if the contractor is not found or no invoice with the given ID exists for the contractor
+	 * @throws EntityNotFoundException              if the contractor is not found or no invoice with the given ID exists for the contractor
+	 * @throws IllegalInvoiceModificationException if the invoice was archived
 	 */
-	private ContractorInvoice internalFindByContractorAndId(final Long contractorId, final Long invoiceId)
+	private ContractorInvoice internalFindHeaderByContractorAndId(final Long contractorId, final Long invoiceId)
 	{
 		final Contractor contractor = contractorService.findEntityById(contractorId);
-		return contractorInvoiceRepository.findByContractorAndId(contractor, invoiceId)
-			.orElseThrow(() -> new EntityNotFoundException("INVOICE_NOT_FOUND", String.format("No invoice with id %s for contractor %s was found", invoiceId, contractorId)));
+		return contractorInvoiceRepository.findHeaderByContractorAndId(contractor, invoiceId).orElseThrow(() -> {
+			if (invoiceArchiveService.findContractorInvoice(contractorId, invoiceId).isPresent())
+				return new IllegalInvoiceModificationException("ARCHIVED_INVOICE_MODIFICATION", String.format("Invoice %s of contractor %s was archived and can no longer be changed", invoiceId, contractorId));
+			return new EntityNotFoundException("INVOICE_NOT_FOUND", String.format("No invoice with id %s for contractor %s was found", invoiceId, contractorId));
+		});
+	}
+
+	/**
+	 * Refreshes the margin summaries of a new invoice, and announces it as created.
+	 *
+	 * @param record the invoice that was created
+	 */
+	private void announceCreated(final ContractorInvoiceRecord record)
+	{
+		marginAnalyticsService.refresh(List.of(record));
+		contractorInvoiceMessagingService.sendContractorInvoiceCreatedMessage(record);
+	}
+
+	/**
+	 * Reads an invoice again after it was changed, refreshes its margin summaries, and announces it as patched.
+	 *
+	 * @param invoice the invoice that was updated
+	 * @return a {@code ContractorInvoiceRecord} representing the invoice as stored
+	 */
+	private ContractorInvoiceRecord reloadAndAnnounce(final ContractorInvoice invoice)
+	{
+		final ContractorInvoiceRecord record = reloadRecord(invoice);
+		marginAnalyticsService.refresh(List.of(record));
+		contractorInvoiceMessagingService.sendContractorInvoicePatchedMessage(record);
+		return record;
+	}
+
+	/**
+	 * Reads an invoice again after its totals were updated in the database, and maps it with all its lines.
+	 *
+	 * @param invoice the invoice that was updated
+	 * @return a {@code ContractorInvoiceRecord} representing the invoice as stored
+	 */
+	private ContractorInvoiceRecord reloadRecord(final ContractorInvoice invoice)
+	{
+		return contractorInvoiceRepository.findByContractorAndId(invoice.getContractor(), invoice.getId()).map(contractorInvoiceToRecordMapper::map).orElseThrow();
 	}
 }
@@ -0,0 +1,42 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.controllers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.stereotype.Controller;
+
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.services.ContractorRateService;
+import com.greenfieldcommerce.greenerp.contractors.records.ContractorRecord;
+
+/**
+ * Resolves the rates of contractors returned by the GraphQL API, with a single query for all the contractors of a request.
+ */
+@Controller
+public class ContractorRateGraphQlController
+{
+	private final ContractorRateService contractorRateService;
+
+	public ContractorRateGraphQlController(final ContractorRateService contractorRateService)
+	{
+		this.contractorRateService = contractorRateService;
+	}
+
+	@BatchMapping(typeName = "ContractorRecord")
+	public Map<ContractorRecord, ContractorRateRecord> currentRate(final List<ContractorRecord> contractors)
+	{
+		final Map<Long, ContractorRateRecord> rates = contractorRateService.findCurrentRatesForContractors(contractors.stream().map(ContractorRecord::id).toList());
+		return contractors.stream().filter(contractor -> rates.containsKey(contractor.id()))
+			.collect(Collectors.toMap(Function.identity(), contractor -> rates.get(contractor.id())));
+	}
+
+	@BatchMapping(typeName = "ContractorRecord")
+	public Map<ContractorRecord, List<ContractorRateRecord>> rates(final List<ContractorRecord> contractors)
+	{
+		final Map<Long, List<ContractorRateRecord>> rates = contractorRateService.findRatesForContractors(contractors.stream().map(ContractorRecord::id).toList());
+		return contractors.stream().collect(Collectors.toMap(Function.identity(), contractor -> rates.getOrDefault(contractor.id(), List.of())));
+	}
+}
@@ -0,0 +1,34 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.controllers;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateImportRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateImportResultRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.services.ContractorRateService;
+import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping(value = "/contractors/rates/imports", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ContractorRateImportsController
+{
+	private final ContractorRateService contractorRateService;
+
+	public ContractorRateImportsController(final ContractorRateService contractorRateService)
+	{
+		this.contractorRateService = contractorRateService;
+	}
+
+	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public ContractorRateImportResultRecord importContractorRates(@Valid @RequestBody ContractorRateImportRecord record)
+	{
+		return contractorRateService.importRates(record.rates());
+	}
+}
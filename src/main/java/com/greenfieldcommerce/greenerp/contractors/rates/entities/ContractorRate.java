@@ -1,25 +1,31 @@
 package com.greenfieldcommerce.greenerp.contractors.rates.entities;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.math.MathContext;
 import java.time.ZonedDateTime;
 import java.util.Currency;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.money.Money;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 
 @Entity
+@Table(indexes = @Index(name = "IdxContractorRatePeriod", columnList = "contractor_id, client_id, startDateTime, endDateTime"))
 public class ContractorRate
 {
+	private static final int MARGIN_SCALE = 2;
+
 	@Id
 	@GeneratedValue(strategy = GenerationType.AUTO)
 	private Long id;
@@ -77,16 +83,20 @@ public class ContractorRate
 		this.endDateTime = endDateTime;
 	}
 
+	/**
+	 * The gross rate, what the contractor costs before the tax deduction, is rounded to the minor units of the
+	 * currency, and the margin, as a percentage of the external rate, to two decimals.
+	 */
 	public static ContractorRate create(final Contractor contractor, final Client client,
 		final BigDecimal rate, final BigDecimal externalRate, final BigDecimal taxDeduction,
 		final Currency currency, final ZonedDateTime startDateTime, final ZonedDateTime endDateTime)
 	{
-		final BigDecimal divisor = BigDecimal.ONE.subtract(taxDeduction.divide(BigDecimal.valueOf(100.0), RoundingMode.HALF_UP));
-		final BigDecimal grossRate = rate.divide(divisor, RoundingMode.HALF_UP);
-
-		final BigDecimal margin = BigDecimal.valueOf(100.0).multiply(BigDecimal.ONE.subtract(grossRate.divide(externalRate, RoundingMode.HALF_UP)));
+		final BigDecimal netShare = BigDecimal.ONE.subtract(taxDeduction.movePointLeft(2));
+		final Money grossRate = Money.of(rate.divide(netShare, MathContext.DECIMAL64), currency);
+		final BigDecimal margin = BigDecimal.ONE.subtract(grossRate.toBigDecimal().divide(externalRate, MathContext.DECIMAL64)).movePointRight(2)
+			.setScale(MARGIN_SCALE, Money.ROUNDING);
 
-		return new ContractorRate(contractor, client, rate, externalRate, taxDeduction, margin, grossRate, currency, startDateTime, endDateTime);
+		return new ContractorRate(contractor, client, rate, externalRate, taxDeduction, margin, grossRate.toBigDecimal(), currency, startDateTime, endDateTime);
 	}
 
 	public boolean isActive()
@@ -125,6 +135,16 @@ public class ContractorRate
 		return rate;
 	}
 
+	public BigDecimal getExternalRate()
+	{
+		return externalRate;
+	}
+
+	public BigDecimal getGrossRate()
+	{
+		return grossRate;
+	}
+
 	public Currency getCurrency()
 	{
 		return currency;
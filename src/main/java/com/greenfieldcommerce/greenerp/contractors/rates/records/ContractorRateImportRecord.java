@@ -0,0 +1,11 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.records;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+public record ContractorRateImportRecord(@NotEmpty @Size(max = 10000) List<@Valid BatchContractorRateRecord> rates)
+{
+}
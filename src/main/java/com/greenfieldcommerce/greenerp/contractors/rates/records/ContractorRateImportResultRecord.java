@@ -0,0 +1,7 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.records;
+
+import java.util.List;
+
+public record ContractorRateImportResultRecord(List<ContractorRateRecord> created, List<RejectedContractorRateRecord> rejected)
+{
+}
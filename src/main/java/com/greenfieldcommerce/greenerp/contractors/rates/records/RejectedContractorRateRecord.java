@@ -0,0 +1,5 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.records;
+
+public record RejectedContractorRateRecord(int index, Long contractorId, Long clientId, String code, String message)
+{
+}
@@ -0,0 +1,100 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.repositories;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps the rates of a contractor for one client from overlapping at the database level.
+ * <p>
+ * On PostgreSQL, an exclusion constraint over the {@code tstzrange} of each rate, backed by a GiST index, is added to
+ * {@code contractor_rate} once Hibernate has created or updated the schema. Concurrent writes can then no longer slip
+ * past a read-then-write check, and callers can skip that check altogether. On any other database, or when the
+ * constraint cannot be installed, {@link #isEnforcedByDatabase()} returns {@code false} and callers must keep
+ * checking for overlaps themselves.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ContractorRateOverlapConstraint
+{
+	public static final String CONSTRAINT_NAME = "ExclContractorRateNoOverlap";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContractorRateOverlapConstraint.class);
+	private static final String EXCLUSION_VIOLATION_SQL_STATE = "23P01";
+
+	private final JdbcTemplate jdbcTemplate;
+	private boolean enforcedByDatabase;
+
+	public ContractorRateOverlapConstraint(final JdbcTemplate jdbcTemplate)
+	{
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Installs the exclusion constraint when running on PostgreSQL, unless it already exists.
+	 * <p>
+	 * Existing overlapping rows, or a missing privilege to create the {@code btree_gist} extension, make the
+	 * installation fail; overlaps are then checked by the application, as on other databases.
+	 */
+	@PostConstruct
+	public void install()
+	{
+		final String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+		if (!"PostgreSQL".equals(product))
+		{
+			LOGGER.info("Contractor rate overlaps are checked by the application on {}", product);
+			return;
+		}
+
+		try
+		{
+			final Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, CONSTRAINT_NAME.toLowerCase(Locale.ROOT));
+			if (existing == null || existing == 0)
+			{
+				jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+				jdbcTemplate.execute("ALTER TABLE contractor_rate ADD CONSTRAINT " + CONSTRAINT_NAME
+					+ " EXCLUDE USING gist (contractor_id WITH =, client_id WITH =, tstzrange(start_date_time, end_date_time, '[]') WITH &&)");
+			}
+			enforcedByDatabase = true;
+		} catch (DataAccessException e)
+		{
+			LOGGER.warn("Could not install {}, contractor rate overlaps are checked by the application", CONSTRAINT_NAME, e);
+		}
+	}
+
+	/**
+	 * Tells whether overlapping rates are rejected by the database itself.
+	 *
+	 * @return {@code true} if the exclusion constraint is in place
+	 */
+	public boolean isEnforcedByDatabase()
+	{
+		return enforcedByDatabase;
+	}
+
+	/**
+	 * Tells whether a failed write was rejected because the rate it stored overlapped with another one.
+	 *
+	 * @param exception the exception thrown by the write
+	 * @return {@code true} if the exclusion constraint caused the failure
+	 */
+	public boolean isViolatedBy(final DataAccessException exception)
+	{
+		for (Throwable cause = exception; cause != null; cause = cause.getCause())
+		{
+			if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION_SQL_STATE.equals(sqlException.getSQLState())
+				&& sqlException.getMessage() != null && sqlException.getMessage().toLowerCase(Locale.ROOT).contains(CONSTRAINT_NAME.toLowerCase(Locale.ROOT)))
+				return true;
+		}
+		return false;
+	}
+}
@@ -1,9 +1,11 @@
 package com.greenfieldcommerce.greenerp.contractors.rates.repositories;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -23,6 +25,21 @@ public interface ContractorRateRepository extends ListCrudRepository<ContractorR
 	@Query("SELECT r FROM #{#entityName} r WHERE r.contractor = :contractor AND r.client = :client AND (:excludeId IS NULL OR r.id <> :excludeId) AND r.startDateTime <= :endDateTime AND :startDateTime <= r.endDateTime")
 	List<ContractorRate> findRatesForContractorIdOverlappingWithPeriod(Contractor contractor, Client client, ZonedDateTime startDateTime, ZonedDateTime endDateTime, @Nullable Long excludeId);
 
+	@Query("SELECT r FROM #{#entityName} r WHERE r.contractor.id IN :contractorIds AND r.client.id IN :clientIds AND r.startDateTime <= :endDateTime AND :startDateTime <= r.endDateTime")
+	List<ContractorRate> findRatesForContractorsAndClientsOverlappingWithPeriod(Collection<Long> contractorIds, Collection<Long> clientIds, ZonedDateTime startDateTime, ZonedDateTime endDateTime);
+
+	@Query("SELECT r FROM #{#entityName} r WHERE r.contractor = :contractor AND r.startDateTime <= :instant AND r.endDateTime >= :instant ORDER BY r.startDateTime DESC")
+	List<ContractorRate> findRatesForContractorActiveAt(Contractor contractor, ZonedDateTime instant, Limit limit);
+
+	@Query("SELECT r FROM #{#entityName} r JOIN FETCH r.contractor JOIN FETCH r.client WHERE r.contractor.id IN :contractorIds AND r.startDateTime <= :instant AND r.endDateTime >= :instant ORDER BY r.startDateTime DESC")
+	List<ContractorRate> findRatesForContractorsActiveAt(Collection<Long> contractorIds, ZonedDateTime instant);
+
+	@Query("SELECT r FROM #{#entityName} r JOIN FETCH r.contractor JOIN FETCH r.client WHERE r.contractor.id IN :contractorIds ORDER BY r.endDateTime DESC")
+	List<ContractorRate> findRatesForContractors(Collection<Long> contractorIds);
+
+	@Query("SELECT r FROM #{#entityName} r WHERE r.contractor = :contractor AND r.client = :client AND r.startDateTime <= :instant AND r.endDateTime >= :instant")
+	Optional<ContractorRate> findRateForContractorAndClientActiveAt(Contractor contractor, Client client, ZonedDateTime instant);
+
 	void deleteByContractorIdAndId(Long contractorId, Long id);
 }
 
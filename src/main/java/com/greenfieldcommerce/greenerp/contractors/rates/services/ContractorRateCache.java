@@ -0,0 +1,213 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.services;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the rate timelines of recently used contractors in memory, one per client, so that finding the rate active
+ * at an instant or over a period is a lookup in a sorted map instead of a query.
+ * <p>
+ * The rates of a contractor, with their contractor and client, are loaded together with a single query on the first
+ * lookup, and are shared, detached, by later ones: callers must not modify them. Rates change a few times a year, so
+ * an entry is only dropped when one of the contractor's rates is written through {@link ContractorRateService},
+ * when it has not been used for long enough to be pushed out by {@code greenerp.contractor.rates.cache.maximum-size}
+ * other contractors, or once it is older than {@code greenerp.contractor.rates.cache.time-to-live}, which bounds how
+ * long changes made by other instances or outside the service go unnoticed.
+ * <p>
+ * The following meters are published:
+ * <ul>
+ * <li>{@code greenerp.contractor.rate.cache.lookups}: lookups answered from memory or needing a query, by {@code result}</li>
+ * <li>{@code greenerp.contractor.rate.cache.evictions}: entries dropped to stay within the maximum size</li>
+ * <li>{@code greenerp.contractor.rate.cache.size}: number of contractors whose rates are held</li>
+ * </ul>
+ */
+@Component
+public class ContractorRateCache
+{
+	public static final String LOOKUPS_METRIC_NAME = "greenerp.contractor.rate.cache.lookups";
+	public static final String EVICTIONS_METRIC_NAME = "greenerp.contractor.rate.cache.evictions";
+	public static final String SIZE_METRIC_NAME = "greenerp.contractor.rate.cache.size";
+
+	/**
+	 * The rate timelines of a contractor, by client ID, and when they were loaded, in {@link System#nanoTime()} units.
+	 */
+	private record ContractorRates(Map<Long, ContractorRateTimeline> timelinesByClient, long loadedAt) { }
+
+	private final ContractorRateRepository contractorRateRepository;
+	private final long timeToLive;
+	private final Map<Long, ContractorRates> entries;
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter evictions;
+
+	public ContractorRateCache(final ContractorRateRepository contractorRateRepository, final MeterRegistry meterRegistry,
+		@Value("${greenerp.contractor.rates.cache.maximum-size:10000}") final int maximumSize,
+		@Value("${greenerp.contractor.rates.cache.time-to-live:PT10M}") final Duration timeToLive)
+	{
+		this.contractorRateRepository = contractorRateRepository;
+		this.timeToLive = timeToLive.toNanos();
+		this.hits = lookupCounter(meterRegistry, "hit");
+		this.misses = lookupCounter(meterRegistry, "miss");
+		this.evictions = Counter.builder(EVICTIONS_METRIC_NAME).description("Contractor rate timelines dropped to stay within the maximum size").register(meterRegistry);
+		this.entries = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, ContractorRates> eldest)
+			{
+				final boolean full = size() > maximumSize;
+				if (full)
+					evictions.increment();
+				return full;
+			}
+		};
+		Gauge.builder(SIZE_METRIC_NAME, this, ContractorRateCache::size).description("Contractors whose rate timelines are held in memory").register(meterRegistry);
+	}
+
+	/**
+	 * Finds the rate of a contractor active at an instant, for any client. If rates for more than one client are
+	 * active, the most recently started one is returned.
+	 *
+	 * @param contractorId the ID of the contractor
+	 * @param instant the instant at which the rate must be active
+	 * @return the active rate, or empty if there is none
+	 */
+	Optional<ContractorRate> findActiveAt(final Long contractorId, final ZonedDateTime instant)
+	{
+		return timelinesOf(contractorId).values().stream().map(timeline -> timeline.findActiveAt(instant.toInstant())).flatMap(Optional::stream)
+			.max(Comparator.comparing(ContractorRate::getStartDateTime));
+	}
+
+	/**
+	 * Finds the rate of a contractor for a client active at an instant.
+	 *
+	 * @param contractorId the ID of the contractor
+	 * @param clientId the ID of the client the rate is billed to
+	 * @param instant the instant at which the rate must be active
+	 * @return the active rate, or empty if there is none
+	 */
+	Optional<ContractorRate> findActiveAt(final Long contractorId, final Long clientId, final ZonedDateTime instant)
+	{
+		return Optional.ofNullable(timelinesOf(contractorId).get(clientId)).flatMap(timeline -> timeline.findActiveAt(instant.toInstant()));
+	}
+
+	/**
+	 * Finds the rate of a contractor for a client overlapping with a period. If more than one does, the most recently
+	 * started one is returned.
+	 *
+	 * @param contractorId the ID of the contractor
+	 * @param clientId the ID of the client the rate is billed to
+	 * @param start the start of the period
+	 * @param end the end of the period
+	 * @return the overlapping rate, or empty if there is none
+	 */
+	Optional<ContractorRate> findOverlapping(final Long contractorId, final Long clientId, final ZonedDateTime start, final ZonedDateTime end)
+	{
+		return Optional.ofNullable(timelinesOf(contractorId).get(clientId)).flatMap(timeline -> timeline.findOverlapping(start.toInstant(), end.toInstant()));
+	}
+
+	/**
+	 * Drops the rates of a contractor, after one of them was created, changed or deleted.
+	 * <p>
+	 * Within a transaction, they are dropped again once it commits, so that lookups made in the meantime cannot
+	 * bring back the rates as they were before the change.
+	 *
+	 * @param contractorId the ID of the contractor
+	 */
+	void invalidate(final Long contractorId)
+	{
+		evict(contractorId);
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+			{
+				@Override
+				public void afterCompletion(final int status)
+				{
+					evict(contractorId);
+				}
+			});
+	}
+
+	/**
+	 * Returns the rate timelines of a contractor, loading them if they are not held or have expired.
+	 * <p>
+	 * Loaded timelines are only kept if no contractor was invalidated while they were being read, as they could
+	 * otherwise predate the change.
+	 *
+	 * @param contractorId the ID of the contractor
+	 * @return the rate timelines of the contractor, by client ID
+	 */
+	private Map<Long, ContractorRateTimeline> timelinesOf(final Long contractorId)
+	{
+		synchronized (entries)
+		{
+			final ContractorRates held = entries.get(contractorId);
+			if (held != null && System.nanoTime() - held.loadedAt() < timeToLive)
+			{
+				hits.increment();
+				return held.timelinesByClient();
+			}
+		}
+
+		misses.increment();
+		final long invalidationsBeforeLoading = invalidations.get();
+		final ContractorRates loaded = new ContractorRates(load(contractorId), System.nanoTime());
+		synchronized (entries)
+		{
+			if (invalidations.get() == invalidationsBeforeLoading)
+				entries.put(contractorId, loaded);
+		}
+		return loaded.timelinesByClient();
+	}
+
+	private Map<Long, ContractorRateTimeline> load(final Long contractorId)
+	{
+		final List<ContractorRate> rates = contractorRateRepository.findRatesForContractors(List.of(contractorId));
+		final Map<Long, ContractorRateTimeline> timelines = new HashMap<>();
+		rates.forEach(rate -> timelines.computeIfAbsent(rate.getClient().getId(), clientId -> new ContractorRateTimeline()).add(rate));
+		return timelines;
+	}
+
+	private void evict(final Long contractorId)
+	{
+		synchronized (entries)
+		{
+			invalidations.incrementAndGet();
+			entries.remove(contractorId);
+		}
+	}
+
+	private int size()
+	{
+		synchronized (entries)
+		{
+			return entries.size();
+		}
+	}
+
+	private static Counter lookupCounter(final MeterRegistry meterRegistry, final String result)
+	{
+		return Counter.builder(LOOKUPS_METRIC_NAME).description("Contractor rate lookups answered from memory (hit) or needing a query (miss)").tag("result", result)
+			.register(meterRegistry);
+	}
+}
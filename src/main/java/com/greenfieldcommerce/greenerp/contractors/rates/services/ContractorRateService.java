@@ -1,11 +1,15 @@
 package com.greenfieldcommerce.greenerp.contractors.rates.services;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
 import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.BatchContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateImportResultRecord;
 import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateRecord;
 import com.greenfieldcommerce.greenerp.contractors.rates.records.CreateContractorRateRecord;
 import com.greenfieldcommerce.greenerp.services.EntityService;
@@ -13,10 +17,15 @@ import com.greenfieldcommerce.greenerp.services.EntityService;
 public interface ContractorRateService extends EntityService<ContractorRate, Long>
 {
 	List<ContractorRateRecord> findRatesForContractor(Long contractorId);
+	Map<Long, List<ContractorRateRecord>> findRatesForContractors(Collection<Long> contractorIds);
+	Map<Long, ContractorRateRecord> findCurrentRatesForContractors(Collection<Long> contractorIds);
 	ContractorRateRecord findByIdAndContractorId(Long rateId, Long contractorId);
 	ContractorRateRecord create(Long contractorId, final CreateContractorRateRecord record);
+	ContractorRateImportResultRecord importRates(List<BatchContractorRateRecord> records);
 	ContractorRateRecord changeEndDateTime(Long contractorId, Long rateId, ZonedDateTime newEndDateTime);
 	ContractorRate findCurrentRateForContractor(Contractor contractor);
+	ContractorRate findRateForContractorActiveAt(Contractor contractor, ZonedDateTime instant);
+	ContractorRate findRateForContractorActiveAt(Contractor contractor, Client client, ZonedDateTime instant);
 	ContractorRate findRateForContractorActiveOnAPeriod(Contractor contractor, Client client, ZonedDateTime start, ZonedDateTime end);
 	void delete(Long contractorId, Long rateId);
 }
@@ -1,9 +1,19 @@
 package com.greenfieldcommerce.greenerp.contractors.rates.services;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
@@ -14,12 +24,18 @@ import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
 import com.greenfieldcommerce.greenerp.exceptions.NoActiveContractorRateException;
 import com.greenfieldcommerce.greenerp.exceptions.OverlappingContractorRateException;
 import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.BatchContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateImportResultRecord;
 import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateRecord;
 import com.greenfieldcommerce.greenerp.contractors.rates.records.CreateContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.RejectedContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateOverlapConstraint;
 import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
 import com.greenfieldcommerce.greenerp.contractors.services.ContractorService;
 import com.greenfieldcommerce.greenerp.services.BaseEntityService;
+import com.greenfieldcommerce.greenerp.services.TimeService;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.annotation.Nullable;
 import jakarta.transaction.Transactional;
 
@@ -30,28 +46,45 @@ import jakarta.transaction.Transactional;
  * <ul>
  * <li>Creation and modification of contractor rates</li>
  * <li>Retrieval of rates for specific contractors</li>
+ * <li>Bulk import of contractor rates</li>
  * <li>Validation to prevent overlapping rate periods</li>
  * <li>Finding the current active rate for a contractor</li>
  * <li>Deletion of contractor rates</li>
  * </ul>
+ * The latency of rate lookups and writes is recorded in the {@value #OPERATION_TIMER} timer, tagged by {@code operation}.
+ * Lookups of the rate active at an instant or over a period are answered by a {@link ContractorRateCache}, which every
+ * write made here invalidates.
  */
 @Service
 public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate, Long> implements ContractorRateService
 {
+	public static final String OPERATION_TIMER = "greenerp.contractor.rate.operation";
+
 	private final ContractorService contractorService;
 	private final ClientService clientService;
 	private final ContractorRateRepository contractorRateRepository;
+	private final ContractorRateOverlapConstraint overlapConstraint;
 	private final Mapper<ContractorRate, ContractorRateRecord> contractorRateToRecordMapper;
+	private final ContractorRateCache contractorRateCache;
 
-	public ContractorRateServiceImpl(final ContractorService contractorService, final ClientService clientService, final ContractorRateRepository contractorRateRepository, final Mapper<ContractorRate, ContractorRateRecord> contractorRateToRecordMapper)
+	public ContractorRateServiceImpl(final ContractorService contractorService, final ClientService clientService, final ContractorRateRepository contractorRateRepository,
+		final ContractorRateOverlapConstraint overlapConstraint, final Mapper<ContractorRate, ContractorRateRecord> contractorRateToRecordMapper,
+		final ContractorRateCache contractorRateCache)
 	{
 		super(contractorRateRepository, ContractorRate.class);
 		this.contractorService = contractorService;
 		this.clientService = clientService;
 		this.contractorRateRepository = contractorRateRepository;
+		this.overlapConstraint = overlapConstraint;
 		this.contractorRateToRecordMapper = contractorRateToRecordMapper;
+		this.contractorRateCache = contractorRateCache;
 	}
 
+	/**
+	 * Identifies the rate timeline of a contractor for one client.
+	 */
+	private record ContractorClientPair(Long contractorId, Long clientId) { }
+
 	/**
 	 * Retrieves all rates for a specific contractor, ordered by end date (descending).
 	 *
@@ -65,6 +98,35 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 		return rates.stream().map(contractorRateToRecordMapper::map).toList();
 	}
 
+	/**
+	 * Retrieves all rates of many contractors with a single query, ordered by end date (descending).
+	 *
+	 * @param contractorIds the IDs of the contractors
+	 * @return the {@code ContractorRateRecord} objects of each contractor, by contractor ID; contractors without rates are left out
+	 */
+	@Override
+	public Map<Long, List<ContractorRateRecord>> findRatesForContractors(final Collection<Long> contractorIds)
+	{
+		return contractorRateRepository.findRatesForContractors(contractorIds).stream().map(contractorRateToRecordMapper::map)
+			.collect(Collectors.groupingBy(ContractorRateRecord::contractorId, LinkedHashMap::new, Collectors.toList()));
+	}
+
+	/**
+	 * Finds the current rate of many contractors with a single query.
+	 * <p>
+	 * As in {@link #findRateForContractorActiveAt(Contractor, ZonedDateTime)}, a contractor with active rates for
+	 * more than one client gets the most recently started one.
+	 *
+	 * @param contractorIds the IDs of the contractors
+	 * @return the current {@code ContractorRateRecord} of each contractor, by contractor ID; contractors without an active rate are left out
+	 */
+	@Override
+	public Map<Long, ContractorRateRecord> findCurrentRatesForContractors(final Collection<Long> contractorIds)
+	{
+		return contractorRateRepository.findRatesForContractorsActiveAt(contractorIds, TimeService.now()).stream().map(contractorRateToRecordMapper::map)
+			.collect(Collectors.toMap(ContractorRateRecord::contractorId, Function.identity(), (mostRecentlyStarted, other) -> mostRecentlyStarted));
+	}
+
 	/**
 	 * Finds a specific contractor rate by rate ID and contractor ID.
 	 *
@@ -82,8 +144,9 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 	/**
 	 * Creates a new contractor rate for the specified contractor.
 	 * <p>
-	 * This method validates that the new rate period does not overlap with any existing
-	 * rate periods for the same contractor before creating the rate.
+	 * The new rate period must not overlap with any existing rate period of the contractor for the same client.
+	 * Where the database enforces this with an exclusion constraint, the violation is translated instead of
+	 * looking for overlapping rates beforehand.
 	 *
 	 * @param contractorId the ID of the contractor
 	 * @param record the record containing rate details (clientId, rate amount, currency, start/end dates)
@@ -92,6 +155,7 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 	 * @throws OverlappingContractorRateException if the rate period overlaps with existing rates
 	 */
 	@Override
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "create" }, histogram = true)
 	public ContractorRateRecord create(final Long contractorId, final CreateContractorRateRecord record)
 	{
 		final Contractor contractor = contractorService.findEntityById(contractorId);
@@ -100,14 +164,70 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 		validateIfNotOverlapping(contractor, client, record.startDateTime(), record.endDateTime(), null);
 		final ContractorRate rate =
 			ContractorRate.create(contractor, client, record.rate(), record.externalRate(), record.taxDeduction(), record.currency(), record.startDateTime(), record.endDateTime());
-		return contractorRateToRecordMapper.map(contractorRateRepository.save(rate));
+		final ContractorRateRecord created = contractorRateToRecordMapper.map(saveWithoutOverlapping(rate));
+		contractorRateCache.invalidate(contractorId);
+		return created;
+	}
+
+	/**
+	 * Imports many contractor rates at once, creating every valid one and reporting why the others were rejected.
+	 * <p>
+	 * Contractors, clients and the existing rates the new ones could overlap with are each loaded with a single query.
+	 * Overlaps, both with existing rates and between the imported rows, are then checked in memory, in row order, so
+	 * that of two overlapping rows the first one is kept. The accepted rates are inserted together, in JDBC batches.
+	 *
+	 * @param records the rates to import, each with the ID of its contractor
+	 * @return the created rates, and the rejected rows identified by their position in {@code records}
+	 */
+	@Override
+	@Transactional
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "import" }, histogram = true)
+	public ContractorRateImportResultRecord importRates(final List<BatchContractorRateRecord> records)
+	{
+		final Map<Long, Contractor> contractors = contractorService.findEntitiesByIds(records.stream().map(BatchContractorRateRecord::contractorId).collect(Collectors.toSet()))
+			.stream().collect(Collectors.toMap(Contractor::getId, Function.identity()));
+		final Map<Long, Client> clients = clientService.findEntitiesByIds(records.stream().map(record -> record.rate().clientId()).collect(Collectors.toSet()))
+			.stream().collect(Collectors.toMap(Client::getId, Function.identity()));
+		final Map<ContractorClientPair, ContractorRateTimeline> timelines = loadTimelines(records, contractors.keySet(), clients.keySet());
+
+		final List<ContractorRate> accepted = new ArrayList<>();
+		final List<RejectedContractorRateRecord> rejected = new ArrayList<>();
+		for (int index = 0; index < records.size(); index++)
+		{
+			final BatchContractorRateRecord record = records.get(index);
+			final CreateContractorRateRecord rate = record.rate();
+			final Contractor contractor = contractors.get(record.contractorId());
+			final Client client = clients.get(rate.clientId());
+
+			if (contractor == null)
+				rejected.add(rejection(index, record, "CONTRACTOR_NOT_FOUND", String.format("Contractor with id '%s' not found", record.contractorId())));
+			else if (client == null)
+				rejected.add(rejection(index, record, "CLIENT_NOT_FOUND", String.format("Client with id '%s' not found", rate.clientId())));
+			else if (rate.endDateTime().isBefore(rate.startDateTime()))
+				rejected.add(rejection(index, record, "INVALID_RATE_PERIOD", "Rates cannot end before they start"));
+			else
+			{
+				final ContractorRateTimeline timeline = timelines.computeIfAbsent(new ContractorClientPair(contractor.getId(), client.getId()), pair -> new ContractorRateTimeline());
+				if (timeline.overlaps(rate.startDateTime(), rate.endDateTime()))
+					rejected.add(rejection(index, record, "OVERLAPPING_RATE", "Overlapping contractor rates are not allowed"));
+				else
+				{
+					timeline.add(rate.startDateTime(), rate.endDateTime());
+					accepted.add(ContractorRate.create(contractor, client, rate.rate(), rate.externalRate(), rate.taxDeduction(), rate.currency(), rate.startDateTime(), rate.endDateTime()));
+				}
+			}
+		}
+
+		final List<ContractorRateRecord> created = contractorRateRepository.saveAll(accepted).stream().map(contractorRateToRecordMapper::map).toList();
+		created.stream().map(ContractorRateRecord::contractorId).distinct().forEach(contractorRateCache::invalidate);
+		return new ContractorRateImportResultRecord(created, rejected);
 	}
 
 	/**
 	 * Changes the end date/time of an existing contractor rate.
 	 * <p>
-	 * This method validates that the modified rate period does not overlap with any other
-	 * existing rate periods for the same contractor.
+	 * The modified rate period must not overlap with any other rate period of the contractor for the same client,
+	 * which is checked the same way as in {@link #create(Long, CreateContractorRateRecord)}.
 	 *
 	 * @param contractorId the ID of the contractor
 	 * @param rateId the ID of the rate to modify
@@ -123,7 +243,9 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 		validateIfNotOverlapping(contractorRate.getContractor(), contractorRate.getClient(), contractorRate.getStartDateTime(), newEndDateTimeRecord, contractorRate.getId());
 
 		contractorRate.setEndDateTime(newEndDateTimeRecord);
-		return contractorRateToRecordMapper.map(contractorRateRepository.save(contractorRate));
+		final ContractorRateRecord changed = contractorRateToRecordMapper.map(saveWithoutOverlapping(contractorRate));
+		contractorRateCache.invalidate(contractorId);
+		return changed;
 	}
 
 	/**
@@ -134,15 +256,61 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 	 * @throws NoActiveContractorRateException if no active rate exists for the contractor
 	 */
 	@Override
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "current-rate-lookup" }, histogram = true)
 	public ContractorRate findCurrentRateForContractor(final Contractor contractor)
 	{
-		return contractor.getCurrentRate().orElseThrow(() -> new NoActiveContractorRateException("NO_ACTIVE_RATE", String.format("No active rate for %s", contractor.getName())));
+		return findRateForContractorActiveAt(contractor, TimeService.now());
+	}
+
+	/**
+	 * Finds the rate of a contractor that is active at a given instant, for any client.
+	 * <p>
+	 * The rate is looked up in the contractor's cached rate timelines. If the contractor has active rates for more than one client, the most recently started one is returned.
+	 *
+	 * @param contractor the contractor entity
+	 * @param instant the instant at which the rate must be active
+	 * @return the {@code ContractorRate} entity active at the given instant
+	 * @throws NoActiveContractorRateException if no rate is active for the contractor at the given instant
+	 */
+	@Override
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "rate-lookup" }, histogram = true)
+	public ContractorRate findRateForContractorActiveAt(final Contractor contractor, final ZonedDateTime instant)
+	{
+		return contractorRateCache.findActiveAt(contractor.getId(), instant).orElseThrow(() -> noActiveRateException(contractor));
 	}
 
+	/**
+	 * Finds the rate of a contractor for a specific client that is active at a given instant.
+	 *
+	 * @param contractor the contractor entity
+	 * @param client the client the rate is billed to
+	 * @param instant the instant at which the rate must be active
+	 * @return the {@code ContractorRate} entity active at the given instant
+	 * @throws NoActiveContractorRateException if no rate is active for the contractor and client at the given instant
+	 */
 	@Override
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "rate-lookup" }, histogram = true)
+	public ContractorRate findRateForContractorActiveAt(final Contractor contractor, final Client client, final ZonedDateTime instant)
+	{
+		return contractorRateCache.findActiveAt(contractor.getId(), client.getId(), instant).orElseThrow(() -> noActiveRateException(contractor));
+	}
+
+	/**
+	 * Finds the rate of a contractor for a specific client that is active at some point of a period.
+	 * If more than one is, the most recently started one is returned.
+	 *
+	 * @param contractor the contractor entity
+	 * @param client the client the rate is billed to
+	 * @param start the start of the period
+	 * @param end the end of the period
+	 * @return the {@code ContractorRate} entity overlapping with the period
+	 * @throws NoActiveContractorRateException if no rate of the contractor for the client overlaps with the period
+	 */
+	@Override
+	@Timed(value = OPERATION_TIMER, extraTags = { "operation", "period-rate-lookup" }, histogram = true)
 	public ContractorRate findRateForContractorActiveOnAPeriod(final Contractor contractor, final Client client, final ZonedDateTime start, final ZonedDateTime end)
 	{
-		return contractorRateRepository.findRatesForContractorIdOverlappingWithPeriod(contractor, client, start, end, null).stream().findFirst().orElseThrow(() -> new NoActiveContractorRateException("NO_ACTIVE_RATE", String.format("No active rate for %s", contractor.getName())));
+		return contractorRateCache.findOverlapping(contractor.getId(), client.getId(), start, end).orElseThrow(() -> noActiveRateException(contractor));
 	}
 
 	/**
@@ -156,6 +324,7 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 	public void delete(final Long contractorId, final Long rateId)
 	{
 		contractorRateRepository.deleteByContractorIdAndId(contractorId, rateId);
+		contractorRateCache.invalidate(contractorId);
 	}
 
 	/**
@@ -173,6 +342,8 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 
 	/**
 	 * Validates that a rate period does not overlap with existing rate periods for the contractor, for the same client
+	 * <p>
+	 * Skipped when the database enforces it, as the check would cost a query and still race with concurrent writes.
 	 *
 	 * @param contractor the contractor entity
 	 * @param client the client associated with the rate
@@ -183,8 +354,94 @@ public class ContractorRateServiceImpl extends BaseEntityService<ContractorRate,
 	 */
 	private void validateIfNotOverlapping(final Contractor contractor, final Client client, final ZonedDateTime startDateTime, final ZonedDateTime endDateTime, @Nullable final Long excludeId)
 	{
+		if (overlapConstraint.isEnforcedByDatabase())
+			return;
+
 		final List<ContractorRate> overlapping = contractorRateRepository.findRatesForContractorIdOverlappingWithPeriod(contractor, client, startDateTime, endDateTime, excludeId);
 		if (CollectionUtils.isNotEmpty(overlapping))
-			throw new OverlappingContractorRateException("OVERLAPPING_RATE", "Overlapping contractor rates are not allowed");
+			throw overlappingRateException();
+	}
+
+	/**
+	 * Saves a rate, translating a violation of the database's overlap constraint.
+	 * <p>
+	 * The save commits on its own, so the constraint is checked before this method returns.
+	 *
+	 * @param rate the rate to save
+	 * @return the saved {@code ContractorRate} entity
+	 * @throws OverlappingContractorRateException if the database rejected the rate as overlapping with another one
+	 */
+	private ContractorRate saveWithoutOverlapping(final ContractorRate rate)
+	{
+		try
+		{
+			return contractorRateRepository.save(rate);
+		} catch (DataIntegrityViolationException e)
+		{
+			if (overlapConstraint.isViolatedBy(e))
+				throw overlappingRateException();
+			throw e;
+		}
+	}
+
+	/**
+	 * Loads, with a single query, the existing rates that could overlap with the imported ones, and groups them
+	 * into one timeline per contractor and client.
+	 *
+	 * @param records the rates being imported
+	 * @param contractorIds the IDs of the existing contractors referenced by {@code records}
+	 * @param clientIds the IDs of the existing clients referenced by {@code records}
+	 * @return the timelines of existing rates, by contractor and client
+	 */
+	private Map<ContractorClientPair, ContractorRateTimeline> loadTimelines(final List<BatchContractorRateRecord> records, final Set<Long> contractorIds, final Set<Long> clientIds)
+	{
+		final Map<ContractorClientPair, ContractorRateTimeline> timelines = new HashMap<>();
+		final List<CreateContractorRateRecord> rates = records.stream().filter(record -> contractorIds.contains(record.contractorId()) && clientIds.contains(record.rate().clientId()))
+			.map(BatchContractorRateRecord::rate).toList();
+		if (rates.isEmpty())
+			return timelines;
+
+		final ZonedDateTime earliestStart = rates.stream().map(CreateContractorRateRecord::startDateTime).min(Comparator.naturalOrder()).orElseThrow();
+		final ZonedDateTime latestEnd = rates.stream().map(CreateContractorRateRecord::endDateTime).max(Comparator.naturalOrder()).orElseThrow();
+		final Collection<ContractorRate> existingRates = contractorRateRepository.findRatesForContractorsAndClientsOverlappingWithPeriod(contractorIds, clientIds, earliestStart, latestEnd);
+
+		existingRates.forEach(rate -> timelines.computeIfAbsent(new ContractorClientPair(rate.getContractor().getId(), rate.getClient().getId()), pair -> new ContractorRateTimeline())
+			.add(rate.getStartDateTime(), rate.getEndDateTime()));
+		return timelines;
+	}
+
+	/**
+	 * Describes why a row of a rate import was rejected.
+	 *
+	 * @param index the position of the row in the import
+	 * @param record the rejected row
+	 * @param code the error code
+	 * @param message the human-readable reason
+	 * @return a {@code RejectedContractorRateRecord} for the row
+	 */
+	private static RejectedContractorRateRecord rejection(final int index, final BatchContractorRateRecord record, final String code, final String message)
+	{
+		return new RejectedContractorRateRecord(index, record.contractorId(), record.rate().clientId(), code, message);
+	}
+
+	/**
+	 * Builds the exception thrown when a rate would overlap with another rate of the same contractor and client.
+	 *
+	 * @return an {@code OverlappingContractorRateException}
+	 */
+	private static OverlappingContractorRateException overlappingRateException()
+	{
+		return new OverlappingContractorRateException("OVERLAPPING_RATE", "Overlapping contractor rates are not allowed");
+	}
+
+	/**
+	 * Builds the exception thrown when a contractor has no rate active at the requested moment or period.
+	 *
+	 * @param contractor the contractor without an active rate
+	 * @return a {@code NoActiveContractorRateException} describing the contractor
+	 */
+	private static NoActiveContractorRateException noActiveRateException(final Contractor contractor)
+	{
+		return new NoActiveContractorRateException("NO_ACTIVE_RATE", String.format("No active rate for %s", contractor.getName()));
 	}
 }
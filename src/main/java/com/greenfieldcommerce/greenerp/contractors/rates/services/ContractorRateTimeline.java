@@ -0,0 +1,76 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.services;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The rate periods of a single contractor and client, kept sorted by start so that overlap checks and lookups of
+ * the rate active at a given instant take logarithmic time instead of a query or a scan.
+ * <p>
+ * Periods are expected not to overlap each other, which is what rate validation guarantees: the period with
+ * the latest start before a candidate's end is then the only one that can overlap it.
+ */
+class ContractorRateTimeline
+{
+	/**
+	 * End of a period, with the rate it was taken from, if any.
+	 */
+	private record Period(Instant end, @Nullable ContractorRate rate) { }
+
+	private final NavigableMap<Instant, Period> periods = new TreeMap<>();
+
+	boolean overlaps(final ZonedDateTime startDateTime, final ZonedDateTime endDateTime)
+	{
+		return findLatestOverlapping(startDateTime.toInstant(), endDateTime.toInstant()) != null;
+	}
+
+	void add(final ZonedDateTime startDateTime, final ZonedDateTime endDateTime)
+	{
+		periods.merge(startDateTime.toInstant(), new Period(endDateTime.toInstant(), null), (current, candidate) -> current.end().isAfter(candidate.end()) ? current : candidate);
+	}
+
+	void add(final ContractorRate rate)
+	{
+		periods.put(rate.getStartDateTime().toInstant(), new Period(rate.getEndDateTime().toInstant(), rate));
+	}
+
+	/**
+	 * Finds the rate active at an instant, start and end included.
+	 *
+	 * @param instant the instant at which the rate must be active
+	 * @return the active rate, or empty if no rate, or only a bare period, covers the instant
+	 */
+	Optional<ContractorRate> findActiveAt(final Instant instant)
+	{
+		return findOverlapping(instant, instant);
+	}
+
+	/**
+	 * Finds the rate overlapping with a period, start and end included. If more than one does, the latest
+	 * started one is returned.
+	 *
+	 * @param start the start of the period
+	 * @param end the end of the period
+	 * @return the overlapping rate, or empty if no rate, or only a bare period, overlaps with the period
+	 */
+	Optional<ContractorRate> findOverlapping(final Instant start, final Instant end)
+	{
+		final Map.Entry<Instant, Period> overlapping = findLatestOverlapping(start, end);
+		return overlapping == null ? Optional.empty() : Optional.ofNullable(overlapping.getValue().rate());
+	}
+
+	@Nullable
+	private Map.Entry<Instant, Period> findLatestOverlapping(final Instant start, final Instant end)
+	{
+		final Map.Entry<Instant, Period> latestStartingBeforeEnd = periods.floorEntry(end);
+		return latestStartingBeforeEnd != null && !latestStartingBeforeEnd.getValue().end().isBefore(start) ? latestStartingBeforeEnd : null;
+	}
+}
@@ -1,7 +0,0 @@
-package com.greenfieldcommerce.greenerp.contractors.records;
-
-import java.util.List;
-
-public record ContractorCollectionRecord(List<ContractorRecord> contractors)
-{
-}
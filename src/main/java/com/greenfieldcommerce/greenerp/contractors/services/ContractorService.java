@@ -1,7 +1,12 @@
 package com.greenfieldcommerce.greenerp.contractors.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
 import com.greenfieldcommerce.greenerp.contractors.records.ContractorRecord;
 import com.greenfieldcommerce.greenerp.contractors.records.CreateContractorRecord;
@@ -9,8 +14,11 @@ import com.greenfieldcommerce.greenerp.services.EntityService;
 
 public interface ContractorService extends EntityService<Contractor, Long>
 {
-	List<ContractorRecord> findAll();
+	Page<ContractorRecord> search(String prefix, Pageable pageable);
+	void exportAll(OutputStream outputStream) throws IOException;
 	ContractorRecord findById(Long id);
+	ContractorRecord findSummaryById(Long id);
+	List<ContractorRecord> findSummaries(Pageable pageable);
 	ContractorRecord create(CreateContractorRecord record);
 	ContractorRecord update(Long id, CreateContractorRecord record);
 	Contractor findEntityById(Long id);
@@ -1,9 +1,20 @@
 package com.greenfieldcommerce.greenerp.contractors.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
 import com.greenfieldcommerce.greenerp.exceptions.DuplicateContractorException;
@@ -12,6 +23,10 @@ import com.greenfieldcommerce.greenerp.contractors.records.ContractorRecord;
 import com.greenfieldcommerce.greenerp.contractors.records.CreateContractorRecord;
 import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
 import com.greenfieldcommerce.greenerp.services.BaseEntityService;
+import com.greenfieldcommerce.greenerp.services.NdjsonWriter;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
 
 /**
  * Implementation of {@link ContractorService} for managing contractors.
@@ -19,34 +34,74 @@ import com.greenfieldcommerce.greenerp.services.BaseEntityService;
  * This service handles:
  * <ul>
  * <li>Creation of new contractors with duplicate email validation</li>
- * <li>Retrieval of contractors (all or by ID)</li>
+ * <li>Retrieval of contractors (by page, optionally searched by name or email prefix, or by ID)</li>
+ * <li>Export of every contractor, as a stream</li>
  * <li>Updating existing contractor information</li>
  * </ul>
  */
 @Service
 public class ContractorServiceImpl extends BaseEntityService<Contractor, Long> implements ContractorService
 {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContractorServiceImpl.class);
+
 	private final ContractorRepository contractorRepository;
 	private final Mapper<CreateContractorRecord, Contractor> createContractorMapper;
 	private final Mapper<Contractor, ContractorRecord> contractorToRecordMapper;
+	private final EntityManager entityManager;
+	private final ObjectMapper objectMapper;
 
-	public ContractorServiceImpl(final ContractorRepository contractorRepository, final Mapper<CreateContractorRecord, Contractor> createContractorMapper, final Mapper<Contractor, ContractorRecord> contractorToRecordMapper)
+	public ContractorServiceImpl(final ContractorRepository contractorRepository, final Mapper<CreateContractorRecord, Contractor> createContractorMapper, final Mapper<Contractor, ContractorRecord> contractorToRecordMapper,
+		final EntityManager entityManager, final ObjectMapper objectMapper)
 	{
 		super(contractorRepository, Contractor.class);
 		this.contractorRepository = contractorRepository;
 		this.createContractorMapper = createContractorMapper;
 		this.contractorToRecordMapper = contractorToRecordMapper;
+		this.entityManager = entityManager;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Retrieves a page of contractors, optionally only those whose name or email starts with a prefix, ignoring case.
+	 * <p>
+	 * On PostgreSQL, the prefix search is served by trigram indexes on the upper-cased name and email, see
+	 * {@link com.greenfieldcommerce.greenerp.config.DirectorySearchIndexes}.
+	 *
+	 * @param prefix   the prefix of the name or email to look for, or {@code null} or blank for every contractor
+	 * @param pageable the pagination information (i.e., page number, size, and sorting)
+	 * @return a {@code Page} of {@code ContractorRecord} with the current rate of each contractor
+	 */
+	@Override
+	public Page<ContractorRecord> search(@Nullable final String prefix, final Pageable pageable)
+	{
+		final Page<Contractor> contractors = StringUtils.hasText(prefix)
+			? contractorRepository.findByNameStartingWithIgnoreCaseOrEmailStartingWithIgnoreCase(prefix.trim(), prefix.trim(), pageable)
+			: contractorRepository.findAll(pageable);
+		return contractors.map(contractorToRecordMapper::map);
 	}
 
 	/**
-	 * Retrieves all contractors in the system.
+	 * Writes every contractor, by ascending ID, as newline-delimited JSON, without their current rates.
+	 * <p>
+	 * Contractors are read with a forward-only cursor and let go of as soon as they are written, so the export runs in
+	 * constant memory whatever the number of contractors. The transaction keeps the cursor open for as long as the
+	 * export is being written.
 	 *
-	 * @return a list of {@code ContractorRecord} objects representing all contractors
+	 * @param outputStream the output to write to
+	 * @throws IOException if the output cannot be written to
 	 */
 	@Override
-	public List<ContractorRecord> findAll()
+	@Transactional
+	public void exportAll(final OutputStream outputStream) throws IOException
 	{
-		return contractorRepository.findAll().stream().map(contractorToRecordMapper::map).toList();
+		try (final Stream<Contractor> contractors = contractorRepository.streamAllByOrderByIdAsc())
+		{
+			final long exported = NdjsonWriter.write(contractors.map(contractor -> {
+				entityManager.detach(contractor);
+				return toSummary(contractor);
+			}), objectMapper, outputStream);
+			LOGGER.info("Exported {} contractors", exported);
+		}
 	}
 
 	/**
@@ -62,6 +117,36 @@ public class ContractorServiceImpl extends BaseEntityService<Contractor, Long> i
 		return contractorToRecordMapper.map(findEntityById(id));
 	}
 
+	/**
+	 * Finds a contractor by their unique ID, without resolving their current rate.
+	 * <p>
+	 * Meant for callers that load the rates of many contractors at once, such as the GraphQL API.
+	 *
+	 * @param id the ID of the contractor
+	 * @return a {@code ContractorRecord} representing the found contractor, with no current rate
+	 * @throws com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException if the contractor with the given ID is not found
+	 */
+	@Override
+	public ContractorRecord findSummaryById(final Long id)
+	{
+		return toSummary(findEntityById(id));
+	}
+
+	/**
+	 * Retrieves a page of contractors with a single query, without resolving their current rates nor counting the
+	 * contractors.
+	 * <p>
+	 * Meant for callers that load the rates of many contractors at once, such as the GraphQL API.
+	 *
+	 * @param pageable the pagination information (i.e., page number, size, and sorting)
+	 * @return a list of {@code ContractorRecord} objects representing the contractors of the page, with no current rate
+	 */
+	@Override
+	public List<ContractorRecord> findSummaries(final Pageable pageable)
+	{
+		return contractorRepository.findAllBy(pageable).stream().map(ContractorServiceImpl::toSummary).toList();
+	}
+
 	/**
 	 * Creates a new contractor with the provided information.
 	 * <p>
@@ -103,4 +188,9 @@ public class ContractorServiceImpl extends BaseEntityService<Contractor, Long> i
 
 		return contractorToRecordMapper.map(contractorRepository.save(contractor));
 	}
+
+	private static ContractorRecord toSummary(final Contractor contractor)
+	{
+		return new ContractorRecord(contractor.getId(), contractor.getEmail(), contractor.getName(), null);
+	}
 }
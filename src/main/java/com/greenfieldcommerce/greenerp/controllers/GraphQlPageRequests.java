@@ -0,0 +1,29 @@
+package com.greenfieldcommerce.greenerp.controllers;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Builds the page requests of GraphQL listings from their {@code page} and {@code size} arguments, bounded like the
+ * pages of the REST directories: a listing never returns more than {@link #MAX_SIZE} rows at once, and a full dump
+ * goes through the NDJSON export instead.
+ */
+public final class GraphQlPageRequests
+{
+	public static final int MAX_SIZE = 100;
+
+	private GraphQlPageRequests()
+	{
+	}
+
+	/**
+	 * @param page the zero-based page number, negative numbers reading the first page
+	 * @param size the number of rows of the page, between 1 and {@link #MAX_SIZE}
+	 * @param sort the order of the listing
+	 * @return the page request
+	 */
+	public static PageRequest of(final int page, final int size, final Sort sort)
+	{
+		return PageRequest.of(Math.max(page, 0), Math.clamp(size, 1, MAX_SIZE), sort);
+	}
+}
@@ -0,0 +1,9 @@
+package com.greenfieldcommerce.greenerp.exceptions;
+
+public class InvalidCursorException extends BusinessException
+{
+	public InvalidCursorException(String code, String message)
+	{
+		super(code, message);
+	}
+}
@@ -0,0 +1,9 @@
+package com.greenfieldcommerce.greenerp.exceptions;
+
+public class InvalidDateRangeException extends BusinessException
+{
+	public InvalidDateRangeException(String code, String message)
+	{
+		super(code, message);
+	}
+}
@@ -0,0 +1,6 @@
+package com.greenfieldcommerce.greenerp.exceptions;
+
+public class MissingExchangeRateException extends BusinessException
+{
+	public MissingExchangeRateException(String code, String message) { super(code, message); }
+}
@@ -0,0 +1,42 @@
+package com.greenfieldcommerce.greenerp.exchangerates.controllers;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.greenfieldcommerce.greenerp.exchangerates.records.ExchangeRateCollectionRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.records.ExchangeRateImportRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateService;
+import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping(value = "/exchange-rates", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ExchangeRatesController
+{
+	private final ExchangeRateService exchangeRateService;
+
+	public ExchangeRatesController(final ExchangeRateService exchangeRateService)
+	{
+		this.exchangeRateService = exchangeRateService;
+	}
+
+	@GetMapping
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public ExchangeRateCollectionRecord findExchangeRates()
+	{
+		return new ExchangeRateCollectionRecord(exchangeRateService.findAll());
+	}
+
+	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize(AuthenticationConstraint.ALLOW_ADMIN_ONLY)
+	public ExchangeRateCollectionRecord importExchangeRates(@Valid @RequestBody ExchangeRateImportRecord record)
+	{
+		return new ExchangeRateCollectionRecord(exchangeRateService.importRates(record.rates()));
+	}
+}
@@ -0,0 +1,88 @@
+package com.greenfieldcommerce.greenerp.exchangerates.entities;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * How many units of {@code targetCurrency} one unit of {@code sourceCurrency} is worth, from {@code effectiveDate}
+ * until the effective date of the next rate of the same currency pair.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "UniqueExchangeRatePerDay", columnNames = { "sourceCurrency", "targetCurrency", "effectiveDate" }))
+public class ExchangeRate
+{
+	public static final int RATE_PRECISION = 19;
+	public static final int RATE_SCALE = 8;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	@Column(nullable = false)
+	private Currency sourceCurrency;
+
+	@Column(nullable = false)
+	private Currency targetCurrency;
+
+	@Column(nullable = false)
+	private LocalDate effectiveDate;
+
+	@Column(nullable = false, precision = RATE_PRECISION, scale = RATE_SCALE)
+	private BigDecimal rate;
+
+	protected ExchangeRate()
+	{
+	}
+
+	private ExchangeRate(final Currency sourceCurrency, final Currency targetCurrency, final LocalDate effectiveDate, final BigDecimal rate)
+	{
+		this.sourceCurrency = sourceCurrency;
+		this.targetCurrency = targetCurrency;
+		this.effectiveDate = effectiveDate;
+		this.rate = rate;
+	}
+
+	public static ExchangeRate create(final Currency sourceCurrency, final Currency targetCurrency, final LocalDate effectiveDate, final BigDecimal rate)
+	{
+		return new ExchangeRate(sourceCurrency, targetCurrency, effectiveDate, rate);
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public Currency getSourceCurrency()
+	{
+		return sourceCurrency;
+	}
+
+	public Currency getTargetCurrency()
+	{
+		return targetCurrency;
+	}
+
+	public LocalDate getEffectiveDate()
+	{
+		return effectiveDate;
+	}
+
+	public BigDecimal getRate()
+	{
+		return rate;
+	}
+
+	public void setRate(final BigDecimal rate)
+	{
+		this.rate = rate;
+	}
+}
@@ -0,0 +1,17 @@
+package com.greenfieldcommerce.greenerp.exchangerates.mappers;
+
+import org.springframework.stereotype.Component;
+
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+import com.greenfieldcommerce.greenerp.exchangerates.records.ExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.mappers.Mapper;
+
+@Component
+public class ExchangeRateToRecordMapper implements Mapper<ExchangeRate, ExchangeRateRecord>
+{
+	@Override
+	public ExchangeRateRecord map(final ExchangeRate exchangeRate)
+	{
+		return new ExchangeRateRecord(exchangeRate.getId(), exchangeRate.getSourceCurrency(), exchangeRate.getTargetCurrency(), exchangeRate.getEffectiveDate(), exchangeRate.getRate());
+	}
+}
@@ -0,0 +1,16 @@
+package com.greenfieldcommerce.greenerp.exchangerates.records;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+
+public record CreateExchangeRateRecord(
+	@NotNull Currency sourceCurrency,
+	@NotNull Currency targetCurrency,
+	@NotNull LocalDate effectiveDate,
+	@DecimalMin(value = "0", inclusive = false) @Digits(integer = 11, fraction = 8) @NotNull BigDecimal rate) {
+}
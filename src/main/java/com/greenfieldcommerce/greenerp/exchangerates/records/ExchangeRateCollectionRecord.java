@@ -0,0 +1,7 @@
+package com.greenfieldcommerce.greenerp.exchangerates.records;
+
+import java.util.List;
+
+public record ExchangeRateCollectionRecord(List<ExchangeRateRecord> rates)
+{
+}
@@ -0,0 +1,7 @@
+package com.greenfieldcommerce.greenerp.exchangerates.records;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+public record ExchangeRateRecord(Long id, Currency sourceCurrency, Currency targetCurrency, LocalDate effectiveDate, BigDecimal rate) { }
@@ -0,0 +1,14 @@
+package com.greenfieldcommerce.greenerp.exchangerates.repositories;
+
+import java.util.List;
+
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+
+@Repository
+public interface ExchangeRateRepository extends ListCrudRepository<ExchangeRate, Long>
+{
+	List<ExchangeRate> findAllByOrderBySourceCurrencyAscTargetCurrencyAscEffectiveDateAsc();
+}
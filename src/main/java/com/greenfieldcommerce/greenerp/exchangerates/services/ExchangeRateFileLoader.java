@@ -0,0 +1,94 @@
+package com.greenfieldcommerce.greenerp.exchangerates.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.greenfieldcommerce.greenerp.exchangerates.records.CreateExchangeRateRecord;
+
+/**
+ * Imports the exchange rates of the file named by {@code greenerp.exchange-rates.file}, if any, on startup.
+ * <p>
+ * The file has one rate per line, as {@code sourceCurrency,targetCurrency,effectiveDate,rate}, for instance
+ * {@code EUR,USD,2025-01-01,1.0352}. Blank lines, lines starting with {@code #} and a header line starting with
+ * {@code sourceCurrency} are ignored. Rates already known for the same currency pair and effective date are replaced,
+ * so the same file can be loaded on every start. A malformed line stops the application from starting.
+ */
+@Component
+public class ExchangeRateFileLoader implements ApplicationRunner
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(ExchangeRateFileLoader.class);
+
+	private static final String HEADER_PREFIX = "sourceCurrency";
+
+	private final ExchangeRateService exchangeRateService;
+	private final String file;
+
+	public ExchangeRateFileLoader(final ExchangeRateService exchangeRateService, @Value("${greenerp.exchange-rates.file:}") final String file)
+	{
+		this.exchangeRateService = exchangeRateService;
+		this.file = file;
+	}
+
+	@Override
+	public void run(final ApplicationArguments args) throws IOException
+	{
+		if (file.isBlank())
+			return;
+
+		final List<CreateExchangeRateRecord> rates = read(Path.of(file));
+		if (!rates.isEmpty())
+			exchangeRateService.importRates(rates);
+		LOGGER.info("Loaded {} exchange rates from {}", rates.size(), file);
+	}
+
+	static List<CreateExchangeRateRecord> read(final Path path) throws IOException
+	{
+		final List<CreateExchangeRateRecord> rates = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+		{
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null)
+			{
+				lineNumber++;
+				final String trimmed = line.strip();
+				if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith(HEADER_PREFIX))
+					continue;
+				rates.add(parse(trimmed, path, lineNumber));
+			}
+		}
+		return rates;
+	}
+
+	private static CreateExchangeRateRecord parse(final String line, final Path path, final int lineNumber)
+	{
+		final String[] fields = line.split(",");
+		try
+		{
+			if (fields.length != 4)
+				throw new IllegalArgumentException("expected 4 fields, found " + fields.length);
+			final BigDecimal rate = new BigDecimal(fields[3].strip());
+			if (rate.signum() <= 0)
+				throw new IllegalArgumentException("the rate must be positive");
+			return new CreateExchangeRateRecord(Currency.getInstance(fields[0].strip()), Currency.getInstance(fields[1].strip()), LocalDate.parse(fields[2].strip()), rate);
+		} catch (RuntimeException e)
+		{
+			throw new IllegalStateException(String.format("Invalid exchange rate on line %s of %s: %s", lineNumber, path, e.getMessage()), e);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.greenfieldcommerce.greenerp.exchangerates.services;
+
+import java.time.LocalDate;
+import java.util.Currency;
+
+import com.greenfieldcommerce.greenerp.exceptions.MissingExchangeRateException;
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+
+/**
+ * Finds the exchange rate to apply to an amount on a given day.
+ */
+@FunctionalInterface
+public interface ExchangeRateLookup
+{
+	/**
+	 * Finds the rate of a currency pair in effect on a day: the one with the latest effective date on or before it.
+	 *
+	 * @param sourceCurrency the currency of the amount to convert
+	 * @param targetCurrency the currency to convert the amount to
+	 * @param date the day of the conversion
+	 * @return the rate in effect
+	 * @throws MissingExchangeRateException if no rate of the pair is in effect on that day
+	 */
+	ExchangeRate find(Currency sourceCurrency, Currency targetCurrency, LocalDate date);
+}
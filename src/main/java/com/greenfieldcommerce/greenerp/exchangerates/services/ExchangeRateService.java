@@ -0,0 +1,12 @@
+package com.greenfieldcommerce.greenerp.exchangerates.services;
+
+import java.util.List;
+
+import com.greenfieldcommerce.greenerp.exchangerates.records.CreateExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.records.ExchangeRateRecord;
+
+public interface ExchangeRateService extends ExchangeRateLookup
+{
+	List<ExchangeRateRecord> findAll();
+	List<ExchangeRateRecord> importRates(List<CreateExchangeRateRecord> records);
+}
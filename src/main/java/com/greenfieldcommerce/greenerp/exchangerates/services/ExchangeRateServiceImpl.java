@@ -0,0 +1,180 @@
+package com.greenfieldcommerce.greenerp.exchangerates.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.greenfieldcommerce.greenerp.exceptions.MissingExchangeRateException;
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+import com.greenfieldcommerce.greenerp.exchangerates.records.CreateExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.records.ExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.repositories.ExchangeRateRepository;
+import com.greenfieldcommerce.greenerp.mappers.Mapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+
+/**
+ * Implementation of {@link ExchangeRateService} keeping every exchange rate in memory, in an {@link ExchangeRateTable}.
+ * <p>
+ * There are a few rates per currency pair and day at most, so the whole table is loaded with a single query on the
+ * first lookup, and lookups are then answered from memory. It is loaded again after rates are imported through this
+ * service, and once it is older than {@code greenerp.exchange-rates.cache.time-to-live}, which bounds how long rates
+ * written by other instances or straight into the table go unnoticed.
+ * <p>
+ * The following meters are published:
+ * <ul>
+ * <li>{@code greenerp.exchange.rate.table.loads}: loads of the exchange rate table</li>
+ * <li>{@code greenerp.exchange.rate.table.size}: number of exchange rates held</li>
+ * </ul>
+ */
+@Service
+public class ExchangeRateServiceImpl implements ExchangeRateService
+{
+	public static final String LOADS_METRIC_NAME = "greenerp.exchange.rate.table.loads";
+	public static final String SIZE_METRIC_NAME = "greenerp.exchange.rate.table.size";
+
+	/**
+	 * A loaded table, and when it was loaded, in {@link System#nanoTime()} units.
+	 */
+	private record LoadedTable(ExchangeRateTable table, long loadedAt) { }
+
+	/**
+	 * The natural key of an exchange rate.
+	 */
+	private record RateKey(Currency sourceCurrency, Currency targetCurrency, LocalDate effectiveDate) { }
+
+	private final ExchangeRateRepository exchangeRateRepository;
+	private final Mapper<ExchangeRate, ExchangeRateRecord> exchangeRateToRecordMapper;
+	private final long timeToLive;
+	private final AtomicLong invalidations = new AtomicLong();
+	private final Counter loads;
+	private volatile LoadedTable loaded;
+
+	public ExchangeRateServiceImpl(final ExchangeRateRepository exchangeRateRepository, final Mapper<ExchangeRate, ExchangeRateRecord> exchangeRateToRecordMapper,
+		final MeterRegistry meterRegistry, @Value("${greenerp.exchange-rates.cache.time-to-live:PT10M}") final Duration timeToLive)
+	{
+		this.exchangeRateRepository = exchangeRateRepository;
+		this.exchangeRateToRecordMapper = exchangeRateToRecordMapper;
+		this.timeToLive = timeToLive.toNanos();
+		this.loads = Counter.builder(LOADS_METRIC_NAME).description("Loads of the exchange rate table").register(meterRegistry);
+		Gauge.builder(SIZE_METRIC_NAME, this, ExchangeRateServiceImpl::size).description("Exchange rates held in memory").register(meterRegistry);
+	}
+
+	@Override
+	public List<ExchangeRateRecord> findAll()
+	{
+		return exchangeRateRepository.findAllByOrderBySourceCurrencyAscTargetCurrencyAscEffectiveDateAsc().stream().map(exchangeRateToRecordMapper::map).toList();
+	}
+
+	/**
+	 * Finds the rate of a currency pair in effect on a day, from the table held in memory.
+	 *
+	 * @throws MissingExchangeRateException if no rate of the pair is in effect on that day
+	 */
+	@Override
+	public ExchangeRate find(final Currency sourceCurrency, final Currency targetCurrency, final LocalDate date)
+	{
+		return table().find(sourceCurrency, targetCurrency, date);
+	}
+
+	/**
+	 * Imports exchange rates, creating the new ones and replacing the rate of those already known for the same
+	 * currency pair and effective date. Of several imported rows for the same pair and date, the last one wins.
+	 * <p>
+	 * Known rates are loaded with a single query, and the new ones are inserted together, in JDBC batches.
+	 *
+	 * @param records the rates to import
+	 * @return the created or updated rates
+	 */
+	@Override
+	@Transactional
+	public List<ExchangeRateRecord> importRates(final List<CreateExchangeRateRecord> records)
+	{
+		final Map<RateKey, ExchangeRate> known = exchangeRateRepository.findAll().stream().collect(Collectors.toMap(ExchangeRateServiceImpl::keyOf, Function.identity()));
+		final Map<RateKey, ExchangeRate> imported = new LinkedHashMap<>();
+		for (final CreateExchangeRateRecord record : records)
+		{
+			final RateKey key = new RateKey(record.sourceCurrency(), record.targetCurrency(), record.effectiveDate());
+			final ExchangeRate rate = known.computeIfAbsent(key, k -> ExchangeRate.create(k.sourceCurrency(), k.targetCurrency(), k.effectiveDate(), record.rate()));
+			rate.setRate(record.rate());
+			imported.put(key, rate);
+		}
+
+		final List<ExchangeRateRecord> saved = exchangeRateRepository.saveAll(imported.values()).stream().map(exchangeRateToRecordMapper::map).toList();
+		invalidate();
+		return saved;
+	}
+
+	/**
+	 * Returns the table held in memory, loading it if it is not held yet or has expired. A loaded table is only kept
+	 * if no rates were imported while it was being read, as it could otherwise predate them.
+	 */
+	private ExchangeRateTable table()
+	{
+		final LoadedTable held = loaded;
+		if (held != null && System.nanoTime() - held.loadedAt() < timeToLive)
+			return held.table();
+
+		final long invalidationsBeforeLoading = invalidations.get();
+		final LoadedTable fresh = new LoadedTable(ExchangeRateTable.of(exchangeRateRepository.findAll()), System.nanoTime());
+		loads.increment();
+		synchronized (invalidations)
+		{
+			if (invalidations.get() == invalidationsBeforeLoading)
+				loaded = fresh;
+		}
+		return fresh.table();
+	}
+
+	/**
+	 * Drops the table held in memory, and again once the current transaction completes, so that lookups made in the
+	 * meantime cannot keep the rates as they were before the change.
+	 */
+	private void invalidate()
+	{
+		evict();
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+			{
+				@Override
+				public void afterCompletion(final int status)
+				{
+					evict();
+				}
+			});
+	}
+
+	private void evict()
+	{
+		synchronized (invalidations)
+		{
+			invalidations.incrementAndGet();
+			loaded = null;
+		}
+	}
+
+	private int size()
+	{
+		final LoadedTable held = loaded;
+		return held == null ? 0 : held.table().size();
+	}
+
+	private static RateKey keyOf(final ExchangeRate rate)
+	{
+		return new RateKey(rate.getSourceCurrency(), rate.getTargetCurrency(), rate.getEffectiveDate());
+	}
+}
@@ -0,0 +1,53 @@
+package com.greenfieldcommerce.greenerp.exchangerates.services;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.greenfieldcommerce.greenerp.exceptions.MissingExchangeRateException;
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+
+/**
+ * An immutable snapshot of the exchange rates, indexed by currency pair, then by effective date, so that finding the
+ * rate in effect on a day is a hash lookup followed by a floor search.
+ */
+public final class ExchangeRateTable implements ExchangeRateLookup
+{
+	private record CurrencyPair(Currency source, Currency target) { }
+
+	private final Map<CurrencyPair, NavigableMap<LocalDate, ExchangeRate>> ratesByPair;
+	private final int size;
+
+	private ExchangeRateTable(final Map<CurrencyPair, NavigableMap<LocalDate, ExchangeRate>> ratesByPair, final int size)
+	{
+		this.ratesByPair = ratesByPair;
+		this.size = size;
+	}
+
+	public static ExchangeRateTable of(final Collection<ExchangeRate> rates)
+	{
+		final Map<CurrencyPair, NavigableMap<LocalDate, ExchangeRate>> ratesByPair = new HashMap<>();
+		rates.forEach(rate -> ratesByPair.computeIfAbsent(new CurrencyPair(rate.getSourceCurrency(), rate.getTargetCurrency()), pair -> new TreeMap<>())
+			.put(rate.getEffectiveDate(), rate));
+		return new ExchangeRateTable(ratesByPair, rates.size());
+	}
+
+	@Override
+	public ExchangeRate find(final Currency sourceCurrency, final Currency targetCurrency, final LocalDate date)
+	{
+		final NavigableMap<LocalDate, ExchangeRate> rates = ratesByPair.get(new CurrencyPair(sourceCurrency, targetCurrency));
+		final Map.Entry<LocalDate, ExchangeRate> inEffect = rates == null ? null : rates.floorEntry(date);
+		if (inEffect == null)
+			throw new MissingExchangeRateException("MISSING_EXCHANGE_RATE", String.format("No exchange rate from %s to %s in effect on %s", sourceCurrency, targetCurrency, date));
+		return inEffect.getValue();
+	}
+
+	public int size()
+	{
+		return size;
+	}
+}
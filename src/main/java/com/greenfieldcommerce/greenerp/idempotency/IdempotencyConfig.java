@@ -0,0 +1,24 @@
+package com.greenfieldcommerce.greenerp.idempotency;
+
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Registers the {@link IdempotencyKeyFilter} right after the Spring Security filter chain, so that idempotency keys
+ * are scoped to the authenticated user, and unauthenticated requests never reach the store.
+ */
+@Configuration
+public class IdempotencyConfig
+{
+	@Bean
+	public FilterRegistrationBean<IdempotencyKeyFilter> idempotencyKeyFilter(final IdempotencyKeyStore idempotencyKeyStore, final ObjectMapper objectMapper)
+	{
+		final FilterRegistrationBean<IdempotencyKeyFilter> registration = new FilterRegistrationBean<>(new IdempotencyKeyFilter(idempotencyKeyStore, objectMapper));
+		registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+		return registration;
+	}
+}
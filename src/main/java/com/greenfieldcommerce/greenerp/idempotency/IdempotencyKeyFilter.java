@@ -0,0 +1,228 @@
+package com.greenfieldcommerce.greenerp.idempotency;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenfieldcommerce.greenerp.records.ApiError;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Makes {@code POST} requests carrying an {@value #IDEMPOTENCY_KEY_HEADER} header safe to retry.
+ * <p>
+ * The first request with a key is handled as usual, and its response is kept in the {@link IdempotencyKeyStore} if it
+ * succeeded. Retries with the same key, from the same user, for the same method, URI and body, are answered with the
+ * kept response, marked with an {@value #REPLAYED_HEADER} header, without reaching the controller. Retries arriving
+ * while the first request is still being handled are rejected with {@code 409 Conflict}, and reusing a key for a
+ * different request with {@code 422 Unprocessable Entity}. Failed requests do not keep their key, so they can be
+ * retried with it. Retries of a request whose response was too large to be kept are rejected with
+ * {@code 409 Conflict} too, as the request already succeeded.
+ * <p>
+ * Requests without the header are not affected. The filter runs after authentication, so keys are scoped to the
+ * authenticated user.
+ */
+public class IdempotencyKeyFilter extends OncePerRequestFilter
+{
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final int MAXIMUM_KEY_LENGTH = 255;
+	private static final String ANONYMOUS = "anonymous";
+
+	private final IdempotencyKeyStore idempotencyKeyStore;
+	private final ObjectMapper objectMapper;
+
+	public IdempotencyKeyFilter(final IdempotencyKeyStore idempotencyKeyStore, final ObjectMapper objectMapper)
+	{
+		this.idempotencyKeyStore = idempotencyKeyStore;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(final HttpServletRequest request)
+	{
+		return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain) throws ServletException, IOException
+	{
+		final String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+		if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAXIMUM_KEY_LENGTH)
+		{
+			reject(request, response, HttpStatus.BAD_REQUEST, "INVALID_IDEMPOTENCY_KEY",
+				String.format("The %s header must have between 1 and %s characters", IDEMPOTENCY_KEY_HEADER, MAXIMUM_KEY_LENGTH));
+			return;
+		}
+
+		final byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+		final String key = currentUser() + ":" + idempotencyKey;
+		final IdempotencyKeyStore.Reservation reservation = idempotencyKeyStore.reserve(key, fingerprint(request, body));
+		switch (reservation.outcome())
+		{
+			case REPLAYED -> replay(reservation.response(), response);
+			case IN_PROGRESS -> reject(request, response, HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_IN_PROGRESS",
+				String.format("A request with %s %s is still being processed", IDEMPOTENCY_KEY_HEADER, idempotencyKey));
+			case NOT_REPLAYABLE -> reject(request, response, HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_NOT_REPLAYABLE",
+				String.format("A request with %s %s already succeeded, but its response was too large to be sent again", IDEMPOTENCY_KEY_HEADER, idempotencyKey));
+			case MISMATCH -> reject(request, response, HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED",
+				String.format("%s %s was already used for a different request", IDEMPOTENCY_KEY_HEADER, idempotencyKey));
+			case RESERVED -> handle(new CachedBodyRequest(request, body), response, filterChain, key);
+		}
+	}
+
+	private void handle(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain, final String key) throws ServletException, IOException
+	{
+		final ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+		boolean completed = false;
+		try
+		{
+			filterChain.doFilter(request, cachingResponse);
+			completed = idempotencyKeyStore.complete(key, new IdempotencyKeyStore.StoredResponse(cachingResponse.getStatus(), cachingResponse.getContentType(),
+				cachingResponse.getHeader(HttpHeaders.LOCATION), cachingResponse.getContentAsByteArray()));
+		} finally
+		{
+			if (!completed)
+				idempotencyKeyStore.release(key);
+			cachingResponse.copyBodyToResponse();
+		}
+	}
+
+	private static void replay(final IdempotencyKeyStore.StoredResponse stored, final HttpServletResponse response) throws IOException
+	{
+		response.setStatus(stored.status());
+		if (stored.contentType() != null)
+			response.setContentType(stored.contentType());
+		if (stored.location() != null)
+			response.setHeader(HttpHeaders.LOCATION, stored.location());
+		response.setHeader(REPLAYED_HEADER, Boolean.TRUE.toString());
+		response.setContentLength(stored.body().length);
+		response.getOutputStream().write(stored.body());
+	}
+
+	private void reject(final HttpServletRequest request, final HttpServletResponse response, final HttpStatus status, final String code, final String message) throws IOException
+	{
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), new ApiError(status.value(), status.getReasonPhrase(), code, message, request.getRequestURI(), new HashMap<>()));
+	}
+
+	private static String currentUser()
+	{
+		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication == null ? ANONYMOUS : authentication.getName();
+	}
+
+	private static byte[] fingerprint(final HttpServletRequest request, final byte[] body)
+	{
+		try
+		{
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) ' ');
+			digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+			if (request.getQueryString() != null)
+				digest.update(("?" + request.getQueryString()).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) '\n');
+			return digest.digest(body);
+		} catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * A request whose body was already read, served again from memory to the rest of the chain.
+	 */
+	private static class CachedBodyRequest extends HttpServletRequestWrapper
+	{
+		private final byte[] body;
+
+		CachedBodyRequest(final HttpServletRequest request, final byte[] body)
+		{
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream()
+		{
+			final ByteArrayInputStream input = new ByteArrayInputStream(body);
+			return new ServletInputStream()
+			{
+				@Override
+				public boolean isFinished()
+				{
+					return input.available() == 0;
+				}
+
+				@Override
+				public boolean isReady()
+				{
+					return true;
+				}
+
+				@Override
+				public void setReadListener(final ReadListener readListener)
+				{
+					throw new UnsupportedOperationException("The body was already read");
+				}
+
+				@Override
+				public int read()
+				{
+					return input.read();
+				}
+
+				@Override
+				public int read(final byte[] buffer, final int offset, final int length)
+				{
+					return input.read(buffer, offset, length);
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader()
+		{
+			final String encoding = getCharacterEncoding();
+			return new BufferedReader(new InputStreamReader(getInputStream(), encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+		}
+
+		@Override
+		public int getContentLength()
+		{
+			return body.length;
+		}
+
+		@Override
+		public long getContentLengthLong()
+		{
+			return body.length;
+		}
+	}
+}
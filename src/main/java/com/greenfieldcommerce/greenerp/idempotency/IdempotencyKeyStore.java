@@ -0,0 +1,199 @@
+package com.greenfieldcommerce.greenerp.idempotency;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Remembers the idempotency keys of recent requests, with a fingerprint of each request and, once it succeeded, its
+ * response, so that a retried request can be answered without being handled again.
+ * <p>
+ * Keys are held in the order they were first seen, and expire {@code greenerp.idempotency.time-to-live} after that:
+ * expired keys are always the oldest ones, and are dropped from the head of the store as new keys come in, in
+ * constant time per key. At most {@code greenerp.idempotency.maximum-size} keys are held, the oldest being dropped
+ * first, and responses larger than {@code greenerp.idempotency.maximum-response-size} are not kept, so the store
+ * takes a bounded amount of memory whatever the request rate. The key of a request whose response was too large is
+ * still kept, so that retries are rejected rather than handled again.
+ * <p>
+ * The store is held in memory: keys are not shared between instances, nor kept across restarts.
+ * <p>
+ * The following meters are published:
+ * <ul>
+ * <li>{@code greenerp.idempotency.requests}: requests carrying an idempotency key, by {@code outcome}</li>
+ * <li>{@code greenerp.idempotency.evictions}: keys dropped to stay within the maximum size, before they expired</li>
+ * <li>{@code greenerp.idempotency.keys}: number of keys held</li>
+ * </ul>
+ */
+@Component
+public class IdempotencyKeyStore
+{
+	public static final String REQUESTS_METRIC_NAME = "greenerp.idempotency.requests";
+	public static final String EVICTIONS_METRIC_NAME = "greenerp.idempotency.evictions";
+	public static final String KEYS_METRIC_NAME = "greenerp.idempotency.keys";
+
+	/**
+	 * What to do with a request carrying an idempotency key.
+	 */
+	public enum Outcome
+	{
+		/** The key was not known: the request must be handled, then completed or released. */
+		RESERVED,
+		/** The same request already succeeded: its response must be sent again. */
+		REPLAYED,
+		/** The same request already succeeded, but its response was too large to be kept. */
+		NOT_REPLAYABLE,
+		/** The same request is still being handled. */
+		IN_PROGRESS,
+		/** The key was used for a different request. */
+		MISMATCH
+	}
+
+	/**
+	 * The response of a request, as sent to the client.
+	 */
+	public record StoredResponse(int status, @Nullable String contentType, @Nullable String location, byte[] body) { }
+
+	/**
+	 * The outcome of reserving a key, with the stored response when it is {@link Outcome#REPLAYED}.
+	 */
+	public record Reservation(Outcome outcome, @Nullable StoredResponse response) { }
+
+	/**
+	 * A known key: the fingerprint of the request it was first used for, when it was first seen, in
+	 * {@link System#nanoTime()} units, whether the request succeeded, and its response, unless it was too large.
+	 */
+	private record Entry(byte[] fingerprint, long reservedAt, boolean completed, @Nullable StoredResponse response) { }
+
+	private final long timeToLive;
+	private final long maximumResponseSize;
+	private final Map<String, Entry> entries;
+	private final Map<Outcome, Counter> requests = new LinkedHashMap<>();
+	private final Counter evictions;
+
+	public IdempotencyKeyStore(final MeterRegistry meterRegistry,
+		@Value("${greenerp.idempotency.maximum-size:10000}") final int maximumSize,
+		@Value("${greenerp.idempotency.time-to-live:PT1H}") final Duration timeToLive,
+		@Value("${greenerp.idempotency.maximum-response-size:64KB}") final DataSize maximumResponseSize)
+	{
+		this.timeToLive = timeToLive.toNanos();
+		this.maximumResponseSize = maximumResponseSize.toBytes();
+		for (final Outcome outcome : Outcome.values())
+			requests.put(outcome, Counter.builder(REQUESTS_METRIC_NAME).description("Requests carrying an idempotency key, by what was done with them")
+				.tag("outcome", outcome.name().toLowerCase(Locale.ROOT)).register(meterRegistry));
+		this.evictions = Counter.builder(EVICTIONS_METRIC_NAME).description("Idempotency keys dropped to stay within the maximum size").register(meterRegistry);
+		this.entries = new LinkedHashMap<>(16, 0.75f, false)
+		{
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest)
+			{
+				final boolean full = size() > maximumSize;
+				if (full)
+					evictions.increment();
+				return full;
+			}
+		};
+		Gauge.builder(KEYS_METRIC_NAME, this, IdempotencyKeyStore::size).description("Idempotency keys held in memory").register(meterRegistry);
+	}
+
+	/**
+	 * Reserves a key for a request, unless it is already known.
+	 *
+	 * @param key the idempotency key, scoped to the client that sent it
+	 * @param fingerprint identifies the request the key is used for, so that it cannot be reused for another one
+	 * @return whether the request must be handled, or its stored response sent again, or it must be rejected
+	 */
+	public Reservation reserve(final String key, final byte[] fingerprint)
+	{
+		final Reservation reservation;
+		synchronized (entries)
+		{
+			final long now = System.nanoTime();
+			dropExpired(now);
+			final Entry known = entries.get(key);
+			if (known == null)
+			{
+				entries.put(key, new Entry(fingerprint, now, false, null));
+				reservation = new Reservation(Outcome.RESERVED, null);
+			}
+			else if (!Arrays.equals(known.fingerprint(), fingerprint))
+				reservation = new Reservation(Outcome.MISMATCH, null);
+			else if (!known.completed())
+				reservation = new Reservation(Outcome.IN_PROGRESS, null);
+			else if (known.response() == null)
+				reservation = new Reservation(Outcome.NOT_REPLAYABLE, null);
+			else
+				reservation = new Reservation(Outcome.REPLAYED, known.response());
+		}
+		requests.get(reservation.outcome()).increment();
+		return reservation;
+	}
+
+	/**
+	 * Stores the response of a reserved request, so that it is sent again to retries. Only successful responses are
+	 * kept; for any other, the key is released and retries are handled again. A successful response larger than the
+	 * maximum size is not kept, but the key is, so that retries are rejected instead of creating anything again.
+	 *
+	 * @param key the reserved key
+	 * @param response the response sent to the client
+	 * @return {@code true} if the key was kept
+	 */
+	public boolean complete(final String key, final StoredResponse response)
+	{
+		if (response.status() < 200 || response.status() >= 300)
+		{
+			release(key);
+			return false;
+		}
+
+		synchronized (entries)
+		{
+			final Entry reserved = entries.get(key);
+			if (reserved == null || reserved.completed())
+				return false;
+			entries.put(key, new Entry(reserved.fingerprint(), reserved.reservedAt(), true, response.body().length > maximumResponseSize ? null : response));
+			return true;
+		}
+	}
+
+	/**
+	 * Forgets a reserved key whose request failed, so that it can be retried.
+	 *
+	 * @param key the reserved key
+	 */
+	public void release(final String key)
+	{
+		synchronized (entries)
+		{
+			final Entry reserved = entries.get(key);
+			if (reserved != null && !reserved.completed())
+				entries.remove(key);
+		}
+	}
+
+	private void dropExpired(final long now)
+	{
+		final Iterator<Entry> oldestFirst = entries.values().iterator();
+		while (oldestFirst.hasNext() && now - oldestFirst.next().reservedAt() >= timeToLive)
+			oldestFirst.remove();
+	}
+
+	private int size()
+	{
+		synchronized (entries)
+		{
+			return entries.size();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.greenfieldcommerce.greenerp.messaging.entities;
+
+import java.time.ZonedDateTime;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+
+/**
+ * A message waiting to be published to the broker, written in the same transaction as the change it announces.
+ * <p>
+ * The payload is stored already converted, exactly as it will be sent, so that relaying it does not depend on
+ * the state of the entities it was built from.
+ */
+@Entity
+public class OutboxMessage
+{
+	@Id
+	@GeneratedValue
+	private Long id;
+
+	@Column(nullable = false)
+	private String exchange;
+
+	@Column(nullable = false)
+	private String routingKey;
+
+	@Column(nullable = false)
+	@JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+	private String payload;
+
+	@Column(nullable = false)
+	private String contentType;
+
+	private String payloadType;
+
+	@Column(nullable = false)
+	private ZonedDateTime createdAt;
+
+	protected OutboxMessage() {}
+
+	private OutboxMessage(final String exchange, final String routingKey, final String payload, final String contentType, final String payloadType, final ZonedDateTime createdAt)
+	{
+		this.exchange = exchange;
+		this.routingKey = routingKey;
+		this.payload = payload;
+		this.contentType = contentType;
+		this.payloadType = payloadType;
+		this.createdAt = createdAt;
+	}
+
+	public static OutboxMessage create(final String exchange, final String routingKey, final String payload, final String contentType, final String payloadType, final ZonedDateTime createdAt)
+	{
+		return new OutboxMessage(exchange, routingKey, payload, contentType, payloadType, createdAt);
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public String getExchange()
+	{
+		return exchange;
+	}
+
+	public String getRoutingKey()
+	{
+		return routingKey;
+	}
+
+	public String getPayload()
+	{
+		return payload;
+	}
+
+	public String getContentType()
+	{
+		return contentType;
+	}
+
+	public String getPayloadType()
+	{
+		return payloadType;
+	}
+
+	public ZonedDateTime getCreatedAt()
+	{
+		return createdAt;
+	}
+}
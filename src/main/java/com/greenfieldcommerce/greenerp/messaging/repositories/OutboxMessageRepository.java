@@ -0,0 +1,32 @@
+package com.greenfieldcommerce.greenerp.messaging.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.ListCrudRepository;
+
+import com.greenfieldcommerce.greenerp.messaging.entities.OutboxMessage;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface OutboxMessageRepository extends ListCrudRepository<OutboxMessage, Long>
+{
+	/**
+	 * Locks the oldest messages waiting to be published. Rows already locked by another relay are skipped rather
+	 * than waited for, so several application instances can drain the outbox concurrently.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+	@Query("SELECT m FROM #{#entityName} m ORDER BY m.id")
+	List<OutboxMessage> findNextToPublish(Limit limit);
+
+	@Modifying
+	@Query("DELETE FROM #{#entityName} m WHERE m.id IN :ids")
+	int deleteByIdIn(Collection<Long> ids);
+}
@@ -0,0 +1,159 @@
+package com.greenfieldcommerce.greenerp.messaging.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.greenfieldcommerce.greenerp.messaging.entities.OutboxMessage;
+import com.greenfieldcommerce.greenerp.messaging.repositories.OutboxMessageRepository;
+import com.greenfieldcommerce.greenerp.services.TimeService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publishes the messages stored in the outbox.
+ * <p>
+ * On every run, the outbox is drained in batches. Each batch is locked, published on a single channel, confirmed
+ * by the broker and deleted, all within one transaction: a batch that is not fully confirmed stays in the outbox
+ * and is published again on the next run, so delivery is at least once.
+ * <p>
+ * The following meters are published:
+ * <ul>
+ * <li>{@code greenerp.outbox.relay.lag}: time between a message being stored and being confirmed by the broker</li>
+ * <li>{@code greenerp.outbox.relay.publish}: time taken to publish a batch and have it confirmed, by {@code outcome}</li>
+ * <li>{@code greenerp.outbox.relay.batch.size}: number of messages published per batch</li>
+ * <li>{@code greenerp.outbox.relay.published}: total number of messages published, from which throughput is derived</li>
+ * <li>{@code greenerp.outbox.relay.failures}: number of batches that could not be published</li>
+ * </ul>
+ */
+@Component
+public class OutboxRelay
+{
+	public static final String TYPE_ID_HEADER = "__TypeId__";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OutboxRelay.class);
+
+	private final OutboxMessageRepository outboxMessageRepository;
+	private final RabbitTemplate rabbitTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final Duration confirmTimeout;
+
+	private final Timer lag;
+	private final Timer publishSucceeded;
+	private final Timer publishFailed;
+	private final DistributionSummary batchSizes;
+	private final Counter published;
+	private final Counter failures;
+
+	public OutboxRelay(final OutboxMessageRepository outboxMessageRepository, final RabbitTemplate rabbitTemplate, final PlatformTransactionManager transactionManager,
+		final MeterRegistry meterRegistry, @Value("${greenerp.outbox.relay.batch-size:100}") final int batchSize,
+		@Value("${greenerp.outbox.relay.confirm-timeout:PT5S}") final Duration confirmTimeout)
+	{
+		this.outboxMessageRepository = outboxMessageRepository;
+		this.rabbitTemplate = rabbitTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+		this.confirmTimeout = confirmTimeout;
+
+		this.lag = Timer.builder("greenerp.outbox.relay.lag").description("Time between a message being stored in the outbox and being confirmed by the broker")
+			.publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+		this.publishSucceeded = publishTimer(meterRegistry, "success");
+		this.publishFailed = publishTimer(meterRegistry, "failure");
+		this.batchSizes = DistributionSummary.builder("greenerp.outbox.relay.batch.size").description("Number of outbox messages published per batch").register(meterRegistry);
+		this.published = Counter.builder("greenerp.outbox.relay.published").description("Number of outbox messages published").register(meterRegistry);
+		this.failures = Counter.builder("greenerp.outbox.relay.failures").description("Number of outbox batches that could not be published").register(meterRegistry);
+	}
+
+	/**
+	 * Publishes batches until the outbox is drained, or until a batch fails.
+	 */
+	@Scheduled(fixedDelayString = "${greenerp.outbox.relay.interval:PT1S}")
+	public void relay()
+	{
+		try
+		{
+			int relayed;
+			do
+			{
+				relayed = transactionTemplate.execute(status -> relayBatch());
+			}
+			while (relayed == batchSize);
+		}
+		catch (AmqpException e)
+		{
+			failures.increment();
+			LOGGER.warn("Could not publish outbox messages, they will be retried: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Publishes the next batch of messages and waits for the broker to confirm them before removing them from the outbox.
+	 *
+	 * @return the number of messages published
+	 */
+	private int relayBatch()
+	{
+		final List<OutboxMessage> messages = outboxMessageRepository.findNextToPublish(Limit.of(batchSize));
+		if (messages.isEmpty())
+			return 0;
+
+		final Timer.Sample publishing = Timer.start();
+		try
+		{
+			rabbitTemplate.invoke(operations -> {
+				messages.forEach(message -> operations.send(message.getExchange(), message.getRoutingKey(), toAmqpMessage(message)));
+				operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+				return messages.size();
+			});
+		} catch (AmqpException e)
+		{
+			publishing.stop(publishFailed);
+			throw e;
+		}
+		publishing.stop(publishSucceeded);
+		outboxMessageRepository.deleteByIdIn(messages.stream().map(OutboxMessage::getId).toList());
+
+		final ZonedDateTime confirmedAt = TimeService.now();
+		messages.forEach(message -> lag.record(Duration.between(message.getCreatedAt(), confirmedAt)));
+		batchSizes.record(messages.size());
+		published.increment(messages.size());
+		return messages.size();
+	}
+
+	private static Timer publishTimer(final MeterRegistry meterRegistry, final String outcome)
+	{
+		return Timer.builder("greenerp.outbox.relay.publish").description("Time taken to publish a batch of outbox messages and have the broker confirm it")
+			.tag("outcome", outcome).publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+	}
+
+	private static Message toAmqpMessage(final OutboxMessage message)
+	{
+		final MessageProperties properties = new MessageProperties();
+		properties.setContentType(message.getContentType());
+		properties.setContentEncoding(StandardCharsets.UTF_8.name());
+		properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+		if (message.getPayloadType() != null)
+			properties.setHeader(TYPE_ID_HEADER, message.getPayloadType());
+
+		return new Message(message.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+	}
+}
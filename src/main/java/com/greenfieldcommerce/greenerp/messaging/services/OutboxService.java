@@ -0,0 +1,6 @@
+package com.greenfieldcommerce.greenerp.messaging.services;
+
+public interface OutboxService
+{
+	void enqueue(String exchange, String routingKey, Object payload);
+}
@@ -0,0 +1,72 @@
+package com.greenfieldcommerce.greenerp.messaging.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Service;
+
+import com.greenfieldcommerce.greenerp.messaging.entities.OutboxMessage;
+import com.greenfieldcommerce.greenerp.messaging.repositories.OutboxMessageRepository;
+import com.greenfieldcommerce.greenerp.services.TimeService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+
+/**
+ * Implementation of {@link OutboxService}, storing outgoing messages in the outbox table for {@link OutboxRelay}
+ * to publish once the surrounding transaction has committed.
+ * <p>
+ * Stored messages are counted in {@code greenerp.outbox.enqueued}, by {@code exchange}.
+ */
+@Service
+public class OutboxServiceImpl implements OutboxService
+{
+	private final OutboxMessageRepository outboxMessageRepository;
+	private final MessageConverter messageConverter;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, Counter> enqueued = new ConcurrentHashMap<>();
+
+	public OutboxServiceImpl(final OutboxMessageRepository outboxMessageRepository, final MessageConverter messageConverter, final MeterRegistry meterRegistry)
+	{
+		this.outboxMessageRepository = outboxMessageRepository;
+		this.messageConverter = messageConverter;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Converts a payload with the broker's message converter and stores it in the outbox.
+	 * <p>
+	 * Must be called within the transaction that makes the announced change, so that the message is kept
+	 * if, and only if, the change commits.
+	 *
+	 * @param exchange   the exchange to publish the message to
+	 * @param routingKey the routing key of the message
+	 * @param payload    the object to send
+	 * @throws jakarta.transaction.TransactionalException if there is no active transaction
+	 */
+	@Override
+	@Transactional(Transactional.TxType.MANDATORY)
+	public void enqueue(final String exchange, final String routingKey, final Object payload)
+	{
+		final Message message = messageConverter.toMessage(payload, new MessageProperties());
+		final MessageProperties properties = message.getMessageProperties();
+		final String payloadType = properties.getHeader(OutboxRelay.TYPE_ID_HEADER);
+
+		outboxMessageRepository.save(OutboxMessage.create(exchange, routingKey, new String(message.getBody(), StandardCharsets.UTF_8), properties.getContentType(), payloadType, TimeService.now()));
+		enqueued.computeIfAbsent(exchange, this::enqueuedCounter).increment();
+	}
+
+	/**
+	 * Registers the counter of messages stored for an exchange, once per exchange, so storing a message does not
+	 * look it up in the registry.
+	 */
+	private Counter enqueuedCounter(final String exchange)
+	{
+		return Counter.builder("greenerp.outbox.enqueued").description("Number of messages stored in the outbox").tag("exchange", exchange).register(meterRegistry);
+	}
+}
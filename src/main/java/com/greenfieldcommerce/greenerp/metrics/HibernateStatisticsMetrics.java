@@ -0,0 +1,62 @@
+package com.greenfieldcommerce.greenerp.metrics;
+
+import java.util.function.ToDoubleFunction;
+
+import org.hibernate.stat.Statistics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the Hibernate statistics of the session factory as meters.
+ * <p>
+ * The following meters are published, all of them counters:
+ * <ul>
+ * <li>{@code greenerp.hibernate.statements}: JDBC statements prepared</li>
+ * <li>{@code greenerp.hibernate.queries}: HQL and native queries executed</li>
+ * <li>{@code greenerp.hibernate.entities}: entities loaded, fetched, inserted, updated and deleted, by {@code event}</li>
+ * <li>{@code greenerp.hibernate.collections}: collections loaded and fetched, by {@code event}</li>
+ * <li>{@code greenerp.hibernate.cache}: second-level and query cache lookups, by {@code region} and {@code result}</li>
+ * <li>{@code greenerp.hibernate.transactions}: transactions completed</li>
+ * </ul>
+ * The values stay at zero unless {@code hibernate.generate_statistics} is enabled.
+ */
+public class HibernateStatisticsMetrics implements MeterBinder
+{
+	private final Statistics statistics;
+
+	public HibernateStatisticsMetrics(final Statistics statistics)
+	{
+		this.statistics = statistics;
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry)
+	{
+		counter(registry, "greenerp.hibernate.statements", "JDBC statements prepared", Tags.empty(), Statistics::getPrepareStatementCount);
+		counter(registry, "greenerp.hibernate.queries", "HQL and native queries executed", Tags.empty(), Statistics::getQueryExecutionCount);
+
+		counter(registry, "greenerp.hibernate.entities", "Entities loaded from the database", Tags.of("event", "load"), Statistics::getEntityLoadCount);
+		counter(registry, "greenerp.hibernate.entities", "Entities fetched lazily, with a statement of their own", Tags.of("event", "fetch"), Statistics::getEntityFetchCount);
+		counter(registry, "greenerp.hibernate.entities", "Entities inserted", Tags.of("event", "insert"), Statistics::getEntityInsertCount);
+		counter(registry, "greenerp.hibernate.entities", "Entities updated", Tags.of("event", "update"), Statistics::getEntityUpdateCount);
+		counter(registry, "greenerp.hibernate.entities", "Entities deleted", Tags.of("event", "delete"), Statistics::getEntityDeleteCount);
+
+		counter(registry, "greenerp.hibernate.collections", "Collections loaded from the database", Tags.of("event", "load"), Statistics::getCollectionLoadCount);
+		counter(registry, "greenerp.hibernate.collections", "Collections fetched lazily, with a statement of their own", Tags.of("event", "fetch"), Statistics::getCollectionFetchCount);
+
+		counter(registry, "greenerp.hibernate.cache", "Second-level cache lookups", Tags.of("region", "second-level", "result", "hit"), Statistics::getSecondLevelCacheHitCount);
+		counter(registry, "greenerp.hibernate.cache", "Second-level cache lookups", Tags.of("region", "second-level", "result", "miss"), Statistics::getSecondLevelCacheMissCount);
+		counter(registry, "greenerp.hibernate.cache", "Query cache lookups", Tags.of("region", "query", "result", "hit"), Statistics::getQueryCacheHitCount);
+		counter(registry, "greenerp.hibernate.cache", "Query cache lookups", Tags.of("region", "query", "result", "miss"), Statistics::getQueryCacheMissCount);
+
+		counter(registry, "greenerp.hibernate.transactions", "Transactions completed", Tags.empty(), Statistics::getTransactionCount);
+	}
+
+	private void counter(final MeterRegistry registry, final String name, final String description, final Tags tags, final ToDoubleFunction<Statistics> count)
+	{
+		FunctionCounter.builder(name, statistics, count).description(description).tags(tags).register(registry);
+	}
+}
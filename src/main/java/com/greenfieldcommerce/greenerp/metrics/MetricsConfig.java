@@ -0,0 +1,50 @@
+package com.greenfieldcommerce.greenerp.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Exposes the persistence layer as meters: the Hibernate statistics of the session factory, and the number of SQL
+ * statements prepared per request.
+ * <p>
+ * Service operations are timed with {@link io.micrometer.core.annotation.Timed}, which needs
+ * {@code management.observations.annotations.enabled}.
+ */
+@Configuration
+public class MetricsConfig
+{
+	@Bean
+	public StatementCountingInspector statementCountingInspector()
+	{
+		return new StatementCountingInspector();
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer statementCountingHibernatePropertiesCustomizer(final StatementCountingInspector statementCountingInspector)
+	{
+		return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCountingInspector);
+	}
+
+	@Bean
+	public HibernateStatisticsMetrics hibernateStatisticsMetrics(final EntityManagerFactory entityManagerFactory)
+	{
+		return new HibernateStatisticsMetrics(entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+	}
+
+	@Bean
+	public FilterRegistrationBean<RequestStatementsMetricsFilter> requestStatementsMetricsFilter(final StatementCountingInspector statementCountingInspector,
+		final MeterRegistry meterRegistry)
+	{
+		final FilterRegistrationBean<RequestStatementsMetricsFilter> registration = new FilterRegistrationBean<>(new RequestStatementsMetricsFilter(statementCountingInspector, meterRegistry));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+		return registration;
+	}
+}
@@ -0,0 +1,69 @@
+package com.greenfieldcommerce.greenerp.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records the number of SQL statements prepared while handling each request in
+ * {@code greenerp.hibernate.request.statements}, tagged like {@code http.server.requests} with the {@code method}
+ * and {@code uri} pattern, so requests whose statement count grows with the data they return stand out.
+ * <p>
+ * Only statements prepared on the request thread are counted: the asynchronous part of streamed responses is not.
+ * The summary of each method and pattern is registered once, and kept, so handling a request does not look it up in
+ * the registry.
+ */
+public class RequestStatementsMetricsFilter extends OncePerRequestFilter
+{
+	public static final String METRIC_NAME = "greenerp.hibernate.request.statements";
+
+	private static final String UNKNOWN_URI = "UNKNOWN";
+
+	/**
+	 * The method and {@code uri} pattern a summary is tagged with.
+	 */
+	private record Route(String method, String uri) { }
+
+	private final StatementCountingInspector statementCountingInspector;
+	private final MeterRegistry meterRegistry;
+	private final Map<Route, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+	public RequestStatementsMetricsFilter(final StatementCountingInspector statementCountingInspector, final MeterRegistry meterRegistry)
+	{
+		this.statementCountingInspector = statementCountingInspector;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain) throws ServletException, IOException
+	{
+		statementCountingInspector.start();
+		try
+		{
+			filterChain.doFilter(request, response);
+		} finally
+		{
+			final int statements = statementCountingInspector.stop();
+			final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			summaries.computeIfAbsent(new Route(request.getMethod(), pattern == null ? UNKNOWN_URI : pattern.toString()), this::summary).record(statements);
+		}
+	}
+
+	private DistributionSummary summary(final Route route)
+	{
+		return DistributionSummary.builder(METRIC_NAME).description("Number of SQL statements prepared per request")
+			.tags("method", route.method(), "uri", route.uri())
+			.publishPercentiles(0.5, 0.95, 0.99)
+			.register(meterRegistry);
+	}
+}
@@ -0,0 +1,42 @@
+package com.greenfieldcommerce.greenerp.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, between {@link #start()} and {@link #stop()}.
+ * <p>
+ * Statements are passed through unchanged, and are not counted on threads where counting was not started.
+ */
+public class StatementCountingInspector implements StatementInspector
+{
+	private final ThreadLocal<int[]> counts = new ThreadLocal<>();
+
+	@Override
+	public String inspect(final String sql)
+	{
+		final int[] count = counts.get();
+		if (count != null)
+			count[0]++;
+		return sql;
+	}
+
+	/**
+	 * Starts counting the statements prepared on the current thread, from zero.
+	 */
+	public void start()
+	{
+		counts.set(new int[1]);
+	}
+
+	/**
+	 * Stops counting the statements prepared on the current thread.
+	 *
+	 * @return the number of statements prepared since {@link #start()}, or zero if counting was not started
+	 */
+	public int stop()
+	{
+		final int[] count = counts.get();
+		counts.remove();
+		return count == null ? 0 : count[0];
+	}
+}
@@ -0,0 +1,162 @@
+package com.greenfieldcommerce.greenerp.money;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * An amount of money in a given currency, held as a whole number of minor units of that currency: cents for
+ * {@code USD} or {@code EUR}, yen for {@code JPY}. Currencies without minor units are held with two decimals.
+ * <p>
+ * Adding and subtracting amounts is exact and allocation-light, since it works on {@code long}s; it fails with an
+ * {@link ArithmeticException} on overflow rather than wrapping around. Every operation that can produce a fraction of
+ * a minor unit, such as converting from a {@link BigDecimal}, multiplying or dividing, rounds the result once, with
+ * {@link #ROUNDING}. Amounts in different currencies cannot be combined.
+ */
+public final class Money implements Comparable<Money>
+{
+	/**
+	 * How fractions of a minor unit are rounded, the same way invoice totals were always rounded.
+	 */
+	public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+
+	private static final int DEFAULT_SCALE = 2;
+
+	private final long minorUnits;
+	private final Currency currency;
+
+	private Money(final long minorUnits, final Currency currency)
+	{
+		this.minorUnits = minorUnits;
+		this.currency = Objects.requireNonNull(currency, "currency");
+	}
+
+	/**
+	 * @param amount the amount, in major units, rounded to the minor units of the currency
+	 * @param currency the currency of the amount
+	 */
+	public static Money of(final BigDecimal amount, final Currency currency)
+	{
+		return new Money(toMinorUnits(amount, scale(currency)), currency);
+	}
+
+	public static Money ofMinor(final long minorUnits, final Currency currency)
+	{
+		return new Money(minorUnits, currency);
+	}
+
+	public static Money zero(final Currency currency)
+	{
+		return new Money(0, currency);
+	}
+
+	/**
+	 * Number of decimals amounts in the given currency are held with.
+	 */
+	public static int scale(final Currency currency)
+	{
+		final int fractionDigits = currency.getDefaultFractionDigits();
+		return fractionDigits < 0 ? DEFAULT_SCALE : fractionDigits;
+	}
+
+	static long toMinorUnits(final BigDecimal amount, final int scale)
+	{
+		return amount.movePointRight(scale).setScale(0, ROUNDING).longValueExact();
+	}
+
+	public Money plus(final Money other)
+	{
+		checkSameCurrency(other);
+		return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+	}
+
+	public Money minus(final Money other)
+	{
+		checkSameCurrency(other);
+		return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+	}
+
+	public Money negate()
+	{
+		return new Money(Math.negateExact(minorUnits), currency);
+	}
+
+	/**
+	 * @param factor exact factor, such as a number of worked days
+	 * @return this amount times the factor, rounded once to the minor units of the currency
+	 */
+	public Money times(final BigDecimal factor)
+	{
+		return of(toBigDecimal().multiply(factor), currency);
+	}
+
+	/**
+	 * @param divisor non-zero divisor
+	 * @return this amount divided by the divisor, computed with {@link MathContext#DECIMAL64} precision, then
+	 * rounded once to the minor units of the currency
+	 */
+	public Money dividedBy(final BigDecimal divisor)
+	{
+		return of(toBigDecimal().divide(divisor, MathContext.DECIMAL64), currency);
+	}
+
+	public boolean isZero()
+	{
+		return minorUnits == 0;
+	}
+
+	public long minorUnits()
+	{
+		return minorUnits;
+	}
+
+	public Currency currency()
+	{
+		return currency;
+	}
+
+	/**
+	 * @return this amount in major units, with exactly as many decimals as the currency has minor units
+	 */
+	public BigDecimal toBigDecimal()
+	{
+		return BigDecimal.valueOf(minorUnits, scale(currency));
+	}
+
+	private void checkSameCurrency(final Money other)
+	{
+		if (!currency.equals(other.currency))
+			throw new IllegalArgumentException(String.format("Cannot combine amounts in %s and %s", currency, other.currency));
+	}
+
+	@Override
+	public int compareTo(final Money other)
+	{
+		checkSameCurrency(other);
+		return Long.compare(minorUnits, other.minorUnits);
+	}
+
+	@Override
+	public boolean equals(final Object o)
+	{
+		if (this == o)
+			return true;
+		if (!(o instanceof Money other))
+			return false;
+		return minorUnits == other.minorUnits && currency.equals(other.currency);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return toBigDecimal().toPlainString() + " " + currency.getCurrencyCode();
+	}
+}
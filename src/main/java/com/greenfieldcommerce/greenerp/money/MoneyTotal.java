@@ -0,0 +1,49 @@
+package com.greenfieldcommerce.greenerp.money;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Running total of amounts in a single currency, for summing many amounts without creating a {@link Money} or a
+ * {@link BigDecimal} per addition. Not thread-safe: meant to be used by one thread, then turned into a {@link Money}.
+ */
+public final class MoneyTotal
+{
+	private final Currency currency;
+	private final int scale;
+	private long minorUnits;
+
+	public MoneyTotal(final Currency currency)
+	{
+		this.currency = currency;
+		this.scale = Money.scale(currency);
+	}
+
+	public MoneyTotal add(final Money amount)
+	{
+		if (!currency.equals(amount.currency()))
+			throw new IllegalArgumentException(String.format("Cannot add an amount in %s to a total in %s", amount.currency(), currency));
+		minorUnits = Math.addExact(minorUnits, amount.minorUnits());
+		return this;
+	}
+
+	/**
+	 * Adds an amount known to be in the currency of the total, rounded to its minor units first.
+	 */
+	public MoneyTotal add(final BigDecimal amount)
+	{
+		minorUnits = Math.addExact(minorUnits, Money.toMinorUnits(amount, scale));
+		return this;
+	}
+
+	public MoneyTotal addMinor(final long amount)
+	{
+		minorUnits = Math.addExact(minorUnits, amount);
+		return this;
+	}
+
+	public Money toMoney()
+	{
+		return Money.ofMinor(minorUnits, currency);
+	}
+}
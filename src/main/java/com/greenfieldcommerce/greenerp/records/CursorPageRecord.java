@@ -0,0 +1,9 @@
+package com.greenfieldcommerce.greenerp.records;
+
+import java.util.List;
+
+/**
+ * A forward-only slice of a keyset-paginated listing. {@code nextCursor} is an opaque continuation token to send back
+ * as the {@code cursor} parameter to read the following slice, and is {@code null} once the listing is exhausted.
+ */
+public record CursorPageRecord<T>(List<T> content, String nextCursor) { }
@@ -1,5 +1,9 @@
 package com.greenfieldcommerce.greenerp.services;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
 import org.springframework.data.repository.CrudRepository;
 
 import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
@@ -26,4 +30,13 @@ public abstract class BaseEntityService<T, ID> implements EntityService<T, ID>
 	{
 		return repository.findById(id).orElseThrow(() -> new EntityNotFoundException("ENTITY_NOT_FOUND", String.format("%s with id '%s' not found", entityClass.toString(), id)));
 	}
+
+	/**
+	 * Loads every entity in {@code ids} with a single query. Ids without a matching entity are ignored.
+	 */
+	@Override
+	public List<T> findEntitiesByIds(final Collection<ID> ids)
+	{
+		return StreamSupport.stream(repository.findAllById(ids).spliterator(), false).toList();
+	}
 }
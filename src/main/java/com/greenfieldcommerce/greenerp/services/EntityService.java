@@ -1,7 +1,11 @@
 package com.greenfieldcommerce.greenerp.services;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface EntityService<T, ID>
 {
 	boolean existsById(ID id);
 	T findEntityById(ID id);
+	List<T> findEntitiesByIds(Collection<ID> ids);
 }
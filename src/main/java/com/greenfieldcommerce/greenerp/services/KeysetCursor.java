@@ -0,0 +1,97 @@
+package com.greenfieldcommerce.greenerp.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.lang.Nullable;
+
+import com.greenfieldcommerce.greenerp.exceptions.InvalidCursorException;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
+
+/**
+ * Encodes and decodes the opaque continuation tokens of listings paginated by a (date, id) keyset.
+ * <p>
+ * A token carries the date and ID of the last row of the previous slice, so the next slice is read with a seek
+ * predicate on an index instead of an {@code OFFSET} scan, and no {@code count(*)} is ever issued.
+ */
+public final class KeysetCursor
+{
+	private static final String ID_PROPERTY = "id";
+	private static final String SEPARATOR = "|";
+
+	private KeysetCursor()
+	{
+	}
+
+	/**
+	 * Resolves the scroll position a token points to.
+	 *
+	 * @param cursor       the token returned with the previous slice, or {@code null} to start from the first row
+	 * @param dateProperty the name of the date attribute the listing is ordered by
+	 * @return the keyset position following the row the token was issued for
+	 * @throws InvalidCursorException if the token was not issued by this class
+	 */
+	public static KeysetScrollPosition decode(@Nullable final String cursor, final String dateProperty)
+	{
+		if (cursor == null || cursor.isBlank())
+			return ScrollPosition.keyset();
+
+		try
+		{
+			final String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			final int separator = decoded.indexOf(SEPARATOR);
+			final Instant date = Instant.parse(decoded.substring(0, separator));
+			final Long id = Long.valueOf(decoded.substring(separator + 1));
+
+			final Map<String, Object> keys = new LinkedHashMap<>();
+			keys.put(dateProperty, ZonedDateTime.ofInstant(date, ZoneOffset.UTC));
+			keys.put(ID_PROPERTY, id);
+			return ScrollPosition.forward(keys);
+		}
+		catch (RuntimeException e)
+		{
+			throw new InvalidCursorException("INVALID_CURSOR", "The cursor " + cursor + " is not valid.");
+		}
+	}
+
+	/**
+	 * Maps a window read from a keyset position into a record, issuing the token of the following slice.
+	 *
+	 * @param window       the window read by the repository
+	 * @param dateProperty the name of the date attribute the listing is ordered by
+	 * @param mapper       the mapper turning each entity into its record
+	 * @return the mapped slice, whose next cursor is {@code null} when the window is the last one
+	 */
+	public static <T, R> CursorPageRecord<R> toRecord(final Window<T> window, final String dateProperty, final Function<T, R> mapper)
+	{
+		final String nextCursor = window.hasNext() && !window.isEmpty() ? encode((KeysetScrollPosition) window.positionAt(window.size() - 1), dateProperty) : null;
+		return new CursorPageRecord<>(window.getContent().stream().map(mapper).toList(), nextCursor);
+	}
+
+	/**
+	 * Issues the token of the slice following a row, for listings that are not read as a {@link Window}.
+	 *
+	 * @param date the date of the last row of the slice
+	 * @param id   the ID of the last row of the slice
+	 * @return the continuation token
+	 */
+	public static String encode(final ZonedDateTime date, final Long id)
+	{
+		final String raw = date.toInstant() + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String encode(final KeysetScrollPosition position, final String dateProperty)
+	{
+		return encode((ZonedDateTime) position.getKeys().get(dateProperty), (Long) position.getKeys().get(ID_PROPERTY));
+	}
+}
@@ -0,0 +1,47 @@
+package com.greenfieldcommerce.greenerp.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes a stream of records as newline-delimited JSON, one document per line, as they are pulled from the stream.
+ * <p>
+ * The output is only buffered up to a fixed size, so a dump of any length is written in constant memory as long as
+ * the stream itself does not hold on to the records it has produced.
+ */
+public final class NdjsonWriter
+{
+	private NdjsonWriter()
+	{
+	}
+
+	/**
+	 * Writes every record of a stream, closing neither the stream nor the output.
+	 *
+	 * @param records      the records to write
+	 * @param objectMapper the mapper serializing each record
+	 * @param outputStream the output to write to
+	 * @return the number of records written
+	 * @throws IOException if the output cannot be written to
+	 */
+	public static long write(final Stream<?> records, final ObjectMapper objectMapper, final OutputStream outputStream) throws IOException
+	{
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		long written = 0;
+		for (final Iterator<?> iterator = records.iterator(); iterator.hasNext(); written++)
+		{
+			writer.write(objectMapper.writeValueAsString(iterator.next()));
+			writer.write('\n');
+		}
+		writer.flush();
+		return written;
+	}
+}
@@ -0,0 +1,133 @@
+package com.greenfieldcommerce.greenerp.analytics.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessResponse;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
+import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
+import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
+import static org.springframework.restdocs.request.RequestDocumentation.queryParameters;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportFilterRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginTotalRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MonthlyMarginRecord;
+import com.greenfieldcommerce.greenerp.analytics.services.MarginAnalyticsService;
+import com.greenfieldcommerce.greenerp.controllers.BaseRestControllerTest;
+import com.greenfieldcommerce.greenerp.exceptions.InvalidDateRangeException;
+
+@WebMvcTest(controllers = MarginAnalyticsController.class)
+public class MarginAnalyticsControllerTest extends BaseRestControllerTest
+{
+	private static final Currency USD = Currency.getInstance("USD");
+	private static final YearMonth JANUARY = YearMonth.of(2025, 1);
+
+	@MockitoBean
+	private MarginAnalyticsService marginAnalyticsService;
+
+	@Test
+	public void shouldReportMonthlyMargins_forAdmin() throws Exception
+	{
+		final MonthlyMarginRecord margin = new MonthlyMarginRecord(JANUARY, 10L, 1L, USD, 1, 1, new BigDecimal("20"), new BigDecimal("10000.00"),
+			new BigDecimal("8000.00"), new BigDecimal("2000.00"), new BigDecimal("20.00"), new BigDecimal("10000.00"));
+		when(marginAnalyticsService.findMonthlyMargins(new MarginReportFilterRecord(JANUARY, JANUARY.plusMonths(11), 10L, null))).thenReturn(new MarginReportRecord(List.of(margin),
+			List.of(new MarginTotalRecord(USD, new BigDecimal("10000.00"), new BigDecimal("8000.00"), new BigDecimal("2000.00")))));
+
+		getMvc().perform(get("/analytics/margins").param("from", "2025-01").param("to", "2025-12").param("clientId", "10").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.margins.length()").value(1))
+			.andExpect(jsonPath("$.margins[0].month").value("2025-01"))
+			.andExpect(jsonPath("$.margins[0].currency").value("USD"))
+			.andExpect(jsonPath("$.margins[0].margin").value(2000.00))
+			.andExpect(jsonPath("$.totals[0].margin").value(2000.00))
+			.andDo(document("reporting-monthly-margins",
+				preprocessResponse(prettyPrint()),
+				requestHeaders(describeAdminHeader()),
+				queryParameters(
+					parameterWithName("from").description("First month reported, as yyyy-MM"),
+					parameterWithName("to").description("Last month reported, as yyyy-MM"),
+					parameterWithName("clientId").description("Only report the margins made on this client").optional(),
+					parameterWithName("contractorId").description("Only report the margins made on this contractor").optional()
+				),
+				responseFields(
+					fieldWithPath("margins[].month").description("Month the summarized invoices start in"),
+					fieldWithPath("margins[].clientId").description("Id of the client the invoices are billed to"),
+					fieldWithPath("margins[].contractorId").description("Id of the contractor who issued the invoices"),
+					fieldWithPath("margins[].currency").description("ISO 4217 code of the currency of the invoices"),
+					fieldWithPath("margins[].invoiceCount").description("Number of invoices"),
+					fieldWithPath("margins[].billedInvoiceCount").description("Number of invoices already billed to the client"),
+					fieldWithPath("margins[].workedDays").description("Days worked over all the invoices"),
+					fieldWithPath("margins[].revenue").description("Worked days at the external rate, plus the extra amounts"),
+					fieldWithPath("margins[].cost").description("Worked days at the gross rate, plus the extra amounts"),
+					fieldWithPath("margins[].margin").description("Revenue minus cost"),
+					fieldWithPath("margins[].marginPercentage").description("Margin as a percentage of the revenue, null when there is no revenue"),
+					fieldWithPath("margins[].billedRevenue").description("Revenue of the invoices already billed to the client"),
+					fieldWithPath("totals[].currency").description("ISO 4217 code of the currency totalled"),
+					fieldWithPath("totals[].revenue").description("Revenue of every reported margin in the currency"),
+					fieldWithPath("totals[].cost").description("Cost of every reported margin in the currency"),
+					fieldWithPath("totals[].margin").description("Margin of every reported margin in the currency")
+				)));
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenTheRangeEndsBeforeItStarts() throws Exception
+	{
+		when(marginAnalyticsService.findMonthlyMargins(any())).thenThrow(new InvalidDateRangeException("INVALID_DATE_RANGE", "The range ends before it starts"));
+
+		getMvc().perform(get("/analytics/margins").param("from", "2025-02").param("to", "2025-01").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenAMonthIsMissingOrMalformed() throws Exception
+	{
+		getMvc().perform(get("/analytics/margins").param("from", "2025-01").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isBadRequest());
+		getMvc().perform(get("/analytics/margins").param("from", "2025-01-01").param("to", "2025-02").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isBadRequest());
+
+		verify(marginAnalyticsService, never()).findMonthlyMargins(any());
+	}
+
+	@Test
+	public void shouldRebuildMonthlyMargins_forAdmin() throws Exception
+	{
+		getMvc().perform(post("/analytics/margins/rebuild").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isNoContent())
+			.andDo(document("rebuilding-monthly-margins", requestHeaders(describeAdminHeader())));
+
+		verify(marginAnalyticsService).rebuild();
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> protectedRequests()
+	{
+		return Stream.of(get("/analytics/margins").param("from", "2025-01").param("to", "2025-12"), post("/analytics/margins/rebuild"));
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> invalidResourceRequests()
+	{
+		return Stream.of();
+	}
+}
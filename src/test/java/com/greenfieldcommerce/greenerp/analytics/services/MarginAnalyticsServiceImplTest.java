@@ -0,0 +1,249 @@
+package com.greenfieldcommerce.greenerp.analytics.services;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.greenfieldcommerce.greenerp.analytics.entities.MonthlyMarginSummary;
+import com.greenfieldcommerce.greenerp.analytics.mappers.MonthlyMarginSummaryToRecordMapper;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportFilterRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginReportRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MarginTotalRecord;
+import com.greenfieldcommerce.greenerp.analytics.records.MonthlyMarginRecord;
+import com.greenfieldcommerce.greenerp.analytics.repositories.MonthlyMarginSummaryRepository;
+import com.greenfieldcommerce.greenerp.archive.repositories.ArchivedContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceMarginRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.exceptions.InvalidDateRangeException;
+
+@ExtendWith(MockitoExtension.class)
+public class MarginAnalyticsServiceImplTest
+{
+	private static final Currency USD = Currency.getInstance("USD");
+	private static final Currency EUR = Currency.getInstance("EUR");
+	private static final YearMonth JANUARY = YearMonth.of(2025, 1);
+	private static final ZonedDateTime JANUARY_START = JANUARY.atDay(1).atStartOfDay(ZoneId.systemDefault());
+	private static final Long CLIENT_ID = 10L;
+	private static final Long OTHER_CLIENT_ID = 11L;
+	private static final Long CONTRACTOR_ID = 1L;
+
+	@Mock
+	private MonthlyMarginSummaryRepository monthlyMarginSummaryRepository;
+	@Mock
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+	@Mock
+	private ArchivedContractorInvoiceRepository archivedContractorInvoiceRepository;
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private MarginAnalyticsServiceImpl service;
+
+	@BeforeEach
+	public void setup()
+	{
+		service = new MarginAnalyticsServiceImpl(monthlyMarginSummaryRepository, contractorInvoiceRepository, archivedContractorInvoiceRepository, new MonthlyMarginSummaryToRecordMapper(),
+			transactionManager, 2);
+	}
+
+	@Test
+	@DisplayName("Should summarize every invoice of the contractor and month of the refreshed invoice")
+	@SuppressWarnings("unchecked")
+	public void shouldSummarizeEveryInvoiceOfTheContractorAndMonthOfTheRefreshedInvoice()
+	{
+		when(contractorInvoiceRepository.findMarginsByContractorIdInAndStartDateBetween(eq(Set.of(CONTRACTOR_ID)), any(), any())).thenReturn(List.of(
+			margin(CLIENT_ID, JANUARY_START, "20", "100", 7L),
+			margin(CLIENT_ID, JANUARY_START.plusDays(14), "2.5", "0", null),
+			margin(CLIENT_ID, JANUARY_START.plusMonths(1), "18", "0", null)));
+		when(monthlyMarginSummaryRepository.findByContractorIdInAndMonthStartBetween(Set.of(CONTRACTOR_ID), JANUARY.atDay(1), JANUARY.atDay(1))).thenReturn(List.of());
+
+		service.refresh(List.of(invoice(JANUARY_START)));
+
+		final ArgumentCaptor<List<MonthlyMarginSummary>> created = ArgumentCaptor.forClass(List.class);
+		verify(monthlyMarginSummaryRepository).saveAll(created.capture());
+		assertEquals(1, created.getValue().size());
+
+		final MonthlyMarginSummary summary = created.getValue().getFirst();
+		assertEquals(CLIENT_ID, summary.getClientId());
+		assertEquals(CONTRACTOR_ID, summary.getContractorId());
+		assertEquals(JANUARY.atDay(1), summary.getMonthStart());
+		assertEquals(USD, summary.getCurrency());
+		assertEquals(2, summary.getInvoiceCount());
+		assertEquals(1, summary.getBilledInvoiceCount());
+		assertEquals(new BigDecimal("22.5"), summary.getWorkedDays());
+		assertEquals(new BigDecimal("11350.00"), summary.getRevenue());
+		assertEquals(new BigDecimal("9100.00"), summary.getCost());
+		assertEquals(new BigDecimal("10100.00"), summary.getBilledRevenue());
+	}
+
+	@Test
+	@DisplayName("Should rebuild the summaries from the archived invoices along with the others")
+	@SuppressWarnings("unchecked")
+	public void shouldRebuildTheSummariesFromTheArchivedInvoicesAlongWithTheOthers()
+	{
+		when(contractorInvoiceRepository.findAllMargins()).thenReturn(List.of(margin(CLIENT_ID, JANUARY_START.plusMonths(1), "20", "0", null)));
+		when(archivedContractorInvoiceRepository.findAllMargins()).thenReturn(List.of(margin(CLIENT_ID, JANUARY_START, "18", "0", 7L)));
+		when(monthlyMarginSummaryRepository.findAll()).thenReturn(List.of());
+
+		assertEquals(2, service.rebuild());
+
+		final ArgumentCaptor<List<MonthlyMarginSummary>> created = ArgumentCaptor.forClass(List.class);
+		verify(monthlyMarginSummaryRepository).saveAll(created.capture());
+		assertEquals(Set.of(JANUARY.atDay(1), JANUARY.plusMonths(1).atDay(1)),
+			created.getValue().stream().map(MonthlyMarginSummary::getMonthStart).collect(Collectors.toSet()));
+	}
+
+	@Test
+	@DisplayName("Should update the summaries in place, and delete those left without invoices")
+	@SuppressWarnings("unchecked")
+	public void shouldUpdateTheSummariesInPlaceAndDeleteThoseLeftWithoutInvoices()
+	{
+		final MonthlyMarginSummary current = summary(CLIENT_ID, USD, "1000.00", "800.00");
+		final MonthlyMarginSummary emptied = summary(OTHER_CLIENT_ID, USD, "500.00", "400.00");
+		when(contractorInvoiceRepository.findMarginsByContractorIdInAndStartDateBetween(eq(Set.of(CONTRACTOR_ID)), any(), any()))
+			.thenReturn(List.of(margin(CLIENT_ID, JANUARY_START, "20", "0", null)));
+		when(monthlyMarginSummaryRepository.findByContractorIdInAndMonthStartBetween(Set.of(CONTRACTOR_ID), JANUARY.atDay(1), JANUARY.atDay(1))).thenReturn(List.of(current, emptied));
+
+		service.refresh(List.of(invoice(JANUARY_START)));
+
+		assertEquals(new BigDecimal("10000.00"), current.getRevenue());
+		assertEquals(new BigDecimal("8000.00"), current.getCost());
+		verify(monthlyMarginSummaryRepository).deleteAll(List.of(emptied));
+
+		final ArgumentCaptor<List<MonthlyMarginSummary>> created = ArgumentCaptor.forClass(List.class);
+		verify(monthlyMarginSummaryRepository).saveAll(created.capture());
+		assertTrue(created.getValue().isEmpty());
+	}
+
+	@Test
+	@DisplayName("Should refresh the summaries only once the transaction making the change committed")
+	public void shouldRefreshTheSummariesOnlyOnceTheTransactionMakingTheChangeCommitted()
+	{
+		TransactionSynchronizationManager.initSynchronization();
+		try
+		{
+			service.refresh(List.of(invoice(JANUARY_START)));
+			verifyNoInteractions(contractorInvoiceRepository, monthlyMarginSummaryRepository, transactionManager);
+
+			when(contractorInvoiceRepository.findMarginsByContractorIdInAndStartDateBetween(eq(Set.of(CONTRACTOR_ID)), any(), any())).thenReturn(List.of());
+			when(monthlyMarginSummaryRepository.findByContractorIdInAndMonthStartBetween(Set.of(CONTRACTOR_ID), JANUARY.atDay(1), JANUARY.atDay(1))).thenReturn(List.of());
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+			verify(transactionManager).getTransaction(argThat(definition -> definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+			verify(monthlyMarginSummaryRepository).saveAll(List.of());
+		} finally
+		{
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	@DisplayName("Should retry a refresh losing a race with another refresh of the same summaries, without failing the caller")
+	public void shouldRetryARefreshLosingARaceWithAnotherRefreshOfTheSameSummariesWithoutFailingTheCaller()
+	{
+		when(contractorInvoiceRepository.findMarginsByContractorIdInAndStartDateBetween(eq(Set.of(CONTRACTOR_ID)), any(), any())).thenReturn(List.of());
+		when(monthlyMarginSummaryRepository.findByContractorIdInAndMonthStartBetween(Set.of(CONTRACTOR_ID), JANUARY.atDay(1), JANUARY.atDay(1))).thenReturn(List.of());
+		when(monthlyMarginSummaryRepository.saveAll(List.of()))
+			.thenThrow(new DataIntegrityViolationException("duplicate summary"))
+			.thenThrow(new ObjectOptimisticLockingFailureException(MonthlyMarginSummary.class, 1L));
+
+		assertDoesNotThrow(() -> service.refresh(List.of(invoice(JANUARY_START))));
+
+		verify(contractorInvoiceRepository, times(2)).findMarginsByContractorIdInAndStartDateBetween(eq(Set.of(CONTRACTOR_ID)), any(), any());
+		verify(transactionManager, times(2)).rollback(any());
+	}
+
+	@Test
+	@DisplayName("Should not query anything when no invoices are refreshed")
+	public void shouldNotQueryAnythingWhenNoInvoicesAreRefreshed()
+	{
+		service.refresh(List.of());
+
+		verifyNoInteractions(contractorInvoiceRepository, monthlyMarginSummaryRepository);
+	}
+
+	@Test
+	@DisplayName("Should report the margins of the matching summaries, with totals per currency")
+	public void shouldReportTheMarginsOfTheMatchingSummariesWithTotalsPerCurrency()
+	{
+		when(monthlyMarginSummaryRepository.findMatching(JANUARY.atDay(1), JANUARY.plusMonths(1).atDay(1), null, CONTRACTOR_ID)).thenReturn(List.of(
+			summary(CLIENT_ID, USD, "10000.00", "8000.00"),
+			summary(OTHER_CLIENT_ID, EUR, "0.00", "0.00"),
+			summary(OTHER_CLIENT_ID, USD, "3000.00", "2600.00")));
+
+		final MarginReportRecord report = service.findMonthlyMargins(new MarginReportFilterRecord(JANUARY, JANUARY.plusMonths(1), null, CONTRACTOR_ID));
+
+		assertEquals(3, report.margins().size());
+		final MonthlyMarginRecord first = report.margins().getFirst();
+		assertEquals(JANUARY, first.month());
+		assertEquals(new BigDecimal("2000.00"), first.margin());
+		assertEquals(new BigDecimal("20.00"), first.marginPercentage());
+		assertNull(report.margins().get(1).marginPercentage());
+
+		assertEquals(List.of(
+			new MarginTotalRecord(EUR, new BigDecimal("0.00"), new BigDecimal("0.00"), new BigDecimal("0.00")),
+			new MarginTotalRecord(USD, new BigDecimal("13000.00"), new BigDecimal("10600.00"), new BigDecimal("2400.00"))), report.totals());
+	}
+
+	@Test
+	@DisplayName("Should throw InvalidDateRangeException when the range ends before it starts")
+	public void shouldThrowInvalidDateRangeExceptionWhenTheRangeEndsBeforeItStarts()
+	{
+		assertThrows(InvalidDateRangeException.class, () -> service.findMonthlyMargins(new MarginReportFilterRecord(JANUARY, JANUARY.minusMonths(1), null, null)));
+
+		verifyNoInteractions(monthlyMarginSummaryRepository);
+	}
+
+	private static InvoiceMarginRecord margin(final Long clientId, final ZonedDateTime startDate, final String numberOfWorkedDays, final String extraAmountsTotal,
+		final Long clientInvoiceId)
+	{
+		return new InvoiceMarginRecord(clientId, CONTRACTOR_ID, startDate, USD, new BigDecimal(numberOfWorkedDays), new BigDecimal(extraAmountsTotal),
+			new BigDecimal("500"), new BigDecimal("400"), clientInvoiceId);
+	}
+
+	private static ContractorInvoiceRecord invoice(final ZonedDateTime startDate)
+	{
+		return new ContractorInvoiceRecord(CONTRACTOR_ID, 100L, CLIENT_ID, startDate, startDate.plusMonths(1).minusSeconds(1), BigDecimal.TEN, Set.of(),
+			new BigDecimal("3000.00"), USD, "OPEN");
+	}
+
+	private static MonthlyMarginSummary summary(final Long clientId, final Currency currency, final String revenue, final String cost)
+	{
+		final MonthlyMarginSummary summary = MonthlyMarginSummary.create(clientId, CONTRACTOR_ID, LocalDate.of(2025, 1, 1), currency);
+		summary.setFigures(1, 0, BigDecimal.TEN, new BigDecimal(revenue), new BigDecimal(cost), BigDecimal.ZERO);
+		return summary;
+	}
+}
@@ -0,0 +1,246 @@
+package com.greenfieldcommerce.greenerp.archive.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.greenfieldcommerce.greenerp.archive.records.InvoiceArchiveRecord;
+import com.greenfieldcommerce.greenerp.archive.repositories.ArchivedClientInvoiceRepository;
+import com.greenfieldcommerce.greenerp.archive.repositories.ArchivedContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.archive.repositories.InvoiceListingRepository;
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+import com.greenfieldcommerce.greenerp.clients.invoices.mappers.ClientInvoiceToRecordMapper;
+import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
+import com.greenfieldcommerce.greenerp.clients.invoices.repository.ClientInvoiceRepository;
+import com.greenfieldcommerce.greenerp.clients.mappers.ClientToRecordMapper;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.InvoiceExtraAmountLine;
+import com.greenfieldcommerce.greenerp.contractors.invoices.mappers.ContractorInvoiceToRecordMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.mappers.InvoiceExtraAmountLineRecordMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.InvoiceExtraAmountLineRepository;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateTable;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
+import com.greenfieldcommerce.greenerp.services.KeysetCursor;
+
+/**
+ * Moves invoices to the archive against the database, and reads and lists them back through {@link InvoiceArchiveServiceImpl}.
+ */
+@DataJpaTest
+public class InvoiceArchiverTest
+{
+	private static final Currency USD = Currency.getInstance("USD");
+	private static final ZonedDateTime JANUARY = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneId.systemDefault());
+	private static final ZonedDateTime FEBRUARY = JANUARY.plusMonths(1);
+
+	@Autowired
+	private TestEntityManager entityManager;
+	@Autowired
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+	@Autowired
+	private InvoiceExtraAmountLineRepository invoiceExtraAmountLineRepository;
+	@Autowired
+	private ClientInvoiceRepository clientInvoiceRepository;
+	@Autowired
+	private ContractorRepository contractorRepository;
+	@Autowired
+	private ClientRepository clientRepository;
+	@Autowired
+	private ArchivedContractorInvoiceRepository archivedContractorInvoiceRepository;
+	@Autowired
+	private ArchivedClientInvoiceRepository archivedClientInvoiceRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ArchivedDocumentCodec codec;
+	private ContractorInvoiceToRecordMapper contractorInvoiceToRecordMapper;
+	private ClientInvoiceToRecordMapper clientInvoiceToRecordMapper;
+	private InvoiceArchiveServiceImpl invoiceArchiveService;
+	private InvoiceArchiver archiver;
+
+	private Client client;
+	private Contractor contractor;
+	private ContractorInvoice closedInJanuary;
+	private ContractorInvoice closedInFebruary;
+	private ContractorInvoice openInFebruary;
+	private ContractorInvoice closedLastMonth;
+	private ClientInvoice closedClientInvoice;
+
+	@BeforeEach
+	public void setup()
+	{
+		codec = new ArchivedDocumentCodec(JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+		contractorInvoiceToRecordMapper = new ContractorInvoiceToRecordMapper(new InvoiceExtraAmountLineRecordMapper());
+		clientInvoiceToRecordMapper = new ClientInvoiceToRecordMapper(new ClientToRecordMapper(), contractorInvoiceToRecordMapper);
+		invoiceArchiveService = new InvoiceArchiveServiceImpl(archivedContractorInvoiceRepository, archivedClientInvoiceRepository, codec,
+			new InvoiceListingRepository(jdbcTemplate), contractorInvoiceRepository, clientInvoiceRepository, contractorInvoiceToRecordMapper, clientInvoiceToRecordMapper);
+		archiver = new InvoiceArchiver(contractorInvoiceRepository, invoiceExtraAmountLineRepository, clientInvoiceRepository, contractorRepository, clientRepository,
+			archivedContractorInvoiceRepository, archivedClientInvoiceRepository, contractorInvoiceToRecordMapper, clientInvoiceToRecordMapper, codec,
+			invoiceArchiveService, transactionManager, jdbcTemplate, Period.ofYears(1), 2);
+
+		client = entityManager.persist(Client.create("Client", "client@greenfieldcommerce.com", USD, 10));
+		contractor = entityManager.persist(Contractor.create("contractor@greenfieldcommerce.com", "Contractor"));
+		final ContractorRate rate = entityManager.persist(ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+			USD, JANUARY, JANUARY.plusYears(10)));
+
+		closedInJanuary = entityManager.persist(ContractorInvoice.create(rate, JANUARY, FEBRUARY.minusSeconds(1), BigDecimal.valueOf(20)));
+		closedInJanuary.close();
+		entityManager.persist(InvoiceExtraAmountLine.create(closedInJanuary, BigDecimal.TEN, "Extra"));
+		closedInFebruary = entityManager.persist(ContractorInvoice.create(rate, FEBRUARY, FEBRUARY.plusDays(14).minusSeconds(1), BigDecimal.valueOf(10)));
+		closedInFebruary.close();
+		openInFebruary = entityManager.persist(ContractorInvoice.create(rate, FEBRUARY.plusDays(14), FEBRUARY.plusMonths(1).minusSeconds(1), BigDecimal.valueOf(10)));
+		final ZonedDateTime lastMonth = ZonedDateTime.now().minusMonths(1).withDayOfMonth(1).toLocalDate().atStartOfDay(ZoneId.systemDefault());
+		closedLastMonth = entityManager.persist(ContractorInvoice.create(rate, lastMonth, lastMonth.plusDays(7), BigDecimal.valueOf(5)));
+		closedLastMonth.close();
+
+		closedClientInvoice = entityManager.persist(ClientInvoice.create(client, List.of(closedInJanuary), ExchangeRateTable.of(List.of())));
+		entityManager.flush();
+		contractorInvoiceRepository.assignClientInvoice(closedClientInvoice, List.of(closedInJanuary.getId()));
+		entityManager.getEntityManager().createQuery("UPDATE ClientInvoice c SET c.status = :status, c.invoiceDate = :invoiceDate WHERE c.id = :id")
+			.setParameter("status", ClientInvoice.ClientInvoiceStatus.CLOSED).setParameter("invoiceDate", FEBRUARY.plusDays(1))
+			.setParameter("id", closedClientInvoice.getId()).executeUpdate();
+		entityManager.clear();
+	}
+
+	@Test
+	@DisplayName("Should archive the closed invoices of whole months only, and the closed client invoices billing them")
+	public void shouldArchiveTheClosedInvoicesOfWholeMonthsOnlyAndTheClosedClientInvoicesBillingThem()
+	{
+		assertEquals(new InvoiceArchiveRecord(1, 1), archiver.archive());
+
+		assertTrue(contractorInvoiceRepository.findById(closedInJanuary.getId()).isEmpty());
+		assertTrue(contractorInvoiceRepository.findById(closedInFebruary.getId()).isPresent());
+		assertTrue(contractorInvoiceRepository.findById(openInFebruary.getId()).isPresent());
+		assertTrue(contractorInvoiceRepository.findById(closedLastMonth.getId()).isPresent());
+		assertTrue(clientInvoiceRepository.findById(closedClientInvoice.getId()).isEmpty());
+		assertEquals(1, archivedContractorInvoiceRepository.findAllMargins().size());
+
+		assertEquals(new InvoiceArchiveRecord(0, 0), archiver.archive());
+	}
+
+	@Test
+	@DisplayName("Should bound the archived invoices of the contractors and clients whose invoices were archived only")
+	public void shouldBoundTheArchivedInvoicesOfTheContractorsAndClientsWhoseInvoicesWereArchivedOnly()
+	{
+		final Contractor other = entityManager.persistAndFlush(Contractor.create("other@greenfieldcommerce.com", "Other"));
+		archiver.archive();
+		entityManager.clear();
+
+		assertTrue(contractorRepository.findById(contractor.getId()).orElseThrow().getArchivedThrough().isAfter(closedInJanuary.getStartDate()));
+		assertNotNull(clientRepository.findById(client.getId()).orElseThrow().getArchivedThrough());
+		assertNull(contractorRepository.findById(other.getId()).orElseThrow().getArchivedThrough());
+	}
+
+	@Test
+	@DisplayName("Should list archived invoices along with the others in the order requested")
+	public void shouldListArchivedInvoicesAlongWithTheOthersInTheOrderRequested()
+	{
+		archiver.archive();
+
+		final List<Long> oldestFirst = List.of(closedInJanuary.getId(), closedInFebruary.getId(), openInFebruary.getId(), closedLastMonth.getId());
+		assertEquals(oldestFirst, invoiceIds(invoiceArchiveService.findContractorInvoices(contractor.getId(),
+			PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "startDate")))));
+		assertEquals(oldestFirst.reversed(), invoiceIds(invoiceArchiveService.findContractorInvoices(contractor.getId(),
+			PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate")))));
+
+		final Page<ContractorInvoiceRecord> secondPage = invoiceArchiveService.findContractorInvoices(contractor.getId(),
+			PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "startDate")));
+		assertEquals(List.of(closedInJanuary.getId()), invoiceIds(secondPage));
+		assertEquals(4, secondPage.getTotalElements());
+
+		assertEquals(List.of(closedClientInvoice.getId()), invoiceArchiveService.findClientInvoices(client.getId(), PageRequest.of(0, 10))
+			.map(ClientInvoiceRecord::id).getContent());
+	}
+
+	@Test
+	@DisplayName("Should scroll through archived invoices along with the others, latest first")
+	public void shouldScrollThroughArchivedInvoicesAlongWithTheOthersLatestFirst()
+	{
+		archiver.archive();
+
+		final CursorPageRecord<ContractorInvoiceRecord> first = invoiceArchiveService.scrollContractorInvoices(contractor.getId(), ScrollPosition.keyset(), 3);
+		assertEquals(List.of(closedLastMonth.getId(), openInFebruary.getId(), closedInFebruary.getId()),
+			first.content().stream().map(ContractorInvoiceRecord::invoiceId).toList());
+		assertNotNull(first.nextCursor());
+
+		final CursorPageRecord<ContractorInvoiceRecord> second = invoiceArchiveService.scrollContractorInvoices(contractor.getId(),
+			KeysetCursor.decode(first.nextCursor(), "startDate"), 3);
+		assertEquals(List.of(closedInJanuary.getId()), second.content().stream().map(ContractorInvoiceRecord::invoiceId).toList());
+		assertNull(second.nextCursor());
+	}
+
+	@Test
+	@DisplayName("Should refuse to sort listings across the archive by a property the archive does not hold")
+	public void shouldRefuseToSortListingsAcrossTheArchiveByAPropertyTheArchiveDoesNotHold()
+	{
+		assertThrows(PropertyReferenceException.class, () -> invoiceArchiveService.findContractorInvoices(contractor.getId(),
+			PageRequest.of(0, 10, Sort.by("rate"))));
+	}
+
+	@Test
+	@DisplayName("Should read archived invoices back as they were returned before being archived")
+	public void shouldReadArchivedInvoicesBackAsTheyWereReturnedBeforeBeingArchived()
+	{
+		archiver.archive();
+
+		final ContractorInvoiceRecord invoice = invoiceArchiveService.findContractorInvoice(contractor.getId(), closedInJanuary.getId()).orElseThrow();
+		assertTrue(invoice.startDate().isEqual(JANUARY));
+		assertEquals(1, invoice.extraAmountLines().size());
+		assertEquals(ContractorInvoice.InvoiceStatus.CLOSED.name(), invoice.status());
+		assertTrue(invoiceArchiveService.findContractorInvoice(contractor.getId() + 1, closedInJanuary.getId()).isEmpty());
+
+		final ClientInvoiceRecord clientInvoice = invoiceArchiveService.findClientInvoice(closedClientInvoice.getId()).orElseThrow();
+		assertEquals(List.of(closedInJanuary.getId()), clientInvoice.contractorInvoices().stream().map(ContractorInvoiceRecord::invoiceId).toList());
+	}
+
+	@Test
+	@DisplayName("Should tell the periods of archived months apart from the others")
+	public void shouldTellThePeriodsOfArchivedMonthsApartFromTheOthers()
+	{
+		archiver.archive();
+
+		assertTrue(invoiceArchiveService.isArchivedPeriod(contractor.getId(), JANUARY.plusDays(10)));
+		assertTrue(invoiceArchiveService.isArchivedPeriod(contractor.getId(), JANUARY.plusDays(20)));
+		assertFalse(invoiceArchiveService.isArchivedPeriod(contractor.getId(), FEBRUARY));
+		assertFalse(invoiceArchiveService.isArchivedPeriod(contractor.getId() + 1, JANUARY.plusDays(10)));
+	}
+
+	private static List<Long> invoiceIds(final Page<ContractorInvoiceRecord> page)
+	{
+		return page.map(ContractorInvoiceRecord::invoiceId).getContent();
+	}
+}
@@ -1,6 +1,8 @@
 package com.greenfieldcommerce.greenerp.clients.controllers;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.Currency;
 import java.util.List;
@@ -10,8 +12,14 @@ import org.apache.commons.collections4.SetUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.restdocs.payload.ResponseFieldsSnippet;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -25,9 +33,12 @@ import static com.greenfieldcommerce.greenerp.helpers.ClientTestValidations.vali
 import static com.greenfieldcommerce.greenerp.helpers.ContractorInvoiceTestValidations.validateContractorInvoice;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
+import static org.springframework.restdocs.headers.HeaderDocumentation.headerWithName;
 import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
+import static org.springframework.restdocs.headers.HeaderDocumentation.responseHeaders;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessResponse;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
@@ -37,9 +48,13 @@ import static org.springframework.restdocs.payload.PayloadDocumentation.subsecti
 import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
 import static org.springframework.restdocs.request.RequestDocumentation.pathParameters;
 import static org.springframework.restdocs.request.RequestDocumentation.queryParameters;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ClientsController.class)
@@ -60,29 +75,84 @@ public class ClientsControllerTest extends BaseRestControllerTest
 	}
 
 	@Test
-	void shouldReturnAllClients_forAdmin() throws Exception
+	void shouldReturnAPageOfClients_forAdmin() throws Exception
 	{
 		final ClientRecord client1 = buildClient();
 		final ClientRecord client2 = new ClientRecord(2L, "Second Client", "another@email.com");
+		final Pageable pageable = PageRequest.of(0, 20, Sort.by("name"));
 
-		when(clientService.findAll()).thenReturn(List.of(client1, client2));
+		when(clientService.search(eq(null), eq(pageable))).thenReturn(new PageImpl<>(List.of(client1, client2), pageable, 2));
 
 		getMvc().perform(getClientsRequest().with(getJwtRequestPostProcessors().admin()))
 			.andExpect(status().isOk())
-			.andExpect(jsonPath("clients").isArray())
-			.andExpect(validClient("clients[0]", client1))
-			.andExpect(validClient("clients[1]", client2))
+			.andExpect(jsonPath("content").isArray())
+			.andExpect(validClient("content[0]", client1))
+			.andExpect(validClient("content[1]", client2))
 			.andDo(
 				document("listing-clients",
 					preprocessResponse(prettyPrint()),
 					requestHeaders(describeAdminHeader()),
 					responseFields(
-						subsectionWithPath("clients").description("An array of <<resources_client, Client resources>>")
+						pageFields("An array of <<resources_client, Client resources>>")
 					)
 				)
 			);
 	}
 
+	@Test
+	void shouldSearchClientsByNameOrEmailPrefix_forAdmin() throws Exception
+	{
+		final ClientRecord client = new ClientRecord(2L, "Second Client", "another@email.com");
+		final Pageable pageable = PageRequest.of(1, 5, Sort.by("name"));
+
+		when(clientService.search(eq("sec"), eq(pageable))).thenReturn(new PageImpl<>(List.of(client), pageable, 6));
+
+		getMvc().perform(getClientsRequest().queryParam("search", "sec").queryParam("page", "1").queryParam("size", "5").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isOk())
+			.andExpect(validClient("content[0]", client))
+			.andExpect(jsonPath("totalElements").value(6))
+			.andDo(
+				document("searching-clients",
+					preprocessResponse(prettyPrint()),
+					requestHeaders(describeAdminHeader()),
+					queryParameters(
+						parameterWithName("search").description("Only list clients whose name or email starts with this prefix, ignoring case").optional(),
+						parameterWithName("page").description("The requested response page, defaults to 0").optional(),
+						parameterWithName("size").description("The page size, defaults to 20").optional(),
+						parameterWithName("sort").description("The sorting option, defaults to name,asc").optional()
+					),
+					responseFields(
+						pageFields("An array of <<resources_client, Client resources>>")
+					)
+				)
+			);
+	}
+
+	@Test
+	void shouldStreamEveryClientAsNdjson_forAdmin() throws Exception
+	{
+		final String ndjson = """
+			{"id":1,"name":"Client","email":"client@email.com"}
+			""";
+		doAnswer(invocation -> {
+			invocation.getArgument(0, OutputStream.class).write(ndjson.getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(clientService).exportAll(any());
+
+		final MvcResult result = getMvc().perform(exportClientsRequest().with(getJwtRequestPostProcessors().admin()))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		getMvc().perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+			.andExpect(header().string("Content-Disposition", "attachment; filename=\"clients.ndjson\""))
+			.andExpect(content().string(ndjson))
+			.andDo(document("exporting-clients",
+				requestHeaders(describeAdminHeader()),
+				responseHeaders(headerWithName("Content-Disposition").description("Suggests a file name for the export"))));
+	}
+
 	@Test
 	void shouldReturnClientDetails_forAdmin() throws Exception
 	{
@@ -140,6 +210,7 @@ public class ClientsControllerTest extends BaseRestControllerTest
 	{
 		return Stream.of(
 			getClientsRequest(),
+			exportClientsRequest(),
 			getClientDetailsRequest(VALID_RESOURCE_ID),
 			getContractorInvoicesForClientRequest(VALID_RESOURCE_ID)
 		);
@@ -159,6 +230,11 @@ public class ClientsControllerTest extends BaseRestControllerTest
 		return get("/clients");
 	}
 
+	private static MockHttpServletRequestBuilder exportClientsRequest()
+	{
+		return get("/clients/export");
+	}
+
 	private static MockHttpServletRequestBuilder getClientDetailsRequest(final Long clientId)
 	{
 		return get("/clients/{clientId}", clientId);
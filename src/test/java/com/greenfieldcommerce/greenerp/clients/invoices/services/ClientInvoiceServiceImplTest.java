@@ -1,36 +1,57 @@
 package com.greenfieldcommerce.greenerp.clients.invoices.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.util.Currency;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import com.greenfieldcommerce.greenerp.archive.services.InvoiceArchiveService;
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.AppliedExchangeRate;
 import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
 import com.greenfieldcommerce.greenerp.clients.invoices.records.ClientInvoiceRecord;
 import com.greenfieldcommerce.greenerp.clients.invoices.repository.ClientInvoiceRepository;
 import com.greenfieldcommerce.greenerp.clients.services.ClientService;
 import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceService;
+import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
+import com.greenfieldcommerce.greenerp.exceptions.MissingExchangeRateException;
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateService;
 import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
 
 @ExtendWith(MockitoExtension.class)
 public class ClientInvoiceServiceImplTest
@@ -49,6 +70,12 @@ public class ClientInvoiceServiceImplTest
 	@Mock
 	private ContractorInvoiceService contractorInvoiceService;
 
+	@Mock
+	private ExchangeRateService exchangeRateService;
+
+	@Mock
+	private InvoiceArchiveService invoiceArchiveService;
+
 	@InjectMocks
 	private ClientInvoiceServiceImpl service;
 
@@ -67,6 +94,38 @@ public class ClientInvoiceServiceImplTest
 		assertEquals(expected, result);
 	}
 
+	@Test
+	@DisplayName("Should find an archived client invoice record by id once it is no longer in the invoice table")
+	public void shouldFindAnArchivedClientInvoiceRecordByIdOnceItIsNoLongerInTheInvoiceTable()
+	{
+		final ClientInvoiceRecord archived = mock(ClientInvoiceRecord.class);
+
+		when(clientInvoiceRepository.findById(VALID_CLIENT_ID)).thenReturn(Optional.empty());
+		when(invoiceArchiveService.findClientInvoice(VALID_CLIENT_ID)).thenReturn(Optional.of(archived));
+
+		assertEquals(archived, service.findById(VALID_CLIENT_ID));
+		assertThrows(EntityNotFoundException.class, () -> service.findById(2L));
+	}
+
+	@Test
+	@DisplayName("Should list the archived contractor invoices of a closed client invoice along with the others")
+	public void shouldListTheArchivedContractorInvoicesOfAClosedClientInvoiceAlongWithTheOthers()
+	{
+		final ClientInvoice clientInvoice = mock(ClientInvoice.class);
+		final ContractorInvoiceRecord contractorInvoice = mock(ContractorInvoiceRecord.class);
+		final ContractorInvoiceRecord archivedContractorInvoice = mock(ContractorInvoiceRecord.class);
+		final ClientInvoiceRecord record = new ClientInvoiceRecord(VALID_CLIENT_ID, null, Currency.getInstance("USD"), ZonedDateTime.now(), ZonedDateTime.now(),
+			BigDecimal.TEN, ClientInvoice.ClientInvoiceStatus.CLOSED.name(), List.of(contractorInvoice));
+		final ClientInvoiceRecord completed = new ClientInvoiceRecord(record.id(), record.client(), record.currency(), record.invoiceDate(), record.dueDate(),
+			record.total(), record.status(), List.of(contractorInvoice, archivedContractorInvoice));
+
+		when(clientInvoiceRepository.findById(VALID_CLIENT_ID)).thenReturn(Optional.of(clientInvoice));
+		when(clientInvoiceToRecordMapper.map(clientInvoice)).thenReturn(record);
+		when(invoiceArchiveService.withArchivedContractorInvoices(List.of(record))).thenReturn(List.of(completed));
+
+		assertEquals(List.of(contractorInvoice, archivedContractorInvoice), service.findById(VALID_CLIENT_ID).contractorInvoices());
+	}
+
 	@Test
 	@DisplayName("Should find the sorted latest x invoices for client")
 	public void shouldFindTheSortedLatestXInvoicesForClient()
@@ -95,6 +154,45 @@ public class ClientInvoiceServiceImplTest
 		assertEquals(invoice2Record, result.getContent().get(1));
 		assertEquals(invoices.size(), result.getTotalElements());
 		assertEquals(pageable, result.getPageable());
+		verifyNoInteractions(invoiceArchiveService);
+	}
+
+	@Test
+	@DisplayName("Should list the invoices of a client with archived invoices across the archive")
+	public void shouldListTheInvoicesOfAClientWithArchivedInvoicesAcrossTheArchive()
+	{
+		final Client client = mock(Client.class);
+		final Pageable pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "dueDate"));
+		final Page<ClientInvoiceRecord> page = new PageImpl<>(List.of(mock(ClientInvoiceRecord.class)), pageable, 1);
+		final CursorPageRecord<ClientInvoiceRecord> slice = new CursorPageRecord<>(List.of(mock(ClientInvoiceRecord.class)), null);
+
+		when(client.getArchivedThrough()).thenReturn(ZonedDateTime.now());
+		when(clientService.findEntityById(VALID_CLIENT_ID)).thenReturn(client);
+		when(invoiceArchiveService.findClientInvoices(VALID_CLIENT_ID, pageable)).thenReturn(page);
+		when(invoiceArchiveService.scrollClientInvoices(VALID_CLIENT_ID, ScrollPosition.keyset(), 100)).thenReturn(slice);
+
+		assertEquals(page, service.findClientInvoicesForClient(VALID_CLIENT_ID, pageable));
+		assertEquals(slice, service.scrollClientInvoicesForClient(VALID_CLIENT_ID, null, 5000));
+		verifyNoInteractions(clientInvoiceRepository);
+	}
+
+	@Test
+	@DisplayName("Should read the first slice of client invoices with a capped size and a continuation token")
+	public void shouldReadTheFirstSliceOfClientInvoicesWithACappedSizeAndAContinuationToken()
+	{
+		final Client client = mock(Client.class);
+		final ClientInvoice invoice = mock(ClientInvoice.class);
+		final ClientInvoiceRecord invoiceRecord = mock(ClientInvoiceRecord.class);
+		final Window<ClientInvoice> window = Window.from(List.of(invoice),
+			index -> ScrollPosition.forward(Map.of("dueDate", ZonedDateTime.now(), "id", 7L)), true);
+
+		when(clientService.findEntityById(VALID_CLIENT_ID)).thenReturn(client);
+		when(clientInvoiceRepository.findByClientOrderByDueDateDescIdDesc(eq(client), eq(ScrollPosition.keyset()), eq(Limit.of(100)))).thenReturn(window);
+		when(clientInvoiceToRecordMapper.map(eq(invoice))).thenReturn(invoiceRecord);
+
+		final CursorPageRecord<ClientInvoiceRecord> result = service.scrollClientInvoicesForClient(VALID_CLIENT_ID, null, 5000);
+		assertEquals(List.of(invoiceRecord), result.content());
+		assertNotNull(result.nextCursor());
 	}
 
 	@Test
@@ -115,15 +213,89 @@ public class ClientInvoiceServiceImplTest
 		when(client.getInvoiceDueDateGap()).thenReturn(invoiceDueGap);
 		when(client.getInvoiceCurrency()).thenReturn(currency);
 		when(clientService.findEntityById(VALID_CLIENT_ID)).thenReturn(client);
-		when(contractorInvoiceService.findEntityById(eq(invoiceId1))).thenReturn(contractorInvoice1);
-		when(contractorInvoiceService.findEntityById(eq(invoiceId2))).thenReturn(contractorInvoice2);
+		when(contractorInvoiceService.findEntitiesForClient(eq(VALID_CLIENT_ID), eq(List.of(invoiceId1, invoiceId2)))).thenReturn(List.of(contractorInvoice1, contractorInvoice2));
 		when(contractorInvoice1.getTotal()).thenReturn(BigDecimal.valueOf(10L));
+		when(contractorInvoice1.getCurrency()).thenReturn(currency);
 		when(contractorInvoice2.getTotal()).thenReturn(BigDecimal.valueOf(20L));
+		when(contractorInvoice2.getCurrency()).thenReturn(currency);
 
-		when(clientInvoiceRepository.save(any(ClientInvoice.class))).thenReturn(clientInvoice);
+		when(clientInvoiceRepository.save(argThat(i -> i.getTotal().equals(new BigDecimal("30.00")) && i.getContractorInvoices().size() == 2))).thenReturn(clientInvoice);
 		when(clientInvoiceToRecordMapper.map(eq(clientInvoice))).thenReturn(clientInvoiceRecord);
 
 		assertEquals(clientInvoiceRecord, service.create(VALID_CLIENT_ID, List.of(invoiceId1, invoiceId2)));
+		verify(contractorInvoiceService).assignToClientInvoice(eq(clientInvoice), eq(List.of(contractorInvoice1, contractorInvoice2)));
+		verify(contractorInvoiceService, never()).findEntityById(any());
+		verify(exchangeRateService, never()).find(any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should convert contractor invoices in another currency and record the exchange rates applied")
+	public void shouldConvertContractorInvoicesInAnotherCurrencyAndRecordTheExchangeRatesApplied()
+	{
+		final Currency usd = Currency.getInstance("USD");
+		final Currency eur = Currency.getInstance("EUR");
+		final Client client = mock(Client.class);
+		final ContractorInvoice inUsd = mock(ContractorInvoice.class);
+		final ContractorInvoice inEur = mock(ContractorInvoice.class);
+		final ExchangeRate eurToUsd = ExchangeRate.create(eur, usd, LocalDate.now().minusDays(3), new BigDecimal("1.08345"));
+
+		when(client.getInvoiceDueDateGap()).thenReturn(10);
+		when(client.getInvoiceCurrency()).thenReturn(usd);
+		when(clientService.findEntityById(VALID_CLIENT_ID)).thenReturn(client);
+		when(contractorInvoiceService.findEntitiesForClient(eq(VALID_CLIENT_ID), eq(List.of(1L, 2L)))).thenReturn(List.of(inUsd, inEur));
+		when(inUsd.getTotal()).thenReturn(new BigDecimal("1000.00"));
+		when(inUsd.getCurrency()).thenReturn(usd);
+		when(inEur.getId()).thenReturn(2L);
+		when(inEur.getTotal()).thenReturn(new BigDecimal("2000.50"));
+		when(inEur.getCurrency()).thenReturn(eur);
+		when(exchangeRateService.find(eq(eur), eq(usd), eq(LocalDate.now()))).thenReturn(eurToUsd);
+		when(clientInvoiceRepository.save(any(ClientInvoice.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		service.create(VALID_CLIENT_ID, List.of(1L, 2L));
+
+		final ArgumentCaptor<ClientInvoice> saved = ArgumentCaptor.forClass(ClientInvoice.class);
+		verify(clientInvoiceRepository).save(saved.capture());
+		assertEquals(new BigDecimal("3167.44"), saved.getValue().getTotal());
+		assertEquals(1, saved.getValue().getAppliedExchangeRates().size());
+		final AppliedExchangeRate applied = saved.getValue().getAppliedExchangeRates().getFirst();
+		assertEquals(2L, applied.getContractorInvoiceId());
+		assertEquals(eur, applied.getSourceCurrency());
+		assertEquals(eurToUsd.getEffectiveDate(), applied.getEffectiveDate());
+		assertEquals(new BigDecimal("1.08345"), applied.getRate());
+		assertEquals(new BigDecimal("2000.50"), applied.getSourceTotal());
+		assertEquals(new BigDecimal("2167.44"), applied.getConvertedTotal());
+	}
+
+	@Test
+	@DisplayName("Should not create client invoice when no exchange rate is in effect for a contractor invoice currency")
+	public void shouldNotCreateClientInvoiceWhenNoExchangeRateIsInEffect()
+	{
+		final Client client = mock(Client.class);
+		final ContractorInvoice inEur = mock(ContractorInvoice.class);
+
+		when(client.getInvoiceDueDateGap()).thenReturn(10);
+		when(client.getInvoiceCurrency()).thenReturn(Currency.getInstance("USD"));
+		when(clientService.findEntityById(VALID_CLIENT_ID)).thenReturn(client);
+		when(contractorInvoiceService.findEntitiesForClient(eq(VALID_CLIENT_ID), eq(List.of(1L)))).thenReturn(List.of(inEur));
+		when(inEur.getCurrency()).thenReturn(Currency.getInstance("EUR"));
+		when(exchangeRateService.find(any(), any(), any())).thenThrow(new MissingExchangeRateException("MISSING_EXCHANGE_RATE", "No rate"));
+
+		assertThrows(MissingExchangeRateException.class, () -> service.create(VALID_CLIENT_ID, List.of(1L)));
+		verify(clientInvoiceRepository, never()).save(any(ClientInvoice.class));
+	}
+
+	@Test
+	@DisplayName("Should not create client invoice when any contractor invoice is not found for the client")
+	public void shouldNotCreateClientInvoiceWhenAnyContractorInvoiceIsNotFoundForTheClient()
+	{
+		final Client client = mock(Client.class);
+
+		when(clientService.findEntityById(VALID_CLIENT_ID)).thenReturn(client);
+		when(contractorInvoiceService.findEntitiesForClient(eq(VALID_CLIENT_ID), eq(List.of(1L, 2L)))).thenThrow(new EntityNotFoundException("CONTRACTOR_INVOICES_NOT_FOUND", "Not found"));
+
+		assertThrows(EntityNotFoundException.class, () -> service.create(VALID_CLIENT_ID, List.of(1L, 2L)));
+		verify(clientInvoiceRepository, never()).save(any(ClientInvoice.class));
+		verify(contractorInvoiceService, never()).assignToClientInvoice(any(), any());
 	}
 
 }
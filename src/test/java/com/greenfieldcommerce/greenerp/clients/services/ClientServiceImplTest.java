@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -18,6 +19,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.clients.records.ClientRecord;
@@ -26,6 +30,8 @@ import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
 import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
 import com.greenfieldcommerce.greenerp.mappers.Mapper;
 
+import jakarta.persistence.EntityManager;
+
 @ExtendWith(MockitoExtension.class)
 public class ClientServiceImplTest
 {
@@ -35,32 +41,50 @@ public class ClientServiceImplTest
 	private ClientRepository clientRepository;
 	@Mock
 	private Mapper<Client, ClientRecord> clientToRecordMapper;
+	@Mock
+	private EntityManager entityManager;
 
 	@InjectMocks
 	private ClientServiceImpl service;
 
 	@Test
-	@DisplayName("Should find all clients")
-	void shouldFindAllClients()
+	@DisplayName("Should find a page of clients")
+	void shouldFindAPageOfClients()
 	{
+		final Pageable pageable = PageRequest.of(0, 20);
 		Client clientA = mock(Client.class);
 		Client clientB = mock(Client.class);
 
 		ClientRecord clientRecordA = mock(ClientRecord.class);
 		ClientRecord clientRecordB = mock(ClientRecord.class);
 
-		when(clientRepository.findAll()).thenReturn(List.of(clientA, clientB));
+		when(clientRepository.findAllBy(pageable)).thenReturn(List.of(clientA, clientB));
 
 		when(clientToRecordMapper.map(clientA)).thenReturn(clientRecordA);
 		when(clientToRecordMapper.map(clientB)).thenReturn(clientRecordB);
 
-		final List<ClientRecord> result = service.findAll();
+		final List<ClientRecord> result = service.findAll(pageable);
 
 		assertEquals(2, result.size());
 		assertEquals(clientRecordA, result.getFirst());
 		assertEquals(clientRecordB, result.getLast());
 	}
 
+	@Test
+	@DisplayName("Should search clients by the trimmed prefix of their name or email")
+	void shouldSearchClientsByTheTrimmedPrefixOfTheirNameOrEmail()
+	{
+		final Pageable pageable = PageRequest.of(0, 20);
+		final Client client = mock(Client.class);
+		final ClientRecord record = mock(ClientRecord.class);
+
+		when(clientRepository.findByNameStartingWithIgnoreCaseOrEmailStartingWithIgnoreCase("acme", "acme", pageable)).thenReturn(new PageImpl<>(List.of(client), pageable, 1));
+		when(clientToRecordMapper.map(client)).thenReturn(record);
+
+		assertEquals(List.of(record), service.search("acme ", pageable).getContent());
+		verify(clientRepository, never()).findAll(pageable);
+	}
+
 	@Test
 	@DisplayName("Should find client record by id")
 	public void shouldFindClientRecordById()
@@ -0,0 +1,122 @@
+package com.greenfieldcommerce.greenerp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class AdmissionControlledDataSourceTest
+{
+	@Mock
+	private DataSource targetDataSource;
+
+	private SimpleMeterRegistry meterRegistry;
+	private AdmissionControlledDataSource dataSource;
+
+	@BeforeEach
+	public void setup()
+	{
+		meterRegistry = new SimpleMeterRegistry();
+		dataSource = new AdmissionControlledDataSource(targetDataSource, 1, Duration.ofMillis(50));
+		dataSource.bindTo(meterRegistry);
+	}
+
+	@Test
+	@DisplayName("Should hold a permit while a connection is borrowed and give it back once, when the connection is closed")
+	public void shouldHoldAPermitWhileAConnectionIsBorrowed() throws Exception
+	{
+		final Connection target = mock(Connection.class);
+		when(targetDataSource.getConnection()).thenReturn(target);
+
+		final Connection connection = dataSource.getConnection();
+		assertSame(target, ((ConnectionProxy) connection).getTargetConnection());
+		assertEquals(0, dataSource.availablePermits());
+
+		connection.close();
+		connection.close();
+
+		assertEquals(1, dataSource.availablePermits());
+		verify(target, times(2)).close();
+	}
+
+	@Test
+	@DisplayName("Should fail like the pool once a thread waited for the admission timeout")
+	public void shouldFailLikeThePoolOnceAThreadWaitedForTheAdmissionTimeout() throws Exception
+	{
+		when(targetDataSource.getConnection()).thenReturn(mock(Connection.class));
+		final Connection borrowed = dataSource.getConnection();
+
+		assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+
+		assertEquals(1, meterRegistry.get(AdmissionControlledDataSource.REJECTED_METRIC_NAME).counter().count());
+		assertEquals(2, meterRegistry.get(AdmissionControlledDataSource.WAIT_METRIC_NAME).timer().count());
+		borrowed.close();
+		assertEquals(1, dataSource.availablePermits());
+	}
+
+	@Test
+	@DisplayName("Should give the permit back when the pool fails to hand out a connection")
+	public void shouldGiveThePermitBackWhenThePoolFailsToHandOutAConnection() throws Exception
+	{
+		when(targetDataSource.getConnection()).thenThrow(new SQLException("database is down"));
+
+		assertThrows(SQLException.class, () -> dataSource.getConnection());
+
+		assertEquals(1, dataSource.availablePermits());
+	}
+
+	@Test
+	@DisplayName("Should hand out a connection to a waiting virtual thread as soon as another one is closed")
+	public void shouldHandOutAConnectionToAWaitingVirtualThreadAsSoonAsAnotherOneIsClosed() throws Exception
+	{
+		final AdmissionControlledDataSource patient = new AdmissionControlledDataSource(targetDataSource, 1, Duration.ofSeconds(10));
+		when(targetDataSource.getConnection()).thenReturn(mock(Connection.class));
+		final Connection borrowed = patient.getConnection();
+
+		try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+		{
+			final CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+				try
+				{
+					return patient.getConnection();
+				} catch (SQLException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			}, executor);
+
+			Thread.sleep(50);
+			assertFalse(waiting.isDone());
+			borrowed.close();
+
+			waiting.get(5, TimeUnit.SECONDS).close();
+		}
+		assertEquals(1, patient.availablePermits());
+	}
+}
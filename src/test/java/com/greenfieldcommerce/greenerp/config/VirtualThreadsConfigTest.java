@@ -0,0 +1,61 @@
+package com.greenfieldcommerce.greenerp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+
+import config.GreenERPTestConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Checks that the virtual-thread mode runs asynchronous work on virtual threads and puts the data source behind an
+ * admission limit.
+ */
+@SpringBootTest(properties = { "spring.threads.virtual.enabled=true", "greenerp.jdbc.admission.permits=4", "greenerp.outbox.relay.interval=PT1H" })
+@AutoConfigureTestDatabase
+@Import(GreenERPTestConfiguration.class)
+public class VirtualThreadsConfigTest
+{
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private AsyncTaskExecutor applicationTaskExecutor;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private ContractorRepository contractorRepository;
+
+	@Test
+	@DisplayName("Should run asynchronous work on virtual threads")
+	public void shouldRunAsynchronousWorkOnVirtualThreads() throws Exception
+	{
+		final CompletableFuture<Boolean> virtual = applicationTaskExecutor.submitCompletable(() -> Thread.currentThread().isVirtual());
+
+		assertTrue(virtual.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	@DisplayName("Should borrow JDBC connections through the admission limit")
+	public void shouldBorrowJdbcConnectionsThroughTheAdmissionLimit() throws Exception
+	{
+		final AdmissionControlledDataSource admissionControlled = dataSource.unwrap(AdmissionControlledDataSource.class);
+
+		assertEquals(0, contractorRepository.count());
+		assertEquals(4, admissionControlled.availablePermits());
+		assertTrue(meterRegistry.get(AdmissionControlledDataSource.WAIT_METRIC_NAME).timer().count() > 0);
+	}
+}
@@ -0,0 +1,172 @@
+package com.greenfieldcommerce.greenerp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import com.greenfieldcommerce.greenerp.GreenErpApplication;
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+import com.greenfieldcommerce.greenerp.services.TimeService;
+
+import config.GreenERPTestConfiguration;
+import config.LoadTestConfiguration;
+
+/**
+ * Compares the throughput and p99 latency of the application on platform threads, the default, and on virtual
+ * threads, under many more concurrent clients than Tomcat has platform threads.
+ * <p>
+ * Each mode runs in its own application, on a random port, with a Hikari pool of {@link #POOL_SIZE} connections over
+ * an in-memory database. Clients call {@link LoadTestConfiguration.BlockingInvoicesController}, which blocks like a
+ * downstream call before reading invoices. Both modes must serve every request; the comparison is logged.
+ * <p>
+ * Tagged {@code load} and excluded from the default build: run it with {@code mvn -Pload-test test}.
+ */
+@Tag("load")
+public class VirtualThreadsLoadTest
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadsLoadTest.class);
+	private static final int POOL_SIZE = 10;
+	private static final int CONCURRENT_CLIENTS = 1000;
+	private static final int REQUESTS_PER_CLIENT = 10;
+	private static final int WARM_UP_CLIENTS = 100;
+
+	@Test
+	@DisplayName("Should serve every request on platform and virtual threads, and compare their throughput and p99")
+	public void shouldServeEveryRequestOnPlatformAndVirtualThreads() throws Exception
+	{
+		final LoadResult platform = measure(false);
+		final LoadResult virtual = measure(true);
+
+		log("Platform", platform);
+		log("Virtual", virtual);
+		assertEquals(0, platform.failures());
+		assertEquals(0, virtual.failures());
+	}
+
+	private static LoadResult measure(final boolean virtualThreads) throws Exception
+	{
+		try (final ConfigurableApplicationContext context = new SpringApplicationBuilder(GreenErpApplication.class, GreenERPTestConfiguration.class, LoadTestConfiguration.class)
+			.run("--server.port=0", "--spring.threads.virtual.enabled=" + virtualThreads, "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+				"--spring.datasource.username=sa", "--spring.datasource.password=", "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+				"--spring.jpa.show-sql=false", "--logging.level.org.springframework.security=WARN",
+				"--logging.level.com.greenfieldcommerce.greenerp.config.AuthenticationLoggingFilter=WARN", "--greenerp.outbox.relay.interval=PT1H");
+			final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+			final HttpClient httpClient = HttpClient.newBuilder().executor(clients).connectTimeout(Duration.ofSeconds(30)).build())
+		{
+			final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			final String path = LoadTestConfiguration.BlockingInvoicesController.PATH.replace("{contractorId}", seed(context).getId().toString());
+			final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header(HttpHeaders.AUTHORIZATION, "Bearer load-test").timeout(Duration.ofMinutes(1)).GET().build();
+
+			load(httpClient, clients, request, WARM_UP_CLIENTS, new AtomicInteger());
+
+			final AtomicInteger failures = new AtomicInteger();
+			final Instant start = Instant.now();
+			final long[] latencies = load(httpClient, clients, request, CONCURRENT_CLIENTS, failures);
+			return LoadResult.of(latencies, Duration.between(start, Instant.now()), failures.get());
+		}
+	}
+
+	private static Contractor seed(final ConfigurableApplicationContext context)
+	{
+		final ZonedDateTime currentMonth = TimeService.now().with(TemporalAdjusters.firstDayOfMonth()).with(LocalTime.MIDNIGHT);
+		final Client client = context.getBean(ClientRepository.class).save(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+		final Contractor contractor = context.getBean(ContractorRepository.class).save(Contractor.create("contractor@greenfieldcommerce.com", "Contractor"));
+		final ContractorRate rate = context.getBean(ContractorRateRepository.class).save(ContractorRate.create(contractor, client, BigDecimal.valueOf(100),
+			BigDecimal.valueOf(200), BigDecimal.TEN, Currency.getInstance("USD"), currentMonth.minusYears(2), currentMonth.plusYears(1)));
+
+		final List<ContractorInvoice> invoices = new ArrayList<>();
+		for (int m = 24; m > 0; m--)
+			invoices.add(ContractorInvoice.create(rate, currentMonth.minusMonths(m), currentMonth.minusMonths(m - 1).minusSeconds(1), BigDecimal.valueOf(20)));
+		context.getBean(ContractorInvoiceRepository.class).saveAll(invoices);
+		return contractor;
+	}
+
+	private static long[] load(final HttpClient httpClient, final ExecutorService clients, final HttpRequest request, final int concurrentClients, final AtomicInteger failures)
+		throws Exception
+	{
+		final List<Future<long[]>> futures = new ArrayList<>();
+		for (int c = 0; c < concurrentClients; c++)
+			futures.add(clients.submit(() -> {
+				final long[] latencies = new long[REQUESTS_PER_CLIENT];
+				for (int r = 0; r < REQUESTS_PER_CLIENT; r++)
+				{
+					final long start = System.nanoTime();
+					try
+					{
+						if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200)
+							failures.incrementAndGet();
+					} catch (Exception e)
+					{
+						failures.incrementAndGet();
+					}
+					latencies[r] = System.nanoTime() - start;
+				}
+				return latencies;
+			}));
+
+		final long[] latencies = new long[concurrentClients * REQUESTS_PER_CLIENT];
+		for (int c = 0; c < futures.size(); c++)
+			System.arraycopy(futures.get(c).get(), 0, latencies, c * REQUESTS_PER_CLIENT, REQUESTS_PER_CLIENT);
+		return latencies;
+	}
+
+	private static void log(final String mode, final LoadResult result)
+	{
+		LOGGER.info("{} threads: {} requests in {} ms, {} requests/s, p50 {} ms, p99 {} ms, {} failed", mode, result.requests(), result.elapsed().toMillis(),
+			Math.round(result.throughput()), result.p50().toMillis(), result.p99().toMillis(), result.failures());
+	}
+
+	private record LoadResult(int requests, Duration elapsed, Duration p50, Duration p99, int failures)
+	{
+		static LoadResult of(final long[] latencies, final Duration elapsed, final int failures)
+		{
+			Arrays.sort(latencies);
+			return new LoadResult(latencies.length, elapsed, percentile(latencies, 0.50), percentile(latencies, 0.99), failures);
+		}
+
+		double throughput()
+		{
+			return requests * 1000.0 / Math.max(1, elapsed.toMillis());
+		}
+
+		private static Duration percentile(final long[] sorted, final double percentile)
+		{
+			return Duration.ofNanos(sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)]);
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package com.greenfieldcommerce.greenerp.contractors.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+import com.greenfieldcommerce.greenerp.controllers.GraphQlPageRequests;
+import com.greenfieldcommerce.greenerp.services.TimeService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Verifies that the GraphQL API resolves nested contractor fields for every requested contractor at once, so a
+ * query runs a fixed number of SQL statements regardless of how many contractors it returns, and that contractors are
+ * listed a bounded page at a time. The outbox relay is
+ * kept from polling during the test, so that only the statements of the query are counted.
+ */
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "greenerp.outbox.relay.interval=PT1H"})
+@AutoConfigureTestDatabase
+public class ContractorGraphQlControllerTest
+{
+	private static final int CONTRACTORS = 200;
+	private static final String DASHBOARD_QUERY = """
+		{
+			contractors(size: 100) {
+				id
+				name
+				currentRate { rate currency { currencyCode } client { name } }
+				latestInvoice { invoiceId startDate total client { name } }
+			}
+		}
+		""";
+
+	@Autowired
+	private ExecutionGraphQlService graphQlService;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private ContractorRepository contractorRepository;
+	@Autowired
+	private ClientRepository clientRepository;
+	@Autowired
+	private ContractorRateRepository contractorRateRepository;
+	@Autowired
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+
+	private ZonedDateTime currentMonth;
+
+	@BeforeEach
+	public void setup()
+	{
+		currentMonth = TimeService.now().with(TemporalAdjusters.firstDayOfMonth()).with(LocalTime.MIDNIGHT);
+		final Client client = clientRepository.save(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+
+		final List<Contractor> contractors = new ArrayList<>();
+		for (int c = 0; c < CONTRACTORS; c++)
+			contractors.add(Contractor.create(String.format("contractor%s@greenfieldcommerce.com", c), "Contractor " + c));
+
+		final List<ContractorRate> rates = contractorRateRepository.saveAll(contractorRepository.saveAll(contractors).stream()
+			.map(contractor -> ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN, Currency.getInstance("USD"),
+				currentMonth.minusYears(1), currentMonth.plusYears(1)))
+			.toList());
+
+		final List<ContractorInvoice> invoices = new ArrayList<>();
+		for (final ContractorRate rate : rates)
+		{
+			invoices.add(ContractorInvoice.create(rate, currentMonth.minusMonths(1), currentMonth.minusSeconds(1), BigDecimal.valueOf(20)));
+			invoices.add(ContractorInvoice.create(rate, currentMonth, currentMonth.plusMonths(1).minusSeconds(1), BigDecimal.valueOf(10)));
+		}
+		contractorInvoiceRepository.saveAll(invoices);
+	}
+
+	@AfterEach
+	public void cleanup()
+	{
+		contractorInvoiceRepository.deleteAll();
+		contractorRateRepository.deleteAll();
+		contractorRepository.deleteAll();
+		clientRepository.deleteAll();
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	@DisplayName("Should resolve contractors with their current rate and latest invoice with a fixed number of statements")
+	public void shouldResolveContractorsWithTheirCurrentRateAndLatestInvoiceWithAFixedNumberOfStatements()
+	{
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		final ExecutionGraphQlResponse response = execute(DASHBOARD_QUERY);
+
+		assertTrue(response.getErrors().isEmpty(), () -> response.getErrors().toString());
+		final List<Map<String, Object>> contractors = response.field("contractors").getValue();
+		assertEquals(GraphQlPageRequests.MAX_SIZE, contractors.size());
+		for (final Map<String, Object> contractor : contractors)
+		{
+			final Map<String, Object> currentRate = cast(contractor.get("currentRate"));
+			final Map<String, Object> latestInvoice = cast(contractor.get("latestInvoice"));
+			assertEquals("Client", ((Map<?, ?>) currentRate.get("client")).get("name"));
+			assertEquals(0, new BigDecimal("1000.00").compareTo(new BigDecimal(latestInvoice.get("total").toString())));
+			assertEquals("Client", ((Map<?, ?>) latestInvoice.get("client")).get("name"));
+		}
+
+		// contractors, their current rates, their latest invoices and the clients of those invoices
+		assertEquals(4, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	@DisplayName("Should list contractors by name twenty at a time unless asked otherwise")
+	public void shouldListContractorsByNameTwentyAtATimeUnlessAskedOtherwise()
+	{
+		final ExecutionGraphQlResponse response = execute("{ contractors { name } }");
+
+		assertTrue(response.getErrors().isEmpty(), () -> response.getErrors().toString());
+		final List<Map<String, Object>> contractors = response.field("contractors").getValue();
+		assertEquals(20, contractors.size());
+		assertEquals(contractors.stream().map(contractor -> contractor.get("name").toString()).sorted().toList(),
+			contractors.stream().map(contractor -> contractor.get("name").toString()).toList());
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	@DisplayName("Should never list more contractors at once than the maximum page size")
+	public void shouldNeverListMoreContractorsAtOnceThanTheMaximumPageSize()
+	{
+		final ExecutionGraphQlResponse firstPage = execute("{ contractors(size: 1000) { id } }");
+		final ExecutionGraphQlResponse lastPage = execute("{ contractors(page: 1, size: 1000) { id } }");
+
+		assertEquals(GraphQlPageRequests.MAX_SIZE, firstPage.field("contractors").<List<?>> getValue().size());
+		assertEquals(CONTRACTORS - GraphQlPageRequests.MAX_SIZE, lastPage.field("contractors").<List<?>> getValue().size());
+	}
+
+	@Test
+	@WithMockUser(roles = "CONTRACTOR")
+	@DisplayName("Should not list every contractor to a contractor")
+	public void shouldNotListEveryContractorToAContractor()
+	{
+		final ExecutionGraphQlResponse response = execute(DASHBOARD_QUERY);
+
+		assertFalse(response.getErrors().isEmpty());
+		assertEquals("FORBIDDEN", response.getErrors().getFirst().getErrorType().toString());
+	}
+
+	private ExecutionGraphQlResponse execute(final String document)
+	{
+		return graphQlService.execute(new DefaultExecutionGraphQlRequest(document, null, Map.of(), Map.of(), "test", Locale.ENGLISH)).block();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> cast(final Object value)
+	{
+		return (Map<String, Object>) value;
+	}
+}
@@ -6,9 +6,11 @@ import static com.greenfieldcommerce.greenerp.helpers.ContractorTestValidations.
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.restdocs.headers.HeaderDocumentation.headerWithName;
 import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
 import static org.springframework.restdocs.headers.HeaderDocumentation.responseHeaders;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
@@ -19,14 +21,20 @@ import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWit
 import static org.springframework.restdocs.payload.PayloadDocumentation.requestFields;
 import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
 import static org.springframework.restdocs.payload.PayloadDocumentation.subsectionWithPath;
+import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
 import static org.springframework.restdocs.request.RequestDocumentation.pathParameters;
+import static org.springframework.restdocs.request.RequestDocumentation.queryParameters;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.Currency;
 import java.util.List;
@@ -38,10 +46,15 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentMatcher;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.restdocs.payload.ResponseFieldsSnippet;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -68,31 +81,87 @@ public class ContractorsControllerTest extends BaseRestControllerTest
 	}
 
 	@Test
-	void shouldReturnAllContractors_forAdmin() throws Exception
+	void shouldReturnAPageOfContractors_forAdmin() throws Exception
 	{
 		final ContractorRecord diego = buildFullContractorExample();
 		final ContractorRecord jorge = new ContractorRecord(2L, "jorge@greenfieldcommerce.com", "Jorge Viegas", null);
-		when(contractorService.findAll()).thenReturn(List.of(diego, jorge));
+		final Pageable pageable = PageRequest.of(0, 20, Sort.by("name"));
+		when(contractorService.search(eq(null), eq(pageable))).thenReturn(new PageImpl<>(List.of(diego, jorge), pageable, 2));
 
 		getMvc().perform(getContractorsRequest().with(getJwtRequestPostProcessors().admin())
 			).andExpect(status().isOk())
 			.andDo(print())
-			.andExpect(jsonPath("$.contractors").isArray())
-			.andExpect(validContractor("$.contractors[0]", diego))
-			.andExpect(validContractorRate("$.contractors[0].currentRate", diego.currentRate(), getObjectMapper()))
-			.andExpect(validContractor("$.contractors[1]", jorge))
-			.andExpect(emptyContractorRate("$.contractors[1].currentRate"))
+			.andExpect(jsonPath("$.content").isArray())
+			.andExpect(validContractor("$.content[0]", diego))
+			.andExpect(validContractorRate("$.content[0].currentRate", diego.currentRate(), getObjectMapper()))
+			.andExpect(validContractor("$.content[1]", jorge))
+			.andExpect(emptyContractorRate("$.content[1].currentRate"))
 			.andDo(
 				document("listing-contractors",
 					preprocessResponse(prettyPrint()),
 					requestHeaders(describeAdminHeader()),
 					responseFields(
-						subsectionWithPath("contractors").description("An array with the <<resources_contractor, Contractor resources>>")
+						pageFields("An array with the <<resources_contractor, Contractor resources>>")
 					)
 				)
 			);
 	}
 
+	@Test
+	void shouldSearchContractorsByNameOrEmailPrefix_forAdmin() throws Exception
+	{
+		final ContractorRecord jorge = new ContractorRecord(2L, "jorge@greenfieldcommerce.com", "Jorge Viegas", null);
+		final Pageable pageable = PageRequest.of(0, 10, Sort.by("email"));
+		when(contractorService.search(eq("jor"), eq(pageable))).thenReturn(new PageImpl<>(List.of(jorge), pageable, 1));
+
+		getMvc().perform(getContractorsRequest().queryParam("search", "jor").queryParam("page", "0").queryParam("size", "10").queryParam("sort", "email")
+				.with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isOk())
+			.andExpect(validContractor("$.content[0]", jorge))
+			.andExpect(jsonPath("$.totalElements").value(1))
+			.andDo(
+				document("searching-contractors",
+					preprocessResponse(prettyPrint()),
+					requestHeaders(describeAdminHeader()),
+					queryParameters(
+						parameterWithName("search").description("Only list contractors whose name or email starts with this prefix, ignoring case").optional(),
+						parameterWithName("page").description("The requested response page, defaults to 0").optional(),
+						parameterWithName("size").description("The page size, defaults to 20").optional(),
+						parameterWithName("sort").description("The sorting option, defaults to name,asc").optional()
+					),
+					responseFields(
+						pageFields("An array with the <<resources_contractor, Contractor resources>>")
+					)
+				)
+			);
+	}
+
+	@Test
+	void shouldStreamEveryContractorAsNdjson_forAdmin() throws Exception
+	{
+		final String ndjson = """
+			{"id":1,"email":"diego@greenfieldcommerce.com","name":"Diego Reidel","currentRate":null}
+			{"id":2,"email":"jorge@greenfieldcommerce.com","name":"Jorge Viegas","currentRate":null}
+			""";
+		doAnswer(invocation -> {
+			invocation.getArgument(0, OutputStream.class).write(ndjson.getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(contractorService).exportAll(any());
+
+		final MvcResult result = getMvc().perform(exportContractorsRequest().with(getJwtRequestPostProcessors().admin()))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		getMvc().perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+			.andExpect(header().string("Content-Disposition", "attachment; filename=\"contractors.ndjson\""))
+			.andExpect(content().string(ndjson))
+			.andDo(document("exporting-contractors",
+				requestHeaders(describeAdminHeader()),
+				responseHeaders(headerWithName("Content-Disposition").description("Suggests a file name for the export"))));
+	}
+
 	@ParameterizedTest
 	@MethodSource("invalidCreateContractorRecordOptions")
 	void shouldReturnUnprocessableEntityWhenCreatingContractorWithInvalidData(CreateContractorRecord invalidRecord) throws Exception
@@ -183,6 +252,7 @@ public class ContractorsControllerTest extends BaseRestControllerTest
 	{
 		return Stream.of(
 			getContractorsRequest(),
+			exportContractorsRequest(),
 			getContractorDetailsRequest(VALID_RESOURCE_ID),
 			createContractorRequest(buildValidContractor()),
 			updateContractorRequest(VALID_RESOURCE_ID, buildValidContractor())
@@ -233,6 +303,11 @@ public class ContractorsControllerTest extends BaseRestControllerTest
 		return get("/contractors");
 	}
 
+	private static MockHttpServletRequestBuilder exportContractorsRequest()
+	{
+		return get("/contractors/export");
+	}
+
 	private static MockHttpServletRequestBuilder getContractorDetailsRequest(Long contractorId)
 	{
 		return get("/contractors/{contractorId}", contractorId);
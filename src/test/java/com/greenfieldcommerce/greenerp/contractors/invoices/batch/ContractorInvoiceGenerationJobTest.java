@@ -0,0 +1,160 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceMessagingService;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+
+@SpringBootTest(properties = { "greenerp.batch.contractor-invoice-generation.grid-size=4", "greenerp.batch.contractor-invoice-generation.chunk-size=5" })
+@AutoConfigureTestDatabase
+public class ContractorInvoiceGenerationJobTest
+{
+	private static final int CONTRACTORS = 40;
+	private static final ZonedDateTime PERIOD_START = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	private static final ZonedDateTime PERIOD_END = PERIOD_START.plusMonths(1).minusSeconds(1);
+
+	@Autowired
+	private JobLauncher jobLauncher;
+	@Autowired
+	private Job contractorInvoiceGenerationJob;
+	@Autowired
+	private ContractorRepository contractorRepository;
+	@Autowired
+	private ClientRepository clientRepository;
+	@Autowired
+	private ContractorRateRepository contractorRateRepository;
+	@Autowired
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+
+	@MockitoBean
+	private ContractorInvoiceMessagingService contractorInvoiceMessagingService;
+
+	@TempDir
+	private Path tempDir;
+
+	private final List<ContractorRate> rates = new ArrayList<>();
+
+	@BeforeEach
+	public void setup()
+	{
+		final Client client = clientRepository.save(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+		for (int c = 0; c < CONTRACTORS; c++)
+		{
+			final Contractor contractor = contractorRepository.save(Contractor.create(String.format("contractor%s@greenfieldcommerce.com", c), "Contractor " + c));
+			rates.add(contractorRateRepository.save(ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+				Currency.getInstance("USD"), PERIOD_START.minusYears(1), PERIOD_START.plusYears(1))));
+		}
+	}
+
+	@AfterEach
+	public void cleanup()
+	{
+		contractorInvoiceRepository.deleteAll();
+		contractorRateRepository.deleteAll();
+		contractorRepository.deleteAll();
+		clientRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Should create one invoice per valid input, skip the rest and publish the created messages per chunk")
+	public void shouldCreateOneInvoicePerValidInputSkipTheRestAndPublishCreatedMessagesPerChunk() throws Exception
+	{
+		contractorInvoiceRepository.save(ContractorInvoice.create(rates.getFirst(), PERIOD_START, PERIOD_END, BigDecimal.ONE));
+		final List<String> lines = new ArrayList<>();
+		rates.forEach(rate -> lines.add(inputLine(rate.getContractor().getId(), rate.getClient().getId())));
+		lines.add(inputLine(Long.MAX_VALUE, rates.getFirst().getClient().getId()));
+
+		final JobExecution execution = run(writeInput(lines), 1L);
+
+		assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+		assertEquals(CONTRACTORS, contractorInvoiceRepository.count());
+		assertEquals(2, managerStep(execution).getSkipCount());
+		assertEquals(CONTRACTORS - 1, managerStep(execution).getWriteCount());
+		assertTrue(execution.getStepExecutions().size() > 2);
+
+		@SuppressWarnings("unchecked")
+		final ArgumentCaptor<List<ContractorInvoiceRecord>> published = ArgumentCaptor.forClass(List.class);
+		verify(contractorInvoiceMessagingService, atLeastOnce()).sendContractorInvoiceCreatedMessages(published.capture());
+		assertEquals(CONTRACTORS - 1, published.getAllValues().stream().mapToInt(List::size).sum());
+		published.getAllValues().forEach(chunk -> assertTrue(chunk.size() <= 5));
+	}
+
+	@Test
+	@DisplayName("Should not create invoices twice when the same input is processed again")
+	public void shouldNotCreateInvoicesTwiceWhenTheSameInputIsProcessedAgain() throws Exception
+	{
+		final List<String> lines = rates.stream().map(rate -> inputLine(rate.getContractor().getId(), rate.getClient().getId())).toList();
+		final Path input = writeInput(lines);
+
+		assertEquals(BatchStatus.COMPLETED, run(input, 2L).getStatus());
+		final JobExecution secondExecution = run(input, 3L);
+
+		assertEquals(BatchStatus.COMPLETED, secondExecution.getStatus());
+		assertEquals(CONTRACTORS, contractorInvoiceRepository.count());
+		assertEquals(CONTRACTORS, managerStep(secondExecution).getSkipCount());
+	}
+
+	private JobExecution run(final Path input, final Long runId) throws Exception
+	{
+		return jobLauncher.run(contractorInvoiceGenerationJob, new JobParametersBuilder()
+			.addString(ContractorInvoiceGenerationJobConfig.INPUT_FILE_PARAMETER, input.toString())
+			.addLong("run.id", runId)
+			.toJobParameters());
+	}
+
+	private static StepExecution managerStep(final JobExecution execution)
+	{
+		return execution.getStepExecutions().stream().filter(step -> step.getStepName().equals("contractorInvoiceGenerationManagerStep")).findFirst().orElseThrow();
+	}
+
+	private Path writeInput(final List<String> lines) throws IOException
+	{
+		final List<String> content = new ArrayList<>();
+		content.add("contractorId,clientId,startDate,endDate,numberOfWorkedDays");
+		content.addAll(lines);
+		return Files.write(tempDir.resolve("invoices.csv"), content);
+	}
+
+	private static String inputLine(final Long contractorId, final Long clientId)
+	{
+		return String.join(",", String.valueOf(contractorId), String.valueOf(clientId), PERIOD_START.toString(), PERIOD_END.toString(), "20");
+	}
+}
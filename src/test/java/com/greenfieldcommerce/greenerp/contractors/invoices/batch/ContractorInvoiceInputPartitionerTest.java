@@ -0,0 +1,59 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.ByteArrayResource;
+
+public class ContractorInvoiceInputPartitionerTest
+{
+	@Test
+	@DisplayName("Should split the input lines into contiguous ranges, ignoring the header")
+	public void shouldSplitInputLinesIntoContiguousRangesIgnoringTheHeader()
+	{
+		final Map<String, ExecutionContext> partitions = partitionerFor(10).partition(4);
+
+		final List<ExecutionContext> ranges = partitions.values().stream().sorted(Comparator.comparingInt(context -> context.getInt(ContractorInvoiceInputPartitioner.START_ITEM))).toList();
+		assertEquals(4, ranges.size());
+		assertRange(ranges.get(0), 0, 3);
+		assertRange(ranges.get(1), 3, 6);
+		assertRange(ranges.get(2), 6, 9);
+		assertRange(ranges.get(3), 9, 10);
+	}
+
+	@Test
+	@DisplayName("Should not create more partitions than input lines")
+	public void shouldNotCreateMorePartitionsThanInputLines()
+	{
+		assertEquals(2, partitionerFor(2).partition(8).size());
+	}
+
+	@Test
+	@DisplayName("Should not create any partition for an input with only a header")
+	public void shouldNotCreateAnyPartitionForAnInputWithOnlyAHeader()
+	{
+		assertTrue(partitionerFor(0).partition(4).isEmpty());
+	}
+
+	private static ContractorInvoiceInputPartitioner partitionerFor(final int lines)
+	{
+		final StringBuilder input = new StringBuilder("contractorId,clientId,startDate,endDate,numberOfWorkedDays\n");
+		for (int i = 0; i < lines; i++)
+			input.append(i).append(",1,2025-03-01T00:00:00Z,2025-03-31T23:59:59Z,20\n");
+		return new ContractorInvoiceInputPartitioner(new ByteArrayResource(input.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static void assertRange(final ExecutionContext context, final int start, final int end)
+	{
+		assertEquals(start, context.getInt(ContractorInvoiceInputPartitioner.START_ITEM));
+		assertEquals(end, context.getInt(ContractorInvoiceInputPartitioner.END_ITEM));
+	}
+}
@@ -0,0 +1,42 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class ContractorInvoicePartitioningJobTest
+{
+	@Autowired
+	private JobLauncher jobLauncher;
+	@Autowired
+	private Job contractorInvoicePartitioningJob;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	@DisplayName("Should fail without touching the contractor invoice table while partitioning is disabled")
+	public void shouldFailWithoutTouchingTheContractorInvoiceTableWhilePartitioningIsDisabled() throws Exception
+	{
+		final JobExecution execution = jobLauncher.run(contractorInvoicePartitioningJob, new JobParametersBuilder()
+			.addString(ContractorInvoicePartitioningJobConfig.DROP_FOREIGN_KEYS_PARAMETER, "true")
+			.addLong("run.id", System.nanoTime())
+			.toJobParameters());
+
+		assertEquals(BatchStatus.FAILED, execution.getStatus());
+		assertTrue(execution.getAllFailureExceptions().getFirst().getMessage().contains("disabled"));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables WHERE LOWER(table_name) LIKE 'contractor_invoice_%'", Integer.class));
+	}
+}
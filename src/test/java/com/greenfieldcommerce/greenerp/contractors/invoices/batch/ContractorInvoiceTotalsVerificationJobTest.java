@@ -0,0 +1,132 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.InvoiceExtraAmountLine;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.InvoiceExtraAmountLineRepository;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class ContractorInvoiceTotalsVerificationJobTest
+{
+	private static final ZonedDateTime PERIOD_START = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	@Autowired
+	private JobLauncher jobLauncher;
+	@Autowired
+	private Job contractorInvoiceTotalsVerificationJob;
+	@Autowired
+	private ContractorRepository contractorRepository;
+	@Autowired
+	private ClientRepository clientRepository;
+	@Autowired
+	private ContractorRateRepository contractorRateRepository;
+	@Autowired
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+	@Autowired
+	private InvoiceExtraAmountLineRepository invoiceExtraAmountLineRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ContractorInvoice consistentInvoice;
+	private ContractorInvoice driftedInvoice;
+
+	@BeforeEach
+	public void setup()
+	{
+		final Client client = clientRepository.save(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+		final Contractor contractor = contractorRepository.save(Contractor.create("contractor@greenfieldcommerce.com", "Contractor"));
+		final ContractorRate rate = contractorRateRepository.save(ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+			Currency.getInstance("USD"), PERIOD_START.minusYears(1), PERIOD_START.plusYears(1)));
+
+		consistentInvoice = contractorInvoiceRepository.save(ContractorInvoice.create(rate, PERIOD_START, PERIOD_START.plusMonths(1).minusSeconds(1), BigDecimal.valueOf(20)));
+		driftedInvoice = contractorInvoiceRepository.save(ContractorInvoice.create(rate, PERIOD_START.plusMonths(1), PERIOD_START.plusMonths(2).minusSeconds(1), BigDecimal.valueOf(20)));
+
+		// a line written without going through the totals update leaves the invoice totals behind
+		invoiceExtraAmountLineRepository.save(InvoiceExtraAmountLine.create(driftedInvoice, new BigDecimal("12.50"), "Extra"));
+	}
+
+	@AfterEach
+	public void cleanup()
+	{
+		invoiceExtraAmountLineRepository.deleteAll();
+		contractorInvoiceRepository.deleteAll();
+		contractorRateRepository.deleteAll();
+		contractorRepository.deleteAll();
+		clientRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Should report drifted invoice totals without changing them")
+	public void shouldReportDriftedInvoiceTotalsWithoutChangingThem() throws Exception
+	{
+		final JobExecution execution = run(false);
+
+		assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+		assertEquals(2, execution.getStepExecutions().iterator().next().getReadCount());
+		assertEquals(1, execution.getStepExecutions().iterator().next().getWriteCount());
+		assertEquals(0, new BigDecimal("2000.00").compareTo(contractorInvoiceRepository.findById(driftedInvoice.getId()).orElseThrow().getTotal()));
+	}
+
+	@Test
+	@DisplayName("Should correct drifted invoice totals when asked to repair them")
+	public void shouldCorrectDriftedInvoiceTotalsWhenAskedToRepairThem() throws Exception
+	{
+		assertEquals(BatchStatus.COMPLETED, run(true).getStatus());
+
+		final ContractorInvoice corrected = contractorInvoiceRepository.findById(driftedInvoice.getId()).orElseThrow();
+		assertEquals(0, new BigDecimal("12.50").compareTo(corrected.getExtraAmountsTotal()));
+		assertEquals(0, new BigDecimal("2012.50").compareTo(corrected.getTotal()));
+		assertEquals(0, new BigDecimal("2000.00").compareTo(contractorInvoiceRepository.findById(consistentInvoice.getId()).orElseThrow().getTotal()));
+
+		assertEquals(0, run(false).getStepExecutions().iterator().next().getWriteCount());
+	}
+
+	@Test
+	@DisplayName("Should correct invoices whose extra amounts total was left NULL when asked to repair them")
+	public void shouldCorrectInvoicesWhoseExtraAmountsTotalWasLeftNullWhenAskedToRepairThem() throws Exception
+	{
+		// invoices written by an instance predating the column have no extra amounts total
+		jdbcTemplate.update("UPDATE contractor_invoice SET extra_amounts_total = NULL WHERE id = ?", consistentInvoice.getId());
+
+		assertEquals(BatchStatus.COMPLETED, run(true).getStatus());
+
+		assertEquals(0, BigDecimal.ZERO.compareTo(contractorInvoiceRepository.findById(consistentInvoice.getId()).orElseThrow().getExtraAmountsTotal()));
+		assertEquals(0, run(false).getStepExecutions().iterator().next().getWriteCount());
+	}
+
+	private JobExecution run(final boolean repair) throws Exception
+	{
+		return jobLauncher.run(contractorInvoiceTotalsVerificationJob, new JobParametersBuilder()
+			.addString(ContractorInvoiceTotalsVerificationJobConfig.REPAIR_PARAMETER, String.valueOf(repair))
+			.addLong("run.id", System.nanoTime())
+			.toJobParameters());
+	}
+}
@@ -0,0 +1,77 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.batch.item.Chunk;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceTotalDriftRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class InvoiceTotalDriftWriterTest
+{
+	private static final InvoiceTotalDriftRecord DRIFT = new InvoiceTotalDriftRecord(1L, null, new BigDecimal("2000.00"), BigDecimal.ZERO, new BigDecimal("2000.00"));
+
+	@Mock
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+
+	private Counter drifted;
+	private Counter uncorrected;
+
+	@BeforeEach
+	public void setup()
+	{
+		final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		drifted = meterRegistry.counter("drifted");
+		uncorrected = meterRegistry.counter("uncorrected");
+	}
+
+	@Test
+	@DisplayName("Should count a drifted invoice as uncorrected when its totals changed since they were verified")
+	public void shouldCountADriftedInvoiceAsUncorrectedWhenItsTotalsChangedSinceTheyWereVerified() throws Exception
+	{
+		when(contractorInvoiceRepository.correctTotals(1L, null, new BigDecimal("2000.00"), BigDecimal.ZERO, new BigDecimal("2000.00"))).thenReturn(0);
+
+		new InvoiceTotalDriftWriter(contractorInvoiceRepository, drifted, uncorrected, true).write(Chunk.of(DRIFT));
+
+		assertEquals(1, drifted.count());
+		assertEquals(1, uncorrected.count());
+	}
+
+	@Test
+	@DisplayName("Should not count a corrected invoice as uncorrected")
+	public void shouldNotCountACorrectedInvoiceAsUncorrected() throws Exception
+	{
+		when(contractorInvoiceRepository.correctTotals(1L, null, new BigDecimal("2000.00"), BigDecimal.ZERO, new BigDecimal("2000.00"))).thenReturn(1);
+
+		new InvoiceTotalDriftWriter(contractorInvoiceRepository, drifted, uncorrected, true).write(Chunk.of(DRIFT));
+
+		assertEquals(1, drifted.count());
+		assertEquals(0, uncorrected.count());
+	}
+
+	@Test
+	@DisplayName("Should only report drifted invoices when not asked to repair them")
+	public void shouldOnlyReportDriftedInvoicesWhenNotAskedToRepairThem() throws Exception
+	{
+		new InvoiceTotalDriftWriter(contractorInvoiceRepository, drifted, uncorrected, false).write(Chunk.of(DRIFT));
+
+		assertEquals(1, drifted.count());
+		verify(contractorInvoiceRepository, never()).correctTotals(any(), any(), any(), any(), any());
+	}
+}
@@ -0,0 +1,41 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceTotalDriftRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.InvoiceTotalsRecord;
+
+public class InvoiceTotalsVerifierTest
+{
+	private static final Currency USD = Currency.getInstance("USD");
+
+	private final InvoiceTotalsVerifier verifier = new InvoiceTotalsVerifier();
+
+	@Test
+	@DisplayName("Should filter out invoices whose stored totals match the recomputed ones")
+	public void shouldFilterOutInvoicesWhoseStoredTotalsMatchTheRecomputedOnes()
+	{
+		assertNull(verifier.process(new InvoiceTotalsRecord(1L, new BigDecimal("20"), new BigDecimal("150.555"), USD, new BigDecimal("11.00"), new BigDecimal("3022.10"), new BigDecimal("11.00"))));
+		assertNull(verifier.process(new InvoiceTotalsRecord(2L, new BigDecimal("20"), new BigDecimal("150"), USD, BigDecimal.ZERO, new BigDecimal("3000.00"), null)));
+	}
+
+	@Test
+	@DisplayName("Should report the expected totals of an invoice whose stored totals drifted")
+	public void shouldReportTheExpectedTotalsOfAnInvoiceWhoseStoredTotalsDrifted()
+	{
+		final InvoiceTotalDriftRecord drift = verifier.process(new InvoiceTotalsRecord(1L, new BigDecimal("20"), new BigDecimal("150"), USD, new BigDecimal("10.00"), new BigDecimal("3010.00"), new BigDecimal("25.50")));
+
+		assertEquals(1L, drift.invoiceId());
+		assertEquals(new BigDecimal("10.00"), drift.storedExtraAmountsTotal());
+		assertEquals(new BigDecimal("3010.00"), drift.storedTotal());
+		assertEquals(new BigDecimal("25.50"), drift.expectedExtraAmountsTotal());
+		assertEquals(new BigDecimal("3025.50"), drift.expectedTotal());
+	}
+}
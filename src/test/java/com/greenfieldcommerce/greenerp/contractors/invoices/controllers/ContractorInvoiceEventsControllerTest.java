@@ -0,0 +1,130 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.controllers;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.when;
+import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.request.RequestDocumentation.pathParameters;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceEventRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceEventService;
+import com.greenfieldcommerce.greenerp.controllers.BaseRestControllerTest;
+
+@WebMvcTest(controllers = ContractorInvoiceEventsController.class)
+public class ContractorInvoiceEventsControllerTest extends BaseRestControllerTest
+{
+	private static final ZonedDateTime START = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	@MockitoBean
+	private ContractorInvoiceEventService contractorInvoiceEventService;
+
+	@BeforeEach
+	public void setup()
+	{
+		when(contractorInvoiceEventService.subscribeToContractor(INVALID_RESOURCE_ID)).thenThrow(entityNotFoundException());
+		when(contractorInvoiceEventService.subscribeToClient(INVALID_RESOURCE_ID)).thenThrow(entityNotFoundException());
+	}
+
+	@ParameterizedTest
+	@MethodSource("withAdminUserAndOwnerContractor")
+	public void shouldStreamContractorInvoiceEvents_forAdminAndOwner(final SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor user) throws Exception
+	{
+		final SseEmitter emitter = new SseEmitter();
+		when(contractorInvoiceEventService.subscribeToContractor(VALID_RESOURCE_ID)).thenReturn(emitter);
+
+		final MvcResult result = getMvc().perform(contractorEventsRequest(VALID_RESOURCE_ID).with(user))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		emitter.send(SseEmitter.event().name("patched").data(buildEvent(ContractorInvoiceEventRecord.Type.PATCHED, null)));
+		emitter.complete();
+
+		getMvc().perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+			.andExpect(content().string(containsString("event:patched\ndata:{\"type\":\"PATCHED\",\"invoice\":{\"contractorId\":1,\"invoiceId\":1")))
+			.andDo(document("streaming-contractor-invoice-events",
+				requestHeaders(describeAdminOrContractorHeader()),
+				pathParameters(contractorIdParameterDescription())));
+	}
+
+	@Test
+	public void shouldStreamClientContractorInvoiceEvents_forAdmin() throws Exception
+	{
+		final SseEmitter emitter = new SseEmitter();
+		when(contractorInvoiceEventService.subscribeToClient(VALID_RESOURCE_ID)).thenReturn(emitter);
+
+		final MvcResult result = getMvc().perform(clientEventsRequest(VALID_RESOURCE_ID).with(getJwtRequestPostProcessors().admin()))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		emitter.send(SseEmitter.event().name("billed").data(buildEvent(ContractorInvoiceEventRecord.Type.BILLED, 10L)));
+		emitter.complete();
+
+		getMvc().perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+			.andExpect(content().string(containsString("event:billed\ndata:{\"type\":\"BILLED\"")))
+			.andExpect(content().string(containsString("\"clientInvoiceId\":10}")))
+			.andDo(document("streaming-client-contractor-invoice-events",
+				requestHeaders(describeAdminHeader()),
+				pathParameters(clientIdParameterDescription())));
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> protectedRequests()
+	{
+		return Stream.of(contractorEventsRequest(VALID_RESOURCE_ID), clientEventsRequest(VALID_RESOURCE_ID));
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> invalidResourceRequests()
+	{
+		return Stream.of(
+			contractorEventsRequest(INVALID_RESOURCE_ID).with(getJwtRequestPostProcessors().admin()),
+			clientEventsRequest(INVALID_RESOURCE_ID).with(getJwtRequestPostProcessors().admin())
+		);
+	}
+
+	private static ContractorInvoiceEventRecord buildEvent(final ContractorInvoiceEventRecord.Type type, final Long clientInvoiceId)
+	{
+		final ContractorInvoiceRecord invoice = new ContractorInvoiceRecord(VALID_RESOURCE_ID, VALID_RESOURCE_ID, VALID_RESOURCE_ID, START, START.plusMonths(1).minusSeconds(1),
+			BigDecimal.valueOf(20), Set.of(), BigDecimal.valueOf(3600), Currency.getInstance("USD"), "OPEN");
+		return new ContractorInvoiceEventRecord(type, invoice, clientInvoiceId);
+	}
+
+	private static MockHttpServletRequestBuilder contractorEventsRequest(final Long contractorId)
+	{
+		return get("/contractors/{contractorId}/invoices/events", contractorId).accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON);
+	}
+
+	private static MockHttpServletRequestBuilder clientEventsRequest(final Long clientId)
+	{
+		return get("/clients/{clientId}/contractor-invoices/events", clientId).accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON);
+	}
+}
@@ -0,0 +1,141 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.restdocs.headers.HeaderDocumentation.headerWithName;
+import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
+import static org.springframework.restdocs.headers.HeaderDocumentation.responseHeaders;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
+import static org.springframework.restdocs.request.RequestDocumentation.queryParameters;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceExportService;
+import com.greenfieldcommerce.greenerp.controllers.BaseRestControllerTest;
+
+@WebMvcTest(controllers = ContractorInvoiceExportsController.class)
+public class ContractorInvoiceExportsControllerTest extends BaseRestControllerTest
+{
+	private static final ZonedDateTime FROM = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	private static final ZonedDateTime TO = FROM.plusYears(1);
+
+	private static final String CSV = """
+		invoiceId,contractorId,contractorName,clientId,clientName,startDate,endDate,numberOfWorkedDays,extraAmountsTotal,total,currency,status
+		1,1,Contractor,1,"Client, Inc.",2025-01-01T00:00:00Z,2025-01-31T23:59:59Z,20.00,0.00,2000.00,USD,CLOSED
+		""";
+
+	private static final String NDJSON = """
+		{"invoiceId":1,"contractorId":1,"contractorName":"Contractor","clientId":1,"clientName":"Client, Inc.","startDate":"2025-01-01T00:00:00Z","endDate":"2025-01-31T23:59:59Z","numberOfWorkedDays":20.00,"extraAmountsTotal":0.00,"total":2000.00,"currency":"USD","status":"CLOSED"}
+		""";
+
+	@MockitoBean
+	private ContractorInvoiceExportService contractorInvoiceExportService;
+
+	@Test
+	public void shouldStreamInvoicesAsCsv_forAdmin() throws Exception
+	{
+		writesOnExport(ContractorInvoiceExportService.Format.CSV, CSV);
+
+		final MvcResult result = getMvc().perform(exportRequest()
+				.queryParam("from", FROM.toString()).queryParam("to", TO.toString()).queryParam("status", "CLOSED").queryParam("clientId", VALID_RESOURCE_ID.toString())
+				.with(getJwtRequestPostProcessors().admin()))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		getMvc().perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType("text/csv"))
+			.andExpect(header().string("Content-Disposition", "attachment; filename=\"contractor-invoices.csv\""))
+			.andExpect(content().string(CSV))
+			.andDo(document("exporting-invoices",
+				requestHeaders(describeAdminHeader()),
+				queryParameters(
+					parameterWithName("from").description("Only export invoices starting at or after this date-time, in ISO-8601 format").optional(),
+					parameterWithName("to").description("Only export invoices starting before this date-time, in ISO-8601 format").optional(),
+					parameterWithName("status").description("Only export invoices with this status: OPEN, BILLED or CLOSED").optional(),
+					parameterWithName("clientId").description("Only export invoices of this client").optional(),
+					parameterWithName("format").description("The export format, CSV or NDJSON, defaults to CSV").optional()
+				),
+				responseHeaders(headerWithName("Content-Disposition").description("Suggests a file name for the export"))));
+
+		verify(contractorInvoiceExportService).export(argThat(filter -> FROM.isEqual(filter.from()) && TO.isEqual(filter.to())
+			&& filter.status() == ContractorInvoice.InvoiceStatus.CLOSED && VALID_RESOURCE_ID.equals(filter.clientId())), eq(ContractorInvoiceExportService.Format.CSV), any());
+	}
+
+	@Test
+	public void shouldStreamEveryInvoiceAsNdjson_forAdmin() throws Exception
+	{
+		writesOnExport(ContractorInvoiceExportService.Format.NDJSON, NDJSON);
+
+		final MvcResult result = getMvc().perform(exportRequest().queryParam("format", "NDJSON").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		getMvc().perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+			.andExpect(header().string("Content-Disposition", "attachment; filename=\"contractor-invoices.ndjson\""))
+			.andExpect(content().string(NDJSON))
+			.andDo(document("exporting-invoices-as-ndjson", requestHeaders(describeAdminHeader())));
+
+		verify(contractorInvoiceExportService).export(argThat(filter -> filter.from() == null && filter.to() == null && filter.status() == null && filter.clientId() == null),
+			eq(ContractorInvoiceExportService.Format.NDJSON), any());
+	}
+
+	@Test
+	public void shouldReturnBadRequestWhenExportingInAnUnknownFormat() throws Exception
+	{
+		getMvc().perform(exportRequest().queryParam("format", "XLSX").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isBadRequest());
+
+		verify(contractorInvoiceExportService, never()).export(any(), any(), any());
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> protectedRequests()
+	{
+		return Stream.of(exportRequest(), exportRequest().queryParam("format", "NDJSON"));
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> invalidResourceRequests()
+	{
+		return Stream.of();
+	}
+
+	private void writesOnExport(final ContractorInvoiceExportService.Format format, final String body) throws Exception
+	{
+		doAnswer(invocation -> {
+			invocation.getArgument(2, OutputStream.class).write(body.getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(contractorInvoiceExportService).export(any(), eq(format), any());
+	}
+
+	private static MockHttpServletRequestBuilder exportRequest()
+	{
+		return get("/contractors/invoices/export");
+	}
+}
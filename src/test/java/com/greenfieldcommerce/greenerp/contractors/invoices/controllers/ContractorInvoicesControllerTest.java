@@ -29,6 +29,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
 import static com.greenfieldcommerce.greenerp.helpers.ContractorInvoiceTestValidations.validateContractorInvoice;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -54,10 +55,13 @@ import com.greenfieldcommerce.greenerp.controllers.BaseRestControllerTest;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.CreateContractorInvoiceRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceService;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
 
 @WebMvcTest(ContractorInvoicesController.class)
 public class ContractorInvoicesControllerTest extends BaseRestControllerTest
 {
+	private static final String CURSOR = "MjAyNS0wMy0wMVQwMDowMDowMFp8NDI";
+	private static final String NEXT_CURSOR = "MjAyNS0wMS0wMVQwMDowMDowMFp8NDA";
 
 	@MockitoBean
 	private ContractorInvoiceService contractorInvoiceService;
@@ -71,6 +75,7 @@ public class ContractorInvoicesControllerTest extends BaseRestControllerTest
 		when(contractorInvoiceService.patchInvoice(eq(INVALID_RESOURCE_ID), any(Long.class), any(BigDecimal.class))).thenThrow(entityNotFoundException());
 		when(contractorInvoiceService.patchInvoice(any(Long.class), eq(INVALID_RESOURCE_ID), any(BigDecimal.class))).thenThrow(entityNotFoundException());
 		when(contractorInvoiceService.findByContractor(eq(INVALID_RESOURCE_ID), any(Pageable.class))).thenThrow(entityNotFoundException());
+		when(contractorInvoiceService.scrollByContractor(eq(INVALID_RESOURCE_ID), any(), anyInt())).thenThrow(entityNotFoundException());
 	}
 
 	@ParameterizedTest
@@ -110,6 +115,36 @@ public class ContractorInvoicesControllerTest extends BaseRestControllerTest
 
 	}
 
+	@ParameterizedTest
+	@MethodSource("withAdminUserAndOwnerContractor")
+	public void shouldScrollInvoices_forAdminAndOwner(SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor user) throws Exception
+	{
+		final ContractorInvoiceRecord invoice1 = new ContractorInvoiceRecord(VALID_RESOURCE_ID, VALID_RESOURCE_ID, VALID_RESOURCE_ID, ZonedDateTime.now(), ZonedDateTime.now().plusMonths(1), BigDecimal.valueOf(20), SetUtils.emptySet(), BigDecimal.valueOf(3600), Currency.getInstance("USD"), "OPEN");
+		final ContractorInvoiceRecord invoice2 = new ContractorInvoiceRecord(VALID_RESOURCE_ID, VALID_RESOURCE_ID, VALID_RESOURCE_ID, ZonedDateTime.now().minusMonths(1), ZonedDateTime.now().minusMonths(1).plusMonths(1), BigDecimal.valueOf(20), SetUtils.emptySet(), BigDecimal.valueOf(3600), Currency.getInstance("USD"), "BILLED");
+		final CursorPageRecord<ContractorInvoiceRecord> slice = new CursorPageRecord<>(List.of(invoice1, invoice2), NEXT_CURSOR);
+
+		when(contractorInvoiceService.scrollByContractor(eq(VALID_RESOURCE_ID), eq(CURSOR), eq(2))).thenReturn(slice);
+
+		getMvc().perform(scrollInvoices(VALID_RESOURCE_ID).with(user))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content").isArray())
+			.andExpect(validateContractorInvoice("$.content[0]", invoice1, getObjectMapper()))
+			.andExpect(validateContractorInvoice("$.content[1]", invoice2, getObjectMapper()))
+			.andExpect(jsonPath("$.nextCursor").value(NEXT_CURSOR))
+			.andDo(document("scrolling-invoices",
+				preprocessResponse(prettyPrint()),
+				requestHeaders(describeAdminOrContractorHeader()),
+				queryParameters(
+					parameterWithName("cursor").description("The `nextCursor` returned with the previous slice, omitted to read the first slice").optional(),
+					parameterWithName("size").description("The slice size, defaults to 12 and is capped to 100").optional()
+				),
+				pathParameters(contractorIdParameterDescription()),
+				responseFields(
+					cursorPageFields("An array of <<resources_invoice, Invoice resources>>, newest first")
+				)
+			));
+	}
+
 	@ParameterizedTest
 	@MethodSource("invalidCreateContractorInvoiceRecordOptions")
 	public void shouldReturnUnprocessableEntityWhenCreatingContractorInvoiceWithInvalidData(CreateContractorInvoiceRecord record) throws Exception
@@ -203,6 +238,7 @@ public class ContractorInvoicesControllerTest extends BaseRestControllerTest
 	{
 		return Stream.of(
 			getLatestInvoices(VALID_RESOURCE_ID, buildPageable()),
+			scrollInvoices(VALID_RESOURCE_ID),
 			getInvoiceRequest(VALID_RESOURCE_ID, VALID_RESOURCE_ID),
 			postContractorInvoiceRequest(VALID_RESOURCE_ID, buildValidContractorInvoiceRecord()),
 			patchInvoiceRequest(VALID_RESOURCE_ID, VALID_RESOURCE_ID, buildValidContractorInvoiceRecord())
@@ -214,6 +250,7 @@ public class ContractorInvoicesControllerTest extends BaseRestControllerTest
 	{
 		return Stream.of(
 			getLatestInvoices(INVALID_RESOURCE_ID, buildPageable()).with(getJwtRequestPostProcessors().admin()),
+			scrollInvoices(INVALID_RESOURCE_ID).with(getJwtRequestPostProcessors().admin()),
 			getInvoiceRequest(INVALID_RESOURCE_ID, VALID_RESOURCE_ID).with(getJwtRequestPostProcessors().admin()),
 			getInvoiceRequest(VALID_RESOURCE_ID, INVALID_RESOURCE_ID).with(getJwtRequestPostProcessors().admin()),
 			postContractorInvoiceRequest(INVALID_RESOURCE_ID, buildValidContractorInvoiceRecord()).with(getJwtRequestPostProcessors().admin()),
@@ -239,6 +276,11 @@ public class ContractorInvoicesControllerTest extends BaseRestControllerTest
 		return get("/contractors/{contractorId}/invoices?page={page}&size={size}&sort={sort}", contractorId, pageable.getPageNumber(), pageable.getPageSize(), sort);
 	}
 
+	private MockHttpServletRequestBuilder scrollInvoices(Long contractorId)
+	{
+		return get("/contractors/{contractorId}/invoices/scroll?cursor={cursor}&size={size}", contractorId, CURSOR, 2);
+	}
+
 	private static Pageable buildPageable()
 	{
 		final Sort sort = Sort.by(Sort.Direction.DESC, "startDate");
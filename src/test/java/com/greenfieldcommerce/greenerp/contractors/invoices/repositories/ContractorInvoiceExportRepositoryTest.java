@@ -0,0 +1,152 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.greenfieldcommerce.greenerp.archive.entities.ArchivedContractorInvoice;
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportFilterRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+
+@DataJpaTest(properties = "greenerp.export.contractor-invoices.fetch-size=7")
+@Import(ContractorInvoiceExportRepository.class)
+public class ContractorInvoiceExportRepositoryTest
+{
+	private static final int MONTHS = 24;
+	private static final ZonedDateTime FIRST_PERIOD = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ContractorInvoiceExportRepository repository;
+
+	private Client client;
+	private Client otherClient;
+
+	@BeforeEach
+	public void setup()
+	{
+		client = entityManager.persist(Client.create("Client, Inc.", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+		otherClient = entityManager.persist(Client.create("Other client", "other@greenfieldcommerce.com", Currency.getInstance("EUR"), 10));
+		final Contractor contractor = entityManager.persist(Contractor.create("contractor@greenfieldcommerce.com", "Contractor"));
+		final ContractorRate rate = entityManager.persist(ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+			Currency.getInstance("USD"), FIRST_PERIOD, FIRST_PERIOD.plusYears(10)));
+		final ContractorRate otherRate = entityManager.persist(ContractorRate.create(contractor, otherClient, BigDecimal.valueOf(90), BigDecimal.valueOf(180), BigDecimal.TEN,
+			Currency.getInstance("EUR"), FIRST_PERIOD, FIRST_PERIOD.plusYears(10)));
+
+		for (int m = 0; m < MONTHS; m++)
+		{
+			final ZonedDateTime start = FIRST_PERIOD.plusMonths(m);
+			final ContractorInvoice invoice = entityManager.persist(ContractorInvoice.create(m % 2 == 0 ? rate : otherRate, start, start.plusMonths(1).minusSeconds(1), BigDecimal.valueOf(20)));
+			if (m < 6)
+				invoice.close();
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	@DisplayName("Should stream every invoice in ascending id order when no filter is given")
+	public void shouldStreamEveryInvoiceInAscendingIdOrderWhenNoFilterIsGiven()
+	{
+		final List<ContractorInvoiceExportRecord> rows = export(new ContractorInvoiceExportFilterRecord(null, null, null, null));
+
+		assertEquals(MONTHS, rows.size());
+		for (int i = 1; i < rows.size(); i++)
+			assertTrue(rows.get(i - 1).invoiceId() < rows.get(i).invoiceId());
+
+		final ContractorInvoiceExportRecord first = rows.getFirst();
+		assertEquals("Contractor", first.contractorName());
+		assertEquals(client.getId(), first.clientId());
+		assertEquals("Client, Inc.", first.clientName());
+		assertTrue(FIRST_PERIOD.isEqual(first.startDate()));
+		assertTrue(FIRST_PERIOD.plusMonths(1).minusSeconds(1).isEqual(first.endDate()));
+		assertEquals(0, BigDecimal.valueOf(20).compareTo(first.numberOfWorkedDays()));
+		assertEquals(0, BigDecimal.ZERO.compareTo(first.extraAmountsTotal()));
+		assertEquals(0, BigDecimal.valueOf(2000).compareTo(first.total()));
+		assertEquals(Currency.getInstance("USD"), first.currency());
+		assertEquals("CLOSED", first.status());
+	}
+
+	@Test
+	@DisplayName("Should only stream the invoices matching the period, status and client")
+	public void shouldOnlyStreamTheInvoicesMatchingThePeriodStatusAndClient()
+	{
+		assertEquals(12, export(new ContractorInvoiceExportFilterRecord(FIRST_PERIOD, FIRST_PERIOD.plusYears(1), null, null)).size());
+		assertEquals(6, export(new ContractorInvoiceExportFilterRecord(null, null, ContractorInvoice.InvoiceStatus.CLOSED, null)).size());
+		assertEquals(12, export(new ContractorInvoiceExportFilterRecord(null, null, null, otherClient.getId())).size());
+
+		final List<ContractorInvoiceExportRecord> rows = export(new ContractorInvoiceExportFilterRecord(FIRST_PERIOD.plusMonths(4), null, ContractorInvoice.InvoiceStatus.OPEN,
+			client.getId()));
+		assertEquals(9, rows.size());
+		rows.forEach(row -> {
+			assertEquals(client.getId(), row.clientId());
+			assertEquals("OPEN", row.status());
+			assertTrue(!row.startDate().isBefore(FIRST_PERIOD.plusMonths(4)));
+		});
+
+		assertTrue(export(new ContractorInvoiceExportFilterRecord(FIRST_PERIOD.minusYears(1), FIRST_PERIOD, null, null)).isEmpty());
+		assertTrue(export(new ContractorInvoiceExportFilterRecord(null, null, null, -1L)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Should stream archived invoices along with the others once the archive is known to hold some")
+	public void shouldStreamArchivedInvoicesAlongWithTheOthersOnceTheArchiveIsKnownToHoldSome()
+	{
+		final List<ContractorInvoice> archived = entityManager.getEntityManager()
+			.createQuery("SELECT i FROM ContractorInvoice i WHERE i.startDate < :before ORDER BY i.id", ContractorInvoice.class)
+			.setParameter("before", FIRST_PERIOD.plusMonths(2)).getResultList();
+		archived.forEach(invoice -> {
+			entityManager.persist(ArchivedContractorInvoice.create(invoice, new byte[0], ZonedDateTime.now()));
+			entityManager.remove(invoice);
+		});
+		entityManager.flush();
+		assertEquals(MONTHS - 2, export(new ContractorInvoiceExportFilterRecord(null, null, null, null)).size());
+
+		entityManager.getEntityManager().createQuery("UPDATE Contractor c SET c.archivedThrough = :archivedThrough")
+			.setParameter("archivedThrough", FIRST_PERIOD.plusMonths(2)).executeUpdate();
+
+		final List<ContractorInvoiceExportRecord> rows = export(new ContractorInvoiceExportFilterRecord(null, null, null, null));
+		assertEquals(MONTHS, rows.size());
+		for (int i = 1; i < rows.size(); i++)
+			assertTrue(rows.get(i - 1).invoiceId() < rows.get(i).invoiceId());
+		final ContractorInvoiceExportRecord first = rows.getFirst();
+		assertEquals(archived.getFirst().getId(), first.invoiceId());
+		assertEquals("Contractor", first.contractorName());
+		assertEquals("Client, Inc.", first.clientName());
+		assertEquals(0, BigDecimal.valueOf(2000).compareTo(first.total()));
+		assertEquals("CLOSED", first.status());
+
+		assertEquals(6, export(new ContractorInvoiceExportFilterRecord(null, null, ContractorInvoice.InvoiceStatus.CLOSED, null)).size());
+		assertEquals(MONTHS - 6, export(new ContractorInvoiceExportFilterRecord(null, null, ContractorInvoice.InvoiceStatus.OPEN, null)).size());
+		assertEquals(MONTHS - 2, export(new ContractorInvoiceExportFilterRecord(FIRST_PERIOD.plusMonths(2), null, null, null)).size());
+		assertEquals(1, export(new ContractorInvoiceExportFilterRecord(FIRST_PERIOD.plusMonths(1), FIRST_PERIOD.plusMonths(2), null, null)).size());
+	}
+
+	private List<ContractorInvoiceExportRecord> export(final ContractorInvoiceExportFilterRecord filter)
+	{
+		try (final Stream<ContractorInvoiceExportRecord> rows = repository.streamMatching(filter))
+		{
+			return rows.toList();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class ContractorInvoicePartitionsTest
+{
+	@Test
+	@DisplayName("Should leave the contractor invoice table alone on databases other than PostgreSQL")
+	public void shouldLeaveTheContractorInvoiceTableAloneOnDatabasesOtherThanPostgreSQL()
+	{
+		final EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		try
+		{
+			final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+			jdbcTemplate.execute("CREATE TABLE contractor_invoice (id BIGINT PRIMARY KEY, start_date TIMESTAMP WITH TIME ZONE)");
+
+			final ContractorInvoicePartitions partitions = new ContractorInvoicePartitions(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(database)), true, 3);
+			partitions.createUpcomingPartitions();
+			assertThrows(IllegalStateException.class, () -> partitions.partition(true));
+
+			assertFalse(jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables WHERE LOWER(table_name) LIKE 'contractor_invoice_%'", String.class)
+				.stream().findAny().isPresent());
+		} finally
+		{
+			database.shutdown();
+		}
+	}
+
+	@Test
+	@DisplayName("Should refuse to partition the contractor invoice table unless partitioning is enabled")
+	public void shouldRefuseToPartitionTheContractorInvoiceTableUnlessPartitioningIsEnabled()
+	{
+		final EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		try
+		{
+			final ContractorInvoicePartitions partitions = new ContractorInvoicePartitions(new JdbcTemplate(database), new TransactionTemplate(new DataSourceTransactionManager(database)),
+				false, 3);
+
+			final IllegalStateException refused = assertThrows(IllegalStateException.class, () -> partitions.partition(true));
+			assertTrue(refused.getMessage().contains("greenerp.contractor-invoices.partitioning.enabled"));
+		} finally
+		{
+			database.shutdown();
+		}
+	}
+
+	@Test
+	@DisplayName("Should bound a monthly partition by the first instants of the month and of the next one")
+	public void shouldBoundAMonthlyPartitionByTheFirstInstantsOfTheMonthAndOfTheNextOne()
+	{
+		assertEquals("CREATE TABLE IF NOT EXISTS contractor_invoice_2025_03 PARTITION OF contractor_invoice "
+				+ "FOR VALUES FROM ('2025-03-01T00:00+01:00') TO ('2025-04-01T00:00+02:00')",
+			ContractorInvoicePartitions.partitionDefinition(YearMonth.of(2025, 3), ZoneId.of("Europe/Paris")));
+		assertEquals("contractor_invoice_2024_12", ContractorInvoicePartitions.partitionName(YearMonth.of(2024, 12)));
+	}
+}
@@ -0,0 +1,264 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.InvoiceExtraAmountLine;
+import com.greenfieldcommerce.greenerp.contractors.invoices.mappers.ContractorInvoiceToRecordMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.mappers.InvoiceExtraAmountLineRecordMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateTable;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Verifies that the fetch plans declared on {@link ContractorInvoiceRepository} keep the number of SQL statements
+ * needed to read and map invoices constant, regardless of how many invoices are returned.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ContractorInvoiceRepositoryTest
+{
+	private static final int CONTRACTORS = 25;
+	private static final int MONTHS_PER_CONTRACTOR = 20;
+	private static final ZonedDateTime FIRST_PERIOD = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ContractorInvoiceRepository repository;
+
+	private final ContractorInvoiceToRecordMapper mapper = new ContractorInvoiceToRecordMapper(new InvoiceExtraAmountLineRecordMapper());
+
+	private Client client;
+	private Contractor firstContractor;
+	private Statistics statistics;
+
+	@BeforeEach
+	public void setup()
+	{
+		client = entityManager.persist(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+
+		for (int c = 0; c < CONTRACTORS; c++)
+		{
+			final Contractor contractor = entityManager.persist(Contractor.create(String.format("contractor%s@greenfieldcommerce.com", c), "Contractor " + c));
+			final ContractorRate rate = entityManager.persist(ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+				Currency.getInstance("USD"), FIRST_PERIOD, FIRST_PERIOD.plusYears(10)));
+
+			for (int m = 0; m < MONTHS_PER_CONTRACTOR; m++)
+			{
+				final ZonedDateTime start = FIRST_PERIOD.plusMonths(m);
+				final ContractorInvoice invoice = entityManager.persist(ContractorInvoice.create(rate, start, start.plusMonths(1).minusSeconds(1), BigDecimal.valueOf(20)));
+				entityManager.persist(InvoiceExtraAmountLine.create(invoice, BigDecimal.TEN, "Extra"));
+				entityManager.persist(InvoiceExtraAmountLine.create(invoice, BigDecimal.ONE, "Another extra"));
+			}
+
+			if (firstContractor == null)
+				firstContractor = contractor;
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	@DisplayName("Should read and map a page of contractor invoices with a constant number of statements")
+	public void shouldReadAndMapAPageOfContractorInvoicesWithAConstantNumberOfStatements()
+	{
+		final Page<ContractorInvoiceRecord> page = repository.findByContractor(firstContractor, PageRequest.of(0, 12, Sort.by(Sort.Direction.DESC, "startDate")))
+			.map(mapper::map);
+
+		assertEquals(12, page.getNumberOfElements());
+		assertEquals(MONTHS_PER_CONTRACTOR, page.getTotalElements());
+		page.forEach(invoice -> assertEquals(2, invoice.extraAmountLines().size()));
+
+		// page query, count query and a single batch load of the extra amount lines
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	@DisplayName("Should scroll through every invoice of a contractor, newest first, with one statement per slice and no count query")
+	public void shouldScrollThroughEveryInvoiceOfAContractorWithOneStatementPerSliceAndNoCountQuery()
+	{
+		final List<ContractorInvoice> invoices = new ArrayList<>();
+		ScrollPosition position = ScrollPosition.keyset();
+		int slices = 0;
+		Window<ContractorInvoice> window;
+		do
+		{
+			window = repository.findByContractorOrderByStartDateDescIdDesc(firstContractor, position, Limit.of(7));
+			invoices.addAll(window.getContent());
+			position = window.isEmpty() ? position : window.positionAt(window.size() - 1);
+			slices++;
+		}
+		while (window.hasNext());
+
+		assertEquals(MONTHS_PER_CONTRACTOR, invoices.size());
+		for (int i = 1; i < invoices.size(); i++)
+			assertTrue(invoices.get(i - 1).getStartDate().isAfter(invoices.get(i).getStartDate()));
+		assertEquals(slices, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	@DisplayName("Should back the keyset listing of contractor invoices with a composite index")
+	public void shouldBackTheKeysetListingOfContractorInvoicesWithACompositeIndex()
+	{
+		final Number indexes = (Number) entityManager.getEntityManager()
+			.createNativeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE UPPER(INDEX_NAME) = 'IDXCONTRACTORINVOICEKEYSET'")
+			.getSingleResult();
+		assertEquals(1, indexes.intValue());
+	}
+
+	@Test
+	@DisplayName("Should read and map every open invoice of a client with a single statement")
+	public void shouldReadAndMapEveryOpenInvoiceOfAClientWithASingleStatement()
+	{
+		final List<ContractorInvoiceRecord> invoices = new ArrayList<>();
+		repository.findByClientAndStartDateBeforeAndStatus(client, FIRST_PERIOD.plusYears(5), ContractorInvoice.InvoiceStatus.OPEN)
+			.forEach(invoice -> invoices.add(mapper.map(invoice)));
+
+		assertEquals(CONTRACTORS * MONTHS_PER_CONTRACTOR, invoices.size());
+		invoices.forEach(invoice -> assertEquals(2, invoice.extraAmountLines().size()));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	@DisplayName("Should read and map a single contractor invoice with a single statement")
+	public void shouldReadAndMapASingleContractorInvoiceWithASingleStatement()
+	{
+		final ContractorInvoice invoice = repository.findByContractor(firstContractor, PageRequest.of(0, 1)).getContent().getFirst();
+		entityManager.clear();
+		statistics.clear();
+
+		final ContractorInvoiceRecord record = repository.findByContractorAndId(firstContractor, invoice.getId()).map(mapper::map).orElseThrow();
+
+		assertEquals(2, record.extraAmountLines().size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	@DisplayName("Should maintain invoice totals by delta without loading the extra amount lines")
+	public void shouldMaintainInvoiceTotalsByDeltaWithoutLoadingTheExtraAmountLines()
+	{
+		final ContractorInvoice invoice = repository.findHeaderByContractorAndId(firstContractor,
+			repository.findByContractor(firstContractor, PageRequest.of(0, 1)).getContent().getFirst().getId()).orElseThrow();
+		entityManager.clear();
+		statistics.clear();
+
+		final ContractorInvoice header = repository.findHeaderByContractorAndId(firstContractor, invoice.getId()).orElseThrow();
+		assertEquals(1, repository.addToExtraAmountsTotal(header.getId(), new BigDecimal("2.50")));
+		assertEquals(1, repository.updateNumberOfWorkedDays(header.getId(), BigDecimal.TEN, new BigDecimal("1000.00")));
+
+		assertEquals(3, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getCollectionFetchCount());
+
+		final ContractorInvoice updated = repository.findByContractorAndId(firstContractor, invoice.getId()).orElseThrow();
+		assertEquals(0, new BigDecimal("2.50").compareTo(updated.getExtraAmountsTotal()));
+		assertEquals(0, new BigDecimal("1002.50").compareTo(updated.getTotal()));
+		assertEquals(0, BigDecimal.TEN.compareTo(updated.getNumberOfWorkedDays()));
+	}
+
+	@Test
+	@DisplayName("Should insert an invoice with its ID assigned, unless its contractor already has one for the same period")
+	public void shouldInsertAnInvoiceUnlessItsContractorAlreadyHasOneForTheSamePeriod()
+	{
+		final ContractorRate rate = repository.findByContractor(firstContractor, PageRequest.of(0, 1)).getContent().getFirst().getRate();
+		final ZonedDateTime start = FIRST_PERIOD.plusMonths(MONTHS_PER_CONTRACTOR);
+		final ZonedDateTime end = start.plusMonths(1).minusSeconds(1);
+
+		final ContractorInvoice inserted = repository.insertIfAbsent(ContractorInvoice.create(rate, start, end, BigDecimal.valueOf(20))).orElseThrow();
+		entityManager.clear();
+
+		final ContractorInvoice stored = repository.findByContractorAndId(firstContractor, inserted.getId()).orElseThrow();
+		assertEquals(0, new BigDecimal("2000.00").compareTo(stored.getTotal()));
+		assertEquals(ContractorInvoice.InvoiceStatus.OPEN, stored.getStatus());
+		assertTrue(repository.insertIfAbsent(ContractorInvoice.create(rate, start, end, BigDecimal.ONE)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Should load and assign contractor invoices to a client invoice with a constant number of statements")
+	public void shouldLoadAndAssignContractorInvoicesToAClientInvoiceWithAConstantNumberOfStatements()
+	{
+		final List<Long> ids = repository.findByClientAndStartDateBeforeAndStatus(client, FIRST_PERIOD.plusMonths(1), ContractorInvoice.InvoiceStatus.OPEN)
+			.stream().map(ContractorInvoice::getId).toList();
+		final ClientInvoice clientInvoice = entityManager.persistFlushFind(ClientInvoice.create(entityManager.find(Client.class, client.getId()), List.of(), ExchangeRateTable.of(List.of())));
+		entityManager.clear();
+		statistics.clear();
+
+		assertEquals(CONTRACTORS, repository.findByIdIn(ids).size());
+		assertEquals(CONTRACTORS, repository.assignClientInvoice(clientInvoice, ids));
+		assertEquals(2, statistics.getPrepareStatementCount());
+
+		entityManager.clear();
+		final Number assigned = (Number) entityManager.getEntityManager()
+			.createQuery("SELECT COUNT(i) FROM ContractorInvoice i WHERE i.clientInvoice.id = :id").setParameter("id", clientInvoice.getId()).getSingleResult();
+		assertEquals(CONTRACTORS, assigned.intValue());
+	}
+
+	@Test
+	@DisplayName("Should sum the extra amount lines of an invoice whose extra amounts total was never set when changing its worked days")
+	public void shouldSumTheExtraAmountLinesOfAnInvoiceWhoseExtraAmountsTotalWasNeverSetWhenChangingItsWorkedDays()
+	{
+		final Long id = unsetExtraAmountsTotals(1).getFirst();
+
+		assertEquals(1, repository.updateNumberOfWorkedDays(id, BigDecimal.TEN, new BigDecimal("1000.00")));
+
+		final ContractorInvoice stored = repository.findById(id).orElseThrow();
+		assertEquals(0, new BigDecimal("11").compareTo(stored.getExtraAmountsTotal()));
+		assertEquals(0, new BigDecimal("1011").compareTo(stored.getTotal()));
+	}
+
+	@Test
+	@DisplayName("Should backfill the extra amounts totals that were never set from the extra amount lines")
+	public void shouldBackfillTheExtraAmountsTotalsThatWereNeverSetFromTheExtraAmountLines()
+	{
+		final List<Long> ids = unsetExtraAmountsTotals(3);
+
+		assertEquals(3, repository.backfillExtraAmountsTotals());
+		entityManager.clear();
+
+		ids.forEach(id -> assertEquals(0, new BigDecimal("11").compareTo(repository.findById(id).orElseThrow().getExtraAmountsTotal())));
+		assertEquals(0, repository.backfillExtraAmountsTotals());
+	}
+
+	private List<Long> unsetExtraAmountsTotals(final int count)
+	{
+		final List<Long> ids = repository.findByContractor(firstContractor, PageRequest.of(0, count)).map(ContractorInvoice::getId).getContent();
+		entityManager.getEntityManager().createQuery("UPDATE ContractorInvoice i SET i.extraAmountsTotal = NULL WHERE i.id IN :ids").setParameter("ids", ids).executeUpdate();
+		entityManager.clear();
+		return ids;
+	}
+}
@@ -0,0 +1,115 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+import com.greenfieldcommerce.greenerp.exceptions.DuplicateContractorInvoiceException;
+import com.greenfieldcommerce.greenerp.messaging.repositories.OutboxMessageRepository;
+import com.greenfieldcommerce.greenerp.services.TimeService;
+
+/**
+ * Fires parallel creates of the current invoice of a single contractor, which the unique constraint on the
+ * contractor and period must settle without any lookup of an existing invoice.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class ContractorInvoiceConcurrentCreationTest
+{
+	private static final int PARALLEL_CREATES = 8;
+
+	@Autowired
+	private ContractorInvoiceService contractorInvoiceService;
+	@Autowired
+	private ContractorRepository contractorRepository;
+	@Autowired
+	private ClientRepository clientRepository;
+	@Autowired
+	private ContractorRateRepository contractorRateRepository;
+	@Autowired
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+
+	private Contractor contractor;
+
+	@BeforeEach
+	public void setup()
+	{
+		final Client client = clientRepository.save(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+		contractor = contractorRepository.save(Contractor.create("contractor@greenfieldcommerce.com", "Contractor"));
+		contractorRateRepository.save(ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+			Currency.getInstance("USD"), TimeService.now().minusYears(1), TimeService.now().plusYears(1)));
+	}
+
+	@AfterEach
+	public void cleanup()
+	{
+		outboxMessageRepository.deleteAll();
+		contractorInvoiceRepository.deleteAll();
+		contractorRateRepository.deleteAll();
+		contractorRepository.deleteAll();
+		clientRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Should create a single invoice and reject the others when creating the current invoice of a contractor in parallel")
+	public void shouldCreateASingleInvoiceAndRejectTheOthersWhenCreatingTheCurrentInvoiceOfAContractorInParallel() throws Exception
+	{
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Future<ContractorInvoiceRecord>> creates = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_CREATES))
+		{
+			for (int i = 0; i < PARALLEL_CREATES; i++)
+			{
+				creates.add(executor.submit(() -> {
+					start.await();
+					return contractorInvoiceService.create(contractor.getId(), BigDecimal.valueOf(20));
+				}));
+			}
+			start.countDown();
+
+			int created = 0;
+			for (final Future<ContractorInvoiceRecord> create : creates)
+			{
+				try
+				{
+					create.get();
+					created++;
+				} catch (ExecutionException e)
+				{
+					assertInstanceOf(DuplicateContractorInvoiceException.class, e.getCause());
+				}
+			}
+			assertEquals(1, created);
+		}
+
+		assertEquals(1, contractorInvoiceRepository.count());
+		assertEquals(2, outboxMessageRepository.count());
+	}
+}
@@ -0,0 +1,131 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedConstruction;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.greenfieldcommerce.greenerp.clients.services.ClientService;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceEventRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.services.ContractorService;
+import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ContractorInvoiceEventServiceImplTest
+{
+	private static final Long CONTRACTOR_ID = 1L;
+	private static final Long OTHER_CONTRACTOR_ID = 2L;
+	private static final Long CLIENT_ID = 10L;
+
+	@Mock
+	private ContractorService contractorService;
+	@Mock
+	private ClientService clientService;
+
+	private SimpleMeterRegistry meterRegistry;
+	private ContractorInvoiceEventServiceImpl service;
+
+	@BeforeEach
+	public void setup()
+	{
+		meterRegistry = new SimpleMeterRegistry();
+		service = new ContractorInvoiceEventServiceImpl(contractorService, clientService, meterRegistry, Duration.ofMinutes(30));
+	}
+
+	@Test
+	@DisplayName("Should send an event to the streams of the contractor and the client of its invoice only")
+	public void shouldSendAnEventToTheStreamsOfTheContractorAndTheClientOfItsInvoiceOnly() throws IOException
+	{
+		try (final MockedConstruction<SseEmitter> emitters = mockConstruction(SseEmitter.class))
+		{
+			final SseEmitter contractorStream = service.subscribeToContractor(CONTRACTOR_ID);
+			final SseEmitter clientStream = service.subscribeToClient(CLIENT_ID);
+			final SseEmitter otherContractorStream = service.subscribeToContractor(OTHER_CONTRACTOR_ID);
+
+			service.publish(buildEvent(CONTRACTOR_ID));
+
+			verify(contractorStream).send(any(SseEmitter.SseEventBuilder.class));
+			verify(clientStream).send(any(SseEmitter.SseEventBuilder.class));
+			verify(otherContractorStream, never()).send(any(SseEmitter.SseEventBuilder.class));
+			assertEquals(3, meterRegistry.get(ContractorInvoiceEventServiceImpl.STREAMS_METRIC_NAME).gauge().value());
+		}
+	}
+
+	@Test
+	@DisplayName("Should drop a stream once it can no longer be written to")
+	public void shouldDropAStreamOnceItCanNoLongerBeWrittenTo() throws IOException
+	{
+		try (final MockedConstruction<SseEmitter> emitters = mockConstruction(SseEmitter.class))
+		{
+			final SseEmitter stream = service.subscribeToContractor(CONTRACTOR_ID);
+			doThrow(new IOException("Broken pipe")).when(stream).send(any(SseEmitter.SseEventBuilder.class));
+
+			service.publish(buildEvent(CONTRACTOR_ID));
+			service.heartbeat();
+
+			verify(stream, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+			verify(stream).completeWithError(any(IOException.class));
+			assertEquals(0, meterRegistry.get(ContractorInvoiceEventServiceImpl.STREAMS_METRIC_NAME).gauge().value());
+		}
+	}
+
+	@Test
+	@DisplayName("Should drop a stream once it completes")
+	public void shouldDropAStreamOnceItCompletes() throws IOException
+	{
+		try (final MockedConstruction<SseEmitter> emitters = mockConstruction(SseEmitter.class))
+		{
+			final SseEmitter stream = service.subscribeToClient(CLIENT_ID);
+			final ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+			verify(stream).onCompletion(onCompletion.capture());
+
+			onCompletion.getValue().run();
+			service.heartbeat();
+
+			verify(stream, never()).send(any(SseEmitter.SseEventBuilder.class));
+			assertEquals(0, meterRegistry.get(ContractorInvoiceEventServiceImpl.STREAMS_METRIC_NAME).gauge().value());
+		}
+	}
+
+	@Test
+	@DisplayName("Should not open a stream for an inexistent contractor")
+	public void shouldNotOpenAStreamForAnInexistentContractor()
+	{
+		when(contractorService.findEntityById(CONTRACTOR_ID)).thenThrow(new EntityNotFoundException("CONTRACTOR_NOT_FOUND", "Not found"));
+
+		assertThrows(EntityNotFoundException.class, () -> service.subscribeToContractor(CONTRACTOR_ID));
+		assertEquals(0, meterRegistry.get(ContractorInvoiceEventServiceImpl.STREAMS_METRIC_NAME).gauge().value());
+	}
+
+	private static ContractorInvoiceEventRecord buildEvent(final Long contractorId)
+	{
+		final ContractorInvoiceRecord invoice = new ContractorInvoiceRecord(contractorId, 100L, CLIENT_ID, ZonedDateTime.now(), ZonedDateTime.now().plusMonths(1), BigDecimal.TEN,
+			Set.of(), BigDecimal.valueOf(1000), Currency.getInstance("USD"), "OPEN");
+		return new ContractorInvoiceEventRecord(ContractorInvoiceEventRecord.Type.PATCHED, invoice, null);
+	}
+}
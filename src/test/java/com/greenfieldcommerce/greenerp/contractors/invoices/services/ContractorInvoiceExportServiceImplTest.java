@@ -0,0 +1,139 @@
+package com.greenfieldcommerce.greenerp.contractors.invoices.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportFilterRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceExportRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceExportRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class ContractorInvoiceExportServiceImplTest
+{
+	private static final ZonedDateTime START = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	private static final ContractorInvoiceExportFilterRecord FILTER = new ContractorInvoiceExportFilterRecord(null, null, null, null);
+
+	@Mock
+	private ContractorInvoiceExportRepository contractorInvoiceExportRepository;
+
+	private ContractorInvoiceExportServiceImpl service;
+
+	@BeforeEach
+	public void setup()
+	{
+		service = new ContractorInvoiceExportServiceImpl(contractorInvoiceExportRepository,
+			JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+	}
+
+	@Test
+	@DisplayName("Should write a CSV header followed by one escaped line per invoice")
+	public void shouldWriteACsvHeaderFollowedByOneEscapedLinePerInvoice() throws IOException
+	{
+		readsFromDatabase(List.of(
+			record(1L, "Contractor", 1L, "Client, \"The\" Company"),
+			record(2L, "Multi\nline", null, null)));
+
+		final String csv = export(ContractorInvoiceExportService.Format.CSV);
+
+		assertEquals(ContractorInvoiceExportServiceImpl.CSV_HEADER + "\n"
+			+ "1,1,Contractor,1,\"Client, \"\"The\"\" Company\",2025-01-01T00:00:00Z,2025-01-31T23:59:59Z,20.00,1.50,2001.50,USD,OPEN\n"
+			+ "2,1,\"Multi\nline\",,,2025-01-01T00:00:00Z,2025-01-31T23:59:59Z,20.00,1.50,2001.50,USD,OPEN\n", csv);
+	}
+
+	@Test
+	@DisplayName("Should quote names a spreadsheet would read as formulas behind a single quote")
+	public void shouldQuoteNamesASpreadsheetWouldReadAsFormulasBehindASingleQuote() throws IOException
+	{
+		readsFromDatabase(List.of(
+			record(1L, "=HYPERLINK(\"http://example.com\")", 1L, "+1"),
+			record(2L, "@SUM(A1)", 1L, "-2"),
+			record(3L, "\tTabbed", 1L, "\rReturned")));
+
+		final String[] lines = export(ContractorInvoiceExportService.Format.CSV).split("\n");
+
+		assertTrue(lines[1].startsWith("1,1,\"'=HYPERLINK(\"\"http://example.com\"\")\",1,\"'+1\","));
+		assertTrue(lines[2].startsWith("2,1,\"'@SUM(A1)\",1,\"'-2\","));
+		assertTrue(lines[3].startsWith("3,1,\"'\tTabbed\",1,\"'\rReturned\","));
+	}
+
+	@Test
+	@DisplayName("Should write one JSON document per line per invoice")
+	public void shouldWriteOneJsonDocumentPerLinePerInvoice() throws IOException
+	{
+		readsFromDatabase(List.of(record(1L, "Contractor", 1L, "Client"), record(2L, "Other contractor", 1L, "Client")));
+
+		final String[] lines = export(ContractorInvoiceExportService.Format.NDJSON).split("\n");
+
+		assertEquals(2, lines.length);
+		assertEquals("{\"invoiceId\":1,\"contractorId\":1,\"contractorName\":\"Contractor\",\"clientId\":1,\"clientName\":\"Client\",\"startDate\":\"2025-01-01T00:00:00Z\","
+			+ "\"endDate\":\"2025-01-31T23:59:59Z\",\"numberOfWorkedDays\":20.00,\"extraAmountsTotal\":1.50,\"total\":2001.50,\"currency\":\"USD\",\"status\":\"OPEN\"}", lines[0]);
+		assertTrue(lines[1].startsWith("{\"invoiceId\":2,"));
+	}
+
+	@Test
+	@DisplayName("Should only write the CSV header when no invoice matches")
+	public void shouldOnlyWriteTheCsvHeaderWhenNoInvoiceMatches() throws IOException
+	{
+		readsFromDatabase(List.of());
+
+		assertEquals(ContractorInvoiceExportServiceImpl.CSV_HEADER + "\n", export(ContractorInvoiceExportService.Format.CSV));
+	}
+
+	@Test
+	@DisplayName("Should stop reading and rethrow when the client can no longer be written to")
+	public void shouldStopReadingAndRethrowWhenTheClientCanNoLongerBeWrittenTo()
+	{
+		readsFromDatabase(List.of(record(1L, "Contractor", 1L, "Client")));
+		final IOException broken = new IOException("Broken pipe");
+
+		final IOException thrown = assertThrows(IOException.class, () -> service.export(FILTER, ContractorInvoiceExportService.Format.NDJSON, new OutputStream()
+		{
+			@Override
+			public void write(final int b) throws IOException
+			{
+				throw broken;
+			}
+		}));
+		assertSame(broken, thrown);
+	}
+
+	private void readsFromDatabase(final List<ContractorInvoiceExportRecord> records)
+	{
+		when(contractorInvoiceExportRepository.streamMatching(FILTER)).thenReturn(records.stream());
+	}
+
+	private String export(final ContractorInvoiceExportService.Format format) throws IOException
+	{
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		service.export(FILTER, format, outputStream);
+		return outputStream.toString(StandardCharsets.UTF_8);
+	}
+
+	private static ContractorInvoiceExportRecord record(final Long invoiceId, final String contractorName, final Long clientId, final String clientName)
+	{
+		return new ContractorInvoiceExportRecord(invoiceId, 1L, contractorName, clientId, clientName, START, START.plusMonths(1).minusSeconds(1),
+			new BigDecimal("20.00"), new BigDecimal("1.50"), new BigDecimal("2001.50"), Currency.getInstance("USD"), "OPEN");
+	}
+}
@@ -4,36 +4,77 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceEventRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
-import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceMessagingServiceImpl;
+import com.greenfieldcommerce.greenerp.messaging.services.OutboxService;
 
 @ExtendWith(MockitoExtension.class)
 public class ContractorInvoiceMessagingServiceTest
 {
 
 	@Mock
-	private RabbitTemplate rabbitTemplate;
+	private OutboxService outboxService;
 
 	@InjectMocks
 	private ContractorInvoiceMessagingServiceImpl contractorInvoiceMessagingService;
 
 	@Test
-	public void shouldSendContractorInvoiceCreatedMessage()
+	public void shouldQueueContractorInvoiceCreatedMessage()
 	{
 		final ContractorInvoiceRecord record = mock(ContractorInvoiceRecord.class);
 		when(record.contractorId()).thenReturn(1L);
 
 		contractorInvoiceMessagingService.sendContractorInvoiceCreatedMessage(record);
 
-		verify(rabbitTemplate).convertAndSend("contractor-invoice-created","contractor-invoice-created." + record.contractorId(), record);
+		verify(outboxService).enqueue("contractor-invoice-created", "contractor-invoice-created." + record.contractorId(), record);
+		verify(outboxService).enqueue("contractor-invoice-events", "created.1", new ContractorInvoiceEventRecord(ContractorInvoiceEventRecord.Type.CREATED, record, null));
+	}
+
+	@Test
+	public void shouldQueueOneContractorInvoiceCreatedMessagePerRecord()
+	{
+		final ContractorInvoiceRecord first = mock(ContractorInvoiceRecord.class);
+		final ContractorInvoiceRecord second = mock(ContractorInvoiceRecord.class);
+		when(first.contractorId()).thenReturn(1L);
+		when(second.contractorId()).thenReturn(2L);
+
+		contractorInvoiceMessagingService.sendContractorInvoiceCreatedMessages(List.of(first, second));
+
+		verify(outboxService).enqueue("contractor-invoice-created", "contractor-invoice-created.1", first);
+		verify(outboxService).enqueue("contractor-invoice-created", "contractor-invoice-created.2", second);
+	}
+
+	@Test
+	public void shouldQueueContractorInvoicePatchedEvent()
+	{
+		final ContractorInvoiceRecord record = mock(ContractorInvoiceRecord.class);
+		when(record.contractorId()).thenReturn(1L);
+
+		contractorInvoiceMessagingService.sendContractorInvoicePatchedMessage(record);
+
+		verify(outboxService).enqueue("contractor-invoice-events", "patched.1", new ContractorInvoiceEventRecord(ContractorInvoiceEventRecord.Type.PATCHED, record, null));
+	}
+
+	@Test
+	public void shouldQueueOneContractorInvoiceBilledEventPerRecordWithTheClientInvoice()
+	{
+		final ContractorInvoiceRecord first = mock(ContractorInvoiceRecord.class);
+		final ContractorInvoiceRecord second = mock(ContractorInvoiceRecord.class);
+		when(first.contractorId()).thenReturn(1L);
+		when(second.contractorId()).thenReturn(2L);
+
+		contractorInvoiceMessagingService.sendContractorInvoicesBilledMessages(10L, List.of(first, second));
 
+		verify(outboxService).enqueue("contractor-invoice-events", "billed.1", new ContractorInvoiceEventRecord(ContractorInvoiceEventRecord.Type.BILLED, first, 10L));
+		verify(outboxService).enqueue("contractor-invoice-events", "billed.2", new ContractorInvoiceEventRecord(ContractorInvoiceEventRecord.Type.BILLED, second, 10L));
 	}
 
 }
@@ -1,18 +1,24 @@
 package com.greenfieldcommerce.greenerp.contractors.invoices.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Currency;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -22,35 +28,51 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import com.greenfieldcommerce.greenerp.analytics.services.MarginAnalyticsService;
+import com.greenfieldcommerce.greenerp.archive.services.InvoiceArchiveService;
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
 import com.greenfieldcommerce.greenerp.clients.services.ClientService;
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
 import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
 import com.greenfieldcommerce.greenerp.contractors.invoices.entities.InvoiceExtraAmountLine;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.BatchContractorInvoiceRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.CreateInvoiceExtraAmountLineRecord;
 import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
 import com.greenfieldcommerce.greenerp.exceptions.DuplicateContractorInvoiceException;
 import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
+import com.greenfieldcommerce.greenerp.exceptions.IllegalInvoiceModificationException;
+import com.greenfieldcommerce.greenerp.exceptions.InvalidCursorException;
+import com.greenfieldcommerce.greenerp.exceptions.InvalidDateRangeException;
 import com.greenfieldcommerce.greenerp.mappers.Mapper;
 import com.greenfieldcommerce.greenerp.contractors.invoices.records.ContractorInvoiceRecord;
 import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.InvoiceExtraAmountLineRepository;
 import com.greenfieldcommerce.greenerp.contractors.rates.services.ContractorRateService;
 import com.greenfieldcommerce.greenerp.contractors.services.ContractorService;
+import com.greenfieldcommerce.greenerp.records.CursorPageRecord;
 
 @ExtendWith(MockitoExtension.class)
 public class ContractorInvoiceServiceImplTest
 {
 	private static final Long VALID_RESOURCE_ID = 1L;
+	private static final Currency USD = Currency.getInstance("USD");
 
 	@Mock
 	private ContractorInvoiceRepository contractorInvoiceRepository;
 	@Mock
+	private InvoiceExtraAmountLineRepository invoiceExtraAmountLineRepository;
+	@Mock
 	private ContractorRateService contractorRateService;
 	@Mock
 	private Mapper<ContractorInvoice, ContractorInvoiceRecord> contractorInvoiceToRecordMapper;
@@ -60,6 +82,10 @@ public class ContractorInvoiceServiceImplTest
 	private ContractorInvoiceMessagingService contractorInvoiceMessagingService;
 	@Mock
 	private ClientService clientService;
+	@Mock
+	private MarginAnalyticsService marginAnalyticsService;
+	@Mock
+	private InvoiceArchiveService invoiceArchiveService;
 
 	@InjectMocks
 	private ContractorInvoiceServiceImpl service;
@@ -91,6 +117,69 @@ public class ContractorInvoiceServiceImplTest
 		assertEquals(invoice2Record, result.getContent().get(1));
 		assertEquals(invoices.size(), result.getTotalElements());
 		assertEquals(pageable, result.getPageable());
+		verifyNoInteractions(invoiceArchiveService);
+	}
+
+	@Test
+	@DisplayName("Should list the invoices of a contractor with archived invoices across the archive")
+	public void shouldListTheInvoicesOfAContractorWithArchivedInvoicesAcrossTheArchive()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final Pageable pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "startDate"));
+		final Page<ContractorInvoiceRecord> page = new PageImpl<>(List.of(mock(ContractorInvoiceRecord.class)), pageable, 1);
+		final CursorPageRecord<ContractorInvoiceRecord> slice = new CursorPageRecord<>(List.of(mock(ContractorInvoiceRecord.class)), null);
+
+		when(contractor.getArchivedThrough()).thenReturn(ZonedDateTime.now());
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(invoiceArchiveService.findContractorInvoices(VALID_RESOURCE_ID, pageable)).thenReturn(page);
+		when(invoiceArchiveService.scrollContractorInvoices(VALID_RESOURCE_ID, ScrollPosition.keyset(), 100)).thenReturn(slice);
+
+		assertEquals(page, service.findByContractor(VALID_RESOURCE_ID, pageable));
+		assertEquals(slice, service.scrollByContractor(VALID_RESOURCE_ID, null, 5000));
+		verifyNoInteractions(contractorInvoiceRepository);
+	}
+
+	@Test
+	@DisplayName("Should scroll through contractor invoices resuming after the last invoice of the previous slice")
+	public void shouldScrollThroughContractorInvoicesResumingAfterTheLastInvoiceOfThePreviousSlice()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final ZonedDateTime lastStartDate = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+		final ContractorInvoice invoice1 = mock(ContractorInvoice.class);
+		final ContractorInvoice invoice2 = mock(ContractorInvoice.class);
+		final ContractorInvoiceRecord invoice1Record = mock(ContractorInvoiceRecord.class);
+		final ContractorInvoiceRecord invoice2Record = mock(ContractorInvoiceRecord.class);
+
+		final Window<ContractorInvoice> firstWindow = Window.from(List.of(invoice1, invoice2),
+			index -> ScrollPosition.forward(Map.of("startDate", lastStartDate.plusMonths(1 - index), "id", 42L - index)), true);
+		final Window<ContractorInvoice> lastWindow = Window.from(List.of(), index -> ScrollPosition.keyset(), false);
+
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(contractorInvoiceRepository.findByContractorOrderByStartDateDescIdDesc(eq(contractor), eq(ScrollPosition.keyset()), eq(Limit.of(2)))).thenReturn(firstWindow);
+		when(contractorInvoiceRepository.findByContractorOrderByStartDateDescIdDesc(eq(contractor), argThat(position -> !position.isInitial()), eq(Limit.of(2)))).thenReturn(lastWindow);
+		when(contractorInvoiceToRecordMapper.map(eq(invoice1))).thenReturn(invoice1Record);
+		when(contractorInvoiceToRecordMapper.map(eq(invoice2))).thenReturn(invoice2Record);
+
+		final CursorPageRecord<ContractorInvoiceRecord> firstSlice = service.scrollByContractor(VALID_RESOURCE_ID, null, 2);
+		assertEquals(List.of(invoice1Record, invoice2Record), firstSlice.content());
+
+		final CursorPageRecord<ContractorInvoiceRecord> lastSlice = service.scrollByContractor(VALID_RESOURCE_ID, firstSlice.nextCursor(), 2);
+		assertEquals(List.of(), lastSlice.content());
+		assertNull(lastSlice.nextCursor());
+
+		verify(contractorInvoiceRepository).findByContractorOrderByStartDateDescIdDesc(eq(contractor), argThat(position ->
+			position instanceof KeysetScrollPosition keyset && !keyset.isInitial() && keyset.getKeys().get("id").equals(41L)
+				&& ((ZonedDateTime) keyset.getKeys().get("startDate")).isEqual(lastStartDate)), eq(Limit.of(2)));
+	}
+
+	@Test
+	@DisplayName("Should throw InvalidCursorException when scrolling from a cursor that was not issued by the listing")
+	public void shouldThrowInvalidCursorExceptionWhenScrollingFromACursorThatWasNotIssuedByTheListing()
+	{
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(mock(Contractor.class));
+
+		assertThrows(InvalidCursorException.class, () -> service.scrollByContractor(VALID_RESOURCE_ID, "not-a-cursor", 12));
+		verify(contractorInvoiceRepository, never()).findByContractorOrderByStartDateDescIdDesc(any(), any(), any());
 	}
 
 	@Test
@@ -124,7 +213,6 @@ public class ContractorInvoiceServiceImplTest
 	@DisplayName("Should create contractor invoice")
 	public void shouldCreateContractorInvoice()
 	{
-		final ZonedDateTime now = ZonedDateTime.now();
 		final Contractor contractor = mock(Contractor.class);
 		final ContractorRate currentRateForContractor = mock(ContractorRate.class);
 		final ContractorInvoice saved = mock(ContractorInvoice.class);
@@ -133,34 +221,109 @@ public class ContractorInvoiceServiceImplTest
 		final BigDecimal workedDays = new BigDecimal(22);
 
 		when(currentRateForContractor.getRate()).thenReturn(new BigDecimal(100));
+		when(currentRateForContractor.getCurrency()).thenReturn(USD);
 		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
-		when(contractorInvoiceRepository.findContractorInvoiceForADate(eq(contractor), dateIsSameDay(now))).thenReturn(Optional.empty());
 		when(contractorRateService.findCurrentRateForContractor(contractor)).thenReturn(currentRateForContractor);
-		when(contractorInvoiceRepository.save(
-			argThat(i -> i.getRate().equals(currentRateForContractor) && i.getNumberOfWorkedDays().equals(workedDays)))).thenReturn(saved);
+		when(contractorInvoiceRepository.insertIfAbsent(
+			argThat(i -> i.getRate().equals(currentRateForContractor) && i.getNumberOfWorkedDays().equals(workedDays)))).thenReturn(Optional.of(saved));
 		when(contractorInvoiceToRecordMapper.map(eq(saved))).thenReturn(savedRecord);
 
 		final ContractorInvoiceRecord result = service.create(VALID_RESOURCE_ID, workedDays);
 
 		assertEquals(savedRecord, result);
+		verify(marginAnalyticsService).refresh(List.of(savedRecord));
 		verify(contractorInvoiceMessagingService).sendContractorInvoiceCreatedMessage(eq(savedRecord));
+		verify(contractorInvoiceRepository, never()).findContractorInvoiceForADate(any(), any());
 	}
 
 	@Test
 	@DisplayName("Should throw DuplicateContractorInvoiceException when trying to create invoice if one already exists in the current period")
 	public void shouldThrowDuplicateContractorInvoiceExceptionWhenCreatingInvoiceIfOneAlreadyExistsInTheCurrentPeriod()
 	{
-		final ZonedDateTime now = ZonedDateTime.now();
 		final Contractor contractor = mock(Contractor.class);
-		final ContractorInvoice existing = mock(ContractorInvoice.class);
+		final ContractorRate currentRateForContractor = mock(ContractorRate.class);
 
 		final BigDecimal workedDays = new BigDecimal(22);
 
+		when(currentRateForContractor.getRate()).thenReturn(new BigDecimal(100));
+		when(currentRateForContractor.getCurrency()).thenReturn(USD);
 		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
-		when(contractorInvoiceRepository.findContractorInvoiceForADate(eq(contractor), dateIsSameDay(now))).thenReturn(Optional.of(existing));
+		when(contractorRateService.findCurrentRateForContractor(contractor)).thenReturn(currentRateForContractor);
+		when(contractorInvoiceRepository.insertIfAbsent(any(ContractorInvoice.class))).thenReturn(Optional.empty());
 
 		assertThrows(DuplicateContractorInvoiceException.class, () -> service.create(VALID_RESOURCE_ID, workedDays));
-		verify(contractorInvoiceRepository).findContractorInvoiceForADate(eq(contractor), dateIsSameDay(now));
+		verify(contractorInvoiceMessagingService, never()).sendContractorInvoiceCreatedMessage(any());
+	}
+
+	@Test
+	@DisplayName("Should prepare a contractor invoice for a batch record without saving it")
+	public void shouldPrepareContractorInvoiceForBatchRecordWithoutSavingIt()
+	{
+		final ZonedDateTime start = ZonedDateTime.now().minusMonths(1);
+		final ZonedDateTime end = start.plusMonths(1).minusSeconds(1);
+		final Contractor contractor = mock(Contractor.class);
+		final Client client = mock(Client.class);
+		final ContractorRate rate = mock(ContractorRate.class);
+		final BatchContractorInvoiceRecord record = new BatchContractorInvoiceRecord(VALID_RESOURCE_ID, 2L, start, end, BigDecimal.TEN);
+
+		when(rate.getRate()).thenReturn(new BigDecimal(100));
+		when(rate.getCurrency()).thenReturn(USD);
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(clientService.findEntityById(2L)).thenReturn(client);
+		when(contractorInvoiceRepository.existsContractorInvoiceForADate(contractor, start)).thenReturn(false);
+		when(contractorRateService.findRateForContractorActiveOnAPeriod(contractor, client, start, end)).thenReturn(rate);
+
+		final ContractorInvoice result = service.prepare(record);
+
+		assertEquals(rate, result.getRate());
+		assertEquals(start, result.getStartDate());
+		assertEquals(0, new BigDecimal(1000).compareTo(result.getTotal()));
+		verify(contractorInvoiceRepository, never()).save(any());
+		verify(contractorInvoiceMessagingService, never()).sendContractorInvoiceCreatedMessage(any());
+	}
+
+	@Test
+	@DisplayName("Should throw DuplicateContractorInvoiceException when preparing a batch record for a period already invoiced")
+	public void shouldThrowDuplicateContractorInvoiceExceptionWhenPreparingBatchRecordForAPeriodAlreadyInvoiced()
+	{
+		final ZonedDateTime start = ZonedDateTime.now().minusMonths(1);
+		final Contractor contractor = mock(Contractor.class);
+		final BatchContractorInvoiceRecord record = new BatchContractorInvoiceRecord(VALID_RESOURCE_ID, 2L, start, start.plusMonths(1), BigDecimal.TEN);
+
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(clientService.findEntityById(2L)).thenReturn(mock(Client.class));
+		when(contractorInvoiceRepository.existsContractorInvoiceForADate(contractor, start)).thenReturn(true);
+
+		assertThrows(DuplicateContractorInvoiceException.class, () -> service.prepare(record));
+		verify(contractorRateService, never()).findRateForContractorActiveOnAPeriod(any(), any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should throw IllegalInvoiceModificationException when preparing a batch record for an archived period")
+	public void shouldThrowIllegalInvoiceModificationExceptionWhenPreparingBatchRecordForAnArchivedPeriod()
+	{
+		final ZonedDateTime start = ZonedDateTime.now().minusYears(2);
+		final Contractor contractor = mock(Contractor.class);
+		final BatchContractorInvoiceRecord record = new BatchContractorInvoiceRecord(VALID_RESOURCE_ID, 2L, start, start.plusMonths(1), BigDecimal.TEN);
+
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(clientService.findEntityById(2L)).thenReturn(mock(Client.class));
+		when(contractorInvoiceRepository.existsContractorInvoiceForADate(contractor, start)).thenReturn(false);
+		when(invoiceArchiveService.isArchivedPeriod(VALID_RESOURCE_ID, start)).thenReturn(true);
+
+		assertThrows(IllegalInvoiceModificationException.class, () -> service.prepare(record));
+		verify(contractorRateService, never()).findRateForContractorActiveOnAPeriod(any(), any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should throw InvalidDateRangeException when preparing a batch record for a period longer than a month")
+	public void shouldThrowInvalidDateRangeExceptionWhenPreparingBatchRecordForAPeriodLongerThanAMonth()
+	{
+		final ZonedDateTime start = ZonedDateTime.now().minusMonths(2);
+
+		assertThrows(InvalidDateRangeException.class, () -> service.prepare(new BatchContractorInvoiceRecord(VALID_RESOURCE_ID, 2L, start, start.plusMonths(1).plusDays(1), BigDecimal.TEN)));
+		assertThrows(InvalidDateRangeException.class, () -> service.prepare(new BatchContractorInvoiceRecord(VALID_RESOURCE_ID, 2L, start, start, BigDecimal.TEN)));
+		verify(contractorInvoiceRepository, never()).existsContractorInvoiceForADate(any(), any());
 	}
 
 	@Test
@@ -192,74 +355,188 @@ public class ContractorInvoiceServiceImplTest
 	}
 
 	@Test
-	@DisplayName("Should add an extra amount line to an existing invoice")
+	@DisplayName("Should read an invoice from the archive once it is no longer in the invoice table")
+	public void shouldReadAnInvoiceFromTheArchiveOnceItIsNoLongerInTheInvoiceTable()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final ContractorInvoiceRecord archivedRecord = mock(ContractorInvoiceRecord.class);
+
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(contractorInvoiceRepository.findByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.empty());
+		when(invoiceArchiveService.findContractorInvoice(VALID_RESOURCE_ID, VALID_RESOURCE_ID)).thenReturn(Optional.of(archivedRecord));
+
+		assertEquals(archivedRecord, service.findByContractorAndId(VALID_RESOURCE_ID, VALID_RESOURCE_ID));
+	}
+
+	@Test
+	@DisplayName("Should throw IllegalInvoiceModificationException when updating an archived invoice")
+	public void shouldThrowIllegalInvoiceModificationExceptionWhenUpdatingAnArchivedInvoice()
+	{
+		final Contractor contractor = mock(Contractor.class);
+
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(contractorInvoiceRepository.findHeaderByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.empty());
+		when(invoiceArchiveService.findContractorInvoice(VALID_RESOURCE_ID, VALID_RESOURCE_ID)).thenReturn(Optional.of(mock(ContractorInvoiceRecord.class)));
+
+		final IllegalInvoiceModificationException exception = assertThrows(IllegalInvoiceModificationException.class,
+			() -> service.patchInvoice(VALID_RESOURCE_ID, VALID_RESOURCE_ID, BigDecimal.TEN));
+		assertEquals("ARCHIVED_INVOICE_MODIFICATION", exception.getCode());
+		verify(contractorInvoiceRepository, never()).updateNumberOfWorkedDays(any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should add an extra amount line to an existing invoice and add its amount to the invoice totals")
 	public void shouldAddAnExtraAmountLineToAnExistingInvoice()
 	{
 		final Contractor contractor = mock(Contractor.class);
 		final ContractorInvoice invoice = mock(ContractorInvoice.class);
-		final ContractorInvoice	saved = mock(ContractorInvoice.class);
+		final ContractorInvoice reloaded = mock(ContractorInvoice.class);
 		final ContractorInvoiceRecord expectedRecord = mock(ContractorInvoiceRecord.class);
 
 		final CreateInvoiceExtraAmountLineRecord extraAmountLineRecord = new CreateInvoiceExtraAmountLineRecord(BigDecimal.valueOf(100), "Extra Amount");
 
+		when(invoice.getCurrency()).thenReturn(USD);
+		when(invoice.getContractor()).thenReturn(contractor);
+		when(invoice.getId()).thenReturn(VALID_RESOURCE_ID);
 		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
-		when(contractorInvoiceRepository.findByContractorAndId(contractor, VALID_RESOURCE_ID)).thenReturn(Optional.of(invoice));
-		when(contractorInvoiceRepository.save(invoice)).thenReturn(saved);
-		when(contractorInvoiceToRecordMapper.map(eq(saved))).thenReturn(expectedRecord);
+		when(contractorInvoiceRepository.findHeaderByContractorAndId(contractor, VALID_RESOURCE_ID)).thenReturn(Optional.of(invoice));
+		when(contractorInvoiceRepository.findByContractorAndId(contractor, VALID_RESOURCE_ID)).thenReturn(Optional.of(reloaded));
+		when(contractorInvoiceToRecordMapper.map(eq(reloaded))).thenReturn(expectedRecord);
+		when(contractorInvoiceRepository.addToExtraAmountsTotal(eq(VALID_RESOURCE_ID), any())).thenReturn(1);
 
 		final ContractorInvoiceRecord contractorInvoiceRecord = service.addExtraAmountLineToInvoice(VALID_RESOURCE_ID, VALID_RESOURCE_ID, extraAmountLineRecord);
 
-		verify(invoice).addExtraAmountLine(argThat(l -> l.getAmount().equals(extraAmountLineRecord.amount()) && l.getDescription().equals(extraAmountLineRecord.description())));
+		verify(invoiceExtraAmountLineRepository).save(argThat(l -> l.getInvoice() == invoice && l.getAmount().compareTo(extraAmountLineRecord.amount()) == 0
+			&& l.getDescription().equals(extraAmountLineRecord.description())));
+		verify(contractorInvoiceRepository).addToExtraAmountsTotal(eq(VALID_RESOURCE_ID), argThat(amount -> amount.compareTo(extraAmountLineRecord.amount()) == 0));
+		verify(invoice, never()).getExtraAmountLines();
+		verify(marginAnalyticsService).refresh(List.of(expectedRecord));
+		verify(contractorInvoiceMessagingService).sendContractorInvoicePatchedMessage(expectedRecord);
 		assertEquals(expectedRecord, contractorInvoiceRecord);
 	}
 
 	@Test
-	@DisplayName("Should update invoice for contractor")
+	@DisplayName("Should throw EntityNotFoundException when the invoice is gone by the time an extra amount line is added to its totals")
+	public void shouldThrowEntityNotFoundExceptionWhenTheInvoiceIsGoneByTheTimeAnExtraAmountLineIsAddedToItsTotals()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final ContractorInvoice invoice = mock(ContractorInvoice.class);
+
+		when(invoice.getCurrency()).thenReturn(USD);
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(contractorInvoiceRepository.findHeaderByContractorAndId(contractor, VALID_RESOURCE_ID)).thenReturn(Optional.of(invoice));
+		when(contractorInvoiceRepository.addToExtraAmountsTotal(eq(VALID_RESOURCE_ID), any())).thenReturn(0);
+
+		assertThrows(EntityNotFoundException.class, () -> service.addExtraAmountLineToInvoice(VALID_RESOURCE_ID, VALID_RESOURCE_ID,
+			new CreateInvoiceExtraAmountLineRecord(BigDecimal.TEN, "Extra")));
+		verify(contractorInvoiceMessagingService, never()).sendContractorInvoicePatchedMessage(any());
+	}
+
+	@Test
+	@DisplayName("Should round extra amounts to the minor units of the invoice currency before adding them to the totals")
+	public void shouldRoundExtraAmountsToTheMinorUnitsOfTheInvoiceCurrencyBeforeAddingThemToTheTotals()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final ContractorInvoice invoice = mock(ContractorInvoice.class);
+		final InvoiceExtraAmountLine line = mock(InvoiceExtraAmountLine.class);
+		final ContractorInvoice reloaded = mock(ContractorInvoice.class);
+
+		when(invoice.getCurrency()).thenReturn(Currency.getInstance("JPY"));
+		when(invoice.getContractor()).thenReturn(contractor);
+		when(invoice.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(line.getAmount()).thenReturn(new BigDecimal("1000"));
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(contractorInvoiceRepository.findHeaderByContractorAndId(contractor, VALID_RESOURCE_ID)).thenReturn(Optional.of(invoice));
+		when(invoiceExtraAmountLineRepository.findByIdAndInvoice(VALID_RESOURCE_ID, invoice)).thenReturn(Optional.of(line));
+		when(contractorInvoiceRepository.findByContractorAndId(contractor, VALID_RESOURCE_ID)).thenReturn(Optional.of(reloaded));
+		when(contractorInvoiceToRecordMapper.map(reloaded)).thenReturn(mock(ContractorInvoiceRecord.class));
+		when(contractorInvoiceRepository.addToExtraAmountsTotal(eq(VALID_RESOURCE_ID), any())).thenReturn(1);
+
+		service.addExtraAmountLineToInvoice(VALID_RESOURCE_ID, VALID_RESOURCE_ID, new CreateInvoiceExtraAmountLineRecord(new BigDecimal("100.4"), "Extra"));
+		service.patchExtraAmountLine(VALID_RESOURCE_ID, VALID_RESOURCE_ID, VALID_RESOURCE_ID, new CreateInvoiceExtraAmountLineRecord(new BigDecimal("1250.5"), "Extra"));
+
+		verify(invoiceExtraAmountLineRepository).save(argThat(l -> l.getAmount().equals(new BigDecimal("100"))));
+		verify(contractorInvoiceRepository).addToExtraAmountsTotal(VALID_RESOURCE_ID, new BigDecimal("100"));
+		verify(line).setAmount(new BigDecimal("1251"));
+		verify(contractorInvoiceRepository).addToExtraAmountsTotal(VALID_RESOURCE_ID, new BigDecimal("251"));
+	}
+
+	@Test
+	@DisplayName("Should update invoice for contractor by recomputing its total from the stored extra amounts total")
 	public void shouldUpdateInvoiceForContractor()
 	{
 		final Contractor contractor = mock(Contractor.class);
 		final ContractorInvoice invoice = mock(ContractorInvoice.class);
-		final ContractorInvoice saved = mock(ContractorInvoice.class);
+		final ContractorRate rate = mock(ContractorRate.class);
+		final ContractorInvoice reloaded = mock(ContractorInvoice.class);
 		final ContractorInvoiceRecord invoiceRecord = mock(ContractorInvoiceRecord.class);
 
 		final BigDecimal workedDays = new BigDecimal(22);
 
+		when(rate.getRate()).thenReturn(BigDecimal.valueOf(150.555));
+		when(invoice.getRate()).thenReturn(rate);
+		when(invoice.getCurrency()).thenReturn(USD);
+		when(invoice.getContractor()).thenReturn(contractor);
+		when(invoice.getId()).thenReturn(VALID_RESOURCE_ID);
 		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
-		when(contractorInvoiceRepository.findByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(invoice));
-		when(contractorInvoiceRepository.save(invoice)).thenReturn(saved);
-		when(contractorInvoiceToRecordMapper.map(eq(saved))).thenReturn(invoiceRecord);
+		when(contractorInvoiceRepository.findHeaderByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(invoice));
+		when(contractorInvoiceRepository.findByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(reloaded));
+		when(contractorInvoiceToRecordMapper.map(eq(reloaded))).thenReturn(invoiceRecord);
 
 		final ContractorInvoiceRecord result = service.patchInvoice(VALID_RESOURCE_ID, VALID_RESOURCE_ID, workedDays);
 		assertEquals(invoiceRecord, result);
-		verify(invoice).setNumberOfWorkedDays(workedDays);
-		verify(contractorInvoiceRepository).save(invoice);
+		verify(invoice).checkNumberOfWorkedDaysCanChange();
+		verify(contractorInvoiceRepository).updateNumberOfWorkedDays(VALID_RESOURCE_ID, workedDays, new BigDecimal("3312.21"));
+		verify(invoice, never()).getExtraAmountLines();
+		verify(contractorInvoiceMessagingService).sendContractorInvoicePatchedMessage(invoiceRecord);
 	}
 
 	@Test
-	@DisplayName("Should update an extra amount line in an invoice")
+	@DisplayName("Should not update the number of worked days of an invoice that is no longer open")
+	public void shouldNotUpdateTheNumberOfWorkedDaysOfAnInvoiceThatIsNoLongerOpen()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final ContractorInvoice invoice = mock(ContractorInvoice.class);
+
+		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
+		when(contractorInvoiceRepository.findHeaderByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(invoice));
+		doThrow(new IllegalInvoiceModificationException("NOT_OPEN_INVOICE_MODIFICATION", "Not open")).when(invoice).checkNumberOfWorkedDaysCanChange();
+
+		assertThrows(IllegalInvoiceModificationException.class, () -> service.patchInvoice(VALID_RESOURCE_ID, VALID_RESOURCE_ID, BigDecimal.TEN));
+		verify(contractorInvoiceRepository, never()).updateNumberOfWorkedDays(any(), any(), any());
+		verify(marginAnalyticsService, never()).refresh(any());
+		verify(contractorInvoiceMessagingService, never()).sendContractorInvoicePatchedMessage(any());
+	}
+
+	@Test
+	@DisplayName("Should update an extra amount line in an invoice and add the amount difference to the invoice totals")
 	public void shouldUpdateAnExtraAmountLineInAnInvoice()
 	{
 		final Contractor contractor = mock(Contractor.class);
 		final ContractorInvoice invoice = mock(ContractorInvoice.class);
 		final InvoiceExtraAmountLine line = mock(InvoiceExtraAmountLine.class);
-		final ContractorInvoice saved = mock(ContractorInvoice.class);
+		final ContractorInvoice reloaded = mock(ContractorInvoice.class);
 		final ContractorInvoiceRecord invoiceRecord = mock(ContractorInvoiceRecord.class);
 
 		final CreateInvoiceExtraAmountLineRecord extraAmountLineRecord = new CreateInvoiceExtraAmountLineRecord(BigDecimal.valueOf(150), "Updated Extra Amount");
 
-		when(line.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(line.getAmount()).thenReturn(BigDecimal.valueOf(200));
+		when(invoice.getCurrency()).thenReturn(USD);
+		when(invoice.getContractor()).thenReturn(contractor);
+		when(invoice.getId()).thenReturn(VALID_RESOURCE_ID);
 		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
-		when(contractorInvoiceRepository.findByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(invoice));
-		when(contractorInvoiceRepository.save(invoice)).thenReturn(saved);
-		when(contractorInvoiceToRecordMapper.map(eq(saved))).thenReturn(invoiceRecord);
-		when(invoice.getExtraAmountLines()).thenReturn(Set.of(line));
+		when(contractorInvoiceRepository.findHeaderByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(invoice));
+		when(invoiceExtraAmountLineRepository.findByIdAndInvoice(VALID_RESOURCE_ID, invoice)).thenReturn(Optional.of(line));
+		when(contractorInvoiceRepository.findByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(reloaded));
+		when(contractorInvoiceToRecordMapper.map(eq(reloaded))).thenReturn(invoiceRecord);
 
 		final ContractorInvoiceRecord result = service.patchExtraAmountLine(VALID_RESOURCE_ID, VALID_RESOURCE_ID, VALID_RESOURCE_ID, extraAmountLineRecord);
 		assertEquals(invoiceRecord, result);
-		verify(invoice).calculateTotalInvoiceAmount();
-		verify(line).setAmount(extraAmountLineRecord.amount());
+		verify(line).setAmount(argThat(amount -> amount.compareTo(extraAmountLineRecord.amount()) == 0));
 		verify(line).setDescription(extraAmountLineRecord.description());
-		verify(contractorInvoiceRepository).save(invoice);
+		verify(contractorInvoiceRepository).addToExtraAmountsTotal(eq(VALID_RESOURCE_ID), argThat(delta -> delta.compareTo(BigDecimal.valueOf(-50)) == 0));
+		verify(invoice, never()).getExtraAmountLines();
+		verify(contractorInvoiceMessagingService).sendContractorInvoicePatchedMessage(invoiceRecord);
 	}
 
 	@Test
@@ -268,20 +545,15 @@ public class ContractorInvoiceServiceImplTest
 	{
 		final Contractor contractor = mock(Contractor.class);
 		final ContractorInvoice invoice = mock(ContractorInvoice.class);
-		final InvoiceExtraAmountLine line = mock(InvoiceExtraAmountLine.class);
 
 		final CreateInvoiceExtraAmountLineRecord extraAmountLineRecord = new CreateInvoiceExtraAmountLineRecord(BigDecimal.valueOf(150), "Updated Extra Amount");
 
-		when(line.getId()).thenReturn(VALID_RESOURCE_ID);
 		when(contractorService.findEntityById(VALID_RESOURCE_ID)).thenReturn(contractor);
-		when(contractorInvoiceRepository.findByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(invoice));
-		when(invoice.getExtraAmountLines()).thenReturn(Set.of(line));
+		when(contractorInvoiceRepository.findHeaderByContractorAndId(eq(contractor), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(invoice));
+		when(invoiceExtraAmountLineRepository.findByIdAndInvoice(0L, invoice)).thenReturn(Optional.empty());
 
 		assertThrows(EntityNotFoundException.class, () -> service.patchExtraAmountLine(VALID_RESOURCE_ID, VALID_RESOURCE_ID, 0L, extraAmountLineRecord));
-		verify(line, never()).setAmount(any(BigDecimal.class));
-		verify(line, never()).setDescription(any(String.class));
-		verify(invoice, never()).calculateTotalInvoiceAmount();
-		verify(contractorInvoiceRepository, never()).save(any(ContractorInvoice.class));
+		verify(contractorInvoiceRepository, never()).addToExtraAmountsTotal(any(), any());
 	}
 
 	@Test
@@ -314,6 +586,91 @@ public class ContractorInvoiceServiceImplTest
 		assertEquals(invoiceRecord, result);
 	}
 
+	@Test
+	@DisplayName("Should find every contractor invoice of a client with a single lookup, in the requested order")
+	public void shouldFindEveryContractorInvoiceOfAClientWithASingleLookup()
+	{
+		final ContractorInvoice invoice1 = invoiceForClient(1L, VALID_RESOURCE_ID);
+		final ContractorInvoice invoice2 = invoiceForClient(2L, VALID_RESOURCE_ID);
+
+		when(contractorInvoiceRepository.findByIdIn(eq(Set.of(1L, 2L)))).thenReturn(List.of(invoice1, invoice2));
+
+		final List<ContractorInvoice> result = service.findEntitiesForClient(VALID_RESOURCE_ID, List.of(2L, 1L, 2L));
+
+		assertEquals(List.of(invoice2, invoice1), result);
+		verify(contractorInvoiceRepository, never()).findById(any());
+	}
+
+	@Test
+	@DisplayName("Should report every missing or wrong-client contractor invoice in a single EntityNotFoundException")
+	public void shouldReportEveryMissingOrWrongClientContractorInvoiceInASingleException()
+	{
+		final ContractorInvoice invoice1 = invoiceForClient(1L, VALID_RESOURCE_ID);
+		final ContractorInvoice otherClientInvoice = mock(ContractorInvoice.class);
+		final Client otherClient = mock(Client.class);
+		when(otherClientInvoice.getClient()).thenReturn(otherClient);
+		when(otherClient.getId()).thenReturn(99L);
+
+		when(contractorInvoiceRepository.findByIdIn(eq(Set.of(1L, 2L, 3L)))).thenReturn(List.of(invoice1, otherClientInvoice));
+
+		final EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> service.findEntitiesForClient(VALID_RESOURCE_ID, List.of(1L, 2L, 3L)));
+		assertEquals("Contractor invoices [2, 3] were not found for client 1", exception.getMessage());
+	}
+
+	@Test
+	@DisplayName("Should assign contractor invoices to a client invoice with a bulk update and announce them as billed")
+	public void shouldAssignContractorInvoicesToAClientInvoiceWithABulkUpdate()
+	{
+		final ClientInvoice clientInvoice = mock(ClientInvoice.class);
+		final ContractorInvoice invoice1 = mock(ContractorInvoice.class);
+		final ContractorInvoice invoice2 = mock(ContractorInvoice.class);
+		final ContractorInvoiceRecord invoice1Record = mock(ContractorInvoiceRecord.class);
+		final ContractorInvoiceRecord invoice2Record = mock(ContractorInvoiceRecord.class);
+
+		when(clientInvoice.getId()).thenReturn(10L);
+		when(invoice1.getId()).thenReturn(1L);
+		when(invoice2.getId()).thenReturn(2L);
+		when(contractorInvoiceToRecordMapper.map(invoice1)).thenReturn(invoice1Record);
+		when(contractorInvoiceToRecordMapper.map(invoice2)).thenReturn(invoice2Record);
+
+		service.assignToClientInvoice(clientInvoice, List.of(invoice1, invoice2));
+
+		verify(contractorInvoiceRepository).assignClientInvoice(eq(clientInvoice), eq(List.of(1L, 2L)));
+		verify(contractorInvoiceRepository, never()).save(any(ContractorInvoice.class));
+		verify(marginAnalyticsService).refresh(List.of(invoice1Record, invoice2Record));
+		verify(contractorInvoiceMessagingService).sendContractorInvoicesBilledMessages(10L, List.of(invoice1Record, invoice2Record));
+	}
+
+	@Test
+	@DisplayName("Should find the latest invoice of many contractors with a single lookup")
+	public void shouldFindTheLatestInvoiceOfManyContractorsWithASingleLookup()
+	{
+		final ContractorInvoice first = mock(ContractorInvoice.class);
+		final ContractorInvoice second = mock(ContractorInvoice.class);
+		final ContractorInvoiceRecord firstRecord = mock(ContractorInvoiceRecord.class);
+		final ContractorInvoiceRecord secondRecord = mock(ContractorInvoiceRecord.class);
+
+		when(firstRecord.contractorId()).thenReturn(VALID_RESOURCE_ID);
+		when(secondRecord.contractorId()).thenReturn(2L);
+		when(contractorInvoiceRepository.findLatestByContractorIdIn(List.of(VALID_RESOURCE_ID, 2L, 3L))).thenReturn(List.of(first, second));
+		when(contractorInvoiceToRecordMapper.map(first)).thenReturn(firstRecord);
+		when(contractorInvoiceToRecordMapper.map(second)).thenReturn(secondRecord);
+
+		final Map<Long, ContractorInvoiceRecord> result = service.findLatestForContractors(List.of(VALID_RESOURCE_ID, 2L, 3L));
+
+		assertEquals(Map.of(VALID_RESOURCE_ID, firstRecord, 2L, secondRecord), result);
+	}
+
+	private static ContractorInvoice invoiceForClient(final Long invoiceId, final Long clientId)
+	{
+		final ContractorInvoice invoice = mock(ContractorInvoice.class);
+		final Client client = mock(Client.class);
+		when(invoice.getId()).thenReturn(invoiceId);
+		when(invoice.getClient()).thenReturn(client);
+		when(client.getId()).thenReturn(clientId);
+		return invoice;
+	}
+
 	private static ZonedDateTime dateIsSameDay(final ZonedDateTime now)
 	{
 		return argThat(time -> now.toLocalDate().atStartOfDay().equals(time.toLocalDate().atStartOfDay()));
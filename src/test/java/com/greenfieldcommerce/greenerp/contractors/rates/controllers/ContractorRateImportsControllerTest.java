@@ -0,0 +1,135 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.controllers;
+
+import static com.greenfieldcommerce.greenerp.helpers.ContractorRateTestValidations.validContractorRate;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessRequest;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessResponse;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
+import static org.springframework.restdocs.payload.PayloadDocumentation.requestFields;
+import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
+import static org.springframework.restdocs.payload.PayloadDocumentation.subsectionWithPath;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.greenfieldcommerce.greenerp.clients.records.ClientRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.BatchContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateImportRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateImportResultRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.CreateContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.RejectedContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.services.ContractorRateService;
+import com.greenfieldcommerce.greenerp.controllers.BaseRestControllerTest;
+
+@WebMvcTest(controllers = ContractorRateImportsController.class)
+public class ContractorRateImportsControllerTest extends BaseRestControllerTest
+{
+
+	@MockitoBean
+	private ContractorRateService contractorRateService;
+
+	@Test
+	public void shouldImportContractorRates_forAdmin() throws Exception
+	{
+		final ZonedDateTime start = ZonedDateTime.now();
+		final ContractorRateImportRecord importRecord = new ContractorRateImportRecord(List.of(
+			new BatchContractorRateRecord(VALID_RESOURCE_ID, buildRate(start, start.plusMonths(1))),
+			new BatchContractorRateRecord(VALID_RESOURCE_ID, buildRate(start.plusDays(10), start.plusMonths(2)))));
+		final ContractorRateRecord created = new ContractorRateRecord(1L, VALID_RESOURCE_ID, new ClientRecord(VALID_RESOURCE_ID, "Test Client", "test@client.com"),
+			BigDecimal.valueOf(100), Currency.getInstance("USD"), start, start.plusMonths(1));
+		final RejectedContractorRateRecord rejected = new RejectedContractorRateRecord(1, VALID_RESOURCE_ID, VALID_RESOURCE_ID, "OVERLAPPING_RATE", "Overlapping contractor rates are not allowed");
+
+		when(contractorRateService.importRates(argThat(records -> records.size() == 2))).thenReturn(new ContractorRateImportResultRecord(List.of(created), List.of(rejected)));
+
+		getMvc().perform(postImportRequest(importRecord).with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.created.length()").value(1))
+			.andExpect(validContractorRate("$.created[0]", created, getObjectMapper()))
+			.andExpect(jsonPath("$.rejected[0].index").value(1))
+			.andExpect(jsonPath("$.rejected[0].code").value("OVERLAPPING_RATE"))
+			.andDo(document("importing-rates",
+				preprocessRequest(prettyPrint()),
+				preprocessResponse(prettyPrint()),
+				requestHeaders(describeAdminHeader()),
+				requestFields(
+					fieldWithPath("rates[].contractorId").description("Id of the contractor the rate belongs to"),
+					subsectionWithPath("rates[].rate").description("The rate, with the same fields used when <<resources_rates, creating a contractor rate>>")
+				),
+				responseFields(
+					subsectionWithPath("created").description("An array with the created <<resources_rate, Rate resources>>"),
+					fieldWithPath("rejected[].index").description("Position of the rejected row in the imported rates"),
+					fieldWithPath("rejected[].contractorId").description("Id of the contractor of the rejected row"),
+					fieldWithPath("rejected[].clientId").description("Id of the client of the rejected row"),
+					fieldWithPath("rejected[].code").description("The reason code: CONTRACTOR_NOT_FOUND, CLIENT_NOT_FOUND, INVALID_RATE_PERIOD or OVERLAPPING_RATE"),
+					fieldWithPath("rejected[].message").description("Human-readable reason the row was rejected")
+				)));
+	}
+
+	@ParameterizedTest
+	@MethodSource("invalidImportRecordOptions")
+	public void shouldReturnUnprocessableEntityWhenImportingInvalidRates(final ContractorRateImportRecord record) throws Exception
+	{
+		getMvc().perform(postImportRequest(record).with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isUnprocessableEntity());
+
+		verify(contractorRateService, never()).importRates(any());
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> protectedRequests() throws JsonProcessingException
+	{
+		final ZonedDateTime start = ZonedDateTime.now();
+		return Stream.of(postImportRequest(new ContractorRateImportRecord(List.of(new BatchContractorRateRecord(VALID_RESOURCE_ID, buildRate(start, start.plusMonths(1)))))));
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> invalidResourceRequests()
+	{
+		return Stream.of();
+	}
+
+	private Stream<ContractorRateImportRecord> invalidImportRecordOptions()
+	{
+		final ZonedDateTime start = ZonedDateTime.now();
+		return Stream.of(
+			new ContractorRateImportRecord(null),
+			new ContractorRateImportRecord(List.of()),
+			new ContractorRateImportRecord(List.of(new BatchContractorRateRecord(null, buildRate(start, start.plusMonths(1))))),
+			new ContractorRateImportRecord(List.of(new BatchContractorRateRecord(VALID_RESOURCE_ID, null))),
+			new ContractorRateImportRecord(List.of(new BatchContractorRateRecord(VALID_RESOURCE_ID,
+				new CreateContractorRateRecord(VALID_RESOURCE_ID, BigDecimal.ZERO, BigDecimal.valueOf(200), BigDecimal.valueOf(10), Currency.getInstance("USD"), start, start.plusMonths(1))))));
+	}
+
+	private MockHttpServletRequestBuilder postImportRequest(final ContractorRateImportRecord record) throws JsonProcessingException
+	{
+		return post("/contractors/rates/imports").contentType(MediaType.APPLICATION_JSON).content(asJson(record));
+	}
+
+	private static CreateContractorRateRecord buildRate(final ZonedDateTime start, final ZonedDateTime end)
+	{
+		return new CreateContractorRateRecord(VALID_RESOURCE_ID, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.valueOf(10), Currency.getInstance("USD"), start, end);
+	}
+}
@@ -0,0 +1,50 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class ContractorRateOverlapConstraintTest
+{
+	@Test
+	@DisplayName("Should leave overlap checks to the application on databases other than PostgreSQL")
+	public void shouldLeaveOverlapChecksToTheApplicationOnDatabasesOtherThanPostgreSQL()
+	{
+		final EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		try
+		{
+			final ContractorRateOverlapConstraint constraint = new ContractorRateOverlapConstraint(new JdbcTemplate(database));
+			constraint.install();
+			assertFalse(constraint.isEnforcedByDatabase());
+		} finally
+		{
+			database.shutdown();
+		}
+	}
+
+	@Test
+	@DisplayName("Should recognise violations of the exclusion constraint only")
+	public void shouldRecogniseViolationsOfTheExclusionConstraintOnly()
+	{
+		final ContractorRateOverlapConstraint constraint = new ContractorRateOverlapConstraint(new JdbcTemplate());
+
+		assertTrue(constraint.isViolatedBy(violation("conflicting key value violates exclusion constraint \"exclcontractorratenooverlap\"", "23P01")));
+		assertFalse(constraint.isViolatedBy(violation("conflicting key value violates exclusion constraint \"another_exclusion\"", "23P01")));
+		assertFalse(constraint.isViolatedBy(violation("null value in column \"client_id\" violates not-null constraint", "23502")));
+		assertFalse(constraint.isViolatedBy(new DataIntegrityViolationException("no cause")));
+	}
+
+	private static DataIntegrityViolationException violation(final String message, final String sqlState)
+	{
+		return new DataIntegrityViolationException("could not execute statement", new RuntimeException(new SQLException(message, sqlState)));
+	}
+}
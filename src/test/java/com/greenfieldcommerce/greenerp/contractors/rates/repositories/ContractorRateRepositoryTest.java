@@ -0,0 +1,104 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+
+@DataJpaTest
+public class ContractorRateRepositoryTest
+{
+	private static final ZonedDateTime FIRST_PERIOD = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ContractorRateRepository repository;
+
+	private Contractor contractor;
+	private Client client;
+	private Client otherClient;
+	private final List<ContractorRate> yearlyRates = new ArrayList<>();
+
+	@BeforeEach
+	public void setup()
+	{
+		contractor = entityManager.persist(Contractor.create("contractor@greenfieldcommerce.com", "Contractor"));
+		client = entityManager.persist(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+		otherClient = entityManager.persist(Client.create("Other client", "other@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+
+		for (int year = 0; year < 5; year++)
+		{
+			final ZonedDateTime start = FIRST_PERIOD.plusYears(year);
+			yearlyRates.add(entityManager.persist(rate(client, start, start.plusYears(1).minusSeconds(1))));
+		}
+		entityManager.persist(rate(otherClient, FIRST_PERIOD.plusYears(2).plusMonths(6), FIRST_PERIOD.plusYears(3)));
+		entityManager.flush();
+	}
+
+	@Test
+	@DisplayName("Should find the rate of a contractor and client active at a given instant")
+	public void shouldFindRateForContractorAndClientActiveAtAGivenInstant()
+	{
+		assertEquals(yearlyRates.get(0).getId(), repository.findRateForContractorAndClientActiveAt(contractor, client, FIRST_PERIOD).orElseThrow().getId());
+		assertEquals(yearlyRates.get(3).getId(), repository.findRateForContractorAndClientActiveAt(contractor, client, FIRST_PERIOD.plusYears(3).plusMonths(4)).orElseThrow().getId());
+		assertTrue(repository.findRateForContractorAndClientActiveAt(contractor, client, FIRST_PERIOD.minusDays(1)).isEmpty());
+		assertTrue(repository.findRateForContractorAndClientActiveAt(contractor, otherClient, FIRST_PERIOD).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Should find the most recently started rate of a contractor active at a given instant, for any client")
+	public void shouldFindMostRecentlyStartedRateForContractorActiveAtAGivenInstant()
+	{
+		final List<ContractorRate> rates = repository.findRatesForContractorActiveAt(contractor, FIRST_PERIOD.plusYears(2).plusMonths(8), Limit.of(1));
+
+		assertEquals(1, rates.size());
+		assertEquals(otherClient.getId(), rates.getFirst().getClient().getId());
+	}
+
+	@Test
+	@DisplayName("Should find the rates of several contractors and clients overlapping with a period in one query")
+	public void shouldFindRatesOfSeveralContractorsAndClientsOverlappingWithAPeriod()
+	{
+		final List<ContractorRate> rates = repository.findRatesForContractorsAndClientsOverlappingWithPeriod(List.of(contractor.getId()), List.of(client.getId(), otherClient.getId()),
+			FIRST_PERIOD.plusYears(2).plusMonths(1), FIRST_PERIOD.plusYears(3).plusMonths(1));
+
+		assertEquals(3, rates.size());
+		assertTrue(rates.stream().anyMatch(rate -> rate.getClient().getId().equals(otherClient.getId())));
+		assertTrue(repository.findRatesForContractorsAndClientsOverlappingWithPeriod(List.of(contractor.getId()), List.of(client.getId()),
+			FIRST_PERIOD.minusYears(2), FIRST_PERIOD.minusYears(1)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Should back the active rate lookup with a composite index")
+	public void shouldBackActiveRateLookupWithACompositeIndex()
+	{
+		final Number indexes = (Number) entityManager.getEntityManager()
+			.createNativeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE UPPER(INDEX_NAME) = 'IDXCONTRACTORRATEPERIOD'")
+			.getSingleResult();
+		assertEquals(1, indexes.intValue());
+	}
+
+	private ContractorRate rate(final Client client, final ZonedDateTime start, final ZonedDateTime end)
+	{
+		return ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN, Currency.getInstance("USD"), start, end);
+	}
+}
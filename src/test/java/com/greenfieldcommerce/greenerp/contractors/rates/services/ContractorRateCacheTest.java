@@ -0,0 +1,163 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ContractorRateCacheTest
+{
+	private static final Long CONTRACTOR_ID = 1L;
+	private static final Long OTHER_CONTRACTOR_ID = 2L;
+	private static final Long CLIENT_ID = 10L;
+	private static final Long OTHER_CLIENT_ID = 20L;
+	private static final ZonedDateTime JANUARY = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	@Mock
+	private ContractorRateRepository contractorRateRepository;
+
+	private SimpleMeterRegistry meterRegistry;
+	private ContractorRateCache cache;
+
+	private ContractorRate january;
+	private ContractorRate march;
+	private ContractorRate otherClientFromFebruary;
+
+	@BeforeEach
+	public void setup()
+	{
+		meterRegistry = new SimpleMeterRegistry();
+		cache = new ContractorRateCache(contractorRateRepository, meterRegistry, 1, Duration.ofMinutes(10));
+
+		final Contractor contractor = mock(Contractor.class);
+		final Client client = client(CLIENT_ID);
+		january = rate(contractor, client, JANUARY, JANUARY.plusMonths(1).minusSeconds(1));
+		march = rate(contractor, client, JANUARY.plusMonths(2), JANUARY.plusMonths(3).minusSeconds(1));
+		otherClientFromFebruary = rate(contractor, client(OTHER_CLIENT_ID), JANUARY.plusMonths(1), JANUARY.plusYears(1));
+		lenient().when(contractorRateRepository.findRatesForContractors(List.of(CONTRACTOR_ID))).thenReturn(List.of(march, otherClientFromFebruary, january));
+	}
+
+	@Test
+	@DisplayName("Should answer lookups for every client of a contractor from a single query")
+	public void shouldAnswerLookupsForEveryClientOfAContractorFromASingleQuery()
+	{
+		assertEquals(Optional.of(january), cache.findActiveAt(CONTRACTOR_ID, CLIENT_ID, JANUARY.plusDays(10)));
+		assertEquals(Optional.of(march), cache.findActiveAt(CONTRACTOR_ID, CLIENT_ID, JANUARY.plusMonths(3).minusSeconds(1)));
+		assertEquals(Optional.of(otherClientFromFebruary), cache.findActiveAt(CONTRACTOR_ID, OTHER_CLIENT_ID, JANUARY.plusMonths(6)));
+
+		verify(contractorRateRepository, times(1)).findRatesForContractors(List.of(CONTRACTOR_ID));
+		assertEquals(1, meterRegistry.get(ContractorRateCache.LOOKUPS_METRIC_NAME).tag("result", "miss").counter().count());
+		assertEquals(2, meterRegistry.get(ContractorRateCache.LOOKUPS_METRIC_NAME).tag("result", "hit").counter().count());
+	}
+
+	@Test
+	@DisplayName("Should find nothing between rates, nor for clients the contractor has no rate for")
+	public void shouldFindNothingBetweenRatesNorForClientsTheContractorHasNoRateFor()
+	{
+		assertTrue(cache.findActiveAt(CONTRACTOR_ID, CLIENT_ID, JANUARY.plusMonths(1)).isEmpty());
+		assertTrue(cache.findActiveAt(CONTRACTOR_ID, CLIENT_ID, JANUARY.minusSeconds(1)).isEmpty());
+		assertTrue(cache.findActiveAt(CONTRACTOR_ID, 30L, JANUARY.plusDays(10)).isEmpty());
+		assertTrue(cache.findOverlapping(CONTRACTOR_ID, CLIENT_ID, JANUARY.plusMonths(1), JANUARY.plusMonths(2).minusSeconds(1)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Should find the most recently started rate, across clients or over a period")
+	public void shouldFindTheMostRecentlyStartedRateAcrossClientsOrOverAPeriod()
+	{
+		assertEquals(Optional.of(january), cache.findActiveAt(CONTRACTOR_ID, JANUARY.plusDays(10)));
+		assertEquals(Optional.of(march), cache.findActiveAt(CONTRACTOR_ID, JANUARY.plusMonths(2)));
+		assertEquals(Optional.of(otherClientFromFebruary), cache.findActiveAt(CONTRACTOR_ID, JANUARY.plusMonths(1)));
+		assertEquals(Optional.of(march), cache.findOverlapping(CONTRACTOR_ID, CLIENT_ID, JANUARY.plusDays(10), JANUARY.plusMonths(2).plusDays(10)));
+	}
+
+	@Test
+	@DisplayName("Should load the rates of a contractor again once they were invalidated")
+	public void shouldLoadTheRatesOfAContractorAgainOnceTheyWereInvalidated()
+	{
+		cache.findActiveAt(CONTRACTOR_ID, JANUARY);
+		cache.invalidate(CONTRACTOR_ID);
+		cache.findActiveAt(CONTRACTOR_ID, JANUARY);
+
+		verify(contractorRateRepository, times(2)).findRatesForContractors(List.of(CONTRACTOR_ID));
+	}
+
+	@Test
+	@DisplayName("Should not keep rates loaded while a contractor was invalidated")
+	public void shouldNotKeepRatesLoadedWhileAContractorWasInvalidated()
+	{
+		when(contractorRateRepository.findRatesForContractors(List.of(CONTRACTOR_ID))).thenAnswer(invocation -> {
+			cache.invalidate(OTHER_CONTRACTOR_ID);
+			return List.of(january);
+		});
+
+		assertEquals(Optional.of(january), cache.findActiveAt(CONTRACTOR_ID, JANUARY));
+		cache.findActiveAt(CONTRACTOR_ID, JANUARY);
+
+		verify(contractorRateRepository, times(2)).findRatesForContractors(List.of(CONTRACTOR_ID));
+	}
+
+	@Test
+	@DisplayName("Should drop the least recently used contractor beyond the maximum size")
+	public void shouldDropTheLeastRecentlyUsedContractorBeyondTheMaximumSize()
+	{
+		when(contractorRateRepository.findRatesForContractors(List.of(OTHER_CONTRACTOR_ID))).thenReturn(List.of());
+
+		cache.findActiveAt(CONTRACTOR_ID, JANUARY);
+		cache.findActiveAt(OTHER_CONTRACTOR_ID, JANUARY);
+		cache.findActiveAt(CONTRACTOR_ID, JANUARY);
+
+		verify(contractorRateRepository, times(2)).findRatesForContractors(List.of(CONTRACTOR_ID));
+		assertEquals(2, meterRegistry.get(ContractorRateCache.EVICTIONS_METRIC_NAME).counter().count());
+		assertEquals(1, meterRegistry.get(ContractorRateCache.SIZE_METRIC_NAME).gauge().value());
+	}
+
+	@Test
+	@DisplayName("Should load the rates of a contractor again once they expired")
+	public void shouldLoadTheRatesOfAContractorAgainOnceTheyExpired()
+	{
+		final ContractorRateCache expiring = new ContractorRateCache(contractorRateRepository, new SimpleMeterRegistry(), 1, Duration.ZERO);
+
+		expiring.findActiveAt(CONTRACTOR_ID, JANUARY);
+		expiring.findActiveAt(CONTRACTOR_ID, JANUARY);
+
+		verify(contractorRateRepository, times(2)).findRatesForContractors(List.of(CONTRACTOR_ID));
+	}
+
+	private static Client client(final Long id)
+	{
+		final Client client = mock(Client.class);
+		lenient().when(client.getId()).thenReturn(id);
+		return client;
+	}
+
+	private static ContractorRate rate(final Contractor contractor, final Client client, final ZonedDateTime start, final ZonedDateTime end)
+	{
+		return ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN, Currency.getInstance("USD"), start, end);
+	}
+}
@@ -11,10 +11,13 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Currency;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.DisplayName;
@@ -24,6 +27,7 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import com.greenfieldcommerce.greenerp.clients.entities.Client;
 import com.greenfieldcommerce.greenerp.clients.services.ClientService;
@@ -34,8 +38,12 @@ import com.greenfieldcommerce.greenerp.exceptions.EntityNotFoundException;
 import com.greenfieldcommerce.greenerp.exceptions.NoActiveContractorRateException;
 import com.greenfieldcommerce.greenerp.exceptions.OverlappingContractorRateException;
 import com.greenfieldcommerce.greenerp.mappers.Mapper;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.BatchContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateImportResultRecord;
 import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.RejectedContractorRateRecord;
 import com.greenfieldcommerce.greenerp.contractors.rates.records.CreateContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateOverlapConstraint;
 import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
 import com.greenfieldcommerce.greenerp.contractors.services.ContractorService;
 
@@ -53,7 +61,11 @@ public class ContractorRateServiceImplTest
 	@Mock
 	private ContractorRateRepository contractorRateRepository;
 	@Mock
+	private ContractorRateOverlapConstraint overlapConstraint;
+	@Mock
 	private Mapper<ContractorRate, ContractorRateRecord> contractorRateToRecordMapper;
+	@Mock
+	private ContractorRateCache contractorRateCache;
 
 	@InjectMocks
 	private ContractorRateServiceImpl service;
@@ -174,6 +186,60 @@ public class ContractorRateServiceImplTest
 			eq(null));
 
 		assertEquals(savedRecord, result);
+		verify(contractorRateCache).invalidate(VALID_RESOURCE_ID);
+	}
+
+	@Test
+	@DisplayName("Should create contractor rate without looking up overlapping rates when the database enforces it")
+	public void shouldCreateContractorRateWithoutLookingUpOverlappingRatesWhenTheDatabaseEnforcesIt()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final Client client = mock(Client.class);
+		final CreateContractorRateRecord createRateData = validCreateRateRecord();
+		final ContractorRate saved = mock(ContractorRate.class);
+		final ContractorRateRecord savedRecord = mock(ContractorRateRecord.class);
+
+		when(overlapConstraint.isEnforcedByDatabase()).thenReturn(true);
+		when(contractorService.findEntityById(eq(VALID_RESOURCE_ID))).thenReturn(contractor);
+		when(clientService.findEntityById(eq(VALID_RESOURCE_ID))).thenReturn(client);
+		when(contractorRateRepository.save(argThat(matchesContractor(contractor, createRateData)))).thenReturn(saved);
+		when(contractorRateToRecordMapper.map(eq(saved))).thenReturn(savedRecord);
+
+		assertEquals(savedRecord, service.create(VALID_RESOURCE_ID, createRateData));
+		verify(contractorRateRepository, never()).findRatesForContractorIdOverlappingWithPeriod(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should throw OverlappingContractorRateException when the database rejects an overlapping rate")
+	public void shouldThrowOverlappingContractorRateExceptionWhenTheDatabaseRejectsAnOverlappingRate()
+	{
+		final DataIntegrityViolationException violation = new DataIntegrityViolationException("overlap",
+			new SQLException("conflicting key value violates exclusion constraint \"exclcontractorratenooverlap\"", "23P01"));
+
+		when(overlapConstraint.isEnforcedByDatabase()).thenReturn(true);
+		when(overlapConstraint.isViolatedBy(violation)).thenReturn(true);
+		when(contractorService.findEntityById(eq(VALID_RESOURCE_ID))).thenReturn(mock(Contractor.class));
+		when(clientService.findEntityById(eq(VALID_RESOURCE_ID))).thenReturn(mock(Client.class));
+		when(contractorRateRepository.save(any(ContractorRate.class))).thenThrow(violation);
+
+		assertThrows(OverlappingContractorRateException.class, () -> service.create(VALID_RESOURCE_ID, validCreateRateRecord()));
+	}
+
+	@Test
+	@DisplayName("Should not mistake other integrity violations for overlapping rates")
+	public void shouldNotMistakeOtherIntegrityViolationsForOverlappingRates()
+	{
+		final ZonedDateTime now = ZonedDateTime.now();
+		final ContractorRate existing = mock(ContractorRate.class);
+		final DataIntegrityViolationException violation = new DataIntegrityViolationException("not null");
+
+		when(overlapConstraint.isEnforcedByDatabase()).thenReturn(true);
+		when(overlapConstraint.isViolatedBy(violation)).thenReturn(false);
+		when(contractorRateRepository.findByIdAndContractorId(eq(VALID_RESOURCE_ID), eq(VALID_RESOURCE_ID))).thenReturn(Optional.of(existing));
+		when(contractorRateRepository.save(existing)).thenThrow(violation);
+
+		assertThrows(DataIntegrityViolationException.class, () -> service.changeEndDateTime(VALID_RESOURCE_ID, VALID_RESOURCE_ID, now));
+		verify(contractorRateRepository, never()).findRatesForContractorIdOverlappingWithPeriod(any(), any(), any(), any(), any());
 	}
 
 	@Test
@@ -205,6 +271,7 @@ public class ContractorRateServiceImplTest
 
 		assertThrows(OverlappingContractorRateException.class, () -> service.changeEndDateTime(VALID_RESOURCE_ID, VALID_RESOURCE_ID, now));
 		verify(contractorRateRepository, never()).save(any(ContractorRate.class));
+		verify(contractorRateCache, never()).invalidate(any());
 	}
 
 	@Test
@@ -232,6 +299,7 @@ public class ContractorRateServiceImplTest
 
 		assertEquals(savedRecord, contractorRateRecord);
 		verify(existing).setEndDateTime(argThat(d -> d.toInstant().equals(now.toInstant())));
+		verify(contractorRateCache).invalidate(VALID_RESOURCE_ID);
 	}
 
 	@Test
@@ -239,7 +307,8 @@ public class ContractorRateServiceImplTest
 	public void shouldThrowNoActiveContractorRateExceptionWhenThereIsNoActiveRateForContractor()
 	{
 		final Contractor contractor = mock(Contractor.class);
-		when(contractor.getCurrentRate()).thenReturn(Optional.empty());
+		when(contractor.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(contractorRateCache.findActiveAt(eq(VALID_RESOURCE_ID), any(ZonedDateTime.class))).thenReturn(Optional.empty());
 
 		assertThrows(NoActiveContractorRateException.class, () -> service.findCurrentRateForContractor(contractor));
 	}
@@ -250,10 +319,59 @@ public class ContractorRateServiceImplTest
 	{
 		final Contractor contractor = mock(Contractor.class);
 		final ContractorRate rate = mock(ContractorRate.class);
-		when(contractor.getCurrentRate()).thenReturn(Optional.of(rate));
+		final ZonedDateTime now = ZonedDateTime.now();
+		when(contractor.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(contractorRateCache.findActiveAt(eq(VALID_RESOURCE_ID), argThat((ZonedDateTime d) -> !d.isBefore(now)))).thenReturn(Optional.of(rate));
 
 		final ContractorRate result = service.findCurrentRateForContractor(contractor);
 		assertEquals(rate, result);
+		verify(contractor, never()).getCurrentRate();
+	}
+
+	@Test
+	@DisplayName("Should find the rate of a contractor for a client active at a given instant")
+	public void shouldFindRateForContractorAndClientActiveAtAGivenInstant()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final Client client = mock(Client.class);
+		final ContractorRate rate = mock(ContractorRate.class);
+		final ZonedDateTime instant = ZonedDateTime.now().minusYears(2);
+		when(contractor.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(client.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(contractorRateCache.findActiveAt(eq(VALID_RESOURCE_ID), eq(VALID_RESOURCE_ID), eq(instant))).thenReturn(Optional.of(rate));
+
+		assertEquals(rate, service.findRateForContractorActiveAt(contractor, client, instant));
+	}
+
+	@Test
+	@DisplayName("Should throw NoActiveContractorRateException when there is no rate for a contractor and client active at a given instant")
+	public void shouldThrowNoActiveContractorRateExceptionWhenThereIsNoRateForContractorAndClientActiveAtAGivenInstant()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final Client client = mock(Client.class);
+		final ZonedDateTime instant = ZonedDateTime.now().minusYears(2);
+		when(contractor.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(client.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(contractorRateCache.findActiveAt(eq(VALID_RESOURCE_ID), eq(VALID_RESOURCE_ID), eq(instant))).thenReturn(Optional.empty());
+
+		assertThrows(NoActiveContractorRateException.class, () -> service.findRateForContractorActiveAt(contractor, client, instant));
+	}
+
+	@Test
+	@DisplayName("Should find the rate of a contractor for a client overlapping with a period")
+	public void shouldFindRateForContractorAndClientOverlappingWithAPeriod()
+	{
+		final Contractor contractor = mock(Contractor.class);
+		final Client client = mock(Client.class);
+		final ContractorRate rate = mock(ContractorRate.class);
+		final ZonedDateTime start = ZonedDateTime.now().minusMonths(1);
+		final ZonedDateTime end = ZonedDateTime.now();
+		when(contractor.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(client.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(contractorRateCache.findOverlapping(eq(VALID_RESOURCE_ID), eq(VALID_RESOURCE_ID), eq(start), eq(end))).thenReturn(Optional.of(rate));
+
+		assertEquals(rate, service.findRateForContractorActiveOnAPeriod(contractor, client, start, end));
+		verify(contractorRateRepository, never()).findRatesForContractorIdOverlappingWithPeriod(any(), any(), any(), any(), any());
 	}
 
 	@Test
@@ -262,6 +380,92 @@ public class ContractorRateServiceImplTest
 	{
 		service.delete(VALID_RESOURCE_ID, VALID_RESOURCE_ID);
 		verify(contractorRateRepository).deleteByContractorIdAndId(eq(VALID_RESOURCE_ID), eq(VALID_RESOURCE_ID));
+		verify(contractorRateCache).invalidate(VALID_RESOURCE_ID);
+	}
+
+	@Test
+	@DisplayName("Should import valid rates with a single insert batch and report every rejected row")
+	public void shouldImportValidRatesAndReportRejectedRows()
+	{
+		final ZonedDateTime january = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+		final Contractor contractor = mock(Contractor.class);
+		final Client client = mock(Client.class);
+		final ContractorRate existing = mock(ContractorRate.class);
+		when(contractor.getId()).thenReturn(VALID_RESOURCE_ID);
+		when(client.getId()).thenReturn(10L);
+		when(existing.getContractor()).thenReturn(contractor);
+		when(existing.getClient()).thenReturn(client);
+		when(existing.getStartDateTime()).thenReturn(january);
+		when(existing.getEndDateTime()).thenReturn(january.plusMonths(1).minusSeconds(1));
+
+		final List<BatchContractorRateRecord> records = List.of(
+			importRow(VALID_RESOURCE_ID, 10L, january.plusMonths(1), january.plusMonths(2).minusSeconds(1)),
+			importRow(VALID_RESOURCE_ID, 10L, january.plusDays(15), january.plusMonths(1).plusDays(15)),
+			importRow(VALID_RESOURCE_ID, 10L, january.plusMonths(1).plusDays(10), january.plusMonths(1).plusDays(20)),
+			importRow(99L, 10L, january.plusMonths(1), january.plusMonths(2)),
+			importRow(VALID_RESOURCE_ID, 99L, january.plusMonths(1), january.plusMonths(2)),
+			importRow(VALID_RESOURCE_ID, 10L, january.plusMonths(4), january.plusMonths(3)),
+			importRow(VALID_RESOURCE_ID, 10L, january.plusMonths(2), january.plusMonths(3).minusSeconds(1)));
+
+		when(contractorService.findEntitiesByIds(any())).thenReturn(List.of(contractor));
+		when(clientService.findEntitiesByIds(any())).thenReturn(List.of(client));
+		when(contractorRateRepository.findRatesForContractorsAndClientsOverlappingWithPeriod(any(), any(), any(), any())).thenReturn(List.of(existing));
+		when(contractorRateRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(contractorRateToRecordMapper.map(any(ContractorRate.class))).thenReturn(mock(ContractorRateRecord.class));
+
+		final ContractorRateImportResultRecord result = service.importRates(records);
+
+		assertEquals(2, result.created().size());
+		assertEquals(List.of(1, 2, 3, 4, 5), result.rejected().stream().map(RejectedContractorRateRecord::index).toList());
+		assertEquals(List.of("OVERLAPPING_RATE", "OVERLAPPING_RATE", "CONTRACTOR_NOT_FOUND", "CLIENT_NOT_FOUND", "INVALID_RATE_PERIOD"),
+			result.rejected().stream().map(RejectedContractorRateRecord::code).toList());
+		verify(contractorRateRepository).saveAll(argThat(rates -> rates instanceof List<?> list && list.size() == 2));
+		verify(contractorRateRepository, never()).findRatesForContractorIdOverlappingWithPeriod(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should not look up existing rates when no imported row references a known contractor and client")
+	public void shouldNotLookUpExistingRatesWhenNoImportedRowReferencesAKnownContractorAndClient()
+	{
+		final ZonedDateTime start = ZonedDateTime.now();
+		when(contractorService.findEntitiesByIds(any())).thenReturn(List.of());
+		when(clientService.findEntitiesByIds(any())).thenReturn(List.of());
+		when(contractorRateRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		final ContractorRateImportResultRecord result = service.importRates(List.of(importRow(INVALID_RESOURCE_ID, INVALID_RESOURCE_ID, start, start.plusMonths(1))));
+
+		assertEquals(0, result.created().size());
+		assertEquals("CONTRACTOR_NOT_FOUND", result.rejected().getFirst().code());
+		verify(contractorRateRepository, never()).findRatesForContractorsAndClientsOverlappingWithPeriod(any(), any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should find the most recently started active rate of many contractors with a single lookup")
+	public void shouldFindTheMostRecentlyStartedActiveRateOfManyContractorsWithASingleLookup()
+	{
+		final ContractorRate mostRecentlyStarted = mock(ContractorRate.class);
+		final ContractorRate other = mock(ContractorRate.class);
+		final ContractorRate anotherContractorRate = mock(ContractorRate.class);
+		final ContractorRateRecord mostRecentlyStartedRecord = new ContractorRateRecord(1L, VALID_RESOURCE_ID, null, BigDecimal.TEN, Currency.getInstance("USD"), null, null);
+		final ContractorRateRecord otherRecord = new ContractorRateRecord(2L, VALID_RESOURCE_ID, null, BigDecimal.ONE, Currency.getInstance("USD"), null, null);
+		final ContractorRateRecord anotherContractorRecord = new ContractorRateRecord(3L, 2L, null, BigDecimal.ONE, Currency.getInstance("USD"), null, null);
+
+		when(contractorRateRepository.findRatesForContractorsActiveAt(eq(List.of(VALID_RESOURCE_ID, 2L)), any())).thenReturn(List.of(mostRecentlyStarted, other, anotherContractorRate));
+		when(contractorRateToRecordMapper.map(mostRecentlyStarted)).thenReturn(mostRecentlyStartedRecord);
+		when(contractorRateToRecordMapper.map(other)).thenReturn(otherRecord);
+		when(contractorRateToRecordMapper.map(anotherContractorRate)).thenReturn(anotherContractorRecord);
+
+		final Map<Long, ContractorRateRecord> result = service.findCurrentRatesForContractors(List.of(VALID_RESOURCE_ID, 2L));
+
+		assertEquals(2, result.size());
+		assertEquals(mostRecentlyStartedRecord, result.get(VALID_RESOURCE_ID));
+		assertEquals(anotherContractorRecord, result.get(2L));
+	}
+
+	private static BatchContractorRateRecord importRow(final Long contractorId, final Long clientId, final ZonedDateTime start, final ZonedDateTime end)
+	{
+		return new BatchContractorRateRecord(contractorId,
+			new CreateContractorRateRecord(clientId, BigDecimal.valueOf(100.0), BigDecimal.valueOf(200.0), BigDecimal.valueOf(10.0), Currency.getInstance("USD"), start, end));
 	}
 
 	private static ArgumentMatcher<ContractorRate> matchesContractor(final Contractor contractor, final CreateContractorRateRecord record)
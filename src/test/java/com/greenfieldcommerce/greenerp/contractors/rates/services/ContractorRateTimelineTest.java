@@ -0,0 +1,79 @@
+package com.greenfieldcommerce.greenerp.contractors.rates.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+
+public class ContractorRateTimelineTest
+{
+	private static final ZonedDateTime JANUARY = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	private ContractorRateTimeline timeline;
+
+	@BeforeEach
+	public void setup()
+	{
+		timeline = new ContractorRateTimeline();
+		timeline.add(JANUARY, JANUARY.plusMonths(1).minusSeconds(1));
+		timeline.add(JANUARY.plusMonths(3), JANUARY.plusMonths(4).minusSeconds(1));
+	}
+
+	@Test
+	@DisplayName("Should detect periods overlapping with any stored period")
+	public void shouldDetectPeriodsOverlappingWithAnyStoredPeriod()
+	{
+		assertTrue(timeline.overlaps(JANUARY.minusMonths(1), JANUARY));
+		assertTrue(timeline.overlaps(JANUARY.plusDays(10), JANUARY.plusDays(20)));
+		assertTrue(timeline.overlaps(JANUARY.plusMonths(2), JANUARY.plusMonths(5)));
+		assertTrue(timeline.overlaps(JANUARY.minusYears(1), JANUARY.plusYears(1)));
+	}
+
+	@Test
+	@DisplayName("Should accept periods falling in the gaps between stored periods")
+	public void shouldAcceptPeriodsFallingInTheGapsBetweenStoredPeriods()
+	{
+		assertFalse(timeline.overlaps(JANUARY.minusMonths(1), JANUARY.minusSeconds(1)));
+		assertFalse(timeline.overlaps(JANUARY.plusMonths(1), JANUARY.plusMonths(3).minusSeconds(1)));
+		assertFalse(timeline.overlaps(JANUARY.plusMonths(4), JANUARY.plusYears(1)));
+	}
+
+	@Test
+	@DisplayName("Should compare periods by instant, regardless of their time zone")
+	public void shouldComparePeriodsByInstantRegardlessOfTimeZone()
+	{
+		final ZoneId saoPaulo = ZoneId.of("America/Sao_Paulo");
+		assertTrue(timeline.overlaps(JANUARY.minusHours(2).withZoneSameInstant(saoPaulo), JANUARY.withZoneSameInstant(saoPaulo)));
+		assertFalse(timeline.overlaps(JANUARY.minusHours(2).withZoneSameInstant(saoPaulo), JANUARY.minusSeconds(1).withZoneSameInstant(saoPaulo)));
+	}
+
+	@Test
+	@DisplayName("Should find the rate active at an instant, start and end included")
+	public void shouldFindTheRateActiveAtAnInstant()
+	{
+		final ContractorRate june = ContractorRate.create(mock(Contractor.class), mock(Client.class), BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN, Currency.getInstance("USD"),
+			JANUARY.plusMonths(5), JANUARY.plusMonths(6).minusSeconds(1));
+		timeline.add(june);
+
+		assertEquals(Optional.of(june), timeline.findActiveAt(JANUARY.plusMonths(5).toInstant()));
+		assertEquals(Optional.of(june), timeline.findActiveAt(JANUARY.plusMonths(6).minusSeconds(1).toInstant()));
+		assertEquals(Optional.of(june), timeline.findOverlapping(JANUARY.plusMonths(4).toInstant(), JANUARY.plusYears(1).toInstant()));
+		assertTrue(timeline.findActiveAt(JANUARY.plusMonths(6).toInstant()).isEmpty());
+		assertTrue(timeline.findActiveAt(JANUARY.plusDays(10).toInstant()).isEmpty());
+	}
+}
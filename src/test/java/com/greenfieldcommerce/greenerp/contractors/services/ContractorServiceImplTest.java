@@ -3,8 +3,11 @@ package com.greenfieldcommerce.greenerp.contractors.services;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,6 +16,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
 import com.greenfieldcommerce.greenerp.exceptions.DuplicateContractorException;
@@ -22,6 +31,8 @@ import com.greenfieldcommerce.greenerp.contractors.records.ContractorRecord;
 import com.greenfieldcommerce.greenerp.contractors.records.CreateContractorRecord;
 import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
 
+import jakarta.persistence.EntityManager;
+
 @ExtendWith(MockitoExtension.class)
 public class ContractorServiceImplTest
 {
@@ -35,38 +46,87 @@ public class ContractorServiceImplTest
 	private Mapper<CreateContractorRecord, Contractor> createContractorMapper;
 	@Mock
 	private Mapper<Contractor, ContractorRecord> contractorToRecordMapper;
+	@Mock
+	private EntityManager entityManager;
 
 	private ContractorServiceImpl service;
 
 	@BeforeEach
 	public void setup()
 	{
-		service = new ContractorServiceImpl(contractorRepository, createContractorMapper, contractorToRecordMapper);
+		service = new ContractorServiceImpl(contractorRepository, createContractorMapper, contractorToRecordMapper, entityManager, new ObjectMapper());
 	}
 
 	@Test
-	@DisplayName("Should find all contractors")
-	void shouldFindAllContractors()
+	@DisplayName("Should find a page of every contractor when no search is given")
+	void shouldFindAPageOfEveryContractorWhenNoSearchIsGiven()
 	{
+		final Pageable pageable = PageRequest.of(0, 2);
 		Contractor contractorA = Contractor.create(EMAIL, NAME);
 		Contractor contractorB = Contractor.create(EMAIL, NAME);
-		Contractor contractorC = Contractor.create(EMAIL, NAME);
 
 		ContractorRecord contractorRecordA = new ContractorRecord(1L, EMAIL, NAME, null);
 		ContractorRecord contractorRecordB = new ContractorRecord(2L, EMAIL, NAME, null);
-		ContractorRecord contractorRecordC = new ContractorRecord(3L, EMAIL, NAME, null);
-
-		when(contractorRepository.findAll()).thenReturn(List.of(contractorA, contractorB, contractorC));
 
+		when(contractorRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(contractorA, contractorB), pageable, 3));
 		when(contractorToRecordMapper.map(contractorA)).thenReturn(contractorRecordA);
 		when(contractorToRecordMapper.map(contractorB)).thenReturn(contractorRecordB);
-		when(contractorToRecordMapper.map(contractorC)).thenReturn(contractorRecordC);
 
-		final List<ContractorRecord> result = service.findAll();
+		final Page<ContractorRecord> result = service.search(" ", pageable);
+
+		assertEquals(List.of(contractorRecordA, contractorRecordB), result.getContent());
+		assertEquals(3, result.getTotalElements());
+		verify(contractorRepository, never()).findByNameStartingWithIgnoreCaseOrEmailStartingWithIgnoreCase(any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should search contractors by the trimmed prefix of their name or email")
+	void shouldSearchContractorsByTheTrimmedPrefixOfTheirNameOrEmail()
+	{
+		final Pageable pageable = PageRequest.of(0, 20);
+		final Contractor contractor = Contractor.create(EMAIL, NAME);
+		final ContractorRecord record = new ContractorRecord(1L, EMAIL, NAME, null);
+
+		when(contractorRepository.findByNameStartingWithIgnoreCaseOrEmailStartingWithIgnoreCase("na", "na", pageable)).thenReturn(new PageImpl<>(List.of(contractor), pageable, 1));
+		when(contractorToRecordMapper.map(contractor)).thenReturn(record);
+
+		assertEquals(List.of(record), service.search(" na ", pageable).getContent());
+		verify(contractorRepository, never()).findAll(pageable);
+	}
+
+	@Test
+	@DisplayName("Should export every contractor as newline-delimited JSON, detaching each one once read")
+	void shouldExportEveryContractorAsNewlineDelimitedJson() throws Exception
+	{
+		final Contractor contractorA = Contractor.create("a@greenfieldcommerce.com", "A");
+		contractorA.setId(1L);
+		final Contractor contractorB = Contractor.create("b@greenfieldcommerce.com", "B");
+		contractorB.setId(2L);
+		when(contractorRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(contractorA, contractorB));
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		service.exportAll(output);
+
+		final String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertEquals(new ContractorRecord(1L, "a@greenfieldcommerce.com", "A", null), new ObjectMapper().readValue(lines[0], ContractorRecord.class));
+		assertEquals(new ContractorRecord(2L, "b@greenfieldcommerce.com", "B", null), new ObjectMapper().readValue(lines[1], ContractorRecord.class));
+		verify(entityManager).detach(contractorA);
+		verify(entityManager).detach(contractorB);
+		verifyNoInteractions(contractorToRecordMapper);
+	}
+
+	@Test
+	@DisplayName("Should find a page of contractors without resolving their current rates")
+	void shouldFindAPageOfContractorsWithoutResolvingTheirCurrentRates()
+	{
+		final Pageable pageable = PageRequest.of(0, 20);
+		final Contractor contractor = Contractor.create(EMAIL, NAME);
+		contractor.setId(1L);
+		when(contractorRepository.findAllBy(pageable)).thenReturn(List.of(contractor));
 
-		assertEquals(3, result.size());
-		assertEquals(contractorRecordA, result.getFirst());
-		assertEquals(contractorRecordC, result.getLast());
+		assertEquals(List.of(new ContractorRecord(1L, EMAIL, NAME, null)), service.findSummaries(pageable));
+		verifyNoInteractions(contractorToRecordMapper);
 	}
 
 	@Test
@@ -110,7 +110,7 @@ public abstract class BaseRestControllerTest
 	 * @param request the request builder for the endpoint to test with invalid resource
 	 * @throws Exception if the request execution fails
 	 */
-	@ParameterizedTest
+	@ParameterizedTest(allowZeroInvocations = true)
 	@MethodSource("invalidResourceRequests")
 	void shouldReturnNotFoundWhenRequestingWithInvalidResource(final RequestBuilder request) throws Exception
 	{
@@ -254,6 +254,13 @@ public abstract class BaseRestControllerTest
 		};
 	}
 
+	public static FieldDescriptor[] cursorPageFields(final String contentDescription) {
+		return new FieldDescriptor[] {
+			subsectionWithPath("content").description(contentDescription),
+			fieldWithPath("nextCursor").description("Opaque token to send as the `cursor` parameter to read the next slice, `null` on the last slice").optional()
+		};
+	}
+
 	/**
 	 * Creates a generic EntityNotFoundException for testing error handling.
 	 *
@@ -0,0 +1,72 @@
+package com.greenfieldcommerce.greenerp.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.greenfieldcommerce.greenerp.helpers.JwtRequestPostProcessors;
+import com.greenfieldcommerce.greenerp.helpers.StatementBudget;
+import com.greenfieldcommerce.greenerp.helpers.StatementCounter;
+
+import config.GreenERPTestConfiguration;
+import config.StatementCountingConfiguration;
+
+/**
+ * Abstract base class for tests declaring how many SQL statements each REST endpoint may execute per request.
+ * <p>
+ * Unlike {@link BaseRestControllerTest}, requests go through the real services and repositories, against the test
+ * database, so that an N+1 creeping into a mapper or a lazy association fails the build. The outbox relay is kept
+ * from polling, so that only the statements of the request are counted.
+ */
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@SpringBootTest(properties = "greenerp.outbox.relay.interval=PT1H")
+@Import({ GreenERPTestConfiguration.class, StatementCountingConfiguration.class })
+public abstract class BaseStatementBudgetTest
+{
+	@Autowired
+	protected MockMvc mvc;
+
+	@Autowired
+	protected JwtRequestPostProcessors jwtRequestPostProcessors;
+
+	@Autowired
+	private StatementCounter statementCounter;
+
+	/**
+	 * Performs a request, including the async dispatch of a streamed response, and fails if it executed more
+	 * statements than its budget allows.
+	 *
+	 * @param budget the most statements of each kind the request may execute
+	 * @param request the request to perform
+	 * @return the result of the request, for further expectations
+	 */
+	protected ResultActions performWithinBudget(final StatementBudget budget, final RequestBuilder request) throws Exception
+	{
+		final ResultActions result;
+		final StatementCounter.ExecutedStatements executed;
+		statementCounter.start();
+		try
+		{
+			final ResultActions performed = mvc.perform(request);
+			final MvcResult mvcResult = performed.andReturn();
+			result = mvcResult.getRequest().isAsyncStarted() ? mvc.perform(asyncDispatch(mvcResult)) : performed;
+		} finally
+		{
+			executed = statementCounter.stop();
+		}
+
+		final MockHttpServletRequest performedRequest = result.andReturn().getRequest();
+		budget.verify(performedRequest.getMethod() + " " + performedRequest.getRequestURI(), executed);
+		return result;
+	}
+}
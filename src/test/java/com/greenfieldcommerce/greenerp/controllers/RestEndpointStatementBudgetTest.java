@@ -0,0 +1,462 @@
+package com.greenfieldcommerce.greenerp.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenfieldcommerce.greenerp.analytics.repositories.MonthlyMarginSummaryRepository;
+import com.greenfieldcommerce.greenerp.analytics.services.MarginAnalyticsService;
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.invoices.entities.ClientInvoice;
+import com.greenfieldcommerce.greenerp.clients.invoices.records.CreateClientInvoiceRecord;
+import com.greenfieldcommerce.greenerp.clients.invoices.repository.ClientInvoiceRepository;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.ContractorInvoice;
+import com.greenfieldcommerce.greenerp.contractors.invoices.entities.InvoiceExtraAmountLine;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.CreateContractorInvoiceRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.records.CreateInvoiceExtraAmountLineRecord;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.InvoiceExtraAmountLineRepository;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.BatchContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.ContractorRateImportRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.records.CreateContractorRateRecord;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+import com.greenfieldcommerce.greenerp.contractors.records.CreateContractorRecord;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+import com.greenfieldcommerce.greenerp.exchangerates.records.CreateExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.repositories.ExchangeRateRepository;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateService;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateTable;
+import com.greenfieldcommerce.greenerp.helpers.StatementBudget;
+import com.greenfieldcommerce.greenerp.idempotency.IdempotencyKeyFilter;
+import com.greenfieldcommerce.greenerp.messaging.repositories.OutboxMessageRepository;
+import com.greenfieldcommerce.greenerp.records.ZonedDateTimeRecord;
+import com.greenfieldcommerce.greenerp.services.TimeService;
+
+/**
+ * Declares the statement budget of every REST endpoint. Each contractor has several months of invoices, each with
+ * several extra lines, so that loading any association once per row would go over budget.
+ */
+public class RestEndpointStatementBudgetTest extends BaseStatementBudgetTest
+{
+	private static final int CONTRACTORS = 3;
+	private static final int MONTHS = 6;
+	private static final int EXTRA_LINES_PER_INVOICE = 3;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private ClientRepository clientRepository;
+	@Autowired
+	private ContractorRepository contractorRepository;
+	@Autowired
+	private ContractorRateRepository contractorRateRepository;
+	@Autowired
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+	@Autowired
+	private InvoiceExtraAmountLineRepository invoiceExtraAmountLineRepository;
+	@Autowired
+	private ClientInvoiceRepository clientInvoiceRepository;
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	@Autowired
+	private ExchangeRateService exchangeRateService;
+	@Autowired
+	private ExchangeRateRepository exchangeRateRepository;
+	@Autowired
+	private MarginAnalyticsService marginAnalyticsService;
+	@Autowired
+	private MonthlyMarginSummaryRepository monthlyMarginSummaryRepository;
+
+	private ZonedDateTime currentMonth;
+	private Client client;
+	private Client otherClient;
+	private Contractor contractor;
+	private ContractorRate rate;
+	private ContractorInvoice invoice;
+	private ClientInvoice clientInvoice;
+
+	@BeforeEach
+	public void setup()
+	{
+		currentMonth = TimeService.now().with(TemporalAdjusters.firstDayOfMonth()).with(LocalTime.MIDNIGHT);
+		client = clientRepository.save(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+		otherClient = clientRepository.save(Client.create("Other client", "other@greenfieldcommerce.com", Currency.getInstance("EUR"), 30));
+
+		final List<ContractorInvoice> invoices = new ArrayList<>();
+		for (int c = 0; c < CONTRACTORS; c++)
+		{
+			final Contractor saved = contractorRepository.save(Contractor.create(String.format("contractor%s@greenfieldcommerce.com", c), "Contractor " + c));
+			final ContractorRate savedRate = contractorRateRepository.save(ContractorRate.create(saved, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+				Currency.getInstance("USD"), currentMonth.minusYears(1), currentMonth.plusYears(1)));
+			for (int m = MONTHS; m > 0; m--)
+				invoices.add(ContractorInvoice.create(savedRate, currentMonth.minusMonths(m), currentMonth.minusMonths(m - 1).minusSeconds(1), BigDecimal.valueOf(20)));
+
+			if (contractor == null)
+			{
+				contractor = saved;
+				rate = savedRate;
+			}
+		}
+
+		final List<InvoiceExtraAmountLine> extraLines = new ArrayList<>();
+		for (final ContractorInvoice saved : contractorInvoiceRepository.saveAll(invoices))
+			for (int l = 0; l < EXTRA_LINES_PER_INVOICE; l++)
+				extraLines.add(InvoiceExtraAmountLine.create(saved, BigDecimal.TEN, "Extra " + l));
+		invoiceExtraAmountLineRepository.saveAll(extraLines);
+
+		invoice = invoices.getFirst();
+		final List<Long> billed = List.of(invoices.get(1).getId(), invoices.get(MONTHS + 1).getId());
+		clientInvoice = clientInvoiceRepository.save(ClientInvoice.create(client, List.of(), ExchangeRateTable.of(List.of())));
+		transactionTemplate.executeWithoutResult(status -> contractorInvoiceRepository.assignClientInvoice(clientInvoice, billed));
+		marginAnalyticsService.rebuild();
+	}
+
+	@AfterEach
+	public void cleanup()
+	{
+		outboxMessageRepository.deleteAll();
+		monthlyMarginSummaryRepository.deleteAll();
+		invoiceExtraAmountLineRepository.deleteAll();
+		contractorInvoiceRepository.deleteAll();
+		clientInvoiceRepository.deleteAll();
+		exchangeRateRepository.deleteAll();
+		contractorRateRepository.deleteAll();
+		contractorRepository.deleteAll();
+		clientRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Should list clients within budget")
+	public void shouldListClientsWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(1), admin(get("/clients")))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should get a client within budget")
+	public void shouldGetAClientWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(1), admin(get("/clients/{clientId}", client.getId())))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should list the open contractor invoices of a client within budget")
+	public void shouldListTheOpenContractorInvoicesOfAClientWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(2), admin(get("/clients/{clientId}/contractor-invoices", client.getId())))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.invoices.length()").value(CONTRACTORS * MONTHS));
+	}
+
+	@Test
+	@DisplayName("Should list the invoices of a client within budget")
+	public void shouldListTheInvoicesOfAClientWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(4), admin(get("/clients/{clientId}/invoices", client.getId())))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should scroll through the invoices of a client within budget")
+	public void shouldScrollThroughTheInvoicesOfAClientWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(4), admin(get("/clients/{clientId}/invoices/scroll", client.getId())))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should get a client invoice within budget")
+	public void shouldGetAClientInvoiceWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(3), admin(get("/clients/{clientId}/invoices/{invoiceId}", client.getId(), clientInvoice.getId())))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should create a client invoice within budget")
+	public void shouldCreateAClientInvoiceWithinBudget() throws Exception
+	{
+		final List<ContractorInvoice> open = contractorInvoiceRepository.findAll().stream()
+			.filter(candidate -> candidate.getStatus() == ContractorInvoice.InvoiceStatus.OPEN).limit(CONTRACTORS * 2).toList();
+		final String ids = String.join(",", open.stream().map(candidate -> candidate.getId().toString()).toList());
+
+		performWithinBudget(StatementBudget.none().selects(5).inserts(2).updates(2),
+			admin(post("/clients/{clientId}/invoices", client.getId())).content(json(new CreateClientInvoiceRecord(ids))))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should create a client invoice converting contractor invoices in another currency within budget")
+	public void shouldCreateAClientInvoiceConvertingContractorInvoicesWithinBudget() throws Exception
+	{
+		final List<ContractorInvoice> inUsd = new ArrayList<>();
+		for (final Contractor billed : contractorRepository.findAll())
+		{
+			final ContractorRate otherClientRate = contractorRateRepository.save(ContractorRate.create(billed, otherClient, BigDecimal.valueOf(100), BigDecimal.valueOf(200),
+				BigDecimal.TEN, Currency.getInstance("USD"), currentMonth.minusYears(1), currentMonth.plusYears(1)));
+			inUsd.add(ContractorInvoice.create(otherClientRate, currentMonth, currentMonth.plusMonths(1).minusSeconds(1), BigDecimal.valueOf(20)));
+		}
+		final String ids = String.join(",", contractorInvoiceRepository.saveAll(inUsd).stream().map(candidate -> candidate.getId().toString()).toList());
+		exchangeRateService.importRates(List.of(new CreateExchangeRateRecord(Currency.getInstance("USD"), Currency.getInstance("EUR"), LocalDate.now().minusYears(1),
+			new BigDecimal("0.92"))));
+
+		performWithinBudget(StatementBudget.none().selects(6).inserts(4).updates(1),
+			admin(post("/clients/{clientId}/invoices", otherClient.getId())).content(json(new CreateClientInvoiceRecord(ids))))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.total").value(5520.0));
+	}
+
+	@Test
+	@DisplayName("Should list contractors within budget")
+	public void shouldListContractorsWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(2), admin(get("/contractors")))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should search contractors within budget")
+	public void shouldSearchContractorsWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(2), admin(get("/contractors").queryParam("search", contractor.getName().substring(0, 3))))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should create a contractor within budget")
+	public void shouldCreateAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().inserts(1),
+			admin(post("/contractors")).content(json(new CreateContractorRecord("new@greenfieldcommerce.com", "New contractor"))))
+			.andExpect(status().isCreated());
+	}
+
+	@Test
+	@DisplayName("Should get a contractor within budget")
+	public void shouldGetAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(2), admin(get("/contractors/{contractorId}", contractor.getId())))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should update a contractor within budget")
+	public void shouldUpdateAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(2).updates(1),
+			admin(patch("/contractors/{contractorId}", contractor.getId())).content(json(new CreateContractorRecord("renamed@greenfieldcommerce.com", "Renamed"))))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should list the invoices of a contractor within budget")
+	public void shouldListTheInvoicesOfAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(4), admin(get("/contractors/{contractorId}/invoices", contractor.getId())))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content.length()").value(MONTHS));
+	}
+
+	@Test
+	@DisplayName("Should scroll through the invoices of a contractor within budget")
+	public void shouldScrollThroughTheInvoicesOfAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(3), admin(get("/contractors/{contractorId}/invoices/scroll", contractor.getId())))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should create an invoice for the current period within budget")
+	public void shouldCreateAnInvoiceForTheCurrentPeriodWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(5).inserts(3),
+			admin(post("/contractors/{contractorId}/invoices", contractor.getId())).content(json(new CreateContractorInvoiceRecord(BigDecimal.valueOf(20)))))
+			.andExpect(status().isCreated());
+	}
+
+	@Test
+	@DisplayName("Should get an invoice of a contractor within budget")
+	public void shouldGetAnInvoiceOfAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(2), admin(get("/contractors/{contractorId}/invoices/{invoiceId}", contractor.getId(), invoice.getId())))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.extraAmountLines.length()").value(EXTRA_LINES_PER_INVOICE));
+	}
+
+	@Test
+	@DisplayName("Should patch an invoice of a contractor within budget")
+	public void shouldPatchAnInvoiceOfAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(5).inserts(1).updates(2),
+			admin(patch("/contractors/{contractorId}/invoices/{invoiceId}", contractor.getId(), invoice.getId())).content(json(new CreateContractorInvoiceRecord(BigDecimal.TEN))))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should add an extra line to an invoice within budget")
+	public void shouldAddAnExtraLineToAnInvoiceWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(5).inserts(2).updates(2),
+			admin(post("/contractors/{contractorId}/invoices/{invoiceId}/extra-lines", contractor.getId(), invoice.getId()))
+				.content(json(new CreateInvoiceExtraAmountLineRecord(BigDecimal.ONE, "Another extra"))))
+			.andExpect(status().isCreated());
+	}
+
+	@Test
+	@DisplayName("Should replay a retried extra line without running any statement")
+	public void shouldReplayARetriedExtraLineWithoutRunningAnyStatement() throws Exception
+	{
+		final String body = json(new CreateInvoiceExtraAmountLineRecord(BigDecimal.ONE, "Retried extra"));
+		final String created = performWithinBudget(StatementBudget.none().selects(5).inserts(2).updates(2),
+			admin(post("/contractors/{contractorId}/invoices/{invoiceId}/extra-lines", contractor.getId(), invoice.getId()))
+				.header(IdempotencyKeyFilter.IDEMPOTENCY_KEY_HEADER, "retried-extra-line").content(body))
+			.andExpect(status().isCreated())
+			.andReturn().getResponse().getContentAsString();
+
+		performWithinBudget(StatementBudget.none(),
+			admin(post("/contractors/{contractorId}/invoices/{invoiceId}/extra-lines", contractor.getId(), invoice.getId()))
+				.header(IdempotencyKeyFilter.IDEMPOTENCY_KEY_HEADER, "retried-extra-line").content(body))
+			.andExpect(status().isCreated())
+			.andExpect(header().string(IdempotencyKeyFilter.REPLAYED_HEADER, "true"))
+			.andExpect(content().json(created));
+	}
+
+	@Test
+	@DisplayName("Should update an extra line of an invoice within budget")
+	public void shouldUpdateAnExtraLineOfAnInvoiceWithinBudget() throws Exception
+	{
+		final Long extraLineId = invoiceExtraAmountLineRepository.findAll().stream()
+			.filter(line -> line.getInvoice().getId().equals(invoice.getId())).findFirst().orElseThrow().getId();
+
+		performWithinBudget(StatementBudget.none().selects(6).inserts(1).updates(3),
+			admin(patch("/contractors/{contractorId}/invoices/{invoiceId}/extra-lines/{extraLineId}", contractor.getId(), invoice.getId(), extraLineId))
+				.content(json(new CreateInvoiceExtraAmountLineRecord(BigDecimal.ONE, "Updated extra"))))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should list the rates of a contractor within budget")
+	public void shouldListTheRatesOfAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(3), admin(get("/contractors/{contractorId}/rates", contractor.getId())))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should create a rate for a contractor within budget")
+	public void shouldCreateARateForAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(3).inserts(1),
+			admin(post("/contractors/{contractorId}/rates", contractor.getId())).content(json(otherClientRate())))
+			.andExpect(status().isCreated());
+	}
+
+	@Test
+	@DisplayName("Should get a rate of a contractor within budget")
+	public void shouldGetARateOfAContractorWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(3), admin(get("/contractors/{contractorId}/rates/{rateId}", contractor.getId(), rate.getId())))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should change the end of a rate within budget")
+	public void shouldChangeTheEndOfARateWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(4).updates(1),
+			admin(patch("/contractors/{contractorId}/rates/{rateId}", contractor.getId(), rate.getId()))
+				.content(json(new ZonedDateTimeRecord(currentMonth.plusYears(2)))))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should delete a rate within budget")
+	public void shouldDeleteARateWithinBudget() throws Exception
+	{
+		final ContractorRate unused = contractorRateRepository.save(ContractorRate.create(contractor, otherClient, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+			Currency.getInstance("EUR"), currentMonth.plusYears(2), currentMonth.plusYears(3)));
+
+		performWithinBudget(StatementBudget.none().selects(3).deletes(1), admin(delete("/contractors/{contractorId}/rates/{rateId}", contractor.getId(), unused.getId())))
+			.andExpect(status().isNoContent());
+	}
+
+	@Test
+	@DisplayName("Should import rates for several contractors within budget")
+	public void shouldImportRatesForSeveralContractorsWithinBudget() throws Exception
+	{
+		final List<BatchContractorRateRecord> rates = contractorRepository.findAll().stream()
+			.map(saved -> new BatchContractorRateRecord(saved.getId(), otherClientRate()))
+			.toList();
+
+		performWithinBudget(StatementBudget.none().selects(3).inserts(1),
+			admin(post("/contractors/rates/imports")).content(json(new ContractorRateImportRecord(rates))))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should export contractor invoices within budget")
+	public void shouldExportContractorInvoicesWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(1), admin(get("/contractors/invoices/export")))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	@DisplayName("Should report monthly margins within budget")
+	public void shouldReportMonthlyMarginsWithinBudget() throws Exception
+	{
+		performWithinBudget(StatementBudget.none().selects(1),
+			admin(get("/analytics/margins")).queryParam("from", YearMonth.from(currentMonth.minusYears(3)).toString()).queryParam("to", YearMonth.from(currentMonth).toString()))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.margins.length()").value(CONTRACTORS * MONTHS))
+			.andExpect(jsonPath("$.totals[0].revenue").value(CONTRACTORS * MONTHS * 20 * 200));
+	}
+
+	private CreateContractorRateRecord otherClientRate()
+	{
+		return new CreateContractorRateRecord(otherClient.getId(), BigDecimal.valueOf(150), BigDecimal.valueOf(250), BigDecimal.TEN, Currency.getInstance("EUR"),
+			currentMonth.minusMonths(1), currentMonth.plusMonths(6));
+	}
+
+	private MockHttpServletRequestBuilder admin(final MockHttpServletRequestBuilder request)
+	{
+		return request.with(jwtRequestPostProcessors.admin()).contentType(MediaType.APPLICATION_JSON);
+	}
+
+	private String json(final Object value) throws Exception
+	{
+		return objectMapper.writeValueAsString(value);
+	}
+}
@@ -0,0 +1,143 @@
+package com.greenfieldcommerce.greenerp.exchangerates.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessRequest;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessResponse;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
+import static org.springframework.restdocs.payload.PayloadDocumentation.requestFields;
+import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.payload.FieldDescriptor;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.greenfieldcommerce.greenerp.controllers.BaseRestControllerTest;
+import com.greenfieldcommerce.greenerp.exchangerates.records.CreateExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.records.ExchangeRateImportRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.records.ExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.services.ExchangeRateService;
+
+@WebMvcTest(controllers = ExchangeRatesController.class)
+public class ExchangeRatesControllerTest extends BaseRestControllerTest
+{
+	private static final Currency EUR = Currency.getInstance("EUR");
+	private static final Currency USD = Currency.getInstance("USD");
+	private static final LocalDate EFFECTIVE_DATE = LocalDate.of(2025, 1, 1);
+
+	@MockitoBean
+	private ExchangeRateService exchangeRateService;
+
+	@Test
+	public void shouldListExchangeRates_forAdmin() throws Exception
+	{
+		when(exchangeRateService.findAll()).thenReturn(List.of(new ExchangeRateRecord(1L, EUR, USD, EFFECTIVE_DATE, new BigDecimal("1.0352"))));
+
+		getMvc().perform(get("/exchange-rates").with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.rates.length()").value(1))
+			.andExpect(jsonPath("$.rates[0].sourceCurrency").value("EUR"))
+			.andExpect(jsonPath("$.rates[0].targetCurrency").value("USD"))
+			.andExpect(jsonPath("$.rates[0].effectiveDate").value("2025-01-01"))
+			.andExpect(jsonPath("$.rates[0].rate").value(1.0352))
+			.andDo(document("listing-exchange-rates",
+				preprocessResponse(prettyPrint()),
+				requestHeaders(describeAdminHeader()),
+				responseFields(exchangeRateFields())));
+	}
+
+	@Test
+	public void shouldImportExchangeRates_forAdmin() throws Exception
+	{
+		final ExchangeRateImportRecord importRecord = new ExchangeRateImportRecord(List.of(new CreateExchangeRateRecord(EUR, USD, EFFECTIVE_DATE, new BigDecimal("1.0352"))));
+		when(exchangeRateService.importRates(argThat(records -> records.size() == 1))).thenReturn(List.of(new ExchangeRateRecord(1L, EUR, USD, EFFECTIVE_DATE, new BigDecimal("1.0352"))));
+
+		getMvc().perform(postImportRequest(importRecord).with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.rates[0].id").value(1))
+			.andDo(document("importing-exchange-rates",
+				preprocessRequest(prettyPrint()),
+				preprocessResponse(prettyPrint()),
+				requestHeaders(describeAdminHeader()),
+				requestFields(
+					fieldWithPath("rates[].sourceCurrency").description("ISO 4217 code of the currency converted from"),
+					fieldWithPath("rates[].targetCurrency").description("ISO 4217 code of the currency converted to"),
+					fieldWithPath("rates[].effectiveDate").description("First day the rate applies, until the effective date of the next rate of the same pair"),
+					fieldWithPath("rates[].rate").description("Units of the target currency one unit of the source currency is worth, up to 8 decimals")
+				),
+				responseFields(exchangeRateFields())));
+	}
+
+	@ParameterizedTest
+	@MethodSource("invalidImportRecordOptions")
+	public void shouldReturnUnprocessableEntityWhenImportingInvalidExchangeRates(final ExchangeRateImportRecord record) throws Exception
+	{
+		getMvc().perform(postImportRequest(record).with(getJwtRequestPostProcessors().admin()))
+			.andExpect(status().isUnprocessableEntity());
+
+		verify(exchangeRateService, never()).importRates(any());
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> protectedRequests() throws JsonProcessingException
+	{
+		return Stream.of(get("/exchange-rates"),
+			postImportRequest(new ExchangeRateImportRecord(List.of(new CreateExchangeRateRecord(EUR, USD, EFFECTIVE_DATE, BigDecimal.ONE)))));
+	}
+
+	@Override
+	protected Stream<MockHttpServletRequestBuilder> invalidResourceRequests()
+	{
+		return Stream.of();
+	}
+
+	private Stream<ExchangeRateImportRecord> invalidImportRecordOptions()
+	{
+		return Stream.of(
+			new ExchangeRateImportRecord(null),
+			new ExchangeRateImportRecord(List.of()),
+			new ExchangeRateImportRecord(List.of(new CreateExchangeRateRecord(null, USD, EFFECTIVE_DATE, BigDecimal.ONE))),
+			new ExchangeRateImportRecord(List.of(new CreateExchangeRateRecord(EUR, null, EFFECTIVE_DATE, BigDecimal.ONE))),
+			new ExchangeRateImportRecord(List.of(new CreateExchangeRateRecord(EUR, USD, null, BigDecimal.ONE))),
+			new ExchangeRateImportRecord(List.of(new CreateExchangeRateRecord(EUR, USD, EFFECTIVE_DATE, BigDecimal.ZERO))),
+			new ExchangeRateImportRecord(List.of(new CreateExchangeRateRecord(EUR, USD, EFFECTIVE_DATE, new BigDecimal("1.123456789")))));
+	}
+
+	private MockHttpServletRequestBuilder postImportRequest(final ExchangeRateImportRecord record) throws JsonProcessingException
+	{
+		return post("/exchange-rates").contentType(MediaType.APPLICATION_JSON).content(asJson(record));
+	}
+
+	private static FieldDescriptor[] exchangeRateFields()
+	{
+		return new FieldDescriptor[] {
+			fieldWithPath("rates[].id").description("Id of the exchange rate"),
+			fieldWithPath("rates[].sourceCurrency").description("ISO 4217 code of the currency converted from"),
+			fieldWithPath("rates[].targetCurrency").description("ISO 4217 code of the currency converted to"),
+			fieldWithPath("rates[].effectiveDate").description("First day the rate applies"),
+			fieldWithPath("rates[].rate").description("Units of the target currency one unit of the source currency is worth")
+		};
+	}
+}
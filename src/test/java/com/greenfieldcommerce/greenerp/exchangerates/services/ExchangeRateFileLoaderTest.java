@@ -0,0 +1,80 @@
+package com.greenfieldcommerce.greenerp.exchangerates.services;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.greenfieldcommerce.greenerp.exchangerates.records.CreateExchangeRateRecord;
+
+@ExtendWith(MockitoExtension.class)
+public class ExchangeRateFileLoaderTest
+{
+	@Mock
+	private ExchangeRateService exchangeRateService;
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	@DisplayName("Should import the rates of the file, skipping the header, comments and blank lines")
+	public void shouldImportTheRatesOfTheFile() throws Exception
+	{
+		final Path file = Files.writeString(directory.resolve("rates.csv"), """
+			sourceCurrency,targetCurrency,effectiveDate,rate
+			# ECB reference rates
+			EUR,USD,2025-01-01,1.0352
+
+			 GBP , USD , 2025-01-01 , 1.2515
+			""");
+
+		new ExchangeRateFileLoader(exchangeRateService, file.toString()).run(null);
+
+		verify(exchangeRateService).importRates(List.of(
+			new CreateExchangeRateRecord(Currency.getInstance("EUR"), Currency.getInstance("USD"), LocalDate.of(2025, 1, 1), new BigDecimal("1.0352")),
+			new CreateExchangeRateRecord(Currency.getInstance("GBP"), Currency.getInstance("USD"), LocalDate.of(2025, 1, 1), new BigDecimal("1.2515"))));
+	}
+
+	@Test
+	@DisplayName("Should not import anything when no file is configured")
+	public void shouldNotImportAnythingWhenNoFileIsConfigured() throws Exception
+	{
+		new ExchangeRateFileLoader(exchangeRateService, "").run(null);
+
+		verify(exchangeRateService, never()).importRates(any());
+	}
+
+	@Test
+	@DisplayName("Should report the line of a malformed rate")
+	public void shouldReportTheLineOfAMalformedRate() throws Exception
+	{
+		final Path file = Files.writeString(directory.resolve("rates.csv"), "EUR,USD,2025-01-01,1.0352\nEUR,USD,2025-02-01,-1\n");
+
+		final IllegalStateException exception = assertThrows(IllegalStateException.class, () -> new ExchangeRateFileLoader(exchangeRateService, file.toString()).run(null));
+		assertTrue(exception.getMessage().contains("line 2"));
+		verify(exchangeRateService, never()).importRates(any());
+	}
+
+	@Test
+	@DisplayName("Should read lines with an unknown currency or date as malformed")
+	public void shouldReadLinesWithAnUnknownCurrencyOrDateAsMalformed() throws Exception
+	{
+		assertThrows(IllegalStateException.class, () -> ExchangeRateFileLoader.read(Files.writeString(directory.resolve("currency.csv"), "EUX,USD,2025-01-01,1.0352\n")));
+		assertThrows(IllegalStateException.class, () -> ExchangeRateFileLoader.read(Files.writeString(directory.resolve("date.csv"), "EUR,USD,2025-13-01,1.0352\n")));
+	}
+}
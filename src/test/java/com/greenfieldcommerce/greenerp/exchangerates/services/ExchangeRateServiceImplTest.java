@@ -0,0 +1,110 @@
+package com.greenfieldcommerce.greenerp.exchangerates.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.greenfieldcommerce.greenerp.exceptions.MissingExchangeRateException;
+import com.greenfieldcommerce.greenerp.exchangerates.entities.ExchangeRate;
+import com.greenfieldcommerce.greenerp.exchangerates.mappers.ExchangeRateToRecordMapper;
+import com.greenfieldcommerce.greenerp.exchangerates.records.CreateExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.records.ExchangeRateRecord;
+import com.greenfieldcommerce.greenerp.exchangerates.repositories.ExchangeRateRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ExchangeRateServiceImplTest
+{
+	private static final Currency EUR = Currency.getInstance("EUR");
+	private static final Currency USD = Currency.getInstance("USD");
+	private static final Currency GBP = Currency.getInstance("GBP");
+	private static final LocalDate JANUARY = LocalDate.of(2025, 1, 1);
+
+	@Mock
+	private ExchangeRateRepository exchangeRateRepository;
+
+	private SimpleMeterRegistry meterRegistry;
+	private ExchangeRateServiceImpl service;
+
+	private ExchangeRate january;
+	private ExchangeRate february;
+
+	@BeforeEach
+	public void setup()
+	{
+		meterRegistry = new SimpleMeterRegistry();
+		service = new ExchangeRateServiceImpl(exchangeRateRepository, new ExchangeRateToRecordMapper(), meterRegistry, Duration.ofMinutes(10));
+		january = ExchangeRate.create(EUR, USD, JANUARY, new BigDecimal("1.0352"));
+		february = ExchangeRate.create(EUR, USD, JANUARY.plusMonths(1), new BigDecimal("1.0401"));
+	}
+
+	@Test
+	@DisplayName("Should find the rate in effect on a day from a single query")
+	public void shouldFindTheRateInEffectOnADayFromASingleQuery()
+	{
+		when(exchangeRateRepository.findAll()).thenReturn(List.of(february, january));
+
+		assertSame(january, service.find(EUR, USD, JANUARY));
+		assertSame(january, service.find(EUR, USD, JANUARY.plusDays(30)));
+		assertSame(february, service.find(EUR, USD, JANUARY.plusYears(1)));
+
+		verify(exchangeRateRepository, times(1)).findAll();
+		assertEquals(1, meterRegistry.get(ExchangeRateServiceImpl.LOADS_METRIC_NAME).counter().count());
+		assertEquals(2, meterRegistry.get(ExchangeRateServiceImpl.SIZE_METRIC_NAME).gauge().value());
+	}
+
+	@Test
+	@DisplayName("Should throw MissingExchangeRateException before the first rate of a pair, or for unknown pairs")
+	public void shouldThrowMissingExchangeRateExceptionBeforeTheFirstRateOrForUnknownPairs()
+	{
+		when(exchangeRateRepository.findAll()).thenReturn(List.of(january));
+
+		assertThrows(MissingExchangeRateException.class, () -> service.find(EUR, USD, JANUARY.minusDays(1)));
+		assertThrows(MissingExchangeRateException.class, () -> service.find(USD, EUR, JANUARY));
+		assertThrows(MissingExchangeRateException.class, () -> service.find(GBP, USD, JANUARY));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	@DisplayName("Should create new rates, replace known ones, and load the table again after importing")
+	public void shouldCreateNewRatesReplaceKnownOnesAndLoadTheTableAgainAfterImporting()
+	{
+		when(exchangeRateRepository.findAll()).thenReturn(List.of(january));
+		when(exchangeRateRepository.saveAll(anyCollection())).thenAnswer(invocation -> new ArrayList<>(invocation.<List<ExchangeRate>>getArgument(0)));
+		service.find(EUR, USD, JANUARY);
+
+		final List<ExchangeRateRecord> imported = service.importRates(List.of(
+			new CreateExchangeRateRecord(EUR, USD, JANUARY, new BigDecimal("1.0360")),
+			new CreateExchangeRateRecord(GBP, USD, JANUARY, new BigDecimal("1.25")),
+			new CreateExchangeRateRecord(GBP, USD, JANUARY, new BigDecimal("1.2515"))));
+
+		final ArgumentCaptor<Iterable<ExchangeRate>> saved = ArgumentCaptor.forClass(Iterable.class);
+		verify(exchangeRateRepository).saveAll(saved.capture());
+		assertEquals(2, imported.size());
+		assertEquals(new BigDecimal("1.0360"), january.getRate());
+		assertEquals(new BigDecimal("1.2515"), imported.get(1).rate());
+
+		service.find(EUR, USD, JANUARY);
+		verify(exchangeRateRepository, times(3)).findAll();
+	}
+}
@@ -0,0 +1,54 @@
+package com.greenfieldcommerce.greenerp.helpers;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.greenfieldcommerce.greenerp.helpers.StatementCounter.ExecutedStatements;
+import com.greenfieldcommerce.greenerp.helpers.StatementCounter.StatementType;
+
+/**
+ * The most SQL statements of each kind an endpoint may execute to serve one request.
+ * <p>
+ * Budgets start from {@link #none()} and are raised one kind at a time, e.g.
+ * {@code StatementBudget.none().selects(3).updates(1)}. Statements of any other kind, such as DDL or {@code MERGE},
+ * are never allowed.
+ */
+public record StatementBudget(int selects, int inserts, int updates, int deletes)
+{
+	public static StatementBudget none()
+	{
+		return new StatementBudget(0, 0, 0, 0);
+	}
+
+	public StatementBudget selects(final int selects)
+	{
+		return new StatementBudget(selects, inserts, updates, deletes);
+	}
+
+	public StatementBudget inserts(final int inserts)
+	{
+		return new StatementBudget(selects, inserts, updates, deletes);
+	}
+
+	public StatementBudget updates(final int updates)
+	{
+		return new StatementBudget(selects, inserts, updates, deletes);
+	}
+
+	public StatementBudget deletes(final int deletes)
+	{
+		return new StatementBudget(selects, inserts, updates, deletes);
+	}
+
+	/**
+	 * Fails with the executed statements if any kind of them went over this budget.
+	 *
+	 * @param description what executed the statements, e.g. the request
+	 * @param executed the statements to check
+	 */
+	public void verify(final String description, final ExecutedStatements executed)
+	{
+		if (executed.count(StatementType.SELECT) > selects || executed.count(StatementType.INSERT) > inserts || executed.count(StatementType.UPDATE) > updates
+			|| executed.count(StatementType.DELETE) > deletes || executed.count(StatementType.OTHER) > 0)
+			fail(String.format("%s went over its statement budget of %s: %s", description, this, executed));
+	}
+}
@@ -0,0 +1,172 @@
+package com.greenfieldcommerce.greenerp.helpers;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Counts the SQL statements executed through a {@link DataSource} wrapped by {@link #wrap(DataSource)}, between
+ * {@link #start()} and {@link #stop()}.
+ * <p>
+ * Statements are counted on every thread, so that responses streamed from an async executor are accounted for too;
+ * background jobs touching the database should be kept from running while counting.
+ * <p>
+ * Each call to {@code execute}, {@code executeQuery}, {@code executeUpdate} or {@code executeBatch} counts as one
+ * statement, so a JDBC batch is a single round trip however many rows it carries. Identifiers fetched from a sequence
+ * are not counted: the pooled optimizer only does so once every allocation, so whether a request pays for it depends
+ * on the requests that ran before it.
+ */
+public class StatementCounter
+{
+	private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+	private static final Pattern SEQUENCE_FETCH = Pattern.compile("(?is).*(next value for|nextval\\s*\\().*");
+
+	private volatile List<String> statements;
+
+	/**
+	 * Wraps a data source so that the statements executed through its connections are counted.
+	 *
+	 * @param dataSource the data source to wrap
+	 * @return a proxy implementing every interface of the data source
+	 */
+	public DataSource wrap(final DataSource dataSource)
+	{
+		return proxy(dataSource, (proxy, method, args) -> {
+			final Object result = invoke(dataSource, method, args);
+			return result instanceof Connection connection ? wrap(connection) : result;
+		});
+	}
+
+	/**
+	 * Starts counting the statements executed, from zero.
+	 */
+	public void start()
+	{
+		statements = Collections.synchronizedList(new ArrayList<>());
+	}
+
+	/**
+	 * Stops counting the statements executed.
+	 *
+	 * @return the statements executed since {@link #start()}, in order, or none if counting was not started
+	 */
+	public ExecutedStatements stop()
+	{
+		final List<String> executed = statements;
+		statements = null;
+		return new ExecutedStatements(executed == null ? List.of() : List.copyOf(executed));
+	}
+
+	private Connection wrap(final Connection connection)
+	{
+		return proxy(connection, (proxy, method, args) -> {
+			final Object result = invoke(connection, method, args);
+			if (result instanceof Statement statement && (method.getName().startsWith("prepare") || method.getName().equals("createStatement")))
+				return wrap(statement, args != null && args.length > 0 && args[0] instanceof String sql ? sql : null);
+			return result;
+		});
+	}
+
+	private Statement wrap(final Statement statement, final String preparedSql)
+	{
+		final List<String> batch = new ArrayList<>();
+		return proxy(statement, (proxy, method, args) -> {
+			final String name = method.getName();
+			if (name.equals("addBatch") && args != null && args.length == 1 && args[0] instanceof String sql)
+				batch.add(sql);
+			else if (EXECUTE_METHODS.contains(name))
+			{
+				if (args != null && args.length > 0 && args[0] instanceof String sql)
+					executed(sql);
+				else if (preparedSql != null)
+					executed(preparedSql);
+				else
+					batch.forEach(this::executed);
+				batch.clear();
+			}
+			return invoke(statement, method, args);
+		});
+	}
+
+	private void executed(final String sql)
+	{
+		final List<String> executed = statements;
+		if (executed != null && !SEQUENCE_FETCH.matcher(sql).matches())
+			executed.add(sql.strip());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(final T target, final InvocationHandler handler)
+	{
+		final Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(target.getClass());
+		return (T) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), interfaces, handler);
+	}
+
+	private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable
+	{
+		try
+		{
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e)
+		{
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * The kinds of SQL statement a budget is declared for.
+	 */
+	public enum StatementType
+	{
+		SELECT, INSERT, UPDATE, DELETE, OTHER;
+
+		static StatementType of(final String sql)
+		{
+			final String keyword = sql.stripLeading().split("[\\s(]", 2)[0].toUpperCase(Locale.ROOT);
+			return switch (keyword)
+			{
+				case "SELECT", "WITH" -> SELECT;
+				case "INSERT" -> INSERT;
+				case "UPDATE" -> UPDATE;
+				case "DELETE" -> DELETE;
+				default -> OTHER;
+			};
+		}
+	}
+
+	/**
+	 * The statements executed between {@link #start()} and {@link #stop()}.
+	 *
+	 * @param statements the SQL of each statement, in execution order
+	 */
+	public record ExecutedStatements(List<String> statements)
+	{
+		public long count(final StatementType type)
+		{
+			return statements.stream().filter(sql -> StatementType.of(sql) == type).count();
+		}
+
+		@Override
+		public String toString()
+		{
+			final StringBuilder builder = new StringBuilder();
+			for (final StatementType type : StatementType.values())
+				builder.append(type).append('=').append(count(type)).append(' ');
+			statements.forEach(sql -> builder.append(System.lineSeparator()).append("\t").append(sql));
+			return builder.toString();
+		}
+	}
+}
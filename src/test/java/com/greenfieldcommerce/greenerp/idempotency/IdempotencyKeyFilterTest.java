@@ -0,0 +1,166 @@
+package com.greenfieldcommerce.greenerp.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class IdempotencyKeyFilterTest
+{
+	private static final String PATH = "/contractors/1/invoices/1/extra-lines";
+	private static final String BODY = "{\"value\":10,\"description\":\"Extra\"}";
+
+	private IdempotencyKeyFilter filter;
+	private List<String> handledBodies;
+	private int responseStatus;
+	private FilterChain chain;
+
+	@BeforeEach
+	public void setup()
+	{
+		final IdempotencyKeyStore store = new IdempotencyKeyStore(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10), DataSize.ofKilobytes(64));
+		filter = new IdempotencyKeyFilter(store, new ObjectMapper().registerModule(new JavaTimeModule()));
+		handledBodies = new ArrayList<>();
+		responseStatus = 201;
+		chain = (request, response) -> {
+			handledBodies.add(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+			final HttpServletResponse httpResponse = (HttpServletResponse) response;
+			httpResponse.setStatus(responseStatus);
+			httpResponse.setHeader(HttpHeaders.LOCATION, "http://localhost" + PATH + "/" + handledBodies.size());
+			httpResponse.setContentType("application/json");
+			httpResponse.getOutputStream().write(("{\"id\":" + handledBodies.size() + "}").getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	@Test
+	@DisplayName("Should handle a request once and replay its response to retries with the same key")
+	public void shouldHandleARequestOnceAndReplayItsResponseToRetries() throws Exception
+	{
+		final MockHttpServletResponse first = perform(request("key-1", BODY));
+		final MockHttpServletResponse retry = perform(request("key-1", BODY));
+
+		assertEquals(List.of(BODY), handledBodies);
+		assertEquals(201, retry.getStatus());
+		assertEquals(first.getContentAsString(), retry.getContentAsString());
+		assertEquals(first.getHeader(HttpHeaders.LOCATION), retry.getHeader(HttpHeaders.LOCATION));
+		assertNull(first.getHeader(IdempotencyKeyFilter.REPLAYED_HEADER));
+		assertEquals("true", retry.getHeader(IdempotencyKeyFilter.REPLAYED_HEADER));
+	}
+
+	@Test
+	@DisplayName("Should handle requests without a key, or with different keys, every time")
+	public void shouldHandleRequestsWithoutAKeyOrWithDifferentKeysEveryTime() throws Exception
+	{
+		perform(request(null, BODY));
+		perform(request(null, BODY));
+		perform(request("key-1", BODY));
+		perform(request("key-2", BODY));
+
+		assertEquals(4, handledBodies.size());
+	}
+
+	@Test
+	@DisplayName("Should scope keys to the authenticated user")
+	public void shouldScopeKeysToTheAuthenticatedUser() throws Exception
+	{
+		perform(request("key-1", BODY));
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("other", null));
+		try
+		{
+			perform(request("key-1", BODY));
+		} finally
+		{
+			SecurityContextHolder.clearContext();
+		}
+
+		assertEquals(2, handledBodies.size());
+	}
+
+	@Test
+	@DisplayName("Should reject a key reused for a different request")
+	public void shouldRejectAKeyReusedForADifferentRequest() throws Exception
+	{
+		perform(request("key-1", BODY));
+		final MockHttpServletResponse reused = perform(request("key-1", "{\"value\":20,\"description\":\"Extra\"}"));
+
+		assertEquals(422, reused.getStatus());
+		assertTrue(reused.getContentAsString().contains("IDEMPOTENCY_KEY_REUSED"));
+		assertEquals(1, handledBodies.size());
+	}
+
+	@Test
+	@DisplayName("Should handle retries of a failed request again")
+	public void shouldHandleRetriesOfAFailedRequestAgain() throws Exception
+	{
+		responseStatus = 400;
+		perform(request("key-1", BODY));
+		responseStatus = 201;
+		final MockHttpServletResponse retry = perform(request("key-1", BODY));
+
+		assertEquals(201, retry.getStatus());
+		assertEquals(2, handledBodies.size());
+	}
+
+	@Test
+	@DisplayName("Should reject retries of a request whose response was too large to be kept")
+	public void shouldRejectRetriesOfARequestWhoseResponseWasTooLargeToBeKept() throws Exception
+	{
+		filter = new IdempotencyKeyFilter(new IdempotencyKeyStore(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10), DataSize.ofBytes(4)),
+			new ObjectMapper().registerModule(new JavaTimeModule()));
+
+		assertEquals(201, perform(request("key-1", BODY)).getStatus());
+		final MockHttpServletResponse retry = perform(request("key-1", BODY));
+
+		assertEquals(409, retry.getStatus());
+		assertTrue(retry.getContentAsString().contains("IDEMPOTENCY_KEY_NOT_REPLAYABLE"));
+		assertEquals(1, handledBodies.size());
+	}
+
+	@Test
+	@DisplayName("Should reject blank or overly long keys")
+	public void shouldRejectBlankOrOverlyLongKeys() throws Exception
+	{
+		assertEquals(400, perform(request(" ", BODY)).getStatus());
+		assertEquals(400, perform(request("k".repeat(256), BODY)).getStatus());
+		assertTrue(handledBodies.isEmpty());
+	}
+
+	private MockHttpServletResponse perform(final MockHttpServletRequest request) throws Exception
+	{
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	private static MockHttpServletRequest request(final String idempotencyKey, final String body)
+	{
+		final MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		if (idempotencyKey != null)
+			request.addHeader(IdempotencyKeyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+		return request;
+	}
+}
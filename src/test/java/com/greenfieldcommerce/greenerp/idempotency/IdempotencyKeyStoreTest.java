@@ -0,0 +1,115 @@
+package com.greenfieldcommerce.greenerp.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import com.greenfieldcommerce.greenerp.idempotency.IdempotencyKeyStore.Outcome;
+import com.greenfieldcommerce.greenerp.idempotency.IdempotencyKeyStore.StoredResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class IdempotencyKeyStoreTest
+{
+	private static final String KEY = "admin:key";
+	private static final String OTHER_KEY = "admin:other-key";
+	private static final byte[] FINGERPRINT = { 1, 2, 3 };
+	private static final StoredResponse CREATED = new StoredResponse(201, "application/json", "http://localhost/contractors/1", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+	private SimpleMeterRegistry meterRegistry;
+	private IdempotencyKeyStore store;
+
+	@BeforeEach
+	public void setup()
+	{
+		meterRegistry = new SimpleMeterRegistry();
+		store = new IdempotencyKeyStore(meterRegistry, 1, Duration.ofMinutes(10), DataSize.ofKilobytes(1));
+	}
+
+	@Test
+	@DisplayName("Should replay the response of a completed request to retries")
+	public void shouldReplayTheResponseOfACompletedRequestToRetries()
+	{
+		assertEquals(Outcome.RESERVED, store.reserve(KEY, FINGERPRINT).outcome());
+		assertTrue(store.complete(KEY, CREATED));
+
+		final IdempotencyKeyStore.Reservation retry = store.reserve(KEY, FINGERPRINT.clone());
+		assertEquals(Outcome.REPLAYED, retry.outcome());
+		assertEquals(201, retry.response().status());
+		assertArrayEquals(CREATED.body(), retry.response().body());
+		assertEquals(1, meterRegistry.get(IdempotencyKeyStore.REQUESTS_METRIC_NAME).tag("outcome", "replayed").counter().count());
+	}
+
+	@Test
+	@DisplayName("Should tell retries apart from requests still in progress and from other requests using the same key")
+	public void shouldTellRetriesApartFromRequestsInProgressAndFromOtherRequests()
+	{
+		store.reserve(KEY, FINGERPRINT);
+
+		assertEquals(Outcome.IN_PROGRESS, store.reserve(KEY, FINGERPRINT).outcome());
+		assertEquals(Outcome.MISMATCH, store.reserve(KEY, new byte[] { 4, 5, 6 }).outcome());
+	}
+
+	@Test
+	@DisplayName("Should release keys of failed requests, so they can be retried")
+	public void shouldReleaseKeysOfFailedRequests()
+	{
+		store.reserve(KEY, FINGERPRINT);
+		assertFalse(store.complete(KEY, new StoredResponse(400, "application/json", null, new byte[0])));
+		assertEquals(Outcome.RESERVED, store.reserve(KEY, FINGERPRINT).outcome());
+
+		store.release(KEY);
+		assertEquals(Outcome.RESERVED, store.reserve(KEY, FINGERPRINT).outcome());
+	}
+
+	@Test
+	@DisplayName("Should not keep responses larger than the maximum response size, but keep their key")
+	public void shouldNotKeepResponsesLargerThanTheMaximumResponseSizeButKeepTheirKey()
+	{
+		store.reserve(KEY, FINGERPRINT);
+
+		assertTrue(store.complete(KEY, new StoredResponse(201, "application/json", null, new byte[2048])));
+		store.release(KEY);
+
+		final IdempotencyKeyStore.Reservation retry = store.reserve(KEY, FINGERPRINT);
+		assertEquals(Outcome.NOT_REPLAYABLE, retry.outcome());
+		assertNull(retry.response());
+		assertEquals(Outcome.MISMATCH, store.reserve(KEY, new byte[] { 4, 5, 6 }).outcome());
+		assertEquals(1, meterRegistry.get(IdempotencyKeyStore.REQUESTS_METRIC_NAME).tag("outcome", "not_replayable").counter().count());
+	}
+
+	@Test
+	@DisplayName("Should drop the oldest key beyond the maximum size")
+	public void shouldDropTheOldestKeyBeyondTheMaximumSize()
+	{
+		store.reserve(KEY, FINGERPRINT);
+		store.complete(KEY, CREATED);
+		store.reserve(OTHER_KEY, FINGERPRINT);
+
+		assertEquals(Outcome.RESERVED, store.reserve(KEY, FINGERPRINT).outcome());
+		assertEquals(2, meterRegistry.get(IdempotencyKeyStore.EVICTIONS_METRIC_NAME).counter().count());
+		assertEquals(1, meterRegistry.get(IdempotencyKeyStore.KEYS_METRIC_NAME).gauge().value());
+	}
+
+	@Test
+	@DisplayName("Should forget keys once they expired")
+	public void shouldForgetKeysOnceTheyExpired()
+	{
+		final IdempotencyKeyStore expiring = new IdempotencyKeyStore(new SimpleMeterRegistry(), 100, Duration.ZERO, DataSize.ofKilobytes(1));
+
+		expiring.reserve(KEY, FINGERPRINT);
+		expiring.complete(KEY, CREATED);
+
+		assertEquals(Outcome.RESERVED, expiring.reserve(KEY, FINGERPRINT).outcome());
+	}
+}
@@ -0,0 +1,45 @@
+package com.greenfieldcommerce.greenerp.messaging.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import com.greenfieldcommerce.greenerp.messaging.entities.OutboxMessage;
+
+@DataJpaTest
+public class OutboxMessageRepositoryTest
+{
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private OutboxMessageRepository repository;
+
+	@Test
+	@DisplayName("Should lock the oldest messages first and delete them once published")
+	public void shouldLockOldestMessagesFirstAndDeleteThemOncePublished()
+	{
+		final List<OutboxMessage> messages = List.of(persist("1"), persist("2"), persist("3"));
+		entityManager.flush();
+		entityManager.clear();
+
+		final List<OutboxMessage> batch = repository.findNextToPublish(Limit.of(2));
+
+		assertEquals(List.of(messages.get(0).getId(), messages.get(1).getId()), batch.stream().map(OutboxMessage::getId).toList());
+		assertEquals(2, repository.deleteByIdIn(batch.stream().map(OutboxMessage::getId).toList()));
+		assertEquals(List.of(messages.get(2).getId()), repository.findAll().stream().map(OutboxMessage::getId).toList());
+	}
+
+	private OutboxMessage persist(final String payload)
+	{
+		return entityManager.persist(OutboxMessage.create("exchange", "exchange.key", payload, "application/json", null, ZonedDateTime.now()));
+	}
+}
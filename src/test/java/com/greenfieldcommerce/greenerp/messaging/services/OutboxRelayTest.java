@@ -0,0 +1,141 @@
+package com.greenfieldcommerce.greenerp.messaging.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.greenfieldcommerce.greenerp.messaging.entities.OutboxMessage;
+import com.greenfieldcommerce.greenerp.messaging.repositories.OutboxMessageRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest
+{
+	private static final int BATCH_SIZE = 2;
+
+	@Mock
+	private OutboxMessageRepository outboxMessageRepository;
+	@Mock
+	private RabbitTemplate rabbitTemplate;
+	@Mock
+	private RabbitOperations operations;
+
+	private SimpleMeterRegistry meterRegistry;
+	private OutboxRelay relay;
+
+	@BeforeEach
+	public void setup()
+	{
+		meterRegistry = new SimpleMeterRegistry();
+		relay = new OutboxRelay(outboxMessageRepository, rabbitTemplate, mock(PlatformTransactionManager.class), meterRegistry, BATCH_SIZE, Duration.ofSeconds(1));
+	}
+
+	@Test
+	@DisplayName("Should publish the outbox in confirmed batches until it is drained, then delete the published messages")
+	public void shouldPublishOutboxInConfirmedBatchesUntilDrained()
+	{
+		final List<OutboxMessage> firstBatch = List.of(outboxMessage(1L), outboxMessage(2L));
+		final List<OutboxMessage> secondBatch = List.of(outboxMessage(3L));
+		when(outboxMessageRepository.findNextToPublish(Limit.of(BATCH_SIZE))).thenReturn(firstBatch).thenReturn(secondBatch);
+		when(rabbitTemplate.invoke(any())).thenAnswer(onChannel());
+
+		relay.relay();
+
+		final ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+		verify(operations, times(3)).send(eq("exchange"), eq("exchange.key"), sent.capture());
+		verify(operations, times(2)).waitForConfirmsOrDie(1000L);
+		verify(outboxMessageRepository).deleteByIdIn(List.of(1L, 2L));
+		verify(outboxMessageRepository).deleteByIdIn(List.of(3L));
+
+		final Message message = sent.getAllValues().getFirst();
+		assertEquals("{\"id\":1}", new String(message.getBody(), StandardCharsets.UTF_8));
+		assertEquals("application/json", message.getMessageProperties().getContentType());
+		assertEquals("Payload", message.getMessageProperties().getHeader(OutboxRelay.TYPE_ID_HEADER));
+
+		assertEquals(3, meterRegistry.get("greenerp.outbox.relay.published").counter().count());
+		assertEquals(2, meterRegistry.get("greenerp.outbox.relay.batch.size").summary().count());
+		assertEquals(3, meterRegistry.get("greenerp.outbox.relay.lag").timer().count());
+		assertEquals(2, meterRegistry.get("greenerp.outbox.relay.publish").tag("outcome", "success").timer().count());
+	}
+
+	@Test
+	@DisplayName("Should keep messages in the outbox when the broker does not confirm them")
+	public void shouldKeepMessagesInTheOutboxWhenTheBrokerDoesNotConfirmThem()
+	{
+		final List<OutboxMessage> batch = List.of(outboxMessage(1L));
+		when(outboxMessageRepository.findNextToPublish(Limit.of(BATCH_SIZE))).thenReturn(batch);
+		when(rabbitTemplate.invoke(any())).thenAnswer(onChannel());
+		doThrow(new AmqpException("nack")).when(operations).waitForConfirmsOrDie(anyLong());
+
+		relay.relay();
+
+		verify(outboxMessageRepository, never()).deleteByIdIn(any());
+		assertEquals(1, meterRegistry.get("greenerp.outbox.relay.failures").counter().count());
+		assertEquals(0, meterRegistry.get("greenerp.outbox.relay.published").counter().count());
+		assertEquals(1, meterRegistry.get("greenerp.outbox.relay.publish").tag("outcome", "failure").timer().count());
+	}
+
+	@Test
+	@DisplayName("Should not open a channel when the outbox is empty")
+	public void shouldNotOpenAChannelWhenTheOutboxIsEmpty()
+	{
+		when(outboxMessageRepository.findNextToPublish(Limit.of(BATCH_SIZE))).thenReturn(List.of());
+
+		relay.relay();
+
+		verify(rabbitTemplate, never()).invoke(any());
+	}
+
+	/**
+	 * Runs the callback given to {@link RabbitTemplate#invoke} on the mocked channel.
+	 */
+	private Answer<Object> onChannel()
+	{
+		return invocation -> {
+			final RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0, RabbitOperations.OperationsCallback.class);
+			return callback.doInRabbit(operations);
+		};
+	}
+
+	private static OutboxMessage outboxMessage(final Long id)
+	{
+		final OutboxMessage message = mock(OutboxMessage.class);
+		lenient().when(message.getId()).thenReturn(id);
+		lenient().when(message.getExchange()).thenReturn("exchange");
+		lenient().when(message.getRoutingKey()).thenReturn("exchange.key");
+		lenient().when(message.getPayload()).thenReturn(String.format("{\"id\":%s}", id));
+		lenient().when(message.getContentType()).thenReturn("application/json");
+		lenient().when(message.getPayloadType()).thenReturn("Payload");
+		lenient().when(message.getCreatedAt()).thenReturn(ZonedDateTime.now().minusSeconds(1));
+		return message;
+	}
+}
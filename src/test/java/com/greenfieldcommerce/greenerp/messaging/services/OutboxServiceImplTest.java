@@ -0,0 +1,71 @@
+package com.greenfieldcommerce.greenerp.messaging.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.http.MediaType;
+
+import com.greenfieldcommerce.greenerp.messaging.entities.OutboxMessage;
+import com.greenfieldcommerce.greenerp.messaging.repositories.OutboxMessageRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxServiceImplTest
+{
+	@Mock
+	private OutboxMessageRepository outboxMessageRepository;
+
+	private SimpleMeterRegistry meterRegistry;
+	private OutboxServiceImpl service;
+
+	private record Payload(Long id, String name) { }
+
+	@BeforeEach
+	public void setup()
+	{
+		meterRegistry = new SimpleMeterRegistry();
+		service = new OutboxServiceImpl(outboxMessageRepository, new Jackson2JsonMessageConverter(), meterRegistry);
+	}
+
+	@Test
+	@DisplayName("Should store the converted payload along with its destination and type")
+	public void shouldStoreConvertedPayloadAlongWithItsDestinationAndType()
+	{
+		service.enqueue("exchange", "exchange.1", new Payload(1L, "name"));
+
+		final ArgumentCaptor<OutboxMessage> captor = ArgumentCaptor.forClass(OutboxMessage.class);
+		verify(outboxMessageRepository).save(captor.capture());
+		final OutboxMessage message = captor.getValue();
+
+		assertEquals("exchange", message.getExchange());
+		assertEquals("exchange.1", message.getRoutingKey());
+		assertEquals("{\"id\":1,\"name\":\"name\"}", message.getPayload());
+		assertEquals(MediaType.APPLICATION_JSON_VALUE, message.getContentType());
+		assertTrue(message.getPayloadType().endsWith("Payload"));
+		assertNotNull(message.getCreatedAt());
+		assertEquals(1, meterRegistry.get("greenerp.outbox.enqueued").tag("exchange", "exchange").counter().count());
+	}
+
+	@Test
+	@DisplayName("Should count the messages stored for each exchange apart")
+	public void shouldCountTheMessagesStoredForEachExchangeApart()
+	{
+		service.enqueue("exchange", "exchange.1", new Payload(1L, "name"));
+		service.enqueue("exchange", "exchange.2", new Payload(2L, "name"));
+		service.enqueue("other", "other.1", new Payload(3L, "name"));
+
+		assertEquals(2, meterRegistry.get("greenerp.outbox.enqueued").tag("exchange", "exchange").counter().count());
+		assertEquals(1, meterRegistry.get("greenerp.outbox.enqueued").tag("exchange", "other").counter().count());
+	}
+}
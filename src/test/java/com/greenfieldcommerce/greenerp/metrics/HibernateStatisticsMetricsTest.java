@@ -0,0 +1,59 @@
+package com.greenfieldcommerce.greenerp.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class HibernateStatisticsMetricsTest
+{
+	@Mock
+	private Statistics statistics;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	public void setup()
+	{
+		meterRegistry = new SimpleMeterRegistry();
+		new HibernateStatisticsMetrics(statistics).bindTo(meterRegistry);
+	}
+
+	@Test
+	@DisplayName("Should read the statements, entity loads and cache lookups from the current statistics")
+	public void shouldReadTheStatementsEntityLoadsAndCacheLookupsFromTheCurrentStatistics()
+	{
+		when(statistics.getPrepareStatementCount()).thenReturn(12L);
+		when(statistics.getEntityLoadCount()).thenReturn(40L);
+		when(statistics.getEntityFetchCount()).thenReturn(3L);
+		when(statistics.getSecondLevelCacheHitCount()).thenReturn(7L);
+		when(statistics.getSecondLevelCacheMissCount()).thenReturn(2L);
+
+		assertEquals(12, meterRegistry.get("greenerp.hibernate.statements").functionCounter().count());
+		assertEquals(40, meterRegistry.get("greenerp.hibernate.entities").tag("event", "load").functionCounter().count());
+		assertEquals(3, meterRegistry.get("greenerp.hibernate.entities").tag("event", "fetch").functionCounter().count());
+		assertEquals(7, meterRegistry.get("greenerp.hibernate.cache").tags("region", "second-level", "result", "hit").functionCounter().count());
+		assertEquals(2, meterRegistry.get("greenerp.hibernate.cache").tags("region", "second-level", "result", "miss").functionCounter().count());
+	}
+
+	@Test
+	@DisplayName("Should publish every meter under a stable name")
+	public void shouldPublishEveryMeterUnderAStableName()
+	{
+		assertEquals(1, meterRegistry.get("greenerp.hibernate.statements").meters().size());
+		assertEquals(1, meterRegistry.get("greenerp.hibernate.queries").meters().size());
+		assertEquals(5, meterRegistry.get("greenerp.hibernate.entities").meters().size());
+		assertEquals(2, meterRegistry.get("greenerp.hibernate.collections").meters().size());
+		assertEquals(4, meterRegistry.get("greenerp.hibernate.cache").meters().size());
+		assertEquals(1, meterRegistry.get("greenerp.hibernate.transactions").meters().size());
+	}
+}
@@ -0,0 +1,82 @@
+package com.greenfieldcommerce.greenerp.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+
+public class RequestStatementsMetricsFilterTest
+{
+	private StatementCountingInspector inspector;
+	private SimpleMeterRegistry meterRegistry;
+	private RequestStatementsMetricsFilter filter;
+
+	@BeforeEach
+	public void setup()
+	{
+		inspector = new StatementCountingInspector();
+		meterRegistry = new SimpleMeterRegistry();
+		filter = new RequestStatementsMetricsFilter(inspector, meterRegistry);
+	}
+
+	@Test
+	@DisplayName("Should record the statements prepared while handling a request, by method and URI pattern")
+	public void shouldRecordTheStatementsPreparedWhileHandlingARequest() throws Exception
+	{
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/contractors/1/invoices");
+
+		inspector.inspect("select outside of any request");
+		filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+			inspector.inspect("select contractor");
+			inspector.inspect("select invoices");
+			inspector.inspect("select count");
+			servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/contractors/{contractorId}/invoices");
+		});
+
+		final DistributionSummary summary = meterRegistry.get(RequestStatementsMetricsFilter.METRIC_NAME)
+			.tags("method", "GET", "uri", "/contractors/{contractorId}/invoices").summary();
+		assertEquals(1, summary.count());
+		assertEquals(3, summary.totalAmount());
+		assertEquals(0, inspector.stop());
+	}
+
+	@Test
+	@DisplayName("Should record the statements of failed requests under an unknown URI when no handler matched")
+	public void shouldRecordTheStatementsOfFailedRequestsUnderAnUnknownUri()
+	{
+		final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/unmapped");
+
+		assertThrows(ServletException.class, () -> filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+			inspector.inspect("select contractor");
+			throw new ServletException("failed");
+		}));
+
+		final DistributionSummary summary = meterRegistry.get(RequestStatementsMetricsFilter.METRIC_NAME).tags("method", "POST", "uri", "UNKNOWN").summary();
+		assertEquals(1, summary.totalAmount());
+	}
+
+	@Test
+	@DisplayName("Should record the requests of each method and URI pattern in a summary of their own")
+	public void shouldRecordTheRequestsOfEachMethodAndUriPatternInASummaryOfTheirOwn() throws Exception
+	{
+		for (final String method : new String[] { "GET", "GET", "POST" })
+		{
+			filter.doFilter(new MockHttpServletRequest(method, "/contractors"), new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+				inspector.inspect("select contractors");
+				servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/contractors");
+			});
+		}
+
+		assertEquals(2, meterRegistry.get(RequestStatementsMetricsFilter.METRIC_NAME).tags("method", "GET", "uri", "/contractors").summary().count());
+		assertEquals(1, meterRegistry.get(RequestStatementsMetricsFilter.METRIC_NAME).tags("method", "POST", "uri", "/contractors").summary().count());
+	}
+}
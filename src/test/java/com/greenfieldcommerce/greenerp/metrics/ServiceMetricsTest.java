@@ -0,0 +1,122 @@
+package com.greenfieldcommerce.greenerp.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.greenfieldcommerce.greenerp.clients.entities.Client;
+import com.greenfieldcommerce.greenerp.clients.repositories.ClientRepository;
+import com.greenfieldcommerce.greenerp.contractors.entities.Contractor;
+import com.greenfieldcommerce.greenerp.contractors.invoices.repositories.ContractorInvoiceRepository;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceService;
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceServiceImpl;
+import com.greenfieldcommerce.greenerp.contractors.rates.entities.ContractorRate;
+import com.greenfieldcommerce.greenerp.contractors.rates.repositories.ContractorRateRepository;
+import com.greenfieldcommerce.greenerp.contractors.rates.services.ContractorRateServiceImpl;
+import com.greenfieldcommerce.greenerp.contractors.repositories.ContractorRepository;
+import com.greenfieldcommerce.greenerp.exceptions.DuplicateContractorInvoiceException;
+import com.greenfieldcommerce.greenerp.messaging.repositories.OutboxMessageRepository;
+import com.greenfieldcommerce.greenerp.services.TimeService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Checks that service operations and the persistence layer are published as meters, under the names alerts rely on.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class ServiceMetricsTest
+{
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private ContractorInvoiceService contractorInvoiceService;
+	@Autowired
+	private ContractorRepository contractorRepository;
+	@Autowired
+	private ClientRepository clientRepository;
+	@Autowired
+	private ContractorRateRepository contractorRateRepository;
+	@Autowired
+	private ContractorInvoiceRepository contractorInvoiceRepository;
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+
+	private Contractor contractor;
+
+	@BeforeEach
+	public void setup()
+	{
+		final Client client = clientRepository.save(Client.create("Client", "client@greenfieldcommerce.com", Currency.getInstance("USD"), 10));
+		contractor = contractorRepository.save(Contractor.create("contractor@greenfieldcommerce.com", "Contractor"));
+		contractorRateRepository.save(ContractorRate.create(contractor, client, BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.TEN,
+			Currency.getInstance("USD"), TimeService.now().minusYears(1), TimeService.now().plusYears(1)));
+	}
+
+	@AfterEach
+	public void cleanup()
+	{
+		outboxMessageRepository.deleteAll();
+		contractorInvoiceRepository.deleteAll();
+		contractorRateRepository.deleteAll();
+		contractorRepository.deleteAll();
+		clientRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Should time service operations by operation and exception")
+	public void shouldTimeServiceOperationsByOperationAndException()
+	{
+		final String duplicate = DuplicateContractorInvoiceException.class.getSimpleName();
+		final long created = timerCount(ContractorInvoiceServiceImpl.OPERATION_TIMER, "operation", "create", "exception", "none");
+		final long rejected = timerCount(ContractorInvoiceServiceImpl.OPERATION_TIMER, "operation", "create", "exception", duplicate);
+		final long rateLookups = timerCount(ContractorRateServiceImpl.OPERATION_TIMER, "operation", "current-rate-lookup");
+		final double enqueued = counterCount("greenerp.outbox.enqueued", "exchange", "contractor-invoice-created");
+
+		contractorInvoiceService.create(contractor.getId(), BigDecimal.TEN);
+		assertThrows(DuplicateContractorInvoiceException.class, () -> contractorInvoiceService.create(contractor.getId(), BigDecimal.TEN));
+
+		assertEquals(created + 1, timerCount(ContractorInvoiceServiceImpl.OPERATION_TIMER, "operation", "create", "exception", "none"));
+		assertEquals(rejected + 1, timerCount(ContractorInvoiceServiceImpl.OPERATION_TIMER, "operation", "create", "exception", duplicate));
+		assertEquals(rateLookups + 2, timerCount(ContractorRateServiceImpl.OPERATION_TIMER, "operation", "current-rate-lookup"));
+		assertEquals(enqueued + 1, counterCount("greenerp.outbox.enqueued", "exchange", "contractor-invoice-created"));
+	}
+
+	@Test
+	@DisplayName("Should publish the Hibernate statistics as meters")
+	public void shouldPublishTheHibernateStatisticsAsMeters()
+	{
+		final double statements = meterRegistry.get("greenerp.hibernate.statements").functionCounter().count();
+		final double inserts = meterRegistry.get("greenerp.hibernate.entities").tag("event", "insert").functionCounter().count();
+
+		contractorInvoiceService.create(contractor.getId(), BigDecimal.TEN);
+
+		assertTrue(meterRegistry.get("greenerp.hibernate.statements").functionCounter().count() > statements);
+		assertTrue(meterRegistry.get("greenerp.hibernate.entities").tag("event", "insert").functionCounter().count() > inserts);
+	}
+
+	private long timerCount(final String name, final String... tags)
+	{
+		final Timer timer = meterRegistry.find(name).tags(tags).timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	private double counterCount(final String name, final String... tags)
+	{
+		final Counter counter = meterRegistry.find(name).tags(tags).counter();
+		return counter == null ? 0 : counter.count();
+	}
+}
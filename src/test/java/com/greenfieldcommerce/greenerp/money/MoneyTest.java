@@ -0,0 +1,69 @@
+package com.greenfieldcommerce.greenerp.money;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MoneyTest
+{
+	private static final Currency USD = Currency.getInstance("USD");
+	private static final Currency EUR = Currency.getInstance("EUR");
+	private static final Currency JPY = Currency.getInstance("JPY");
+
+	@Test
+	@DisplayName("Should hold amounts in the minor units of their currency, rounding half up")
+	public void shouldHoldAmountsInTheMinorUnitsOfTheirCurrency()
+	{
+		assertEquals(301111, Money.of(new BigDecimal("3011.105"), USD).minorUnits());
+		assertEquals(-301111, Money.of(new BigDecimal("-3011.105"), USD).minorUnits());
+		assertEquals(3012, Money.of(new BigDecimal("3011.5"), JPY).minorUnits());
+		assertEquals(new BigDecimal("3011.11"), Money.of(new BigDecimal("3011.105"), USD).toBigDecimal());
+		assertEquals(new BigDecimal("3012"), Money.of(new BigDecimal("3011.5"), JPY).toBigDecimal());
+	}
+
+	@Test
+	@DisplayName("Should round products and quotients once, to the minor units of the currency")
+	public void shouldRoundProductsAndQuotientsOnce()
+	{
+		assertEquals(Money.ofMinor(301110, USD), Money.of(new BigDecimal("20").multiply(new BigDecimal("150.555")), USD));
+		assertEquals(Money.ofMinor(3224, USD), Money.ofMinor(1500, USD).times(new BigDecimal("2.149")));
+		assertEquals(Money.ofMinor(500000, USD), Money.ofMinor(412500, USD).dividedBy(new BigDecimal("0.825")));
+		assertEquals(Money.ofMinor(333, USD), Money.ofMinor(1000, USD).dividedBy(new BigDecimal("3")));
+	}
+
+	@Test
+	@DisplayName("Should add and subtract amounts exactly")
+	public void shouldAddAndSubtractAmountsExactly()
+	{
+		final Money total = Money.of(new BigDecimal("0.10"), USD).plus(Money.of(new BigDecimal("0.20"), USD));
+
+		assertEquals(Money.of(new BigDecimal("0.3"), USD), total);
+		assertEquals(Money.zero(USD), total.minus(total));
+		assertEquals(Money.ofMinor(-30, USD), total.negate());
+		assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE, USD).plus(Money.ofMinor(1, USD)));
+	}
+
+	@Test
+	@DisplayName("Should not combine amounts in different currencies")
+	public void shouldNotCombineAmountsInDifferentCurrencies()
+	{
+		assertThrows(IllegalArgumentException.class, () -> Money.zero(USD).plus(Money.zero(EUR)));
+		assertThrows(IllegalArgumentException.class, () -> Money.zero(USD).compareTo(Money.zero(EUR)));
+		assertThrows(IllegalArgumentException.class, () -> new MoneyTotal(USD).add(Money.zero(EUR)));
+	}
+
+	@Test
+	@DisplayName("Should sum amounts into a total")
+	public void shouldSumAmountsIntoATotal()
+	{
+		final Money total = new MoneyTotal(USD).add(Money.ofMinor(1000, USD)).add(new BigDecimal("2.505")).addMinor(1).toMoney();
+
+		assertEquals(Money.ofMinor(1252, USD), total);
+		assertEquals("12.52 USD", total.toString());
+	}
+}
@@ -0,0 +1,61 @@
+package config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.greenfieldcommerce.greenerp.contractors.invoices.services.ContractorInvoiceService;
+import com.greenfieldcommerce.greenerp.security.AuthenticationConstraint;
+
+/**
+ * Serves load tests over HTTP: any bearer token authenticates an administrator, and
+ * {@value BlockingInvoicesController#PATH} stands for a typical handler, blocking on a downstream call before reading
+ * a page of invoices.
+ */
+@TestConfiguration
+public class LoadTestConfiguration
+{
+	public static final Duration DOWNSTREAM_LATENCY = Duration.ofMillis(50);
+
+	@Bean
+	public JwtDecoder jwtDecoder()
+	{
+		return token -> Jwt.withTokenValue(token).header("alg", "none").subject("load-test")
+			.claim("realm_access", Map.of("roles", List.of(AuthenticationConstraint.ROLE_ADMIN)))
+			.issuedAt(Instant.now()).expiresAt(Instant.now().plusSeconds(3600)).build();
+	}
+
+	@RestController
+	public static class BlockingInvoicesController
+	{
+		public static final String PATH = "/load-test/contractors/{contractorId}/invoices";
+
+		private final ContractorInvoiceService contractorInvoiceService;
+
+		public BlockingInvoicesController(final ContractorInvoiceService contractorInvoiceService)
+		{
+			this.contractorInvoiceService = contractorInvoiceService;
+		}
+
+		/**
+		 * Blocks for {@link #DOWNSTREAM_LATENCY}, as a confirmed {@code RabbitTemplate} publish would, then counts the
+		 * invoices of a contractor through the real service.
+		 */
+		@GetMapping(PATH)
+		public long findInvoices(@PathVariable("contractorId") final Long contractorId) throws InterruptedException
+		{
+			Thread.sleep(DOWNSTREAM_LATENCY);
+			return contractorInvoiceService.findByContractor(contractorId, PageRequest.of(0, 12)).getTotalElements();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import com.greenfieldcommerce.greenerp.helpers.StatementCounter;
+
+/**
+ * Routes every {@link DataSource} of the context through a {@link StatementCounter}, so tests can count the statements
+ * a request executes.
+ */
+@TestConfiguration
+public class StatementCountingConfiguration
+{
+	@Bean
+	public StatementCounter statementCounter()
+	{
+		return new StatementCounter();
+	}
+
+	@Bean
+	public static BeanPostProcessor statementCountingDataSourcePostProcessor(final ObjectProvider<StatementCounter> statementCounter)
+	{
+		return new BeanPostProcessor()
+		{
+			@Override
+			public Object postProcessAfterInitialization(final Object bean, final String beanName)
+			{
+				return bean instanceof DataSource dataSource ? statementCounter.getObject().wrap(dataSource) : bean;
+			}
+		};
+	}
+}